@@ -0,0 +1,155 @@
+package taskL3T08.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.BulkOperations;
+import taskL3T08.BulkResult;
+import taskL3T08.ProjectManager;
+import taskL3T08.SchemaMigrator;
+
+/**
+ * The BulkBenchmark class measures finalizing and deleting a batch of projects one round trip per
+ * project through {@link ProjectManager}, against doing it with {@link BulkOperations}. Each
+ * operation changes a freshly inserted batch, so it is timed once per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class BulkBenchmark {
+  private static final String PROJECT_PREFIX = SeededDatabase.BENCH_PREFIX + "bulk-";
+
+  /** Number of projects finalized or deleted per operation. */
+  @Param({"100", "1000"})
+  public int batch;
+
+  private Connection connection;
+  private ProjectManager projectManager;
+  private BulkOperations bulkOperations;
+  private List<Integer> projectIds;
+  private int inserted;
+
+  /**
+   * Creates the schema and removes any batch left by an earlier run.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Trial)
+  public void open() throws SQLException {
+    connection = SeededDatabase.connect();
+    new SchemaMigrator(connection).migrate();
+    deleteBatch();
+    projectManager = new ProjectManager();
+    projectManager.setMessages(new PrintStream(OutputStream.nullOutputStream()));
+    bulkOperations = new BulkOperations(connection);
+  }
+
+  /**
+   * Closes the connection.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @TearDown(Level.Trial)
+  public void close() throws SQLException {
+    connection.close();
+  }
+
+  /**
+   * Inserts the batch of projects the next operation changes.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Invocation)
+  public void insertBatch() throws SQLException {
+    String sql = "INSERT INTO Projects (project_number, project_name, total_fee, total_paid) "
+        + "VALUES (?, ?, 1000, 0)";
+    connection.setAutoCommit(false);
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < batch; i++) {
+        String name = PROJECT_PREFIX + inserted++;
+        preparedStatement.setString(1, name);
+        preparedStatement.setString(2, name);
+        preparedStatement.addBatch();
+      }
+      preparedStatement.executeBatch();
+      connection.commit();
+    } finally {
+      connection.setAutoCommit(true);
+    }
+
+    projectIds = new ArrayList<>(batch);
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "SELECT project_id FROM Projects WHERE project_number LIKE ? ORDER BY project_id")) {
+      preparedStatement.setString(1, PROJECT_PREFIX + "%");
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          projectIds.add(resultSet.getInt(1));
+        }
+      }
+    }
+    if (projectIds.size() != batch) {
+      throw new IllegalStateException(
+          "Expected " + batch + " projects in the batch, found " + projectIds.size());
+    }
+  }
+
+  /**
+   * Deletes what is left of the batch.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @TearDown(Level.Invocation)
+  public void deleteBatch() throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "DELETE FROM Projects WHERE project_number LIKE ?")) {
+      preparedStatement.setString(1, PROJECT_PREFIX + "%");
+      preparedStatement.executeUpdate();
+    }
+  }
+
+  @Benchmark
+  public void finalizeLoop() throws SQLException {
+    for (int projectId : projectIds) {
+      projectManager.finalizeProject(connection, projectId);
+    }
+  }
+
+  @Benchmark
+  public BulkResult finalizeBulk() throws SQLException {
+    return bulkOperations.finalizeProjects(projectIds);
+  }
+
+  @Benchmark
+  public void deleteLoop() throws SQLException {
+    for (int projectId : projectIds) {
+      projectManager.deleteProject(connection, projectId);
+    }
+  }
+
+  @Benchmark
+  public BulkResult deleteBulk() throws SQLException {
+    return bulkOperations.deleteProjects(projectIds);
+  }
+}
@@ -0,0 +1,200 @@
+package taskL3T08.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.ProjectManager;
+import taskL3T08.SchemaMigrator;
+import taskL3T08.UpdateResult;
+
+/**
+ * The ContentionBenchmark class measures the throughput of read-modify-write updates of a few
+ * shared projects from many threads, each with its own connection: optimistic versioned updates
+ * retried on conflict, against holding the row lock with {@code SELECT ... FOR UPDATE}. Each
+ * operation adds 1 to a project's amount paid; the conflicts retried are reported as a secondary
+ * result. ContentionTest checks that neither strategy loses updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class ContentionBenchmark {
+  private static final String PROJECT_PREFIX = SeededDatabase.BENCH_PREFIX + "contended-";
+
+  /** Number of projects the threads share. */
+  @Param({"1", "4", "64"})
+  public int hotProjects;
+
+  private Connection connection;
+  private int firstProjectId;
+
+  /**
+   * A thread's own connection, and the conflicts it has retried.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Worker {
+    /** Versioned updates retried because another thread changed the project first. */
+    public long conflicts;
+
+    Connection connection;
+    ProjectManager projectManager;
+
+    /**
+     * Opens the thread's connection.
+     *
+     * @throws SQLException If a database access error occurs.
+     */
+    @Setup(Level.Trial)
+    public void open() throws SQLException {
+      connection = SeededDatabase.connect();
+      projectManager = new ProjectManager();
+      projectManager.setMessages(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    /**
+     * Closes the thread's connection.
+     *
+     * @throws SQLException If a database access error occurs.
+     */
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+      connection.close();
+    }
+  }
+
+  /**
+   * Creates the schema and the shared projects.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Trial)
+  public void seed() throws SQLException {
+    connection = SeededDatabase.connect();
+    new SchemaMigrator(connection).migrate();
+    deleteProjects();
+    try (Statement statement = connection.createStatement()) {
+      for (int i = 0; i < hotProjects; i++) {
+        statement.executeUpdate("INSERT INTO Projects (project_number, project_name, total_fee, "
+            + "total_paid) VALUES ('" + PROJECT_PREFIX + i + "', '" + PROJECT_PREFIX + i
+            + "', 1000000000, 0)", Statement.RETURN_GENERATED_KEYS);
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+          keys.next();
+          firstProjectId = i == 0 ? keys.getInt(1) : Math.min(firstProjectId, keys.getInt(1));
+        }
+      }
+    }
+  }
+
+  /**
+   * Deletes the shared projects and closes the connection.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @TearDown(Level.Trial)
+  public void cleanUp() throws SQLException {
+    try {
+      deleteProjects();
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Adds 1 to a shared project's amount paid with a versioned update, retrying if another thread
+   * changed the project in between.
+   *
+   * @param worker The thread's connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Benchmark
+  public void optimistic(Worker worker) throws SQLException {
+    int projectId = randomProjectId();
+    String sql = "SELECT total_paid, version FROM Projects WHERE project_id = ?";
+    while (true) {
+      double totalPaid;
+      int version;
+      try (PreparedStatement preparedStatement = worker.connection.prepareStatement(sql)) {
+        preparedStatement.setInt(1, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          resultSet.next();
+          totalPaid = resultSet.getDouble(1);
+          version = resultSet.getInt(2);
+        }
+      }
+      if (worker.projectManager.updateProject(worker.connection, projectId,
+          Map.of("total_paid", totalPaid + 1), version) == UpdateResult.UPDATED) {
+        return;
+      }
+      worker.conflicts++;
+    }
+  }
+
+  /**
+   * Adds 1 to a shared project's amount paid while holding its row lock.
+   *
+   * @param worker The thread's connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Benchmark
+  public void pessimistic(Worker worker) throws SQLException {
+    int projectId = randomProjectId();
+    Connection own = worker.connection;
+    own.setAutoCommit(false);
+    try {
+      double totalPaid;
+      String sql = "SELECT total_paid FROM Projects WHERE project_id = ? FOR UPDATE";
+      try (PreparedStatement preparedStatement = own.prepareStatement(sql)) {
+        preparedStatement.setInt(1, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          resultSet.next();
+          totalPaid = resultSet.getDouble(1);
+        }
+      }
+      worker.projectManager.updateProject(own, projectId, Map.of("total_paid", totalPaid + 1));
+      own.commit();
+    } catch (SQLException | RuntimeException e) {
+      own.rollback();
+      throw e;
+    } finally {
+      own.setAutoCommit(true);
+    }
+  }
+
+  private int randomProjectId() {
+    return firstProjectId + ThreadLocalRandom.current().nextInt(hotProjects);
+  }
+
+  private void deleteProjects() throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "DELETE FROM Projects WHERE project_number LIKE ?")) {
+      preparedStatement.setString(1, PROJECT_PREFIX + "%");
+      preparedStatement.executeUpdate();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package taskL3T08.benchmarks;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The CrudBenchmark class measures adding and updating single projects through
+ * {@link taskL3T08.DatabaseManager}, as the menu does, in a database of each seeded size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CrudBenchmark {
+  private final String deadline = LocalDate.now().plusYears(1).toString();
+  private long added;
+
+  /**
+   * Adds a new project with {@code addNewRecord}.
+   *
+   * @param database The seeded database.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Benchmark
+  public void addNewRecord(SeededDatabase database) throws SQLException {
+    database.databaseManager.addNewRecord("Projects",
+        projectValues(database, SeededDatabase.BENCH_PREFIX + "added-" + added++, 0));
+  }
+
+  /**
+   * Rewrites a random seeded project with {@code updateExistingRecord}.
+   *
+   * @param database The seeded database.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Benchmark
+  public void updateExistingRecord(SeededDatabase database) throws SQLException {
+    int projectId = database.randomProjectId();
+    database.databaseManager.updateExistingRecord("Projects", projectValues(database,
+        SeededDatabase.BENCH_PREFIX + (projectId - database.firstProjectId), projectId));
+  }
+
+  /**
+   * Builds the values {@code addNewRecord} and {@code updateExistingRecord} take for a project.
+   */
+  private String[] projectValues(SeededDatabase database, String projectNumber, int projectId) {
+    String architectId = Integer.toString(database.firstArchitectId);
+    return new String[] {projectNumber, projectNumber + " House", "House", "1 Bench Road",
+        "ERF-" + projectNumber, "50000", "1000", deadline, "false", architectId, "0", "0", "0",
+        "0", Integer.toString(projectId)};
+  }
+}
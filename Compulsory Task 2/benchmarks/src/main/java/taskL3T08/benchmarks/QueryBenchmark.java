@@ -0,0 +1,136 @@
+package taskL3T08.benchmarks;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.OutputFormat;
+import taskL3T08.ProjectDetails;
+import taskL3T08.ProjectFilter;
+import taskL3T08.ProjectManager;
+import taskL3T08.ProjectSearchIndex;
+import taskL3T08.ProjectSummary;
+import taskL3T08.ResultRenderer;
+import taskL3T08.SearchMode;
+
+/**
+ * The QueryBenchmark class measures the table dump, listings, lookups and searches the menu runs,
+ * in a database of each seeded size. Rendered rows are written to a null writer, so only the
+ * query and rendering are measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+  /** Number of projects looked up by each batched detail lookup. */
+  private static final int DETAIL_BATCH_SIZE = 100;
+
+  private final PrintWriter sink = new PrintWriter(Writer.nullWriter());
+  private final ResultRenderer renderer = new ResultRenderer(sink, OutputFormat.TSV);
+  private ProjectManager indexedProjectManager;
+  private List<Integer> detailBatch;
+
+  /**
+   * Loads a search index over the seeded projects and picks the projects for the batched lookup.
+   *
+   * @param database The seeded database.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Trial)
+  public void prepare(SeededDatabase database) throws SQLException {
+    ProjectSearchIndex searchIndex = new ProjectSearchIndex();
+    searchIndex.load(database.connection);
+    indexedProjectManager = new ProjectManager(searchIndex);
+    detailBatch = new ArrayList<>();
+    for (int i = 0; i < DETAIL_BATCH_SIZE; i++) {
+      detailBatch.add(database.randomProjectId());
+    }
+  }
+
+  @Benchmark
+  public void displayAllColumns(SeededDatabase database) throws SQLException {
+    database.databaseManager.displayAllColumns("Projects", sink);
+  }
+
+  @Benchmark
+  public void readIncompleteProjects(SeededDatabase database) throws SQLException {
+    database.projectManager.readProjects(database.connection, ProjectFilter.INCOMPLETE, renderer);
+  }
+
+  @Benchmark
+  public void readOverdueProjects(SeededDatabase database) throws SQLException {
+    database.projectManager.readProjects(database.connection, ProjectFilter.OVERDUE, renderer);
+  }
+
+  @Benchmark
+  public void findProjectByNumberOrName(SeededDatabase database) throws SQLException {
+    database.projectManager.findProjectByNumberOrName(database.connection,
+        SeededDatabase.BENCH_PREFIX + (database.randomProjectId() - database.firstProjectId),
+        "no such name", renderer);
+  }
+
+  @Benchmark
+  public ProjectDetails findProjectDetails(SeededDatabase database) throws SQLException {
+    return database.projectManager.findProjectDetails(database.connection,
+        database.randomProjectId());
+  }
+
+  @Benchmark
+  public List<ProjectDetails> findProjectDetailsBatch(SeededDatabase database)
+      throws SQLException {
+    return database.projectManager.findProjectDetails(database.connection, detailBatch);
+  }
+
+  /**
+   * Searches by project name prefix in SQL, as before the search index has loaded.
+   */
+  @Benchmark
+  public List<ProjectSummary> searchProjectsSql(SeededDatabase database) throws SQLException {
+    return database.projectManager.searchProjects(database.connection, searchText(),
+        SearchMode.PREFIX, 20);
+  }
+
+  /**
+   * Searches by project name prefix in the loaded search index.
+   */
+  @Benchmark
+  public List<ProjectSummary> searchProjectsIndexed(SeededDatabase database)
+      throws SQLException {
+    return indexedProjectManager.searchProjects(database.connection, searchText(),
+        SearchMode.PREFIX, 20);
+  }
+
+  /**
+   * Searches with misspelt words in the loaded search index.
+   */
+  @Benchmark
+  public List<ProjectSummary> searchProjectsFuzzy(SeededDatabase database) throws SQLException {
+    return indexedProjectManager.searchProjects(database.connection, "Hosue " + randomNumber(),
+        SearchMode.FUZZY, 20);
+  }
+
+  private static String searchText() {
+    return SeededDatabase.BENCH_PREFIX + "House " + randomNumber();
+  }
+
+  private static int randomNumber() {
+    return ThreadLocalRandom.current().nextInt(1_000);
+  }
+}
@@ -0,0 +1,137 @@
+package taskL3T08.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.OutputFormat;
+import taskL3T08.ResultRenderer;
+
+/**
+ * The RenderBenchmark class measures rendering project rows with {@link ResultRenderer} in each
+ * {@link OutputFormat}, to a null writer (the formatting alone) and to a file, against printing
+ * one cell at a time to an auto-flushing stream as the console listings used to. Scores are per
+ * row. It does not use the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+  /** Number of rows rendered per operation. */
+  private static final int ROWS = 100_000;
+
+  /** Number of distinct rows cycled through. */
+  private static final int DISTINCT_ROWS = 1_000;
+
+  private static final String[] COLUMNS = {"project_id", "project_number", "project_name",
+      "building_type", "physical_address", "erf_number", "total_fee", "total_paid", "deadline",
+      "is_finalised", "completion_date", "architect_id", "contractor_id", "customer_id",
+      "structural_engineer_id"};
+
+  private static final int[] SQL_TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR,
+      Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE, Types.DATE,
+      Types.BIT, Types.DATE, Types.INTEGER, Types.INTEGER, Types.INTEGER, Types.INTEGER};
+
+  private final String[][] data = new String[DISTINCT_ROWS][];
+  private Path file;
+
+  /**
+   * The output format rendered.
+   */
+  @State(Scope.Benchmark)
+  public static class Format {
+    /** The format. */
+    @Param({"TABLE", "TSV", "JSON_LINES"})
+    public OutputFormat format;
+  }
+
+  /**
+   * Builds the rows and the file they are written to.
+   *
+   * @throws IOException If the file cannot be created.
+   */
+  @Setup(Level.Trial)
+  public void prepare() throws IOException {
+    for (int i = 0; i < data.length; i++) {
+      data[i] = new String[] {String.valueOf(i + 1), SeededDatabase.BENCH_PREFIX + i,
+          "Bench Project " + i, i % 3 == 0 ? "House" : "Apartment", i + " Bench Street",
+          "ERF" + i, String.valueOf(1000.0 + i), String.valueOf(i % 1000 * 1.0), "2024-06-30",
+          i % 4 == 0 ? "1" : "0", i % 4 == 0 ? "2024-06-01" : null, String.valueOf(i % 50 + 1),
+          String.valueOf(i % 40 + 1), String.valueOf(i + 1), null};
+    }
+    file = Files.createTempFile("poisepms-render", ".out");
+  }
+
+  /**
+   * Deletes the file.
+   *
+   * @throws IOException If the file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void cleanUp() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long toNullWriter(Format format) {
+    PrintWriter out = new PrintWriter(Writer.nullWriter());
+    long rows = render(new ResultRenderer(out, format.format));
+    out.flush();
+    return rows;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public long toFile(Format format) throws IOException {
+    try (PrintWriter out = ResultRenderer.fileWriter(file)) {
+      return render(new ResultRenderer(out, format.format));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ROWS)
+  public void perCellPrintToFile() throws IOException {
+    try (PrintStream out = new PrintStream(
+        new BufferedOutputStream(new FileOutputStream(file.toFile())), true)) {
+      for (int i = 0; i < ROWS; i++) {
+        for (String cell : data[i % data.length]) {
+          out.print(cell);
+          out.print('\t');
+        }
+        out.println();
+      }
+    }
+  }
+
+  private long render(ResultRenderer renderer) {
+    renderer.begin("Projects", COLUMNS, SQL_TYPES);
+    for (int i = 0; i < ROWS; i++) {
+      renderer.row(data[i % data.length]);
+    }
+    return renderer.end();
+  }
+}
@@ -0,0 +1,93 @@
+package taskL3T08.benchmarks;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.FeeGroup;
+import taskL3T08.FeeGrouping;
+import taskL3T08.FinancialReport;
+import taskL3T08.FinancialReports;
+import taskL3T08.ProjectDashboard;
+import taskL3T08.ProjectFilter;
+
+/**
+ * The ReportBenchmark class measures the {@link FinancialReports} grouped in SQL against the full
+ * report computed in one streamed pass, and reconciling and reading the same totals from a
+ * {@link ProjectDashboard}, in a database of each seeded size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportBenchmark {
+  private FinancialReports reports;
+  private ProjectDashboard dashboard;
+
+  /**
+   * The grouping reported by {@link #feesBy}.
+   */
+  @State(Scope.Benchmark)
+  public static class Grouping {
+    /** The grouping. */
+    @Param({"BUILDING_TYPE", "CUSTOMER", "ARCHITECT", "DEADLINE_MONTH"})
+    public FeeGrouping grouping;
+  }
+
+  /**
+   * Creates the reports and reconciles a dashboard that is not registered for change events.
+   *
+   * @param database The seeded database.
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Trial)
+  public void prepare(SeededDatabase database) throws SQLException {
+    reports = new FinancialReports(database.connection);
+    dashboard = new ProjectDashboard();
+    dashboard.reconcile(database.connection);
+  }
+
+  @Benchmark
+  public FeeGroup totals() throws SQLException {
+    return reports.totals(ProjectFilter.ALL);
+  }
+
+  @Benchmark
+  public List<FeeGroup> feesBy(Grouping grouping) throws SQLException {
+    return reports.feesBy(grouping.grouping, ProjectFilter.ALL);
+  }
+
+  @Benchmark
+  public List<FeeGroup> outstandingBalances() throws SQLException {
+    return reports.outstandingBalances(ProjectFilter.ALL, 20);
+  }
+
+  @Benchmark
+  public FinancialReport fullReport() throws SQLException {
+    return reports.fullReport(ProjectFilter.ALL);
+  }
+
+  @Benchmark
+  public int dashboardReconcile(SeededDatabase database) throws SQLException {
+    return dashboard.reconcile(database.connection);
+  }
+
+  @Benchmark
+  public Map<ProjectFilter, FeeGroup> dashboardSummary() {
+    return dashboard.summary();
+  }
+}
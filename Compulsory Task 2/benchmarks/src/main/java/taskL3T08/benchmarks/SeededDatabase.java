@@ -0,0 +1,238 @@
+package taskL3T08.benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import taskL3T08.DatabaseManager;
+import taskL3T08.ProjectManager;
+import taskL3T08.SchemaMigrator;
+import taskL3T08.Table;
+
+/**
+ * The SeededDatabase class is the database every benchmark runs against: the application's schema
+ * with the given number of projects and a few people of each kind. By default it is an embedded
+ * H2 database in MySQL mode, created in memory for each fork. Set {@code -Dpoisepms.bench.url}
+ * (with {@code poisepms.bench.user} and {@code poisepms.bench.password}) to run against a real
+ * server instead; point it at a scratch schema, since the benchmark seeds and then deletes its own
+ * {@code bench-} rows.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+  /** Prefix of the project numbers and names of every row the benchmark creates. */
+  static final String BENCH_PREFIX = "bench-";
+
+  /** Number of people of each kind that seeded projects refer to. */
+  static final int PEOPLE_PER_TABLE = 100;
+
+  private static final String EMBEDDED_URL = "jdbc:h2:mem:poisepms;MODE=MySQL;"
+      + "DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+  private static final int SEED_BATCH_SIZE = 1_000;
+
+  /** Number of projects seeded before measuring. */
+  @Param({"1000", "100000", "1000000"})
+  public int projects;
+
+  Connection connection;
+  DatabaseManager databaseManager;
+  ProjectManager projectManager;
+  int firstProjectId;
+  int firstArchitectId;
+
+  /**
+   * Creates the schema and seeds the projects and people.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @Setup(Level.Trial)
+  public void seed() throws SQLException {
+    connection = connect();
+    new SchemaMigrator(connection).migrate();
+    deleteBenchRows();
+
+    int[] firstPersonIds = new int[4];
+    Table[] people = {Table.ARCHITECTS, Table.CONTRACTORS, Table.CUSTOMERS,
+        Table.STRUCTURAL_ENGINEERS};
+    for (int t = 0; t < people.length; t++) {
+      firstPersonIds[t] = seedPeople(people[t]);
+    }
+    firstProjectId = seedProjects(firstPersonIds);
+    firstArchitectId = firstPersonIds[0];
+
+    PrintStream discarded = new PrintStream(OutputStream.nullOutputStream());
+    databaseManager = new DatabaseManager(connection);
+    databaseManager.setMessages(discarded);
+    projectManager = new ProjectManager();
+    projectManager.setMessages(discarded);
+  }
+
+  /**
+   * Deletes the benchmark's rows and closes the connection.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  @TearDown(Level.Trial)
+  public void cleanUp() throws SQLException {
+    try {
+      deleteBenchRows();
+    } finally {
+      connection.close();
+    }
+  }
+
+  /**
+   * Picks a seeded project at random.
+   *
+   * @return The project's ID.
+   */
+  int randomProjectId() {
+    return firstProjectId + ThreadLocalRandom.current().nextInt(projects);
+  }
+
+  /**
+   * Opens a connection to the benchmark database, the embedded one unless
+   * {@code poisepms.bench.url} is set. Each call to the embedded database connects to the same
+   * in-memory database.
+   *
+   * @return The connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Connection connect() throws SQLException {
+    String url = System.getProperty("poisepms.bench.url", EMBEDDED_URL);
+    Connection connection = DriverManager.getConnection(url,
+        System.getProperty("poisepms.bench.user", "sa"),
+        System.getProperty("poisepms.bench.password", ""));
+    if (url.startsWith("jdbc:h2:")) {
+      // The migrations hold a MySQL named lock; a single embedded database needs none
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("CREATE ALIAS IF NOT EXISTS GET_LOCK FOR \""
+            + SeededDatabase.class.getName() + ".getLock\"");
+        statement.execute("CREATE ALIAS IF NOT EXISTS RELEASE_LOCK FOR \""
+            + SeededDatabase.class.getName() + ".releaseLock\"");
+      }
+    }
+    return connection;
+  }
+
+  /** Stands in for MySQL's GET_LOCK on H2. */
+  public static int getLock(String name, int timeoutSeconds) {
+    return 1;
+  }
+
+  /** Stands in for MySQL's RELEASE_LOCK on H2. */
+  public static int releaseLock(String name) {
+    return 1;
+  }
+
+  /**
+   * Inserts the people of one table.
+   *
+   * @return The ID of the first person inserted.
+   */
+  private int seedPeople(Table table) throws SQLException {
+    String sql = "INSERT INTO " + table.getTableName()
+        + " (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < PEOPLE_PER_TABLE; i++) {
+        preparedStatement.setString(1, BENCH_PREFIX + table.getDisplayName() + " " + i);
+        preparedStatement.setString(2, "0000000000");
+        preparedStatement.setString(3, "bench" + i + "@example.com");
+        preparedStatement.setString(4, i + " Bench Street");
+        preparedStatement.addBatch();
+      }
+      preparedStatement.executeBatch();
+    }
+    return minId(table);
+  }
+
+  /**
+   * Inserts the projects, a third of them finalised, with deadlines spread over two years either
+   * side of today.
+   *
+   * @return The ID of the first project inserted.
+   */
+  private int seedProjects(int[] firstPersonIds) throws SQLException {
+    String sql = "INSERT INTO Projects (project_number, project_name, building_type, "
+        + "physical_address, erf_number, total_fee, total_paid, deadline, is_finalised, "
+        + "completion_date, architect_id, contractor_id, customer_id, structural_engineer_id, "
+        + "project_manager_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    String[] buildingTypes = {"House", "Apartment", "Office", "Warehouse", "School"};
+    LocalDate today = LocalDate.now();
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < projects; i++) {
+        boolean finalised = i % 3 == 0;
+        LocalDate deadline = today.plusDays(i % 1461 - 730);
+        preparedStatement.setString(1, BENCH_PREFIX + i);
+        preparedStatement.setString(2, BENCH_PREFIX + buildingTypes[i % 5] + " " + i);
+        preparedStatement.setString(3, buildingTypes[i % 5]);
+        preparedStatement.setString(4, i + " Bench Road");
+        preparedStatement.setString(5, "ERF" + i);
+        preparedStatement.setDouble(6, 10_000 + i % 90_000);
+        preparedStatement.setDouble(7, i % 10_000);
+        preparedStatement.setDate(8, Date.valueOf(deadline));
+        preparedStatement.setBoolean(9, finalised);
+        preparedStatement.setDate(10, finalised ? Date.valueOf(deadline) : null);
+        for (int p = 0; p < 4; p++) {
+          preparedStatement.setInt(11 + p, firstPersonIds[p] + i % PEOPLE_PER_TABLE);
+        }
+        preparedStatement.setInt(15, firstPersonIds[0] + i % PEOPLE_PER_TABLE);
+        preparedStatement.addBatch();
+        if ((i + 1) % SEED_BATCH_SIZE == 0) {
+          preparedStatement.executeBatch();
+          connection.commit();
+        }
+      }
+      preparedStatement.executeBatch();
+      connection.commit();
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+    return minId(Table.PROJECTS);
+  }
+
+  private int minId(Table table) throws SQLException {
+    String nameColumn = table == Table.PROJECTS ? "project_number" : "name";
+    String sql = "SELECT MIN(" + table.getIdColumn() + ") FROM " + table.getTableName()
+        + " WHERE " + nameColumn + " LIKE ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setString(1, BENCH_PREFIX + "%");
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        resultSet.next();
+        return resultSet.getInt(1);
+      }
+    }
+  }
+
+  private void deleteBenchRows() throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        "DELETE FROM Projects WHERE project_number LIKE ?")) {
+      preparedStatement.setString(1, BENCH_PREFIX + "%");
+      preparedStatement.executeUpdate();
+    }
+    for (Table table : Table.values()) {
+      if (table != Table.PROJECTS) {
+        try (PreparedStatement preparedStatement = connection.prepareStatement(
+            "DELETE FROM " + table.getTableName() + " WHERE name LIKE ?")) {
+          preparedStatement.setString(1, BENCH_PREFIX + "%");
+          preparedStatement.executeUpdate();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,88 @@
+package taskL3T08.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import taskL3T08.DatabaseSnapshot;
+import taskL3T08.OutputFormat;
+import taskL3T08.Table;
+
+/**
+ * The SnapshotBenchmark class measures exporting the database to a {@link DatabaseSnapshot} file
+ * against exporting every table as text, and reading a snapshot back, in a database of each
+ * seeded size. Loading a snapshot is not measured, since it needs an empty database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class SnapshotBenchmark {
+  private Path snapshotFile;
+  private Path exportFile;
+  private Path textFile;
+
+  /**
+   * Writes the snapshot that {@link #verify()} reads.
+   *
+   * @param database The seeded database.
+   * @throws SQLException If a database access error occurs.
+   * @throws IOException If a file cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void prepare(SeededDatabase database) throws SQLException, IOException {
+    snapshotFile = Files.createTempFile("poisepms-snapshot", ".bin");
+    exportFile = Files.createTempFile("poisepms-snapshot", ".bin");
+    textFile = Files.createTempFile("poisepms-snapshot", ".tsv");
+    new DatabaseSnapshot(database.connection).exportTo(snapshotFile);
+  }
+
+  /**
+   * Deletes the files.
+   *
+   * @throws IOException If a file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void cleanUp() throws IOException {
+    Files.deleteIfExists(snapshotFile);
+    Files.deleteIfExists(exportFile);
+    Files.deleteIfExists(textFile);
+  }
+
+  @Benchmark
+  public Map<Table, Long> exportSnapshot(SeededDatabase database)
+      throws SQLException, IOException {
+    return new DatabaseSnapshot(database.connection).exportTo(exportFile);
+  }
+
+  @Benchmark
+  public long exportTsv(SeededDatabase database) throws SQLException, IOException {
+    long bytes = 0;
+    for (Table table : Table.values()) {
+      database.databaseManager.exportTable(table.getTableName(), textFile, OutputFormat.TSV);
+      bytes += Files.size(textFile);
+    }
+    return bytes;
+  }
+
+  @Benchmark
+  public Map<Table, Long> verify() throws IOException {
+    return DatabaseSnapshot.verify(snapshotFile);
+  }
+}
@@ -1,3 +1,4 @@
 module CompulsoryTask2L3T08 {
   requires java.sql;
+  requires jdk.httpserver;
 }
@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The Architect record holds one row of the Architects table.
+ *
+ * @param id The ID of the architect.
+ * @param name The name of the architect.
+ * @param telephoneNumber The telephone number of the architect.
+ * @param emailAddress The email address of the architect.
+ * @param physicalAddress The physical address of the architect.
+ */
+public record Architect(int id, String name, String telephoneNumber, String emailAddress,
+    String physicalAddress) implements Person {
+}
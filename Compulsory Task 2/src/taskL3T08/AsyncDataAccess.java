@@ -0,0 +1,386 @@
+package taskL3T08;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * The AsyncDataAccess class runs {@link DatabaseManager} and {@link ProjectManager} operations in
+ * the background and returns {@link CompletableFuture}s for their results, so independent queries
+ * can run at the same time. Each operation runs on its own virtual thread with a connection
+ * borrowed from the pool for the duration of the operation.
+ *
+ * <p>
+ * At most a fixed number of operations hold a connection at once, by default the pool's maximum
+ * size. Operations beyond the limit wait on their (cheap) virtual thread rather than in the pool,
+ * so a burst of submissions queues instead of failing with pool borrow timeouts. Failed operations
+ * complete their future exceptionally with a {@link CompletionException} wrapping the
+ * {@link SQLException}.
+ */
+public class AsyncDataAccess implements AutoCloseable {
+  /**
+   * The ConnectionCallback interface is an operation run with a borrowed connection.
+   *
+   * @param <T> The type of the operation's result.
+   */
+  @FunctionalInterface
+  public interface ConnectionCallback<T> {
+    /**
+     * Runs the operation.
+     *
+     * @param connection The borrowed connection, returned to the pool afterwards.
+     * @return The result of the operation.
+     * @throws SQLException If a database access error occurs.
+     */
+    T apply(Connection connection) throws SQLException;
+  }
+
+  private final ConnectionPool pool;
+  private final int maxConcurrency;
+  private final Semaphore permits;
+  private final ExecutorService executor;
+  private final ProjectManager projectManager;
+
+  /**
+   * Constructor for AsyncDataAccess. As many operations run at once as the pool has connections.
+   *
+   * @param pool The pool operations borrow connections from.
+   */
+  public AsyncDataAccess(ConnectionPool pool) {
+    this(pool, pool.getMaxSize());
+  }
+
+  /**
+   * Constructor for AsyncDataAccess.
+   *
+   * @param pool The pool operations borrow connections from.
+   * @param maxConcurrency The maximum number of operations holding a connection at once.
+   */
+  public AsyncDataAccess(ConnectionPool pool, int maxConcurrency) {
+    if (maxConcurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be at least 1: " + maxConcurrency);
+    }
+    this.pool = pool;
+    this.maxConcurrency = maxConcurrency;
+    this.permits = new Semaphore(maxConcurrency, true);
+    this.executor = Executors.newVirtualThreadPerTaskExecutor();
+    this.projectManager = new ProjectManager();
+  }
+
+  /**
+   * Gets the maximum number of operations that hold a connection at once.
+   *
+   * @return The concurrency limit.
+   */
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+  /**
+   * Runs an operation in the background with a connection borrowed from the pool.
+   *
+   * @param <T> The type of the operation's result.
+   * @param callback The operation.
+   * @return A future completed with the operation's result.
+   */
+  public <T> CompletableFuture<T> submit(ConnectionCallback<T> callback) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        permits.acquire();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CompletionException(e);
+      }
+      try (Connection connection = pool.getConnection()) {
+        return callback.apply(connection);
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      } finally {
+        permits.release();
+      }
+    }, executor);
+  }
+
+  /**
+   * Prints all the rows of a table in the background.
+   *
+   * @param tableName The name of the table.
+   * @param out The writer to print to. It should not be shared with other running operations.
+   * @return A future completed once the table has been printed.
+   */
+  public CompletableFuture<Void> displayAllColumns(String tableName, PrintWriter out) {
+    return submit(connection -> {
+      new DatabaseManager(connection).displayAllColumns(tableName, out);
+      return null;
+    });
+  }
+
+  /**
+   * Prints every column of several tables, reading them concurrently from one consistent
+   * snapshot with {@link ParallelTableDump}. Up to one connection per table is borrowed, within
+   * the concurrency limit.
+   *
+   * @param tables The tables to print, in order.
+   * @param out The writer to print to. It is not flushed or closed, and should not be used by
+   *        anything else until the future completes.
+   * @return A future completed with true if every table was read from the same snapshot.
+   */
+  public CompletableFuture<Boolean> dumpTables(List<Table> tables, PrintWriter out) {
+    int readers = Math.max(1, Math.min(tables.size(), maxConcurrency));
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        permits.acquire(readers);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new CompletionException(e);
+      }
+      List<Connection> connections = new ArrayList<>(readers);
+      try {
+        for (int i = 0; i < readers; i++) {
+          connections.add(pool.getConnection());
+        }
+        return new ParallelTableDump(connections).dump(tables, out, executor);
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      } finally {
+        for (Connection connection : connections) {
+          try {
+            connection.close();
+          } catch (SQLException e) {
+            // Returning a connection to the pool does not fail in practice.
+          }
+        }
+        permits.release(readers);
+      }
+    }, executor);
+  }
+
+  /**
+   * Adds a project in the background.
+   *
+   * @param project The project to add. Its project ID is ignored.
+   * @return A future completed once the project has been added.
+   */
+  public CompletableFuture<Void> addProject(Project project) {
+    return submit(connection -> {
+      new DatabaseManager(connection).addProject(project);
+      return null;
+    });
+  }
+
+  /**
+   * Updates a project in the background.
+   *
+   * @param project The project, identified by its project ID.
+   * @return A future completed once the project has been updated.
+   */
+  public CompletableFuture<Void> updateProject(Project project) {
+    return submit(connection -> {
+      new DatabaseManager(connection).updateProject(project);
+      return null;
+    });
+  }
+
+  /**
+   * Updates only the given columns of a project in the background.
+   *
+   * @param projectId The ID of the project to update.
+   * @param changes The new values keyed by column name.
+   * @return A future completed with true if the project exists and was updated.
+   */
+  public CompletableFuture<Boolean> updateProject(int projectId, Map<String, Object> changes) {
+    return submit(connection -> projectManager.updateProject(connection, projectId, changes));
+  }
+
+  /**
+   * Updates only the given columns of a project in the background, if it still has the expected
+   * version.
+   *
+   * @param projectId The ID of the project to update.
+   * @param changes The new values keyed by column name.
+   * @param expectedVersion The version of the project the new values are based on.
+   * @return A future completed with the outcome of the update.
+   */
+  public CompletableFuture<UpdateResult> updateProject(int projectId, Map<String, Object> changes,
+      int expectedVersion) {
+    return submit(connection -> projectManager.updateProject(connection, projectId, changes,
+        expectedVersion));
+  }
+
+  /**
+   * Adds a person in the background.
+   *
+   * @param table The people table to add to.
+   * @param person The person to add. Their ID is ignored.
+   * @return A future completed once the person has been added.
+   */
+  public CompletableFuture<Void> addPerson(Table table, Person person) {
+    return submit(connection -> {
+      new DatabaseManager(connection).addPerson(table, person);
+      return null;
+    });
+  }
+
+  /**
+   * Updates a person in the background.
+   *
+   * @param table The people table the person belongs to.
+   * @param person The person, identified by their ID.
+   * @return A future completed once the person has been updated.
+   */
+  public CompletableFuture<Void> updatePerson(Table table, Person person) {
+    return submit(connection -> {
+      new DatabaseManager(connection).updatePerson(table, person);
+      return null;
+    });
+  }
+
+  /**
+   * Finds a person in the background.
+   *
+   * @param table The people table to look in.
+   * @param id The person's ID.
+   * @return A future completed with the person, or null if there is no person with that ID.
+   */
+  public CompletableFuture<Person> findPerson(Table table, int id) {
+    return submit(connection -> new DatabaseManager(connection).findPerson(table, id));
+  }
+
+  /**
+   * Finds a project in the background.
+   *
+   * @param projectId The ID of the project.
+   * @return A future completed with the project, or null if there is no project with that ID.
+   */
+  public CompletableFuture<Project> findProject(int projectId) {
+    return submit(connection -> projectManager.findProject(connection, projectId));
+  }
+
+  /**
+   * Finds a project and the people assigned to it in the background.
+   *
+   * @param projectId The ID of the project.
+   * @return A future completed with the details, or null if there is no project with that ID.
+   */
+  public CompletableFuture<ProjectDetails> findProjectDetails(int projectId) {
+    return submit(connection -> projectManager.findProjectDetails(connection, projectId));
+  }
+
+  /**
+   * Finds several projects and the people assigned to them in the background.
+   *
+   * @param projectIds The IDs of the projects.
+   * @return A future completed with the details of the projects found.
+   */
+  public CompletableFuture<List<ProjectDetails>> findProjectDetails(List<Integer> projectIds) {
+    return submit(connection -> projectManager.findProjectDetails(connection, projectIds));
+  }
+
+  /**
+   * Reads a page of a project listing in the background.
+   *
+   * @param filter The listing to read.
+   * @param afterProjectId The project ID the page starts after, or 0 for the first page.
+   * @param limit The maximum number of projects to return.
+   * @return A future completed with the page of projects.
+   */
+  public CompletableFuture<List<ProjectSummary>> page(ProjectFilter filter, int afterProjectId,
+      int limit) {
+    return submit(connection -> projectManager.page(connection, filter, afterProjectId, limit));
+  }
+
+  /**
+   * Searches projects in the background.
+   *
+   * @param query The text to search for.
+   * @param mode How the text is matched.
+   * @param limit The maximum number of projects to return.
+   * @return A future completed with the matching projects.
+   */
+  public CompletableFuture<List<ProjectSummary>> searchProjects(String query, SearchMode mode,
+      int limit) {
+    return submit(connection -> projectManager.searchProjects(connection, query, mode, limit));
+  }
+
+  /**
+   * Finalizes a project in the background.
+   *
+   * @param projectId The ID of the project to finalize.
+   * @return A future completed once the project has been finalized.
+   */
+  public CompletableFuture<Void> finalizeProject(int projectId) {
+    return submit(connection -> {
+      projectManager.finalizeProject(connection, projectId);
+      return null;
+    });
+  }
+
+  /**
+   * Deletes a project in the background.
+   *
+   * @param projectId The ID of the project to delete.
+   * @return A future completed once the project has been deleted.
+   */
+  public CompletableFuture<Void> deleteProject(int projectId) {
+    return submit(connection -> {
+      projectManager.deleteProject(connection, projectId);
+      return null;
+    });
+  }
+
+  /**
+   * Finalizes several projects in one transaction in the background.
+   *
+   * @param projectIds The IDs of the projects to finalize.
+   * @return A future completed with the projects finalized.
+   */
+  public CompletableFuture<BulkResult> finalizeProjects(List<Integer> projectIds) {
+    return submit(connection -> new BulkOperations(connection).finalizeProjects(projectIds));
+  }
+
+  /**
+   * Finalizes the projects matching the criteria in one transaction in the background.
+   *
+   * @param criteria The projects to finalize.
+   * @return A future completed with the projects finalized.
+   */
+  public CompletableFuture<BulkResult> finalizeProjects(ProjectCriteria criteria) {
+    return submit(connection -> new BulkOperations(connection).finalizeProjects(criteria));
+  }
+
+  /**
+   * Deletes several projects in one transaction in the background.
+   *
+   * @param projectIds The IDs of the projects to delete.
+   * @return A future completed with the projects deleted.
+   */
+  public CompletableFuture<BulkResult> deleteProjects(List<Integer> projectIds) {
+    return submit(connection -> new BulkOperations(connection).deleteProjects(projectIds));
+  }
+
+  /**
+   * Deletes the projects matching the criteria in one transaction in the background.
+   *
+   * @param criteria The projects to delete.
+   * @return A future completed with the projects deleted.
+   */
+  public CompletableFuture<BulkResult> deleteProjects(ProjectCriteria criteria) {
+    return submit(connection -> new BulkOperations(connection).deleteProjects(criteria));
+  }
+
+  /**
+   * Stops accepting operations and waits for the running ones to finish. The pool is not closed.
+   */
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
@@ -0,0 +1,361 @@
+package taskL3T08;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The BulkImporter class loads CSV files into the PoisePMS tables. Files are parsed as a stream and
+ * written with JDBC batches, one transaction per chunk, so thousands of rows cost a handful of
+ * round trips instead of one per row. With MySQL Connector/J, {@code rewriteBatchedStatements=true}
+ * on the connection URL turns each batch into a single multi-row INSERT.
+ *
+ * <p>
+ * The first line of each file is a header naming the columns it contains, in any order. Columns
+ * not present are left NULL (or at their default). If the header includes the table's primary key
+ * and the import is run in upsert mode, existing rows with that key are updated instead.
+ *
+ * <p>
+ * Each committed row is published to {@link DataChangeEvents}. Rows are identified by the primary
+ * key in the file or, for plain inserts without one, by the key the database generated. Upserts
+ * whose file has no primary key column cannot be attributed to a row and are not published.
+ * Project upserts are published with the values the rows had before, read with
+ * {@code SELECT ... FOR UPDATE} in the chunk's transaction. An
+ * error other than rows the database rejects rolls back the chunk being written and ends the
+ * import; the chunks before it stay committed.
+ */
+public class BulkImporter {
+  private final Connection connection;
+  private final int chunkSize;
+  private Table table;
+  private ChangeType changeType;
+  private int idIndex;
+  private Map<Integer, Map<String, Object>> previous;
+
+  /**
+   * Constructor for BulkImporter.
+   *
+   * @param connection The database connection.
+   * @param chunkSize The number of rows written and committed per batch.
+   */
+  public BulkImporter(Connection connection, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+    }
+    this.connection = connection;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Imports a CSV file into a table.
+   *
+   * @param table The table to import into.
+   * @param csvFile The CSV file to read.
+   * @param upsert True to update rows whose primary key already exists.
+   * @return A report of the rows imported and rejected.
+   * @throws IOException If the file cannot be read or its header is invalid.
+   * @throws SQLException If a database access error occurs.
+   */
+  public ImportReport importCsv(Table table, Path csvFile, boolean upsert)
+      throws IOException, SQLException {
+    try (Reader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+      return importCsv(table, reader, upsert);
+    }
+  }
+
+  /**
+   * Imports CSV data into a table.
+   *
+   * @param table The table to import into.
+   * @param reader The CSV data, starting with its header line.
+   * @param upsert True to update rows whose primary key already exists.
+   * @return A report of the rows imported and rejected.
+   * @throws IOException If the data cannot be read or its header is invalid.
+   * @throws SQLException If a database access error occurs.
+   */
+  public ImportReport importCsv(Table table, Reader reader, boolean upsert)
+      throws IOException, SQLException {
+    long start = System.nanoTime();
+    CsvReader csv = new CsvReader(reader);
+    String[] header = csv.readRecord();
+    if (header == null) {
+      throw new IOException("CSV file is empty; expected a header line.");
+    }
+
+    // Work out which table column each CSV field feeds.
+    List<Column> columns = new ArrayList<>();
+    for (String field : header) {
+      Column column = findColumn(table, field.trim());
+      if (column == null) {
+        throw new IOException("Unknown column for " + table.getTableName() + ": " + field);
+      }
+      columns.add(column);
+    }
+    String sql = buildInsertSql(table, columns, upsert);
+    this.table = table;
+    this.changeType = upsert ? ChangeType.UPSERT : ChangeType.INSERT;
+    this.idIndex = -1;
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).name().equals(table.getIdColumn())) {
+        idIndex = i;
+      }
+    }
+    int generatedKeys = !upsert && idIndex < 0 ? Statement.RETURN_GENERATED_KEYS
+        : Statement.NO_GENERATED_KEYS;
+
+    List<ImportReport.RowError> errors = new ArrayList<>();
+    long rowsRead = 0;
+    long rowsImported = 0;
+    int chunkNumber = 0;
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql, generatedKeys)) {
+      List<String[]> chunkRows = new ArrayList<>(chunkSize);
+      List<Long> chunkLines = new ArrayList<>(chunkSize);
+      String[] record;
+      while (true) {
+        record = csv.readRecord();
+        if (record != null) {
+          rowsRead++;
+          chunkRows.add(record);
+          chunkLines.add(csv.getRecordLineNumber());
+        }
+        if (chunkRows.size() == chunkSize || (record == null && !chunkRows.isEmpty())) {
+          chunkNumber++;
+          rowsImported +=
+              writeChunk(preparedStatement, columns, chunkRows, chunkLines, chunkNumber, errors);
+          chunkRows.clear();
+          chunkLines.clear();
+        }
+        if (record == null) {
+          break;
+        }
+      }
+    } catch (SQLException | RuntimeException e) {
+      // Roll back the failed chunk; restoring auto-commit would otherwise commit it unreported
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+      if (upsert && table.isPeopleTable()) {
+        PeopleCache.shared().forTable(table).invalidateAll();
+      }
+    }
+    return new ImportReport(table, rowsRead, rowsImported, chunkNumber,
+        System.nanoTime() - start, errors);
+  }
+
+  /**
+   * Writes one chunk of rows as a batch and commits it. If the batch fails, the chunk is rolled
+   * back and retried row by row so that only the failing rows are rejected.
+   *
+   * @return The number of rows written.
+   */
+  private int writeChunk(PreparedStatement preparedStatement, List<Column> columns,
+      List<String[]> rows, List<Long> lines, int chunkNumber, List<ImportReport.RowError> errors)
+      throws SQLException {
+    List<Map<String, Object>> batched = new ArrayList<>(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      Map<String, Object> values =
+          bindRow(preparedStatement, columns, rows.get(i), lines.get(i), chunkNumber, errors);
+      if (values != null) {
+        preparedStatement.addBatch();
+        batched.add(values);
+      }
+    }
+    if (batched.isEmpty()) {
+      return 0;
+    }
+    try {
+      previous = readPrevious(batched);
+      preparedStatement.executeBatch();
+      List<Integer> ids = readIds(preparedStatement, batched);
+      connection.commit();
+      for (int i = 0; i < batched.size(); i++) {
+        publish(ids.get(i), batched.get(i));
+      }
+      return batched.size();
+    } catch (BatchUpdateException e) {
+      connection.rollback();
+      preparedStatement.clearBatch();
+    }
+
+    // Retry the chunk one row at a time to find the rows the database rejected.
+    List<Integer> writtenIds = new ArrayList<>();
+    List<Map<String, Object>> written = new ArrayList<>();
+    previous = readPrevious(batched);
+    for (int i = 0; i < rows.size(); i++) {
+      Map<String, Object> values =
+          bindRow(preparedStatement, columns, rows.get(i), lines.get(i), chunkNumber, null);
+      if (values == null) {
+        continue;
+      }
+      try {
+        preparedStatement.executeUpdate();
+        writtenIds.add(readIds(preparedStatement, List.of(values)).get(0));
+        written.add(values);
+      } catch (SQLException e) {
+        errors.add(new ImportReport.RowError(lines.get(i), chunkNumber, e.getMessage()));
+      }
+    }
+    connection.commit();
+    for (int i = 0; i < written.size(); i++) {
+      publish(writtenIds.get(i), written.get(i));
+    }
+    return written.size();
+  }
+
+  /**
+   * Binds one CSV row to the insert statement.
+   *
+   * @param errors The list to record a parse error in, or null if errors were already recorded.
+   * @return The parsed values keyed by column name, or null if one of the row's values could not
+   *         be parsed.
+   */
+  private Map<String, Object> bindRow(PreparedStatement preparedStatement, List<Column> columns,
+      String[] row, long lineNumber, int chunkNumber, List<ImportReport.RowError> errors)
+      throws SQLException {
+    try {
+      Map<String, Object> values = new LinkedHashMap<>();
+      for (int i = 0; i < columns.size(); i++) {
+        Column column = columns.get(i);
+        Object value = column.type().parse(i < row.length ? row[i] : null);
+        if (table == Table.PROJECTS) {
+          value = Project.storedValue(column.name(), value);
+        }
+        column.type().bindValue(preparedStatement, i + 1, value);
+        values.put(column.name(), value);
+      }
+      return values;
+    } catch (IllegalArgumentException e) {
+      preparedStatement.clearParameters();
+      if (errors != null) {
+        errors.add(new ImportReport.RowError(lineNumber, chunkNumber,
+            "Invalid value: " + e.getMessage()));
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Works out the primary keys of the rows just written, from the file's primary key column or the
+   * keys generated by the database.
+   *
+   * @param preparedStatement The statement that wrote the rows.
+   * @param rows The values of the rows written, in order.
+   * @return The primary key of each row, or 0 where it is not known.
+   * @throws SQLException If a database access error occurs.
+   */
+  private List<Integer> readIds(PreparedStatement preparedStatement,
+      List<Map<String, Object>> rows) throws SQLException {
+    List<Integer> ids = new ArrayList<>(rows.size());
+    if (idIndex >= 0) {
+      for (Map<String, Object> values : rows) {
+        Object id = values.get(table.getIdColumn());
+        ids.add(id == null ? 0 : (Integer) id);
+      }
+    } else if (changeType == ChangeType.INSERT && DataChangeEvents.hasListeners()) {
+      try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+        while (ids.size() < rows.size() && keys.next()) {
+          ids.add(keys.getInt(1));
+        }
+      }
+    }
+    while (ids.size() < rows.size()) {
+      ids.add(0);
+    }
+    return ids;
+  }
+
+  /**
+   * Locks the projects a chunk of upserts may update and reads what they look like, so their
+   * events can say what was replaced.
+   *
+   * @param rows The values of the rows about to be written.
+   * @return The current values of the existing projects keyed by project ID, or null if the
+   *         import is not a project upsert with IDs or nobody is listening for changes.
+   */
+  private Map<Integer, Map<String, Object>> readPrevious(List<Map<String, Object>> rows)
+      throws SQLException {
+    if (table != Table.PROJECTS || changeType != ChangeType.UPSERT || idIndex < 0
+        || !DataChangeEvents.hasListeners()) {
+      return null;
+    }
+    int[] ids = rows.stream().map(values -> values.get(table.getIdColumn()))
+        .filter(Objects::nonNull).mapToInt(id -> (Integer) id).sorted().distinct().toArray();
+    return ProjectBeforeImages.findAll(connection, ids);
+  }
+
+  /**
+   * Publishes a committed row, unless its primary key is not known.
+   */
+  private void publish(int id, Map<String, Object> values) {
+    if (id > 0) {
+      values.remove(table.getIdColumn());
+      // An upserted project that was not read before did not exist, so it was inserted.
+      DataChangeEvents.publish(table, changeType, id, values,
+          previous == null ? null : previous.getOrDefault(id, Map.of()));
+    }
+  }
+
+  /**
+   * Finds a column of a table by name, including its primary key.
+   *
+   * @return The column, or null if the table has no such column.
+   */
+  private static Column findColumn(Table table, String name) {
+    if (table.getIdColumn().equals(name)) {
+      return new Column(name, ColumnType.INT);
+    }
+    for (Column column : table.getColumns()) {
+      if (column.name().equals(name)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Builds the INSERT statement for the given columns, optionally as an upsert.
+   *
+   * @return The SQL text.
+   */
+  private static String buildInsertSql(Table table, List<Column> columns, boolean upsert) {
+    StringBuilder sql = new StringBuilder("INSERT INTO ").append(table.getTableName()).append(" (");
+    StringBuilder placeholders = new StringBuilder();
+    StringBuilder updates = new StringBuilder();
+    for (int i = 0; i < columns.size(); i++) {
+      String name = columns.get(i).name();
+      if (i > 0) {
+        sql.append(", ");
+        placeholders.append(", ");
+      }
+      sql.append(name);
+      placeholders.append('?');
+      if (!name.equals(table.getIdColumn())) {
+        if (updates.length() > 0) {
+          updates.append(", ");
+        }
+        updates.append(name).append(" = VALUES(").append(name).append(')');
+      }
+    }
+    sql.append(") VALUES (").append(placeholders).append(')');
+    if (upsert && updates.length() > 0) {
+      sql.append(" ON DUPLICATE KEY UPDATE ").append(updates).append(", version = version + 1");
+    }
+    return sql.toString();
+  }
+}
@@ -0,0 +1,304 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The BulkOperations class finalizes and deletes many rows at once, selected by a list of IDs or,
+ * for projects, by {@link ProjectCriteria}. Each operation runs in one transaction: the matching
+ * rows are first locked with {@code SELECT ... FOR UPDATE}, then changed with one UPDATE or
+ * DELETE statement per chunk of IDs, so finalizing hundreds of projects costs a few round trips
+ * instead of one per project, and either every row is changed or none is.
+ *
+ * <p>
+ * Chunks are written as {@code IN} lists padded to a power of two, so only a handful of statement
+ * shapes are prepared however many rows are changed. Finalizing skips projects that are already
+ * finalized, so their completion dates are kept, and increments the row version like any other
+ * update. Once the transaction commits, each changed row is published to
+ * {@link DataChangeEvents}; project events carry the values read while locking the rows, so
+ * listeners know what each project looked like before. The class is not thread safe.
+ */
+public class BulkOperations {
+  /** Default number of IDs per UPDATE or DELETE statement. */
+  public static final int DEFAULT_CHUNK_SIZE = 512;
+
+  /** Locks the rows an operation applies to and returns their IDs in ascending order. */
+  @FunctionalInterface
+  private interface RowLocker {
+    List<Integer> lock() throws SQLException;
+  }
+
+  private final Connection connection;
+  private final int chunkSize;
+  private int statements;
+  private Map<Integer, Map<String, Object>> previous;
+
+  /**
+   * Constructor for BulkOperations, writing {@value #DEFAULT_CHUNK_SIZE} IDs per statement.
+   *
+   * @param connection The database connection.
+   */
+  public BulkOperations(Connection connection) {
+    this(connection, DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructor for BulkOperations.
+   *
+   * @param connection The database connection.
+   * @param chunkSize The largest number of IDs per UPDATE or DELETE statement.
+   */
+  public BulkOperations(Connection connection, int chunkSize) {
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+    }
+    this.connection = connection;
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Finalizes the projects with the given IDs, setting their completion date to today. IDs of
+   * projects that do not exist or are already finalized are skipped.
+   *
+   * @param projectIds The IDs of the projects to finalize.
+   * @return The projects finalized.
+   * @throws SQLException If a database access error occurs. No project is finalized.
+   */
+  public BulkResult finalizeProjects(List<Integer> projectIds) throws SQLException {
+    return run(Table.PROJECTS, ChangeType.UPDATE,
+        () -> lockIds(Table.PROJECTS, projectIds, "is_finalised = FALSE"));
+  }
+
+  /**
+   * Finalizes the unfinalized projects matching the criteria, setting their completion date to
+   * today.
+   *
+   * @param criteria The projects to finalize.
+   * @return The projects finalized.
+   * @throws SQLException If a database access error occurs. No project is finalized.
+   */
+  public BulkResult finalizeProjects(ProjectCriteria criteria) throws SQLException {
+    return run(Table.PROJECTS, ChangeType.UPDATE, () -> lockProjects(criteria, true));
+  }
+
+  /**
+   * Deletes the projects with the given IDs. IDs of projects that do not exist are skipped.
+   *
+   * @param projectIds The IDs of the projects to delete.
+   * @return The projects deleted.
+   * @throws SQLException If a database access error occurs. No project is deleted.
+   */
+  public BulkResult deleteProjects(List<Integer> projectIds) throws SQLException {
+    return run(Table.PROJECTS, ChangeType.DELETE,
+        () -> lockIds(Table.PROJECTS, projectIds, null));
+  }
+
+  /**
+   * Deletes the projects matching the criteria.
+   *
+   * @param criteria The projects to delete.
+   * @return The projects deleted.
+   * @throws SQLException If a database access error occurs. No project is deleted.
+   */
+  public BulkResult deleteProjects(ProjectCriteria criteria) throws SQLException {
+    return run(Table.PROJECTS, ChangeType.DELETE, () -> lockProjects(criteria, false));
+  }
+
+  /**
+   * Deletes the people with the given IDs from a people table. Projects they were assigned to are
+   * left without that person. IDs of people that do not exist are skipped.
+   *
+   * @param table The people table to delete from.
+   * @param ids The IDs of the people to delete.
+   * @return The people deleted.
+   * @throws SQLException If a database access error occurs. No person is deleted.
+   */
+  public BulkResult deletePeople(Table table, List<Integer> ids) throws SQLException {
+    if (!table.isPeopleTable()) {
+      throw new IllegalArgumentException(table.getTableName() + " is not a people table");
+    }
+    try {
+      return run(table, ChangeType.DELETE, () -> lockIds(table, ids, null));
+    } finally {
+      EntityCache<Integer, Person> cache = PeopleCache.shared().forTable(table);
+      for (int id : ids) {
+        cache.invalidate(id);
+      }
+    }
+  }
+
+  /**
+   * Locks the rows and changes them in one transaction, then publishes the changes.
+   */
+  private BulkResult run(Table table, ChangeType type, RowLocker locker) throws SQLException {
+    long start = System.nanoTime();
+    statements = 0;
+    LocalDate completionDate = LocalDate.now();
+    List<Integer> ids;
+    long rowsAffected;
+    previous = table == Table.PROJECTS && DataChangeEvents.hasListeners() ? new HashMap<>() : null;
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try {
+      ids = locker.lock();
+      rowsAffected = type == ChangeType.DELETE ? delete(table, ids)
+          : finalizeRows(ids, completionDate);
+      connection.commit();
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+
+    if (DataChangeEvents.hasListeners()) {
+      Map<String, Object> values = Map.of();
+      if (type == ChangeType.UPDATE) {
+        Map<String, Object> finalized = new LinkedHashMap<>();
+        finalized.put("is_finalised", true);
+        finalized.put("completion_date", completionDate);
+        values = Collections.unmodifiableMap(finalized);
+      }
+      for (int id : ids) {
+        DataChangeEvents.publish(table, type, id, values,
+            previous == null ? null : previous.get(id));
+      }
+    }
+    return new BulkResult(table, type, Collections.unmodifiableList(ids), rowsAffected,
+        statements, System.nanoTime() - start);
+  }
+
+  /**
+   * Locks the existing rows among the given IDs, a chunk at a time in ascending ID order so that
+   * concurrent bulk operations lock rows in the same order.
+   *
+   * @param table The table.
+   * @param requestedIds The IDs, in any order and possibly repeated.
+   * @param condition A further condition the rows must meet, or null.
+   * @return The IDs of the rows locked, in ascending order.
+   */
+  private List<Integer> lockIds(Table table, List<Integer> requestedIds, String condition)
+      throws SQLException {
+    int[] sorted = requestedIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    List<Integer> ids = new ArrayList<>(sorted.length);
+    String idColumn = table.getIdColumn();
+    for (int start = 0; start < sorted.length; start += chunkSize) {
+      int[] chunk = Arrays.copyOfRange(sorted, start, Math.min(start + chunkSize, sorted.length));
+      int listSize = InLists.paddedSize(chunk.length, chunkSize);
+      StringBuilder sql = new StringBuilder("SELECT ").append(idColumn)
+          .append(previous == null ? "" : ", " + ProjectBeforeImages.COLUMNS).append(" FROM ")
+          .append(table.getTableName()).append(" WHERE ");
+      InLists.append(sql, idColumn, listSize);
+      if (condition != null) {
+        sql.append(" AND ").append(condition);
+      }
+      sql.append(" ORDER BY ").append(idColumn).append(" FOR UPDATE");
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, chunk, 0, chunk.length, listSize);
+        readIds(preparedStatement, ids);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Locks the projects matching the criteria.
+   *
+   * @param criteria The projects to lock.
+   * @param unfinalizedOnly True to skip projects that are already finalized.
+   * @return The IDs of the projects locked, in ascending order.
+   */
+  private List<Integer> lockProjects(ProjectCriteria criteria, boolean unfinalizedOnly)
+      throws SQLException {
+    List<Object> parameters = new ArrayList<>();
+    StringBuilder sql = new StringBuilder("SELECT project_id")
+        .append(previous == null ? "" : ", " + ProjectBeforeImages.COLUMNS)
+        .append(" FROM Projects WHERE ");
+    criteria.appendCondition(sql, parameters);
+    if (unfinalizedOnly) {
+      sql.append(" AND is_finalised = FALSE");
+    }
+    sql.append(" ORDER BY project_id FOR UPDATE");
+    List<Integer> ids = new ArrayList<>();
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+      for (int i = 0; i < parameters.size(); i++) {
+        preparedStatement.setObject(i + 1, parameters.get(i));
+      }
+      readIds(preparedStatement, ids);
+    }
+    return ids;
+  }
+
+  private void readIds(PreparedStatement preparedStatement, List<Integer> ids)
+      throws SQLException {
+    statements++;
+    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+      while (resultSet.next()) {
+        ids.add(resultSet.getInt(1));
+        if (previous != null) {
+          previous.put(resultSet.getInt(1), ProjectBeforeImages.read(resultSet, 2));
+        }
+      }
+    }
+  }
+
+  /**
+   * Finalizes the locked projects.
+   *
+   * @return The number of rows the database reported as updated.
+   */
+  private long finalizeRows(List<Integer> ids, LocalDate completionDate) throws SQLException {
+    long rowsAffected = 0;
+    for (int start = 0; start < ids.size(); start += chunkSize) {
+      int[] chunk = toArray(ids.subList(start, Math.min(start + chunkSize, ids.size())));
+      int listSize = InLists.paddedSize(chunk.length, chunkSize);
+      StringBuilder sql = new StringBuilder("UPDATE Projects SET is_finalised = TRUE, "
+          + "completion_date = ?, version = version + 1 WHERE ");
+      InLists.append(sql, "project_id", listSize);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        preparedStatement.setDate(1, Date.valueOf(completionDate));
+        InLists.bind(preparedStatement, 2, chunk, 0, chunk.length, listSize);
+        statements++;
+        rowsAffected += preparedStatement.executeUpdate();
+      }
+    }
+    return rowsAffected;
+  }
+
+  /**
+   * Deletes the locked rows.
+   *
+   * @return The number of rows the database reported as deleted.
+   */
+  private long delete(Table table, List<Integer> ids) throws SQLException {
+    long rowsAffected = 0;
+    for (int start = 0; start < ids.size(); start += chunkSize) {
+      int[] chunk = toArray(ids.subList(start, Math.min(start + chunkSize, ids.size())));
+      int listSize = InLists.paddedSize(chunk.length, chunkSize);
+      StringBuilder sql =
+          new StringBuilder("DELETE FROM ").append(table.getTableName()).append(" WHERE ");
+      InLists.append(sql, table.getIdColumn(), listSize);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, chunk, 0, chunk.length, listSize);
+        statements++;
+        rowsAffected += preparedStatement.executeUpdate();
+      }
+    }
+    return rowsAffected;
+  }
+
+  private static int[] toArray(List<Integer> ids) {
+    return ids.stream().mapToInt(Integer::intValue).toArray();
+  }
+}
@@ -0,0 +1,25 @@
+package taskL3T08;
+
+import java.util.List;
+
+/**
+ * The BulkResult record summarises a bulk finalize or delete run by {@link BulkOperations}.
+ *
+ * @param table The table the rows were changed in.
+ * @param type The kind of change: {@link ChangeType#UPDATE} for finalizing, or
+ *        {@link ChangeType#DELETE}.
+ * @param ids The IDs of the rows changed, in ascending order.
+ * @param rowsAffected The total of the affected-row counts reported by the database.
+ * @param statements The number of statements executed, including the one that locked the rows.
+ * @param elapsedNanos The time the operation took, including the commit.
+ */
+public record BulkResult(Table table, ChangeType type, List<Integer> ids, long rowsAffected,
+    int statements, long elapsedNanos) {
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d rows %s with %d statements in %.1f ms", table.getTableName(),
+        rowsAffected, type == ChangeType.DELETE ? "deleted" : "finalized", statements,
+        elapsedNanos / 1e6);
+  }
+}
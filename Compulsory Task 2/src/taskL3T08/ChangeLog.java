@@ -0,0 +1,563 @@
+package taskL3T08;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * The ChangeLog class appends every {@link DataChangeEvent} to an append-only log on disk, so that
+ * downstream consumers can process changes incrementally from an offset instead of re-reading
+ * whole tables. Register it with {@link DataChangeEvents#addListener} to record every write made
+ * through {@link DatabaseManager}, {@link ProjectManager}, {@link BulkImporter} and
+ * {@link DatabaseSnapshot}; read it back with {@link #openConsumer(long)}.
+ *
+ * <p>
+ * The log is a directory of segment files, each named after the offset of its first change (e.g.
+ * {@code 00000000000000000000.log}). A new segment is started once the current one reaches the
+ * configured size, and old segments can be removed with {@link #deleteSegmentsBefore(long)}. Each
+ * change is stored as a length, a CRC32 and the encoded change, little-endian; when the log is
+ * opened, a change left half-written by a crash is cut off the end of the last segment.
+ *
+ * <p>
+ * When changes are forced to disk is set by the {@link FsyncPolicy}. With
+ * {@link FsyncPolicy#INTERVAL}, a background thread forces them once per interval, so appends
+ * never wait for the disk and a log that goes quiet is still forced within the interval.
+ */
+public class ChangeLog implements DataChangeListener, AutoCloseable {
+  /** File name extension of segment files. */
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  /** Bytes before each encoded change: its length and CRC32. */
+  static final int FRAME_HEADER_SIZE = 8;
+
+  private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+  private static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 1_000;
+
+  /** Tags identifying the type of each encoded column value. */
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INT = 2;
+  private static final byte DOUBLE = 3;
+  private static final byte BOOLEAN = 4;
+  private static final byte DATE = 5;
+
+  private final Path directory;
+  private final long segmentBytes;
+  private final FsyncPolicy fsyncPolicy;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition appended = lock.newCondition();
+  private final CRC32 crc = new CRC32();
+  private final ScheduledExecutorService syncer;
+
+  private FileChannel segment;
+  private long segmentSize;
+  private long nextOffset;
+  private boolean unsynced;
+  private IOException syncFailure;
+  private ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * Constructor for ChangeLog. Segments are started every 64 MB and changes are forced to disk
+   * once a second.
+   *
+   * @param directory The directory holding the segment files. It is created if it does not exist.
+   * @throws IOException If the log cannot be opened.
+   */
+  public ChangeLog(Path directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_BYTES, FsyncPolicy.INTERVAL, DEFAULT_FSYNC_INTERVAL_MILLIS);
+  }
+
+  /**
+   * Constructor for ChangeLog.
+   *
+   * @param directory The directory holding the segment files. It is created if it does not exist.
+   * @param segmentBytes The size at which a new segment is started.
+   * @param fsyncPolicy When appended changes are forced to disk.
+   * @param fsyncIntervalMillis The time between forces with {@link FsyncPolicy#INTERVAL}.
+   * @throws IOException If the log cannot be opened.
+   */
+  public ChangeLog(Path directory, long segmentBytes, FsyncPolicy fsyncPolicy,
+      long fsyncIntervalMillis) throws IOException {
+    if (segmentBytes < 1) {
+      throw new IllegalArgumentException("Segment size must be at least 1: " + segmentBytes);
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.fsyncPolicy = fsyncPolicy;
+    Files.createDirectories(directory);
+    recover();
+
+    if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+      syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "poisepms-changelog-sync");
+        thread.setDaemon(true);
+        return thread;
+      });
+      long period = Math.max(1, fsyncIntervalMillis);
+      syncer.scheduleAtFixedRate(this::syncInBackground, period, period, TimeUnit.MILLISECONDS);
+    } else {
+      syncer = null;
+    }
+  }
+
+  /**
+   * Opens the change log configured with {@code -Dpoisepms.changelog.dir}, using
+   * {@code -Dpoisepms.changelog.segmentBytes}, {@code -Dpoisepms.changelog.fsync} (ALWAYS,
+   * INTERVAL or NEVER) and {@code -Dpoisepms.changelog.fsyncIntervalMillis} when set.
+   *
+   * @return The change log, or null if no directory is configured.
+   * @throws IOException If the log cannot be opened.
+   */
+  public static ChangeLog configured() throws IOException {
+    String directory = System.getProperty("poisepms.changelog.dir");
+    if (directory == null || directory.isBlank()) {
+      return null;
+    }
+    long segmentBytes = Long.getLong("poisepms.changelog.segmentBytes", DEFAULT_SEGMENT_BYTES);
+    FsyncPolicy fsyncPolicy = FsyncPolicy.valueOf(System.getProperty("poisepms.changelog.fsync",
+        FsyncPolicy.INTERVAL.name()).toUpperCase(Locale.ROOT));
+    long fsyncIntervalMillis =
+        Long.getLong("poisepms.changelog.fsyncIntervalMillis", DEFAULT_FSYNC_INTERVAL_MILLIS);
+    return new ChangeLog(Path.of(directory), segmentBytes, fsyncPolicy, fsyncIntervalMillis);
+  }
+
+  /**
+   * Gets the directory holding the segment files.
+   *
+   * @return The log directory.
+   */
+  public Path getDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets the offset the next appended change will have.
+   *
+   * @return The next offset.
+   */
+  public long getNextOffset() {
+    lock.lock();
+    try {
+      return nextOffset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a change to the log.
+   *
+   * @param event The change.
+   * @return The offset of the change.
+   * @throws IOException If the log cannot be written.
+   */
+  public long append(DataChangeEvent event) throws IOException {
+    lock.lock();
+    try {
+      if (segment == null) {
+        throw new IOException("The change log is closed.");
+      }
+      if (syncFailure != null) {
+        throw new IOException("The change log could not be forced to disk.", syncFailure);
+      }
+      long offset = nextOffset;
+      encode(offset, System.currentTimeMillis(), event);
+      if (segmentSize > 0 && segmentSize + buffer.remaining() > segmentBytes) {
+        roll();
+      }
+      while (buffer.hasRemaining()) {
+        segmentSize += segment.write(buffer, segmentSize);
+      }
+      nextOffset++;
+      unsynced = true;
+      if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+        sync();
+      }
+      appended.signalAll();
+      return offset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a change published through {@link DataChangeEvents}.
+   *
+   * @param event The change.
+   * @throws UncheckedIOException If the log cannot be written.
+   */
+  @Override
+  public void onChange(DataChangeEvent event) {
+    try {
+      append(event);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Forces every appended change to disk.
+   *
+   * @throws IOException If the log cannot be written.
+   */
+  public void sync() throws IOException {
+    lock.lock();
+    try {
+      if (segment != null && unsynced) {
+        segment.force(false);
+        unsynced = false;
+      }
+      syncFailure = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces the appended changes to disk on the background thread of the INTERVAL policy. A
+   * failure is reported by the next append.
+   */
+  private void syncInBackground() {
+    try {
+      sync();
+    } catch (IOException e) {
+      lock.lock();
+      try {
+        syncFailure = e;
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Opens a consumer that reads the log from the given offset onwards.
+   *
+   * @param fromOffset The offset of the first change to read. If older changes have been deleted,
+   *        reading starts at the oldest change still in the log.
+   * @return The consumer.
+   * @throws IOException If the log cannot be read.
+   */
+  public ChangeLogConsumer openConsumer(long fromOffset) throws IOException {
+    return new ChangeLogConsumer(directory, fromOffset, this);
+  }
+
+  /**
+   * Deletes the segments whose changes all have offsets below the given offset, e.g. once every
+   * consumer has processed them. The segment being appended to is never deleted.
+   *
+   * @param offset The offset below which changes are no longer needed.
+   * @return The number of segments deleted.
+   * @throws IOException If a segment cannot be deleted.
+   */
+  public int deleteSegmentsBefore(long offset) throws IOException {
+    lock.lock();
+    try {
+      List<Long> bases = listSegments(directory);
+      int deleted = 0;
+      for (int i = 0; i + 1 < bases.size() && bases.get(i + 1) <= offset; i++) {
+        Files.deleteIfExists(segmentPath(directory, bases.get(i)));
+        deleted++;
+      }
+      return deleted;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Forces the appended changes to disk and closes the log. Consumers waiting for changes are
+   * woken.
+   *
+   * @throws IOException If the log cannot be written.
+   */
+  @Override
+  public void close() throws IOException {
+    if (syncer != null) {
+      // Not shutdownNow: interrupting a force would close the segment's channel
+      syncer.shutdown();
+    }
+    lock.lock();
+    try {
+      if (segment != null) {
+        sync();
+        segment.close();
+        segment = null;
+      }
+      appended.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until a change with the given offset has been appended.
+   *
+   * @param offset The offset to wait for.
+   * @param timeoutNanos The longest time to wait.
+   * @return True if the change has been appended.
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  boolean awaitOffset(long offset, long timeoutNanos) throws InterruptedException {
+    lock.lock();
+    try {
+      long remaining = timeoutNanos;
+      while (nextOffset <= offset && segment != null && remaining > 0) {
+        remaining = appended.awaitNanos(remaining);
+      }
+      return nextOffset > offset;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Opens the last segment, cutting off any half-written change at its end, or starts the first
+   * segment of a new log.
+   */
+  private void recover() throws IOException {
+    List<Long> bases = listSegments(directory);
+    long base = bases.isEmpty() ? 0 : bases.get(bases.size() - 1);
+    segment = FileChannel.open(segmentPath(directory, base), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    nextOffset = base;
+    long position = 0;
+    ByteBuffer scratch = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+    while (true) {
+      ByteBuffer frame = readFrame(segment, position, scratch);
+      if (frame == null) {
+        break;
+      }
+      scratch = frame;
+      position += FRAME_HEADER_SIZE + frame.remaining();
+      nextOffset = decode(frame).offset() + 1;
+    }
+    if (position < segment.size()) {
+      System.err.println("Discarding " + (segment.size() - position)
+          + " bytes of incomplete change log data in " + segmentPath(directory, base));
+      segment.truncate(position);
+      segment.force(true);
+    }
+    segmentSize = position;
+  }
+
+  /**
+   * Starts a new segment named after the next offset.
+   */
+  private void roll() throws IOException {
+    segment.force(false);
+    segment.close();
+    segment = FileChannel.open(segmentPath(directory, nextOffset), StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    segmentSize = 0;
+    unsynced = false;
+  }
+
+  /**
+   * Encodes a change, framed by its length and checksum, into the buffer and flips it.
+   */
+  private void encode(long offset, long timestamp, DataChangeEvent event) {
+    while (true) {
+      try {
+        buffer.clear();
+        buffer.position(FRAME_HEADER_SIZE);
+        buffer.putLong(offset);
+        buffer.putLong(timestamp);
+        buffer.put((byte) event.table().ordinal());
+        buffer.put((byte) event.type().ordinal());
+        buffer.putInt(event.id());
+        buffer.putInt(event.values().size());
+        for (Map.Entry<String, Object> entry : event.values().entrySet()) {
+          putString(entry.getKey());
+          putValue(entry.getValue());
+        }
+        break;
+      } catch (BufferOverflowException e) {
+        buffer = ByteBuffer.allocate(buffer.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+      }
+    }
+    buffer.flip();
+    int length = buffer.limit() - FRAME_HEADER_SIZE;
+    crc.reset();
+    crc.update(buffer.slice(FRAME_HEADER_SIZE, length));
+    buffer.putInt(0, length);
+    buffer.putInt(4, (int) crc.getValue());
+  }
+
+  private void putValue(Object value) {
+    if (value == null) {
+      buffer.put(NULL);
+    } else if (value instanceof Integer intValue) {
+      buffer.put(INT).putInt(intValue);
+    } else if (value instanceof Double doubleValue) {
+      buffer.put(DOUBLE).putDouble(doubleValue);
+    } else if (value instanceof Boolean booleanValue) {
+      buffer.put(BOOLEAN).put((byte) (booleanValue ? 1 : 0));
+    } else if (value instanceof LocalDate date) {
+      buffer.put(DATE).putLong(date.toEpochDay());
+    } else {
+      buffer.put(STRING);
+      putString(value.toString());
+    }
+  }
+
+  private void putString(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    buffer.putInt(bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * Reads the framed change at a position of a segment and checks its checksum.
+   *
+   * @param channel The segment.
+   * @param position The position of the frame.
+   * @param scratch A buffer to read into, replaced by a larger one if the change does not fit.
+   * @return The encoded change, or null if there is no complete, valid change at the position.
+   * @throws IOException If the segment cannot be read.
+   */
+  static ByteBuffer readFrame(FileChannel channel, long position, ByteBuffer scratch)
+      throws IOException {
+    scratch.clear().limit(FRAME_HEADER_SIZE);
+    if (!readFully(channel, position, scratch)) {
+      return null;
+    }
+    int length = scratch.getInt(0);
+    int checksum = scratch.getInt(4);
+    if (length < 0 || position + FRAME_HEADER_SIZE + length > channel.size()) {
+      return null;
+    }
+    if (scratch.capacity() < length) {
+      scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2))
+          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    scratch.clear().limit(length);
+    if (!readFully(channel, position + FRAME_HEADER_SIZE, scratch)) {
+      return null;
+    }
+    scratch.flip();
+    CRC32 frameCrc = new CRC32();
+    frameCrc.update(scratch.duplicate());
+    return (int) frameCrc.getValue() == checksum ? scratch : null;
+  }
+
+  private static boolean readFully(FileChannel channel, long position, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes a change read by {@link #readFrame}.
+   *
+   * @param frame The encoded change. Its position is moved to its end.
+   * @return The change.
+   * @throws IOException If the change is not a valid encoding.
+   */
+  static ChangeLogRecord decode(ByteBuffer frame) throws IOException {
+    try {
+      long offset = frame.getLong();
+      long timestamp = frame.getLong();
+      Table table = Table.values()[frame.get()];
+      ChangeType type = ChangeType.values()[frame.get()];
+      int id = frame.getInt();
+      int count = frame.getInt();
+      Map<String, Object> values = new LinkedHashMap<>();
+      for (int i = 0; i < count; i++) {
+        String name = getString(frame);
+        byte tag = frame.get();
+        switch (tag) {
+          case NULL:
+            values.put(name, null);
+            break;
+          case INT:
+            values.put(name, frame.getInt());
+            break;
+          case DOUBLE:
+            values.put(name, frame.getDouble());
+            break;
+          case BOOLEAN:
+            values.put(name, frame.get() != 0);
+            break;
+          case DATE:
+            values.put(name, LocalDate.ofEpochDay(frame.getLong()));
+            break;
+          case STRING:
+            values.put(name, getString(frame));
+            break;
+          default:
+            throw new IOException("Unknown value type in change log: " + tag);
+        }
+      }
+      return new ChangeLogRecord(offset, timestamp,
+          new DataChangeEvent(table, type, id, Collections.unmodifiableMap(values)));
+    } catch (RuntimeException e) {
+      throw new IOException("Corrupt change log entry: " + e, e);
+    }
+  }
+
+  private static String getString(ByteBuffer frame) {
+    byte[] bytes = new byte[frame.getInt()];
+    frame.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Lists the segments of a log directory.
+   *
+   * @param directory The log directory.
+   * @return The offsets the segments start at, in ascending order.
+   * @throws IOException If the directory cannot be read.
+   */
+  static List<Long> listSegments(Path directory) throws IOException {
+    List<Long> bases = new ArrayList<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+        try {
+          bases.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+        } catch (NumberFormatException e) {
+          // Not a segment file.
+        }
+      }
+    }
+    Collections.sort(bases);
+    return bases;
+  }
+
+  /**
+   * Gets the path of the segment starting at the given offset.
+   *
+   * @param directory The log directory.
+   * @param base The offset of the segment's first change.
+   * @return The segment's path.
+   */
+  static Path segmentPath(Path directory, long base) {
+    return directory.resolve(String.format("%020d", base) + SEGMENT_SUFFIX);
+  }
+}
@@ -0,0 +1,197 @@
+package taskL3T08;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChangeLogConsumer class reads the changes in a {@link ChangeLog} in offset order, picking up
+ * new changes as they are appended. It remembers where it is in the log, so each
+ * {@link #poll(int, long)} reads only the changes appended since the last one. Consumers should
+ * store the offset of the last change they processed and reopen from the next offset after a
+ * restart.
+ *
+ * <p>
+ * A consumer can be opened in the application with {@link ChangeLog#openConsumer(long)}, in which
+ * case it is woken as soon as a change is appended, or on its own from another process with
+ * {@link #ChangeLogConsumer(Path, long)}, in which case it checks the log for new changes
+ * periodically. A consumer is not thread safe.
+ */
+public class ChangeLogConsumer implements AutoCloseable {
+  /** Milliseconds between checks for new changes when not woken by the log. */
+  private static final long CHECK_INTERVAL_MILLIS = 50;
+
+  private final Path directory;
+  private final ChangeLog changeLog;
+  private FileChannel segment;
+  private long segmentBase;
+  private long position;
+  private long nextOffset;
+  private ByteBuffer scratch = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * Constructor for ChangeLogConsumer, for reading a log written by another process.
+   *
+   * @param directory The log directory.
+   * @param fromOffset The offset of the first change to read. If older changes have been deleted,
+   *        reading starts at the oldest change still in the log.
+   * @throws IOException If the log cannot be read.
+   */
+  public ChangeLogConsumer(Path directory, long fromOffset) throws IOException {
+    this(directory, fromOffset, null);
+  }
+
+  /**
+   * Constructor for ChangeLogConsumer.
+   *
+   * @param directory The log directory.
+   * @param fromOffset The offset of the first change to read.
+   * @param changeLog The log being appended to in this process, or null.
+   * @throws IOException If the log cannot be read.
+   */
+  ChangeLogConsumer(Path directory, long fromOffset, ChangeLog changeLog) throws IOException {
+    this.directory = directory;
+    this.changeLog = changeLog;
+    List<Long> bases = ChangeLog.listSegments(directory);
+    if (bases.isEmpty()) {
+      throw new NoSuchFileException(directory.toString(), null, "No change log segments");
+    }
+    long base = bases.get(0);
+    for (long candidate : bases) {
+      if (candidate <= fromOffset) {
+        base = candidate;
+      }
+    }
+    open(base);
+    this.nextOffset = Math.max(fromOffset, base);
+
+    // Skip the changes in the segment before the requested offset.
+    while (true) {
+      ByteBuffer frame = ChangeLog.readFrame(segment, position, scratch);
+      if (frame == null) {
+        break;
+      }
+      scratch = frame;
+      int size = ChangeLog.FRAME_HEADER_SIZE + frame.remaining();
+      if (ChangeLog.decode(frame).offset() >= fromOffset) {
+        break;
+      }
+      position += size;
+    }
+  }
+
+  /**
+   * Gets the offset of the next change this consumer will return.
+   *
+   * @return The next offset.
+   */
+  public long getNextOffset() {
+    return nextOffset;
+  }
+
+  /**
+   * Reads the next changes, waiting for at least one to be appended if there are none.
+   *
+   * @param maxRecords The maximum number of changes to return.
+   * @param timeoutMillis The longest time to wait for a change, or 0 not to wait.
+   * @return The changes read, in offset order; empty if none arrived in time.
+   * @throws IOException If the log cannot be read or is corrupt.
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  public List<ChangeLogRecord> poll(int maxRecords, long timeoutMillis)
+      throws IOException, InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    List<ChangeLogRecord> records = read(maxRecords);
+    while (records.isEmpty()) {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        break;
+      }
+      if (changeLog != null) {
+        if (!changeLog.awaitOffset(nextOffset, remaining)) {
+          break;
+        }
+      } else {
+        Thread.sleep(Math.min(CHECK_INTERVAL_MILLIS, TimeUnit.NANOSECONDS.toMillis(remaining) + 1));
+      }
+      records = read(maxRecords);
+    }
+    return records;
+  }
+
+  /**
+   * Reads the changes already in the log without waiting.
+   */
+  private List<ChangeLogRecord> read(int maxRecords) throws IOException {
+    List<ChangeLogRecord> records = new ArrayList<>();
+    while (records.size() < maxRecords) {
+      ByteBuffer frame = ChangeLog.readFrame(segment, position, scratch);
+      if (frame == null) {
+        if (!nextSegment()) {
+          break;
+        }
+        continue;
+      }
+      scratch = frame;
+      int size = ChangeLog.FRAME_HEADER_SIZE + frame.remaining();
+      ChangeLogRecord record = ChangeLog.decode(frame);
+      position += size;
+      nextOffset = record.offset() + 1;
+      records.add(record);
+    }
+    return records;
+  }
+
+  /**
+   * Moves to the next segment once the current one is finished.
+   *
+   * @return True if there was a next segment.
+   */
+  private boolean nextSegment() throws IOException {
+    long next = -1;
+    for (long base : ChangeLog.listSegments(directory)) {
+      if (base > segmentBase) {
+        next = base;
+        break;
+      }
+    }
+    if (next < 0) {
+      return false;
+    }
+    // The writer finishes a segment before starting the next, so check it once more for changes
+    // appended since the last read.
+    if (ChangeLog.readFrame(segment, position, scratch) != null) {
+      return true;
+    }
+    if (position < segment.size()) {
+      throw new IOException("Corrupt change log segment " + ChangeLog.segmentPath(directory,
+          segmentBase) + " at byte " + position);
+    }
+    segment.close();
+    open(next);
+    return true;
+  }
+
+  private void open(long base) throws IOException {
+    segment = FileChannel.open(ChangeLog.segmentPath(directory, base), StandardOpenOption.READ);
+    segmentBase = base;
+    position = 0;
+  }
+
+  /**
+   * Closes the segment file being read.
+   *
+   * @throws IOException If the file cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    segment.close();
+  }
+}
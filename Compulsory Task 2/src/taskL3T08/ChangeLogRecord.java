@@ -0,0 +1,12 @@
+package taskL3T08;
+
+/**
+ * The ChangeLogRecord record is one change read back from the {@link ChangeLog}.
+ *
+ * @param offset The change's position in the log. Offsets start at 0 and increase by one per
+ *        change.
+ * @param timestamp When the change was appended, in milliseconds since the epoch.
+ * @param event The change.
+ */
+public record ChangeLogRecord(long offset, long timestamp, DataChangeEvent event) {
+}
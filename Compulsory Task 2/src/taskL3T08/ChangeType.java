@@ -0,0 +1,15 @@
+package taskL3T08;
+
+/**
+ * The ChangeType enum lists the kinds of row change reported in a {@link DataChangeEvent}.
+ */
+public enum ChangeType {
+  /** A new row was inserted. */
+  INSERT,
+  /** Some or all columns of an existing row were changed. */
+  UPDATE,
+  /** A row was inserted, or updated if its primary key already existed. */
+  UPSERT,
+  /** A row was deleted. */
+  DELETE
+}
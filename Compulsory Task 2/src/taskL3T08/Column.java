@@ -0,0 +1,10 @@
+package taskL3T08;
+
+/**
+ * The Column record describes one non-key column of a PoisePMS table.
+ *
+ * @param name The column name in the database.
+ * @param type The column's type.
+ */
+public record Column(String name, ColumnType type) {
+}
@@ -0,0 +1,113 @@
+package taskL3T08;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * The ColumnType enum describes the SQL types used by the PoisePMS tables and how text values are
+ * converted to them when bound to a prepared statement.
+ */
+public enum ColumnType {
+  STRING(Types.VARCHAR),
+  INT(Types.INTEGER),
+  DOUBLE(Types.DOUBLE),
+  BOOLEAN(Types.BOOLEAN),
+  DATE(Types.DATE);
+
+  private final int sqlType;
+
+  ColumnType(int sqlType) {
+    this.sqlType = sqlType;
+  }
+
+  /**
+   * Gets the {@link Types} constant for this column type.
+   *
+   * @return The JDBC SQL type.
+   */
+  public int getSqlType() {
+    return sqlType;
+  }
+
+  /**
+   * Parses a text value and binds it to a statement parameter. An empty or missing value is bound
+   * as SQL NULL, except for string columns where an empty value is kept.
+   *
+   * @param preparedStatement The statement to bind to.
+   * @param index The parameter index.
+   * @param text The text value to parse.
+   * @throws SQLException If a database access error occurs.
+   * @throws IllegalArgumentException If the text is not a valid value of this type.
+   */
+  public void bind(PreparedStatement preparedStatement, int index, String text)
+      throws SQLException {
+    bindValue(preparedStatement, index, parse(text));
+  }
+
+  /**
+   * Parses a text value of this type. An empty or missing value is null, except for string columns
+   * where an empty value is kept.
+   *
+   * @param text The text value to parse.
+   * @return A {@link String}, {@link Integer}, {@link Double}, {@link Boolean} or
+   *         {@link LocalDate}, or null.
+   * @throws IllegalArgumentException If the text is not a valid value of this type.
+   */
+  public Object parse(String text) {
+    if (text == null || (text.isEmpty() && this != STRING)) {
+      return null;
+    }
+    switch (this) {
+      case INT:
+        return Integer.parseInt(text.trim());
+      case DOUBLE:
+        return Double.parseDouble(text.trim());
+      case BOOLEAN:
+        return text.trim().equalsIgnoreCase("true") || text.trim().equals("1");
+      case DATE:
+        try {
+          return LocalDate.parse(text.trim());
+        } catch (DateTimeParseException e) {
+          throw new IllegalArgumentException(e.getMessage(), e);
+        }
+      default:
+        return text;
+    }
+  }
+
+  /**
+   * Binds a value previously returned by {@link #parse(String)} to a statement parameter.
+   *
+   * @param preparedStatement The statement to bind to.
+   * @param index The parameter index.
+   * @param value The parsed value, or null for SQL NULL.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void bindValue(PreparedStatement preparedStatement, int index, Object value)
+      throws SQLException {
+    if (value == null) {
+      preparedStatement.setNull(index, sqlType);
+      return;
+    }
+    switch (this) {
+      case INT:
+        preparedStatement.setInt(index, (Integer) value);
+        break;
+      case DOUBLE:
+        preparedStatement.setDouble(index, (Double) value);
+        break;
+      case BOOLEAN:
+        preparedStatement.setBoolean(index, (Boolean) value);
+        break;
+      case DATE:
+        preparedStatement.setDate(index, Date.valueOf((LocalDate) value));
+        break;
+      default:
+        preparedStatement.setString(index, (String) value);
+    }
+  }
+}
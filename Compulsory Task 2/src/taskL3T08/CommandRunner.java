@@ -0,0 +1,557 @@
+package taskL3T08;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The CommandRunner class runs the application's operations from the command line or a script
+ * file, without the menus, so that automation can run many operations in one JVM on one pooled
+ * connection.
+ *
+ * <p>
+ * A command is a name followed by arguments and {@code --option value} pairs, for example
+ * {@code list overdue --format jsonl} or {@code add-project --file projects.csv}. Table, listing,
+ * grouping and mode names are matched ignoring case, hyphens and underscores, so
+ * {@code structural-engineers} names the StructuralEngineers table. {@code --format} takes
+ * {@code table}, {@code tsv} or {@code jsonl} and defaults to {@code -Dpoisepms.output.format}.
+ * Run {@code help} for the full list.
+ *
+ * <p>
+ * {@code script FILE} runs one command per line of a file ({@code -} reads standard input). Blank
+ * lines and lines starting with {@code #} are skipped, and arguments containing spaces can be
+ * quoted. A script stops at the first command that fails unless it is run with
+ * {@code --keep-going}.
+ */
+public class CommandRunner {
+  /** Exit status when every command succeeded. */
+  public static final int EXIT_OK = 0;
+
+  /** Exit status when a command failed. */
+  public static final int EXIT_FAILED = 1;
+
+  /** Exit status when a command was not understood. */
+  public static final int EXIT_USAGE = 2;
+
+  private static final String USAGE = String.join(System.lineSeparator(),
+      "Commands:",
+      "  list TABLE                      Print a whole table",
+      "  list [projects] LISTING         Print all, incomplete, overdue or finalised projects",
+      "  search TEXT [--mode prefix|substring|fuzzy] [--limit N]",
+      "  add TABLE --file CSV [--batch N]",
+      "                                  Insert the rows of a CSV file; add-project and",
+      "                                  add-architect etc. name the table in the command",
+      "  import TABLE CSV [--upsert] [--batch N]",
+      "                                  Insert, or with --upsert insert or update, CSV rows",
+      "  finalize ID... | --listing LISTING [--customer ID] [--from DATE] [--to DATE]",
+      "  delete TABLE ID... | delete projects --listing LISTING [...]",
+      "  export TABLE FILE [--format F]  Write a table to a file",
+      "  report LISTING [--by building-type|customer|architect|deadline-month|outstanding]",
+      "  script FILE|- [--keep-going]    Run one command per line",
+      "  serve [--port N] [--host H]     Serve the HTTP API until stopped (localhost:8080)",
+      "  help",
+      "Listing, search and report commands take --format table|tsv|jsonl.");
+
+  /** Options that take no value. */
+  private static final Set<String> FLAGS = Set.of("upsert", "keep-going");
+
+  private final Connection connection;
+  private final DatabaseManager dbManager;
+  private final ProjectManager projectManager;
+  private final PrintWriter out;
+
+  /**
+   * Constructor for CommandRunner. Output is written to standard output and errors to standard
+   * error.
+   *
+   * @param connection The database connection every command runs on.
+   */
+  public CommandRunner(Connection connection) {
+    this.connection = connection;
+    this.dbManager = new DatabaseManager(connection);
+    this.projectManager = new ProjectManager();
+    this.out = ResultRenderer.consoleWriter();
+  }
+
+  /**
+   * Runs one command, reporting any failure on standard error.
+   *
+   * @param args The command name and its arguments.
+   * @return {@link #EXIT_OK}, {@link #EXIT_FAILED} or {@link #EXIT_USAGE}.
+   */
+  public int run(List<String> args) {
+    try {
+      return execute(args);
+    } catch (UsageException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      return EXIT_USAGE;
+    } catch (IllegalArgumentException | DateTimeException e) {
+      System.err.println(e.getMessage());
+      return EXIT_FAILED;
+    } catch (SQLException | IOException e) {
+      System.err.println("Command failed: " + e.getMessage());
+      return EXIT_FAILED;
+    } finally {
+      out.flush();
+    }
+  }
+
+  /**
+   * Runs the commands in a script, one per line.
+   *
+   * @param reader The script.
+   * @param name The script's name, used in error messages.
+   * @param keepGoing True to run the remaining commands after one fails.
+   * @return {@link #EXIT_OK} if every command succeeded, otherwise the status of the last failure.
+   * @throws IOException If the script cannot be read.
+   */
+  public int runScript(Reader reader, String name, boolean keepGoing) throws IOException {
+    BufferedReader lines = new BufferedReader(reader);
+    int status = EXIT_OK;
+    int lineNumber = 0;
+    String line;
+    while ((line = lines.readLine()) != null) {
+      lineNumber++;
+      String command = line.strip();
+      if (command.isEmpty() || command.startsWith("#")) {
+        continue;
+      }
+      try {
+        int commandStatus = execute(tokenize(command));
+        if (commandStatus != EXIT_OK) {
+          status = commandStatus;
+        }
+      } catch (UsageException e) {
+        status = EXIT_USAGE;
+        System.err.println(name + ":" + lineNumber + ": " + e.getMessage());
+      } catch (IllegalArgumentException | DateTimeException e) {
+        status = EXIT_FAILED;
+        System.err.println(name + ":" + lineNumber + ": " + e.getMessage());
+      } catch (SQLException | IOException e) {
+        status = EXIT_FAILED;
+        System.err.println(name + ":" + lineNumber + ": Command failed: " + e.getMessage());
+      } finally {
+        out.flush();
+      }
+      if (status != EXIT_OK && !keepGoing) {
+        break;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param args The command name and its arguments.
+   * @return The exit status of a script run by the command, otherwise {@link #EXIT_OK}.
+   * @throws IllegalArgumentException If the command or its arguments are not understood, in which
+   *         case it is a {@link UsageException}, or a value in the data is invalid.
+   * @throws SQLException If a database access error occurs.
+   * @throws IOException If a file cannot be read or written.
+   */
+  public int execute(List<String> args) throws SQLException, IOException {
+    if (args.isEmpty()) {
+      throw new UsageException("No command given.");
+    }
+    String command = args.get(0).toLowerCase(Locale.ROOT);
+    Arguments arguments = new Arguments(args.subList(1, args.size()));
+    if (command.startsWith("add-")) {
+      arguments.positional.add(0, command.substring("add-".length()) + "s");
+      command = "add";
+    }
+
+    switch (command) {
+      case "list":
+        list(arguments);
+        break;
+      case "search":
+        search(arguments);
+        break;
+      case "add":
+        importCsv(arguments.table(0), Path.of(arguments.required("file")), false, arguments);
+        break;
+      case "import":
+        importCsv(arguments.table(0), Path.of(arguments.positional(1, "CSV file")),
+            arguments.has("upsert"), arguments);
+        break;
+      case "finalize":
+        out.println(arguments.has("listing")
+            ? new BulkOperations(connection).finalizeProjects(arguments.criteria())
+            : new BulkOperations(connection).finalizeProjects(arguments.ids(0)));
+        break;
+      case "delete":
+        delete(arguments);
+        break;
+      case "export":
+        export(arguments);
+        break;
+      case "report":
+        report(arguments);
+        break;
+      case "script":
+        return script(arguments);
+      case "serve":
+        serve(arguments);
+        break;
+      case "help":
+        out.println(USAGE);
+        break;
+      default:
+        throw new UsageException("Unknown command: " + args.get(0));
+    }
+    return EXIT_OK;
+  }
+
+  /**
+   * Prints a whole table, or a project listing.
+   */
+  private void list(Arguments arguments) throws SQLException {
+    String name = arguments.positional(0, "table or listing");
+    ProjectFilter filter = null;
+    if (matches(name, "projects") && arguments.positional.size() > 1) {
+      filter = parse(ProjectFilter.class, arguments.positional(1, "listing"), "listing");
+    } else if (!isTable(name)) {
+      filter = parse(ProjectFilter.class, name, "table or listing");
+    }
+    if (filter == null) {
+      dbManager.setOutputFormat(arguments.format());
+      dbManager.displayAllColumns(parse(Table.class, name, "table").getTableName(), out);
+      return;
+    }
+
+    projectManager.readProjects(connection, filter, new ResultRenderer(out, arguments.format()));
+  }
+
+  private static void printSummary(ResultRenderer renderer, ProjectSummary project) {
+    renderer.row(new String[] {Integer.toString(project.projectId()), project.projectNumber(),
+        project.projectName()});
+  }
+
+  /**
+   * Prints the projects matching a search.
+   */
+  private void search(Arguments arguments) throws SQLException {
+    String query = arguments.positional(0, "search text");
+    SearchMode mode = arguments.has("mode")
+        ? parse(SearchMode.class, arguments.required("mode"), "search mode") : SearchMode.SUBSTRING;
+    int limit = arguments.intOption("limit", 100);
+    ResultRenderer renderer = new ResultRenderer(out, arguments.format());
+    renderer.begin("Projects matching \"" + query + "\"", ProjectManager.SUMMARY_COLUMNS,
+        ProjectManager.SUMMARY_TYPES);
+    for (ProjectSummary project : projectManager.searchProjects(connection, query, mode, limit)) {
+      printSummary(renderer, project);
+    }
+    renderer.end();
+  }
+
+  /**
+   * Imports a CSV file and prints the report and any rejected rows.
+   */
+  private void importCsv(Table table, Path file, boolean upsert, Arguments arguments)
+      throws SQLException, IOException {
+    ImportReport report = new BulkImporter(connection, arguments.intOption("batch", 1_000))
+        .importCsv(table, file, upsert);
+    out.println(report);
+    for (ImportReport.RowError error : report.errors()) {
+      out.println("  Line " + error.lineNumber() + " (chunk " + error.chunk() + "): "
+          + error.message());
+    }
+  }
+
+  /**
+   * Deletes projects or people by ID, or projects by listing.
+   */
+  private void delete(Arguments arguments) throws SQLException {
+    Table table = arguments.table(0);
+    BulkOperations bulkOperations = new BulkOperations(connection);
+    if (table == Table.PROJECTS) {
+      out.println(arguments.has("listing")
+          ? bulkOperations.deleteProjects(arguments.criteria())
+          : bulkOperations.deleteProjects(arguments.ids(1)));
+    } else {
+      out.println(bulkOperations.deletePeople(table, arguments.ids(1)));
+    }
+  }
+
+  /**
+   * Writes a table to a file.
+   */
+  private void export(Arguments arguments) throws SQLException, IOException {
+    Table table = arguments.table(0);
+    String file = arguments.positional(1, "output file");
+    long rows = dbManager.exportTable(table.getTableName(), Path.of(file), arguments.format());
+    out.println("Exported " + rows + " rows to " + file + ".");
+  }
+
+  /**
+   * Prints the fee totals of a listing, or one of its groupings.
+   */
+  private void report(Arguments arguments) throws SQLException {
+    ProjectFilter filter =
+        parse(ProjectFilter.class, arguments.positional(0, "listing"), "listing");
+    FinancialReports reports = new FinancialReports(connection);
+    ResultRenderer renderer = new ResultRenderer(out, arguments.format());
+    if (!arguments.has("by")) {
+      FinancialReports.render(renderer, "Totals", List.of(reports.totals(filter)));
+    } else if (matches(arguments.required("by"), "outstanding")) {
+      FinancialReports.render(renderer, "Largest Outstanding Balances",
+          reports.outstandingBalances(filter, arguments.intOption("limit", 100)));
+    } else {
+      FeeGrouping grouping = parse(FeeGrouping.class, arguments.required("by"), "grouping");
+      FinancialReports.render(renderer, filter.getTitle() + " by " + grouping.getTitle(),
+          reports.feesBy(grouping, filter));
+    }
+  }
+
+  /**
+   * Runs a script file, or standard input for {@code -}.
+   */
+  private int script(Arguments arguments) throws IOException {
+    String file = arguments.positional(0, "script file");
+    boolean keepGoing = arguments.has("keep-going");
+    if (file.equals("-")) {
+      return runScript(new InputStreamReader(System.in, StandardCharsets.UTF_8), "stdin",
+          keepGoing);
+    }
+    try (Reader reader = Files.newBufferedReader(Path.of(file))) {
+      return runScript(reader, file, keepGoing);
+    }
+  }
+
+  /**
+   * Serves the HTTP API until the JVM is stopped, e.g. with Ctrl+C.
+   */
+  private void serve(Arguments arguments) throws IOException {
+    String host = arguments.has("host") ? arguments.required("host") : "localhost";
+    HttpApiServer server =
+        new HttpApiServer(new InetSocketAddress(host, arguments.intOption("port", 8080)));
+    Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    server.start();
+    out.println("Serving on http://" + host + ":" + server.getAddress().getPort() + "/");
+    out.flush();
+    try {
+      server.awaitStop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Splits a script line into arguments at spaces. Single or double quotes keep spaces inside an
+   * argument, and a backslash escapes the next character outside single quotes.
+   *
+   * @param line The line.
+   * @return The arguments.
+   * @throws UsageException If a quote is not closed.
+   */
+  static List<String> tokenize(String line) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    boolean inToken = false;
+    char quote = 0;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        } else if (c == '\\' && quote == '"' && i + 1 < line.length()) {
+          token.append(line.charAt(++i));
+        } else {
+          token.append(c);
+        }
+      } else if (Character.isWhitespace(c)) {
+        if (inToken) {
+          tokens.add(token.toString());
+          token.setLength(0);
+          inToken = false;
+        }
+      } else {
+        inToken = true;
+        if (c == '"' || c == '\'') {
+          quote = c;
+        } else if (c == '\\' && i + 1 < line.length()) {
+          token.append(line.charAt(++i));
+        } else {
+          token.append(c);
+        }
+      }
+    }
+    if (quote != 0) {
+      throw new UsageException("Unclosed quote: " + line);
+    }
+    if (inToken) {
+      tokens.add(token.toString());
+    }
+    return tokens;
+  }
+
+  private static boolean isTable(String name) {
+    for (Table table : Table.values()) {
+      if (matches(name, table.name())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the enum constant with the given name, ignoring case, hyphens and underscores.
+   *
+   * @throws UsageException If no constant has that name.
+   */
+  static <E extends Enum<E>> E parse(Class<E> type, String name, String description) {
+    for (E constant : type.getEnumConstants()) {
+      if (matches(name, constant.name())) {
+        return constant;
+      }
+    }
+    throw new UsageException("Unknown " + description + ": " + name);
+  }
+
+  private static boolean matches(String name, String expected) {
+    return normalize(name).equals(normalize(expected));
+  }
+
+  private static String normalize(String name) {
+    return name.replace("-", "").replace("_", "").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * The arguments of one command: positional arguments and {@code --name value} options.
+   */
+  private static class Arguments {
+    private final List<String> positional = new ArrayList<>();
+    private final Map<String, String> options = new HashMap<>();
+
+    Arguments(List<String> args) {
+      for (int i = 0; i < args.size(); i++) {
+        String arg = args.get(i);
+        if (!arg.startsWith("--") || arg.length() == 2) {
+          positional.add(arg);
+          continue;
+        }
+        String name = arg.substring(2);
+        if (FLAGS.contains(name)) {
+          options.put(name, "true");
+        } else if (i + 1 < args.size()) {
+          options.put(name, args.get(++i));
+        } else {
+          throw new UsageException("Option --" + name + " needs a value.");
+        }
+      }
+    }
+
+    String positional(int index, String description) {
+      if (index >= positional.size()) {
+        throw new UsageException("Missing " + description + ".");
+      }
+      return positional.get(index);
+    }
+
+    boolean has(String name) {
+      return options.containsKey(name);
+    }
+
+    String required(String name) {
+      String value = options.get(name);
+      if (value == null) {
+        throw new UsageException("Missing --" + name + ".");
+      }
+      return value;
+    }
+
+    int intOption(String name, int defaultValue) {
+      String value = options.get(name);
+      try {
+        return value == null ? defaultValue : Integer.parseInt(value);
+      } catch (NumberFormatException e) {
+        throw new UsageException("--" + name + " must be a number: " + value);
+      }
+    }
+
+    OutputFormat format() {
+      String name = options.get("format");
+      try {
+        return name == null ? OutputFormat.configured() : OutputFormat.fromName(name);
+      } catch (IllegalArgumentException e) {
+        throw new UsageException(e.getMessage());
+      }
+    }
+
+    Table table(int index) {
+      return parse(Table.class, positional(index, "table"), "table");
+    }
+
+    /**
+     * Gets the IDs from the given position on, separated by spaces or commas.
+     */
+    List<Integer> ids(int from) {
+      List<Integer> ids = new ArrayList<>();
+      for (String arg : positional.subList(Math.min(from, positional.size()), positional.size())) {
+        for (String id : arg.split(",")) {
+          if (!id.isEmpty()) {
+            try {
+              ids.add(Integer.parseInt(id));
+            } catch (NumberFormatException e) {
+              throw new UsageException("Not an ID: " + id);
+            }
+          }
+        }
+      }
+      if (ids.isEmpty()) {
+        throw new UsageException("Missing IDs.");
+      }
+      return ids;
+    }
+
+    ProjectCriteria criteria() {
+      ProjectCriteria criteria =
+          ProjectCriteria.of(parse(ProjectFilter.class, required("listing"), "listing"));
+      if (has("customer")) {
+        criteria = criteria.forCustomer(intOption("customer", 0));
+      }
+      try {
+        if (has("from") || has("to")) {
+          criteria = criteria.withDeadlineBetween(
+              has("from") ? LocalDate.parse(options.get("from")) : null,
+              has("to") ? LocalDate.parse(options.get("to")) : null);
+        }
+      } catch (DateTimeParseException e) {
+        throw new UsageException("Not a date: " + e.getParsedString());
+      }
+      return criteria;
+    }
+  }
+
+  /**
+   * The UsageException class reports a command line that is not understood, such as an unknown
+   * command or a missing argument, as opposed to invalid data in a file or the database. It is
+   * reported with the usage text and {@link #EXIT_USAGE}.
+   */
+  static class UsageException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    UsageException(String message) {
+      super(message);
+    }
+  }
+}
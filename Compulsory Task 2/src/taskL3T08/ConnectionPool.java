@@ -0,0 +1,355 @@
+package taskL3T08;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ConnectionPool class keeps a bounded set of open database connections that callers borrow
+ * and return. Connections handed out by {@link #getConnection()} are returned to the pool when
+ * closed, so callers keep using try-with-resources exactly as they would with
+ * {@code DriverManager}.
+ */
+public class ConnectionPool implements AutoCloseable {
+  /** Idle connections that have not been used for this long are validated before reuse. */
+  private static final long VALIDATION_INTERVAL_MILLIS = 5_000;
+
+  private final String url;
+  private final String username;
+  private final String password;
+  private final int minSize;
+  private final int maxSize;
+  private final long borrowTimeoutMillis;
+  private final long idleTimeoutMillis;
+  private final String validationQuery;
+  private final int statementCacheSize;
+
+  private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+  private final Semaphore permits;
+  private final AtomicInteger activeCount = new AtomicInteger();
+  private final AtomicInteger totalCount = new AtomicInteger();
+  private final PoolMetrics metrics = new PoolMetrics(this);
+  private final ScheduledExecutorService evictor;
+  private volatile boolean closed;
+
+  /**
+   * Constructor for ConnectionPool. Opens {@code minSize} connections immediately.
+   *
+   * @param url The JDBC URL of the database.
+   * @param username The database user.
+   * @param password The database password.
+   * @param minSize The number of connections kept open even when idle.
+   * @param maxSize The maximum number of connections open at once.
+   * @param borrowTimeoutMillis How long a caller waits for a free connection before failing.
+   * @param idleTimeoutMillis How long a connection may sit idle before it is closed.
+   * @param validationQuery The query used to check a connection is still alive, or null to use
+   *        {@link Connection#isValid(int)}.
+   * @param statementCacheSize The number of prepared statements cached per connection, or 0 to
+   *        disable statement caching.
+   * @throws SQLException If the initial connections cannot be opened.
+   */
+  public ConnectionPool(String url, String username, String password, int minSize, int maxSize,
+      long borrowTimeoutMillis, long idleTimeoutMillis, String validationQuery,
+      int statementCacheSize) throws SQLException {
+    if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+      throw new IllegalArgumentException(
+          "Invalid pool size: min=" + minSize + ", max=" + maxSize);
+    }
+    this.url = url;
+    this.username = username;
+    this.password = password;
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.borrowTimeoutMillis = borrowTimeoutMillis;
+    this.idleTimeoutMillis = idleTimeoutMillis;
+    this.validationQuery = validationQuery;
+    this.statementCacheSize = statementCacheSize;
+    this.permits = new Semaphore(maxSize, true);
+
+    for (int i = 0; i < minSize; i++) {
+      idle.addLast(openConnection());
+    }
+
+    this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "poisepms-pool-evictor");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1_000, idleTimeoutMillis / 2);
+    evictor.scheduleAtFixedRate(this::evictIdleConnections, period, period,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Borrows a connection from the pool, waiting up to the borrow timeout if all connections are in
+   * use. Closing the returned connection returns it to the pool.
+   *
+   * @return A connection to the database.
+   * @throws SQLException If the pool is closed, the wait times out, or a connection cannot be
+   *         opened.
+   */
+  public Connection getConnection() throws SQLException {
+    if (closed) {
+      throw new SQLException("Connection pool is closed.");
+    }
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+        metrics.recordTimeout();
+        throw new SQLException("Timed out after " + borrowTimeoutMillis
+            + " ms waiting for a database connection.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a database connection.", e);
+    }
+
+    try {
+      PooledConnection pooled = takeValidIdleConnection();
+      if (pooled == null) {
+        pooled = openConnection();
+      }
+      activeCount.incrementAndGet();
+      metrics.recordBorrow(System.nanoTime() - start);
+      return pooled.newHandle();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the metrics recorded by this pool.
+   *
+   * @return The pool metrics.
+   */
+  public PoolMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Gets the maximum number of connections this pool will open.
+   *
+   * @return The maximum pool size.
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  int getActiveCount() {
+    return activeCount.get();
+  }
+
+  int getIdleCount() {
+    return idle.size();
+  }
+
+  /**
+   * Closes the pool and every idle connection. Borrowed connections are closed when they are
+   * returned.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    evictor.shutdownNow();
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      pooled.closePhysical();
+    }
+  }
+
+  /**
+   * Takes the most recently used idle connection, discarding any that fail validation.
+   *
+   * @return A valid idle connection, or null if none are idle.
+   */
+  private PooledConnection takeValidIdleConnection() {
+    PooledConnection pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      if (System.currentTimeMillis() - pooled.lastUsedMillis < VALIDATION_INTERVAL_MILLIS
+          || isValid(pooled.physical)) {
+        return pooled;
+      }
+      pooled.closePhysical();
+      metrics.recordEvicted();
+    }
+    return null;
+  }
+
+  /**
+   * Checks that a connection is still usable.
+   *
+   * @param connection The physical connection to check.
+   * @return True if the connection is usable.
+   */
+  private boolean isValid(Connection connection) {
+    try {
+      if (validationQuery == null) {
+        return connection.isValid(2);
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.setQueryTimeout(2);
+        statement.execute(validationQuery);
+        return true;
+      }
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Opens a new physical connection.
+   *
+   * @return The new pooled connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  private PooledConnection openConnection() throws SQLException {
+    Connection connection = DriverManager.getConnection(url, username, password);
+    totalCount.incrementAndGet();
+    metrics.recordCreated();
+    return new PooledConnection(connection);
+  }
+
+  /**
+   * Returns a borrowed connection to the pool, resetting any state the borrower left behind.
+   *
+   * @param pooled The connection being returned.
+   */
+  private void release(PooledConnection pooled) {
+    activeCount.decrementAndGet();
+    try {
+      boolean reusable = !closed && !pooled.physical.isClosed();
+      if (reusable && !pooled.physical.getAutoCommit()) {
+        pooled.physical.rollback();
+        pooled.physical.setAutoCommit(true);
+      }
+      if (reusable) {
+        pooled.lastUsedMillis = System.currentTimeMillis();
+        idle.addFirst(pooled);
+      } else {
+        pooled.closePhysical();
+      }
+    } catch (SQLException e) {
+      pooled.closePhysical();
+      metrics.recordEvicted();
+    } finally {
+      permits.release();
+    }
+  }
+
+  /** Closes connections that have been idle too long, keeping at least the minimum size open. */
+  private void evictIdleConnections() {
+    long now = System.currentTimeMillis();
+    Iterator<PooledConnection> iterator = idle.descendingIterator();
+    while (iterator.hasNext() && totalCount.get() > minSize) {
+      PooledConnection pooled = iterator.next();
+      if (now - pooled.lastUsedMillis >= idleTimeoutMillis && idle.remove(pooled)) {
+        pooled.closePhysical();
+        metrics.recordEvicted();
+      }
+    }
+  }
+
+  /**
+   * The PooledConnection class wraps a physical connection owned by the pool and hands out
+   * single-use handles to borrowers.
+   */
+  private final class PooledConnection {
+    private final Connection physical;
+    private final StatementCache statementCache;
+    private volatile long lastUsedMillis = System.currentTimeMillis();
+
+    private PooledConnection(Connection physical) {
+      this.physical = physical;
+      this.statementCache = statementCacheSize > 0
+          ? new StatementCache(physical, statementCacheSize, metrics.statementHits,
+              metrics.statementMisses)
+          : null;
+    }
+
+    /**
+     * Creates a handle whose {@code close()} returns this connection to the pool.
+     *
+     * @return The connection handle given to the borrower.
+     */
+    private Connection newHandle() {
+      return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+          new Class<?>[] {Connection.class}, new Handle(this));
+    }
+
+    private void closePhysical() {
+      totalCount.decrementAndGet();
+      if (statementCache != null) {
+        statementCache.close();
+      }
+      try {
+        physical.close();
+      } catch (SQLException e) {
+        // The connection is being discarded, so there is nothing more to do with it.
+      }
+    }
+  }
+
+  /**
+   * The Handle class forwards calls to the physical connection until the borrower closes it.
+   */
+  private final class Handle implements InvocationHandler {
+    private final PooledConnection pooled;
+    private boolean released;
+
+    private Handle(PooledConnection pooled) {
+      this.pooled = pooled;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!released) {
+            released = true;
+            release(pooled);
+          }
+          return null;
+        case "isClosed":
+          return released || pooled.physical.isClosed();
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "PooledConnection[" + pooled.physical + "]";
+        default:
+          if (released) {
+            throw new SQLException("Connection has already been returned to the pool.");
+          }
+          if (pooled.statementCache != null && method.getName().equals("prepareStatement")) {
+            if (args.length == 1) {
+              return pooled.statementCache.prepare((Connection) proxy, (String) args[0],
+                  Statement.NO_GENERATED_KEYS);
+            }
+            if (args.length == 2 && method.getParameterTypes()[1] == int.class) {
+              return pooled.statementCache.prepare((Connection) proxy, (String) args[0],
+                  (Integer) args[1]);
+            }
+          }
+          try {
+            return method.invoke(pooled.physical, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
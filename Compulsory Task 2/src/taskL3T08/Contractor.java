@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The Contractor record holds one row of the Contractors table.
+ *
+ * @param id The ID of the contractor.
+ * @param name The name of the contractor.
+ * @param telephoneNumber The telephone number of the contractor.
+ * @param emailAddress The email address of the contractor.
+ * @param physicalAddress The physical address of the contractor.
+ */
+public record Contractor(int id, String name, String telephoneNumber, String emailAddress,
+    String physicalAddress) implements Person {
+}
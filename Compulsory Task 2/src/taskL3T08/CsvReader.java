@@ -0,0 +1,122 @@
+package taskL3T08;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CsvReader class reads comma-separated records from a character stream one record at a time.
+ * Fields may be quoted with double quotes, in which case they can contain commas, line breaks and
+ * doubled quotes ({@code ""}).
+ */
+public class CsvReader implements AutoCloseable {
+  private final Reader reader;
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private long lineNumber = 1;
+  private long recordLineNumber;
+
+  /**
+   * Constructor for CsvReader.
+   *
+   * @param reader The character stream to read from.
+   */
+  public CsvReader(Reader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return The record's fields, or null at the end of the input.
+   * @throws IOException If the input cannot be read or a quoted field is not terminated.
+   */
+  public String[] readRecord() throws IOException {
+    int c = read();
+    while (c == '\r' || c == '\n') {
+      c = read();
+    }
+    if (c == -1) {
+      return null;
+    }
+    recordLineNumber = lineNumber;
+
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c == -1) {
+          throw new IOException("Unterminated quoted field starting on line " + recordLineNumber);
+        }
+        if (c == '"') {
+          int next = read();
+          if (next == '"') {
+            field.append('"');
+          } else {
+            quoted = false;
+            c = next;
+            continue;
+          }
+        } else {
+          field.append((char) c);
+        }
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else if (c == '\n' || c == '\r' || c == -1) {
+        if (c == '\r') {
+          int next = read();
+          if (next != '\n' && next != -1) {
+            position--;
+          }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  /**
+   * Gets the line number on which the most recently read record started.
+   *
+   * @return The one-based line number.
+   */
+  public long getRecordLineNumber() {
+    return recordLineNumber;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Reads the next character from the buffer, refilling it as needed.
+   *
+   * @return The character, or -1 at the end of the input.
+   * @throws IOException If the input cannot be read.
+   */
+  private int read() throws IOException {
+    if (position == limit) {
+      limit = reader.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return -1;
+      }
+    }
+    char c = buffer[position++];
+    if (c == '\n') {
+      lineNumber++;
+    }
+    return c;
+  }
+}
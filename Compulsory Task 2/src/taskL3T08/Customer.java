@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The Customer record holds one row of the Customers table.
+ *
+ * @param id The ID of the customer.
+ * @param name The name of the customer.
+ * @param telephoneNumber The telephone number of the customer.
+ * @param emailAddress The email address of the customer.
+ * @param physicalAddress The physical address of the customer.
+ */
+public record Customer(int id, String name, String telephoneNumber, String emailAddress,
+    String physicalAddress) implements Person {
+}
@@ -0,0 +1,33 @@
+package taskL3T08;
+
+import java.util.Map;
+
+/**
+ * The DataChangeEvent record describes one row written by {@link DatabaseManager},
+ * {@link ProjectManager} or {@link BulkImporter}.
+ *
+ * @param table The table that changed.
+ * @param type The kind of change.
+ * @param id The primary key of the changed row.
+ * @param values The column values written, keyed by column name. Updates list only the columns
+ *        they set, and deletes have no values. Values are {@link String}, {@link Integer},
+ *        {@link Double}, {@link Boolean} or {@link java.time.LocalDate}, or null.
+ * @param previous The values the change replaced, keyed by column name, or null if the writer did
+ *        not read them. Project updates and deletes carry the finalised status, deadline, fee and
+ *        amount paid the project had before; an upsert that inserted a new row carries an empty
+ *        map.
+ */
+public record DataChangeEvent(Table table, ChangeType type, int id, Map<String, Object> values,
+    Map<String, Object> previous) {
+  /**
+   * Constructor for a DataChangeEvent that does not say what the row looked like before.
+   *
+   * @param table The table that changed.
+   * @param type The kind of change.
+   * @param id The primary key of the changed row.
+   * @param values The column values written.
+   */
+  public DataChangeEvent(Table table, ChangeType type, int id, Map<String, Object> values) {
+    this(table, type, id, values, null);
+  }
+}
@@ -0,0 +1,81 @@
+package taskL3T08;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The DataChangeEvents class delivers {@link DataChangeEvent}s from the classes that write to the
+ * database to the registered {@link DataChangeListener}s.
+ */
+public class DataChangeEvents {
+  private static final List<DataChangeListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+  private DataChangeEvents() {
+  }
+
+  /**
+   * Registers a listener to be told about every subsequent change.
+   *
+   * @param listener The listener.
+   */
+  public static void addListener(DataChangeListener listener) {
+    LISTENERS.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener The listener.
+   */
+  public static void removeListener(DataChangeListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  /**
+   * Delivers a change to every listener. A failing listener does not stop delivery to the others
+   * or fail the write that caused the change.
+   *
+   * @param table The table that changed.
+   * @param type The kind of change.
+   * @param id The primary key of the changed row.
+   * @param values The column values written.
+   */
+  public static void publish(Table table, ChangeType type, int id, Map<String, Object> values) {
+    publish(table, type, id, values, null);
+  }
+
+  /**
+   * Delivers a change, together with the values it replaced, to every listener.
+   *
+   * @param table The table that changed.
+   * @param type The kind of change.
+   * @param id The primary key of the changed row.
+   * @param values The column values written.
+   * @param previous The values the change replaced, or null if they were not read.
+   */
+  public static void publish(Table table, ChangeType type, int id, Map<String, Object> values,
+      Map<String, Object> previous) {
+    if (LISTENERS.isEmpty()) {
+      return;
+    }
+    DataChangeEvent event = new DataChangeEvent(table, type, id, values, previous);
+    for (DataChangeListener listener : LISTENERS) {
+      try {
+        listener.onChange(event);
+      } catch (RuntimeException e) {
+        System.err.println("Change listener failed for " + table.getTableName() + " " + id + ": "
+            + e);
+      }
+    }
+  }
+
+  /**
+   * Checks whether any listener is registered, so callers can skip building event values.
+   *
+   * @return True if at least one listener is registered.
+   */
+  public static boolean hasListeners() {
+    return !LISTENERS.isEmpty();
+  }
+}
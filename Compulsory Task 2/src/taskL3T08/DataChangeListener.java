@@ -0,0 +1,16 @@
+package taskL3T08;
+
+/**
+ * The DataChangeListener interface is implemented by components that keep derived state, such as
+ * indexes or counters, in step with writes to the database.
+ */
+@FunctionalInterface
+public interface DataChangeListener {
+  /**
+   * Called after a row has been written. Called on the writing thread, so implementations should
+   * return quickly.
+   *
+   * @param event The change.
+   */
+  void onChange(DataChangeEvent event);
+}
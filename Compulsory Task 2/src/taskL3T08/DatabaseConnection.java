@@ -1,25 +1,87 @@
 package taskL3T08;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
- * The DatabaseConnection class handles the connection to the database. It provides a method to get
- * a connection to the database.
+ * The DatabaseConnection class handles the connection to the database. It owns the application's
+ * shared {@link ConnectionPool} and provides a method to borrow a connection from it.
+ *
+ * <p>
+ * Connection settings can be overridden with the system properties {@code poisepms.db.url},
+ * {@code poisepms.db.user}, {@code poisepms.db.password}, {@code poisepms.pool.minSize},
+ * {@code poisepms.pool.maxSize}, {@code poisepms.pool.borrowTimeoutMillis},
+ * {@code poisepms.pool.idleTimeoutMillis} and {@code poisepms.pool.statementCacheSize}.
  */
 public class DatabaseConnection {
+  private static ConnectionPool pool;
+
   /**
-   * Gets a connection to the database.
+   * Gets a connection to the database. The connection is borrowed from the shared pool and is
+   * returned to it when closed.
    *
    * @return A connection to the database.
    * @throws SQLException If a database access error occurs.
    */
   public static Connection getConnection() throws SQLException {
-    String url = "jdbc:mysql://localhost:3306/poisepms";
-    String username = "otheruser";
-    String password = "swordfish";
+    return getPool().getConnection();
+  }
+
+  /**
+   * Gets the shared connection pool, creating it on first use.
+   *
+   * @return The shared connection pool.
+   * @throws SQLException If the pool's initial connections cannot be opened.
+   */
+  public static synchronized ConnectionPool getPool() throws SQLException {
+    if (pool == null) {
+      pool = new ConnectionPool(getUrl(), getUsername(), getPassword(),
+          Integer.getInteger("poisepms.pool.minSize", 1),
+          Integer.getInteger("poisepms.pool.maxSize", 10),
+          Long.getLong("poisepms.pool.borrowTimeoutMillis", 30_000L),
+          Long.getLong("poisepms.pool.idleTimeoutMillis", 600_000L), "SELECT 1",
+          Integer.getInteger("poisepms.pool.statementCacheSize", 64));
+    }
+    return pool;
+  }
+
+  /**
+   * Gets the JDBC URL of the database. By default server-side prepared statements and batch
+   * rewriting are enabled, so cached statements skip re-parsing and JDBC batches are sent as
+   * multi-row statements.
+   *
+   * @return The JDBC URL.
+   */
+  static String getUrl() {
+    return System.getProperty("poisepms.db.url", "jdbc:mysql://localhost:3306/poisepms"
+        + "?useServerPrepStmts=true&rewriteBatchedStatements=true");
+  }
 
-    return DriverManager.getConnection(url, username, password);
+  /**
+   * Gets the database user name.
+   *
+   * @return The user name.
+   */
+  static String getUsername() {
+    return System.getProperty("poisepms.db.user", "otheruser");
+  }
+
+  /**
+   * Gets the database password.
+   *
+   * @return The password.
+   */
+  static String getPassword() {
+    return System.getProperty("poisepms.db.password", "swordfish");
+  }
+
+  /**
+   * Closes the shared connection pool, if it has been created.
+   */
+  public static synchronized void shutdown() {
+    if (pool != null) {
+      pool.close();
+      pool = null;
+    }
   }
 }
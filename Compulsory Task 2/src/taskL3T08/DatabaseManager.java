@@ -1,11 +1,20 @@
 package taskL3T08;
 
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.sql.Connection;
+import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * The DatabaseManager class handles database operations such as displaying, adding, updating, and
@@ -13,6 +22,10 @@ import java.sql.Statement;
  */
 public class DatabaseManager {
   private Connection connection;
+  private PeopleCache peopleCache;
+  private int fetchSize = Integer.getInteger("poisepms.fetchSize", Integer.MIN_VALUE);
+  private OutputFormat outputFormat = OutputFormat.configured();
+  private PrintStream messages = System.out;
 
   /**
    * Constructor for DatabaseManager.
@@ -20,7 +33,79 @@ public class DatabaseManager {
    * @param connection The database connection.
    */
   public DatabaseManager(Connection connection) {
+    this(connection, PeopleCache.shared());
+  }
+
+  /**
+   * Constructor for DatabaseManager.
+   *
+   * @param connection The database connection.
+   * @param peopleCache The cache used for people lookups by ID.
+   */
+  public DatabaseManager(Connection connection, PeopleCache peopleCache) {
     this.connection = connection;
+    this.peopleCache = peopleCache;
+  }
+
+  /**
+   * Sets the fetch size used when reading whole tables. With MySQL Connector/J,
+   * {@link Integer#MIN_VALUE} streams rows one at a time; a positive value fetches that many rows
+   * per round trip when the connection has {@code useCursorFetch=true}.
+   *
+   * @param fetchSize The fetch size hint passed to the driver.
+   */
+  public void setFetchSize(int fetchSize) {
+    this.fetchSize = fetchSize;
+  }
+
+  /**
+   * Creates a forward-only, read-only statement that streams rows from MySQL instead of reading
+   * the whole result into memory.
+   *
+   * @param connection The database connection.
+   * @return The statement, which the caller closes.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Statement streamingStatement(Connection connection) throws SQLException {
+    return streamingStatement(connection, Integer.MIN_VALUE);
+  }
+
+  /**
+   * Creates a forward-only, read-only statement with the given fetch size.
+   *
+   * @param connection The database connection.
+   * @param fetchSize The fetch size hint passed to the driver; see {@link #setFetchSize(int)}.
+   * @return The statement, which the caller closes.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Statement streamingStatement(Connection connection, int fetchSize) throws SQLException {
+    Statement statement =
+        connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    try {
+      statement.setFetchSize(fetchSize);
+    } catch (SQLException e) {
+      // Drivers that do not support streaming reject Integer.MIN_VALUE; use their default.
+    }
+    return statement;
+  }
+
+  /**
+   * Sets the format tables are printed in.
+   *
+   * @param outputFormat The output format.
+   */
+  public void setOutputFormat(OutputFormat outputFormat) {
+    this.outputFormat = outputFormat;
+  }
+
+  /**
+   * Sets the stream that status messages, such as "Project added successfully.", are printed to.
+   * They go to standard output unless set.
+   *
+   * @param messages The stream for status messages.
+   */
+  public void setMessages(PrintStream messages) {
+    this.messages = messages;
   }
 
   /**
@@ -30,27 +115,53 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   public void displayAllColumns(String tableName) throws SQLException {
-    String sql = "SELECT * FROM " + tableName;
-    try (Statement statement = connection.createStatement();
-        ResultSet resultSet = statement.executeQuery(sql)) {
-
-      ResultSetMetaData metaData = resultSet.getMetaData();
-      int columnCount = metaData.getColumnCount();
+    PrintWriter out = ResultRenderer.consoleWriter();
+    displayAllColumns(tableName, out);
+    out.flush();
+  }
 
-      System.out.println("\n" + tableName + ":");
+  /**
+   * Writes all columns of a specified table to the given writer. Rows are streamed from a
+   * forward-only, read-only result set, so memory use does not grow with the size of the table.
+   *
+   * @param tableName The name of the table to display.
+   * @param out The writer to print the table to. It is not flushed or closed.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void displayAllColumns(String tableName, PrintWriter out) throws SQLException {
+    writeTable(tableName, out, outputFormat);
+  }
 
-      // Print column headers
-      for (int i = 1; i <= columnCount; i++) {
-        System.out.print(metaData.getColumnName(i) + "\t");
+  /**
+   * Exports all columns of a specified table to a file, replacing the file if it exists.
+   *
+   * @param tableName The name of the table to export.
+   * @param file The file to write.
+   * @param format The format to write the rows in.
+   * @return The number of rows exported.
+   * @throws SQLException If a database access error occurs.
+   * @throws IOException If the file cannot be written.
+   */
+  public long exportTable(String tableName, Path file, OutputFormat format)
+      throws SQLException, IOException {
+    try (PrintWriter out = ResultRenderer.fileWriter(file)) {
+      long rows = writeTable(tableName, out, format);
+      if (out.checkError()) {
+        throw new IOException("Failed to write " + file);
       }
-      System.out.println();
+      return rows;
+    }
+  }
 
-      // Print rows
-      while (resultSet.next()) {
-        for (int i = 1; i <= columnCount; i++) {
-          System.out.print(resultSet.getString(i) + "\t");
-        }
-        System.out.println();
+  /**
+   * Streams all columns of a table to a writer in the given format.
+   */
+  private long writeTable(String tableName, PrintWriter out, OutputFormat format)
+      throws SQLException {
+    String sql = "SELECT * FROM " + Table.fromName(tableName).getTableName();
+    try (Statement statement = streamingStatement(connection, fetchSize)) {
+      try (ResultSet resultSet = statement.executeQuery(sql)) {
+        return new ResultRenderer(out, format).render(tableName, resultSet);
       }
     }
   }
@@ -80,7 +191,7 @@ public class DatabaseManager {
         addCustomer(values);
         break;
       default:
-        System.out.println("Unsupported table: " + tableName);
+        messages.println("Unsupported table: " + tableName);
     }
   }
 
@@ -91,26 +202,28 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void addProject(String[] values) throws SQLException {
+    addProject(Project.fromValues(values));
+  }
+
+  /**
+   * Adds a new project to the Projects table.
+   *
+   * @param project The new project. Its project ID is ignored.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void addProject(Project project) throws SQLException {
     String sql =
         "INSERT INTO Projects (project_number, project_name, building_type, physical_address, erf_number, total_fee, total_paid, deadline, is_finalised, architect_id, contractor_id, customer_id, structural_engineer_id, project_manager_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // project_number
-      preparedStatement.setString(2, values[1]); // project_name
-      preparedStatement.setString(3, values[2]); // building_type
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setString(5, values[4]); // erf_number
-      preparedStatement.setDouble(6, Double.parseDouble(values[5])); // total_fee
-      preparedStatement.setDouble(7, Double.parseDouble(values[6])); // total_paid
-      preparedStatement.setDate(8, java.sql.Date.valueOf(values[7])); // deadline
-      preparedStatement.setBoolean(9, Boolean.parseBoolean(values[8])); // is_finalised
-      preparedStatement.setInt(10, Integer.parseInt(values[9])); // architect_id
-      preparedStatement.setInt(11, Integer.parseInt(values[10])); // contractor_id
-      preparedStatement.setInt(12, Integer.parseInt(values[11])); // customer_id
-      preparedStatement.setInt(13, Integer.parseInt(values[12])); // structural_engineer_id
-      preparedStatement.setInt(14, Integer.parseInt(values[13])); // project_manager_id
+    try (PreparedStatement preparedStatement =
+        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      bindProject(preparedStatement, project);
 
       preparedStatement.executeUpdate();
-      System.out.println("Project added successfully.");
+      messages.println("Project added successfully.");
+      Map<String, Object> values = project.toColumnValues();
+      values.put("completion_date", null);
+      DataChangeEvents.publish(Table.PROJECTS, ChangeType.INSERT, generatedId(preparedStatement),
+          values);
     }
   }
 
@@ -121,17 +234,7 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void addArchitect(String[] values) throws SQLException {
-    String sql =
-        "INSERT INTO Architects (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-
-      preparedStatement.executeUpdate();
-      System.out.println("Architect added successfully.");
-    }
+    addPerson(Table.ARCHITECTS, Person.fromValues(Table.ARCHITECTS, values));
   }
 
   /**
@@ -141,17 +244,7 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void addStructuralEngineer(String[] values) throws SQLException {
-    String sql =
-        "INSERT INTO StructuralEngineers (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-
-      preparedStatement.executeUpdate();
-      System.out.println("Structural Engineer added successfully.");
-    }
+    addPerson(Table.STRUCTURAL_ENGINEERS, Person.fromValues(Table.STRUCTURAL_ENGINEERS, values));
   }
 
   /**
@@ -161,17 +254,7 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void addContractor(String[] values) throws SQLException {
-    String sql =
-        "INSERT INTO Contractors (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-
-      preparedStatement.executeUpdate();
-      System.out.println("Contractor added successfully.");
-    }
+    addPerson(Table.CONTRACTORS, Person.fromValues(Table.CONTRACTORS, values));
   }
 
   /**
@@ -181,16 +264,27 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void addCustomer(String[] values) throws SQLException {
-    String sql =
-        "INSERT INTO Customers (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
+    addPerson(Table.CUSTOMERS, Person.fromValues(Table.CUSTOMERS, values));
+  }
+
+  /**
+   * Adds a new person to one of the people tables.
+   *
+   * @param table The people table to add the person to.
+   * @param person The new person. Their ID is ignored.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void addPerson(Table table, Person person) throws SQLException {
+    String sql = "INSERT INTO " + table.getTableName()
+        + " (name, telephone_number, email_address, physical_address) VALUES (?, ?, ?, ?)";
+    try (PreparedStatement preparedStatement =
+        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      bindPerson(preparedStatement, person);
 
       preparedStatement.executeUpdate();
-      System.out.println("Customer added successfully.");
+      messages.println(table.getDisplayName() + " added successfully.");
+      DataChangeEvents.publish(table, ChangeType.INSERT, generatedId(preparedStatement),
+          person.toColumnValues());
     }
   }
 
@@ -219,7 +313,7 @@ public class DatabaseManager {
         updateCustomer(values);
         break;
       default:
-        System.out.println("Unsupported table: " + tableName);
+        messages.println("Unsupported table: " + tableName);
     }
   }
 
@@ -230,27 +324,64 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void updateProject(String[] values) throws SQLException {
+    updateProject(Project.fromValues(values));
+  }
+
+  /**
+   * Updates an existing project in the Projects table.
+   *
+   * @param project The new values of the project, identified by its project ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void updateProject(Project project) throws SQLException {
+    if (writeProject(project, -1) > 0) {
+      messages.println("Project updated successfully.");
+    } else {
+      messages.println("No project found with ID " + project.projectId() + ".");
+    }
+  }
+
+  /**
+   * Updates an existing project in the Projects table if it has not been changed since its
+   * version was read with {@link RowVersions#find}.
+   *
+   * @param project The new values of the project, identified by its project ID.
+   * @param expectedVersion The version of the project the new values are based on.
+   * @return Whether the project was updated, changed by someone else, or not found.
+   * @throws SQLException If a database access error occurs.
+   */
+  public UpdateResult updateProject(Project project, int expectedVersion) throws SQLException {
+    int rows = writeProject(project, expectedVersion);
+    return RowVersions.resultOf(connection, Table.PROJECTS, project.projectId(), rows);
+  }
+
+  /**
+   * Writes a project's columns and increments its version, optionally only if the version is
+   * still the expected one.
+   *
+   * @param expectedVersion The version the row must have, or -1 to update it unconditionally.
+   * @return The number of rows updated.
+   */
+  private int writeProject(Project project, int expectedVersion) throws SQLException {
     String sql =
-        "UPDATE Projects SET project_number = ?, project_name = ?, building_type = ?, physical_address = ?, erf_number = ?, total_fee = ?, total_paid = ?, deadline = ?, is_finalised = ?, architect_id = ?, contractor_id = ?, customer_id = ?, structural_engineer_id = ?, project_manager_id = ? WHERE project_id = ?";
+        "UPDATE Projects SET project_number = ?, project_name = ?, building_type = ?, physical_address = ?, erf_number = ?, total_fee = ?, total_paid = ?, deadline = ?, is_finalised = ?, architect_id = ?, contractor_id = ?, customer_id = ?, structural_engineer_id = ?, project_manager_id = ?, version = version + 1 WHERE project_id = ?"
+            + (expectedVersion < 0 ? "" : " AND version = ?");
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // project_number
-      preparedStatement.setString(2, values[1]); // project_name
-      preparedStatement.setString(3, values[2]); // building_type
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setString(5, values[4]); // erf_number
-      preparedStatement.setDouble(6, Double.parseDouble(values[5])); // total_fee
-      preparedStatement.setDouble(7, Double.parseDouble(values[6])); // total_paid
-      preparedStatement.setDate(8, java.sql.Date.valueOf(values[7])); // deadline
-      preparedStatement.setBoolean(9, Boolean.parseBoolean(values[8])); // is_finalised
-      preparedStatement.setInt(10, Integer.parseInt(values[9])); // architect_id
-      preparedStatement.setInt(11, Integer.parseInt(values[10])); // contractor_id
-      preparedStatement.setInt(12, Integer.parseInt(values[11])); // customer_id
-      preparedStatement.setInt(13, Integer.parseInt(values[12])); // structural_engineer_id
-      preparedStatement.setInt(14, Integer.parseInt(values[13])); // project_manager_id
-      preparedStatement.setInt(15, Integer.parseInt(values[14])); // project_id
+      bindProject(preparedStatement, project);
+      preparedStatement.setInt(15, project.projectId()); // project_id
+      if (expectedVersion >= 0) {
+        preparedStatement.setInt(16, expectedVersion);
+      }
 
-      preparedStatement.executeUpdate();
-      System.out.println("Project updated successfully.");
+      Map<String, Object> previous = ProjectBeforeImages.find(connection, project.projectId());
+      int rows = preparedStatement.executeUpdate();
+      if (rows > 0) {
+        Map<String, Object> values = project.toColumnValues();
+        values.remove("completion_date");
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.UPDATE, project.projectId(), values,
+            previous);
+      }
+      return rows;
     }
   }
 
@@ -261,18 +392,7 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void updateArchitect(String[] values) throws SQLException {
-    String sql =
-        "UPDATE Architects SET name = ?, telephone_number = ?, email_address = ?, physical_address = ? WHERE architect_id = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setInt(5, Integer.parseInt(values[4])); // architect_id
-
-      preparedStatement.executeUpdate();
-      System.out.println("Architect updated successfully.");
-    }
+    updatePerson(Table.ARCHITECTS, Person.fromValues(Table.ARCHITECTS, values));
   }
 
   /**
@@ -282,18 +402,8 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void updateStructuralEngineer(String[] values) throws SQLException {
-    String sql =
-        "UPDATE StructuralEngineers SET name = ?, telephone_number = ?, email_address = ?, physical_address = ? WHERE structural_engineer_id = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setInt(5, Integer.parseInt(values[4])); // structural_engineer_id
-
-      preparedStatement.executeUpdate();
-      System.out.println("Structural Engineer updated successfully.");
-    }
+    updatePerson(Table.STRUCTURAL_ENGINEERS,
+        Person.fromValues(Table.STRUCTURAL_ENGINEERS, values));
   }
 
   /**
@@ -303,18 +413,7 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void updateContractor(String[] values) throws SQLException {
-    String sql =
-        "UPDATE Contractors SET name = ?, telephone_number = ?, email_address = ?, physical_address = ? WHERE contractor_id = ?";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setInt(5, Integer.parseInt(values[4])); // contractor_id
-
-      preparedStatement.executeUpdate();
-      System.out.println("Contractor updated successfully.");
-    }
+    updatePerson(Table.CONTRACTORS, Person.fromValues(Table.CONTRACTORS, values));
   }
 
   /**
@@ -324,20 +423,217 @@ public class DatabaseManager {
    * @throws SQLException If a database access error occurs.
    */
   private void updateCustomer(String[] values) throws SQLException {
-    String sql =
-        "UPDATE Customers SET name = ?, telephone_number = ?, email_address = ?, physical_address = ? WHERE customer_id = ?";
+    updatePerson(Table.CUSTOMERS, Person.fromValues(Table.CUSTOMERS, values));
+  }
+
+  /**
+   * Updates an existing person in one of the people tables.
+   *
+   * @param table The people table the person is in.
+   * @param person The new values of the person, identified by their ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void updatePerson(Table table, Person person) throws SQLException {
+    if (writePerson(table, person, -1) > 0) {
+      messages.println(table.getDisplayName() + " updated successfully.");
+    } else {
+      messages.println("No " + table.getDisplayName() + " found with ID " + person.id() + ".");
+    }
+  }
+
+  /**
+   * Updates an existing person in one of the people tables if they have not been changed since
+   * their version was read with {@link RowVersions#find}.
+   *
+   * @param table The people table the person is in.
+   * @param person The new values of the person, identified by their ID.
+   * @param expectedVersion The version of the person the new values are based on.
+   * @return Whether the person was updated, changed by someone else, or not found.
+   * @throws SQLException If a database access error occurs.
+   */
+  public UpdateResult updatePerson(Table table, Person person, int expectedVersion)
+      throws SQLException {
+    int rows = writePerson(table, person, expectedVersion);
+    return RowVersions.resultOf(connection, table, person.id(), rows);
+  }
+
+  /**
+   * Writes a person's columns and increments their version, optionally only if the version is
+   * still the expected one.
+   *
+   * @param expectedVersion The version the row must have, or -1 to update it unconditionally.
+   * @return The number of rows updated.
+   */
+  private int writePerson(Table table, Person person, int expectedVersion) throws SQLException {
+    String sql = "UPDATE " + table.getTableName()
+        + " SET name = ?, telephone_number = ?, email_address = ?, physical_address = ?, "
+        + "version = version + 1 WHERE " + table.getIdColumn() + " = ?"
+        + (expectedVersion < 0 ? "" : " AND version = ?");
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, values[0]); // name
-      preparedStatement.setString(2, values[1]); // telephone_number
-      preparedStatement.setString(3, values[2]); // email_address
-      preparedStatement.setString(4, values[3]); // physical_address
-      preparedStatement.setInt(5, Integer.parseInt(values[4])); // customer_id
+      bindPerson(preparedStatement, person);
+      preparedStatement.setInt(5, person.id()); // person ID
+      if (expectedVersion >= 0) {
+        preparedStatement.setInt(6, expectedVersion);
+      }
 
-      preparedStatement.executeUpdate();
-      System.out.println("Customer updated successfully.");
+      int rows = preparedStatement.executeUpdate();
+      if (rows > 0) {
+        DataChangeEvents.publish(table, ChangeType.UPDATE, person.id(), person.toColumnValues());
+      }
+      return rows;
+    } finally {
+      peopleCache.forTable(table).invalidate(person.id());
     }
   }
 
+  /**
+   * Finds a person by ID in one of the people tables. Lookups are served from the people cache
+   * when possible and loaded from the database otherwise.
+   *
+   * @param table The people table to search.
+   * @param id The ID of the person.
+   * @return The person, or null if there is no person with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public Person findPerson(Table table, int id) throws SQLException {
+    EntityCache<Integer, Person> cache = peopleCache.forTable(table);
+    Person person = cache.get(id);
+    if (person == null) {
+      long version = cache.version();
+      person = loadPerson(table, id);
+      if (person != null) {
+        cache.put(id, person, version);
+      }
+    }
+    return person;
+  }
+
+  /**
+   * Finds several people by ID in one of the people tables. People are served from the people
+   * cache when possible, and the rest are loaded with one query per {@code IN} list of up to 512
+   * IDs and cached.
+   *
+   * @param table The people table to search.
+   * @param ids The IDs of the people; IDs of 0 or less, meaning no person, are skipped.
+   * @return The people found, keyed by ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public Map<Integer, Person> findPeople(Table table, Collection<Integer> ids)
+      throws SQLException {
+    EntityCache<Integer, Person> cache = peopleCache.forTable(table);
+    Map<Integer, Person> people = new HashMap<>();
+    Set<Integer> requested = new HashSet<>();
+    int[] missing = new int[ids.size()];
+    int missingCount = 0;
+    for (int id : ids) {
+      if (id <= 0 || !requested.add(id)) {
+        continue;
+      }
+      Person person = cache.get(id);
+      if (person != null) {
+        people.put(id, person);
+      } else {
+        missing[missingCount++] = id;
+      }
+    }
+    if (missingCount == 0) {
+      return people;
+    }
+
+    long version = cache.version();
+    PersonRowMapper mapper = new PersonRowMapper(table);
+    for (int start = 0; start < missingCount; start += InLists.MAX_SIZE) {
+      int end = Math.min(start + InLists.MAX_SIZE, missingCount);
+      int listSize = InLists.paddedSize(end - start, InLists.MAX_SIZE);
+      StringBuilder sql = new StringBuilder("SELECT ").append(table.getIdColumn())
+          .append(", name, telephone_number, email_address, physical_address FROM ")
+          .append(table.getTableName()).append(" WHERE ");
+      InLists.append(sql, table.getIdColumn(), listSize);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, missing, start, end, listSize);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          while (resultSet.next()) {
+            Person person = mapper.map(resultSet);
+            people.put(person.id(), person);
+            cache.put(person.id(), person, version);
+          }
+        }
+      }
+    }
+    return people;
+  }
+
+  /**
+   * Loads a person by ID from the database, bypassing the cache.
+   *
+   * @param table The people table to search.
+   * @param id The ID of the person.
+   * @return The person, or null if there is no person with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  private Person loadPerson(Table table, int id) throws SQLException {
+    String sql = "SELECT " + table.getIdColumn()
+        + ", name, telephone_number, email_address, physical_address FROM "
+        + table.getTableName() + " WHERE " + table.getIdColumn() + " = ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, id);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next() ? new PersonRowMapper(table).map(resultSet) : null;
+      }
+    }
+  }
+
+  /**
+   * Reads the key generated by an insert.
+   *
+   * @param preparedStatement The executed insert, prepared with
+   *        {@link Statement#RETURN_GENERATED_KEYS}.
+   * @return The generated ID, or 0 if the driver did not return one.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static int generatedId(PreparedStatement preparedStatement) throws SQLException {
+    try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+      return keys.next() ? keys.getInt(1) : 0;
+    }
+  }
+
+  /**
+   * Binds the fourteen data columns of a project, in schema order, to parameters 1 to 14.
+   *
+   * @param preparedStatement The statement to bind to.
+   * @param project The project to bind.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static void bindProject(PreparedStatement preparedStatement, Project project)
+      throws SQLException {
+    preparedStatement.setString(1, project.projectNumber()); // project_number
+    preparedStatement.setString(2, project.projectName()); // project_name
+    preparedStatement.setString(3, project.buildingType()); // building_type
+    preparedStatement.setString(4, project.physicalAddress()); // physical_address
+    preparedStatement.setString(5, project.erfNumber()); // erf_number
+    preparedStatement.setDouble(6, project.totalFee()); // total_fee
+    preparedStatement.setDouble(7, project.totalPaid()); // total_paid
+    preparedStatement.setDate(8,
+        project.deadline() == null ? null : Date.valueOf(project.deadline())); // deadline
+    preparedStatement.setBoolean(9, project.finalised()); // is_finalised
+    project.bindPersonIds(preparedStatement, 10); // architect_id to project_manager_id
+  }
+
+  /**
+   * Binds the four data columns of a person to parameters 1 to 4.
+   *
+   * @param preparedStatement The statement to bind to.
+   * @param person The person to bind.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static void bindPerson(PreparedStatement preparedStatement, Person person)
+      throws SQLException {
+    preparedStatement.setString(1, person.name()); // name
+    preparedStatement.setString(2, person.telephoneNumber()); // telephone_number
+    preparedStatement.setString(3, person.emailAddress()); // email_address
+    preparedStatement.setString(4, person.physicalAddress()); // physical_address
+  }
+
   /**
    * Deletes an architect from the Architects table.
    *
@@ -349,8 +645,12 @@ public class DatabaseManager {
     String sql = "DELETE FROM Architects WHERE architect_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, architectId);
-      preparedStatement.executeUpdate();
-      System.out.println("Architect deleted successfully.");
+      if (preparedStatement.executeUpdate() > 0) {
+        DataChangeEvents.publish(Table.ARCHITECTS, ChangeType.DELETE, architectId, Map.of());
+      }
+      messages.println("Architect deleted successfully.");
+    } finally {
+      peopleCache.forTable(Table.ARCHITECTS).invalidate(architectId);
     }
   }
 
@@ -366,8 +666,13 @@ public class DatabaseManager {
     String sql = "DELETE FROM StructuralEngineers WHERE structural_engineer_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, structuralEngineerId);
-      preparedStatement.executeUpdate();
-      System.out.println("Structural Engineer deleted successfully.");
+      if (preparedStatement.executeUpdate() > 0) {
+        DataChangeEvents.publish(Table.STRUCTURAL_ENGINEERS, ChangeType.DELETE,
+            structuralEngineerId, Map.of());
+      }
+      messages.println("Structural Engineer deleted successfully.");
+    } finally {
+      peopleCache.forTable(Table.STRUCTURAL_ENGINEERS).invalidate(structuralEngineerId);
     }
   }
 
@@ -382,8 +687,12 @@ public class DatabaseManager {
     String sql = "DELETE FROM Contractors WHERE contractor_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, contractorId);
-      preparedStatement.executeUpdate();
-      System.out.println("Contractor deleted successfully.");
+      if (preparedStatement.executeUpdate() > 0) {
+        DataChangeEvents.publish(Table.CONTRACTORS, ChangeType.DELETE, contractorId, Map.of());
+      }
+      messages.println("Contractor deleted successfully.");
+    } finally {
+      peopleCache.forTable(Table.CONTRACTORS).invalidate(contractorId);
     }
   }
 
@@ -398,8 +707,12 @@ public class DatabaseManager {
     String sql = "DELETE FROM Customers WHERE customer_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, customerId);
-      preparedStatement.executeUpdate();
-      System.out.println("Customer deleted successfully.");
+      if (preparedStatement.executeUpdate() > 0) {
+        DataChangeEvents.publish(Table.CUSTOMERS, ChangeType.DELETE, customerId, Map.of());
+      }
+      messages.println("Customer deleted successfully.");
+    } finally {
+      peopleCache.forTable(Table.CUSTOMERS).invalidate(customerId);
     }
   }
 }
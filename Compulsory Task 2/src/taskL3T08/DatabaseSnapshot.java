@@ -0,0 +1,744 @@
+package taskL3T08;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * The DatabaseSnapshot class exports all five PoisePMS tables to a compact binary file and loads
+ * such a file back into an empty database, for backups and for cloning an environment. Every table
+ * is exported from one consistent snapshot, so the foreign keys between projects and people hold
+ * in the file.
+ *
+ * <p>
+ * The file starts with a header listing the schema version and, for each table, its columns, row
+ * count and the offset of its data. The rows follow in groups; within a group each column is
+ * stored contiguously (a null bitmap, then fixed-width values, or lengths and UTF-8 bytes for
+ * strings) and protected by a CRC32. All numbers are little-endian:
+ *
+ * <pre>
+ * header:    "PPMSSNAP", format version (int), schema version (int), created at (long millis),
+ *            table count (int), then per table: name, column count (int),
+ *            per column: name, type (byte), then row count (long), group count (int),
+ *            offset of first group (long). Names are a length (short) and UTF-8 bytes.
+ * row group: row count (int), data length (int), CRC32 of data (int), data.
+ * </pre>
+ *
+ * <p>
+ * Groups are written through one reused direct buffer and read back through memory-mapped
+ * regions of the file, so neither side parses text. Loading uses batched inserts, one transaction
+ * per group; with MySQL Connector/J, {@code rewriteBatchedStatements=true} on the connection URL
+ * turns each batch into a single multi-row INSERT.
+ */
+public class DatabaseSnapshot {
+  /** Bytes at the start of every snapshot file. */
+  private static final byte[] MAGIC = "PPMSSNAP".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int FORMAT_VERSION = 1;
+
+  /** Bytes before the data of a row group: row count, data length and CRC32. */
+  private static final int GROUP_HEADER_SIZE = 12;
+
+  /** Default number of rows per group. */
+  private static final int DEFAULT_GROUP_SIZE = 65_536;
+
+  /** Number of rows sent to the database per batch when loading. */
+  private static final int INSERT_BATCH_SIZE = 1_000;
+
+  /** Tables in load order: the people tables before the projects that refer to them. */
+  private static final List<Table> LOAD_ORDER = List.of(Table.ARCHITECTS,
+      Table.STRUCTURAL_ENGINEERS, Table.CONTRACTORS, Table.CUSTOMERS, Table.PROJECTS);
+
+  private final Connection connection;
+  private final int groupSize;
+
+  /**
+   * Constructor for DatabaseSnapshot.
+   *
+   * @param connection The database connection.
+   */
+  public DatabaseSnapshot(Connection connection) {
+    this(connection, DEFAULT_GROUP_SIZE);
+  }
+
+  /**
+   * Constructor for DatabaseSnapshot.
+   *
+   * @param connection The database connection.
+   * @param groupSize The number of rows per group when exporting.
+   */
+  public DatabaseSnapshot(Connection connection, int groupSize) {
+    if (groupSize < 1) {
+      throw new IllegalArgumentException("Group size must be at least 1: " + groupSize);
+    }
+    this.connection = connection;
+    this.groupSize = groupSize;
+  }
+
+  /**
+   * Exports every table to a file, replacing the file if it exists. The tables are read in one
+   * repeatable-read, read-only transaction, so they are consistent with each other. On MySQL the
+   * snapshot is taken when the transaction starts; other databases, such as the embedded one the
+   * benchmarks use, take it at the first read.
+   *
+   * @param file The file to write.
+   * @return The number of rows exported from each table.
+   * @throws SQLException If a database access error occurs.
+   * @throws IOException If the file cannot be written.
+   */
+  public Map<Table, Long> exportTo(Path file) throws SQLException, IOException {
+    // Read before the snapshot starts: the version table may be created, which would commit it.
+    int schemaVersion = new SchemaMigrator(connection).getCurrentVersion();
+
+    Map<Table, Long> rowCounts = new LinkedHashMap<>();
+    boolean autoCommit = connection.getAutoCommit();
+    int isolation = connection.getTransactionIsolation();
+    connection.setAutoCommit(false);
+    connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      if ("MySQL".equals(connection.getMetaData().getDatabaseProductName())) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+        }
+      }
+
+      // The header is written with zero counts first and filled in once the tables are written.
+      ByteBuffer header = buildHeader(schemaVersion);
+      int[] countPositions = new int[LOAD_ORDER.size()];
+      locateCounts(header, countPositions);
+      channel.write(header.flip(), 0);
+      long position = header.limit();
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+      for (int t = 0; t < LOAD_ORDER.size(); t++) {
+        Table table = LOAD_ORDER.get(t);
+        long firstGroup = position;
+        long rows = 0;
+        int groups = 0;
+        List<Column> columns = columnsOf(table);
+        ColumnBuffer[] buffers = new ColumnBuffer[columns.size()];
+        for (int c = 0; c < buffers.length; c++) {
+          buffers[c] = new ColumnBuffer(columns.get(c).type(), groupSize);
+        }
+
+        try (Statement statement = DatabaseManager.streamingStatement(connection)) {
+          try (ResultSet resultSet = statement.executeQuery(selectSql(table, columns))) {
+            int groupRows = 0;
+            while (resultSet.next()) {
+              for (int c = 0; c < buffers.length; c++) {
+                buffers[c].read(resultSet, c + 1, groupRows);
+              }
+              groupRows++;
+              if (groupRows == groupSize) {
+                buffer = writeGroup(channel, position, buffer, buffers, groupRows);
+                position += buffer.limit();
+                rows += groupRows;
+                groups++;
+                groupRows = 0;
+              }
+            }
+            if (groupRows > 0) {
+              buffer = writeGroup(channel, position, buffer, buffers, groupRows);
+              position += buffer.limit();
+              rows += groupRows;
+              groups++;
+            }
+          }
+        }
+
+        header.putLong(countPositions[t], rows);
+        header.putInt(countPositions[t] + 8, groups);
+        header.putLong(countPositions[t] + 12, firstGroup);
+        rowCounts.put(table, rows);
+      }
+      header.position(0);
+      channel.write(header, 0);
+      channel.force(true);
+    } finally {
+      connection.rollback(); // nothing was written
+      connection.setTransactionIsolation(isolation);
+      connection.setAutoCommit(autoCommit);
+    }
+    return rowCounts;
+  }
+
+  /**
+   * Loads a snapshot file into the database. The tables must be empty, e.g. in a freshly migrated
+   * database; rows keep their original primary keys. Each row group is committed as it is loaded,
+   * so a failed load leaves the groups already loaded in place.
+   *
+   * @param file The snapshot file.
+   * @return The number of rows loaded into each table.
+   * @throws SQLException If a table is not empty or a database access error occurs.
+   * @throws IOException If the file cannot be read or is not a valid snapshot.
+   */
+  public Map<Table, Long> importFrom(Path file) throws SQLException, IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      List<TableEntry> entries = readHeader(channel);
+      for (TableEntry entry : entries) {
+        checkEmpty(entry.table());
+      }
+
+      Map<Table, Long> rowCounts = new LinkedHashMap<>();
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        for (Table table : LOAD_ORDER) {
+          for (TableEntry entry : entries) {
+            if (entry.table() == table) {
+              rowCounts.put(table, load(channel, entry));
+            }
+          }
+        }
+      } finally {
+        connection.setAutoCommit(autoCommit);
+        for (Table table : rowCounts.keySet()) {
+          if (table.isPeopleTable()) {
+            PeopleCache.shared().forTable(table).invalidateAll();
+          }
+        }
+      }
+      return rowCounts;
+    }
+  }
+
+  /**
+   * Reads a snapshot file through without touching the database, checking its structure and the
+   * checksum of every row group.
+   *
+   * @param file The snapshot file.
+   * @return The number of rows in each table of the file.
+   * @throws IOException If the file cannot be read or is not a valid snapshot.
+   */
+  public static Map<Table, Long> verify(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Map<Table, Long> rowCounts = new LinkedHashMap<>();
+      for (TableEntry entry : readHeader(channel)) {
+        long position = entry.firstGroup();
+        long rows = 0;
+        for (int g = 0; g < entry.groups(); g++) {
+          MappedByteBuffer group = mapGroup(channel, position);
+          int groupRows = group.getInt(0);
+          int end = GROUP_HEADER_SIZE;
+          for (ColumnReader reader : entry.readers()) {
+            end = reader.init(group, end, groupRows);
+          }
+          if (end != group.limit()) {
+            throw new IOException("Corrupt row group in " + entry.table().getTableName());
+          }
+          rows += groupRows;
+          position += group.limit();
+        }
+        if (rows != entry.rows()) {
+          throw new IOException("Row count mismatch in " + entry.table().getTableName());
+        }
+        rowCounts.put(entry.table(), rows);
+      }
+      return rowCounts;
+    }
+  }
+
+  /**
+   * Loads the row groups of one table, committing after each group.
+   *
+   * @return The number of rows loaded.
+   */
+  private long load(FileChannel channel, TableEntry entry) throws SQLException, IOException {
+    Table table = entry.table();
+    ColumnReader[] readers = entry.readers();
+    boolean publish = DataChangeEvents.hasListeners();
+    long position = entry.firstGroup();
+    long rows = 0;
+    try (PreparedStatement preparedStatement =
+        connection.prepareStatement(insertSql(table, entry.columns()))) {
+      for (int g = 0; g < entry.groups(); g++) {
+        MappedByteBuffer group = mapGroup(channel, position);
+        int groupRows = group.getInt(0);
+        int end = GROUP_HEADER_SIZE;
+        for (ColumnReader reader : readers) {
+          end = reader.init(group, end, groupRows);
+        }
+        List<Map<String, Object>> events = publish ? new ArrayList<>(groupRows) : null;
+        try {
+          for (int row = 0; row < groupRows; row++) {
+            Map<String, Object> values = publish ? new LinkedHashMap<>() : null;
+            for (int c = 0; c < readers.length; c++) {
+              Object value = readers[c].bindNext(preparedStatement, c + 1, publish);
+              if (values != null) {
+                values.put(entry.columns().get(c).name(), value);
+              }
+            }
+            preparedStatement.addBatch();
+            if (events != null) {
+              events.add(values);
+            }
+            if ((row + 1) % INSERT_BATCH_SIZE == 0 || row == groupRows - 1) {
+              preparedStatement.executeBatch();
+            }
+          }
+          connection.commit();
+        } catch (SQLException e) {
+          connection.rollback();
+          throw e;
+        }
+        if (events != null) {
+          for (Map<String, Object> values : events) {
+            Object id = values.remove(table.getIdColumn());
+            DataChangeEvents.publish(table, ChangeType.INSERT, (Integer) id, values);
+          }
+        }
+        rows += groupRows;
+        position += group.limit();
+      }
+    }
+    return rows;
+  }
+
+  private void checkEmpty(Table table) throws SQLException {
+    String sql = "SELECT 1 FROM " + table.getTableName() + " LIMIT 1";
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      if (resultSet.next()) {
+        throw new SQLException(
+            "Cannot load the snapshot: " + table.getTableName() + " is not empty.");
+      }
+    }
+  }
+
+  /**
+   * Encodes one row group into the buffer, growing it if needed, and writes it at the given file
+   * position.
+   *
+   * @return The buffer used, flipped so that its limit is the group's size.
+   */
+  private static ByteBuffer writeGroup(FileChannel channel, long position, ByteBuffer buffer,
+      ColumnBuffer[] columns, int rows) throws IOException {
+    long size = GROUP_HEADER_SIZE;
+    for (ColumnBuffer column : columns) {
+      size += column.encodedSize(rows);
+    }
+    if (size > Integer.MAX_VALUE) {
+      throw new IOException("Row group too large; use a smaller group size.");
+    }
+    if (buffer.capacity() < size) {
+      buffer = ByteBuffer.allocateDirect((int) Math.max(size, buffer.capacity() * 2L))
+          .order(ByteOrder.LITTLE_ENDIAN);
+    }
+    buffer.clear();
+    buffer.position(GROUP_HEADER_SIZE);
+    for (ColumnBuffer column : columns) {
+      column.write(buffer, rows);
+    }
+    buffer.flip();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.slice(GROUP_HEADER_SIZE, buffer.limit() - GROUP_HEADER_SIZE));
+    buffer.putInt(0, rows);
+    buffer.putInt(4, buffer.limit() - GROUP_HEADER_SIZE);
+    buffer.putInt(8, (int) crc.getValue());
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+    buffer.position(0);
+    return buffer;
+  }
+
+  /**
+   * Maps one row group of the file and checks its checksum.
+   */
+  private static MappedByteBuffer mapGroup(FileChannel channel, long position) throws IOException {
+    if (position + GROUP_HEADER_SIZE > channel.size()) {
+      throw new IOException("Snapshot file is truncated.");
+    }
+    ByteBuffer groupHeader = channel.map(FileChannel.MapMode.READ_ONLY, position,
+        GROUP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    int length = groupHeader.getInt(4);
+    if (length < 0 || position + GROUP_HEADER_SIZE + length > channel.size()) {
+      throw new IOException("Snapshot file is truncated.");
+    }
+    MappedByteBuffer group =
+        channel.map(FileChannel.MapMode.READ_ONLY, position, GROUP_HEADER_SIZE + length);
+    group.order(ByteOrder.LITTLE_ENDIAN);
+    CRC32 crc = new CRC32();
+    crc.update(group.slice(GROUP_HEADER_SIZE, length));
+    if ((int) crc.getValue() != group.getInt(8)) {
+      throw new IOException("Checksum mismatch in the row group at offset " + position + ".");
+    }
+    return group;
+  }
+
+  private static ByteBuffer buildHeader(int schemaVersion) {
+    ByteBuffer header = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    header.put(MAGIC);
+    header.putInt(FORMAT_VERSION);
+    header.putInt(schemaVersion);
+    header.putLong(System.currentTimeMillis());
+    header.putInt(LOAD_ORDER.size());
+    for (Table table : LOAD_ORDER) {
+      putName(header, table.getTableName());
+      List<Column> columns = columnsOf(table);
+      header.putInt(columns.size());
+      for (Column column : columns) {
+        putName(header, column.name());
+        header.put((byte) column.type().ordinal());
+      }
+      header.putLong(0); // row count
+      header.putInt(0); // group count
+      header.putLong(0); // offset of first group
+    }
+    return header;
+  }
+
+  /**
+   * Finds the position of each table's row count in a header built by {@link #buildHeader}.
+   */
+  private static void locateCounts(ByteBuffer header, int[] positions) {
+    int position = MAGIC.length + 20;
+    for (int t = 0; t < LOAD_ORDER.size(); t++) {
+      position += 2 + Short.toUnsignedInt(header.getShort(position));
+      int columnCount = header.getInt(position);
+      position += 4;
+      for (int c = 0; c < columnCount; c++) {
+        position += 2 + Short.toUnsignedInt(header.getShort(position)) + 1;
+      }
+      positions[t] = position;
+      position += 20;
+    }
+  }
+
+  private static List<TableEntry> readHeader(FileChannel channel) throws IOException {
+    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+        Math.min(channel.size(), 1 << 16)).order(ByteOrder.LITTLE_ENDIAN);
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      header.get(magic);
+      if (!Arrays.equals(magic, MAGIC)) {
+        throw new IOException("Not a PoisePMS snapshot file.");
+      }
+      int formatVersion = header.getInt();
+      if (formatVersion != FORMAT_VERSION) {
+        throw new IOException("Unsupported snapshot format version: " + formatVersion);
+      }
+      header.getInt(); // schema version of the exporting database
+      header.getLong(); // created at
+      int tableCount = header.getInt();
+      List<TableEntry> entries = new ArrayList<>(tableCount);
+      for (int t = 0; t < tableCount; t++) {
+        Table table = Table.fromName(getName(header));
+        int columnCount = header.getInt();
+        List<Column> columns = new ArrayList<>(columnCount);
+        ColumnReader[] readers = new ColumnReader[columnCount];
+        for (int c = 0; c < columnCount; c++) {
+          String name = getName(header);
+          ColumnType type = ColumnType.values()[header.get()];
+          Column column = findColumn(table, name);
+          if (column == null || column.type() != type) {
+            throw new IOException(
+                "Snapshot column " + table.getTableName() + "." + name + " does not match.");
+          }
+          columns.add(column);
+          readers[c] = new ColumnReader(type);
+        }
+        entries.add(new TableEntry(table, columns, readers, header.getLong(), header.getInt(),
+            header.getLong()));
+      }
+      return entries;
+    } catch (IllegalArgumentException | IndexOutOfBoundsException | BufferUnderflowException e) {
+      throw new IOException("Corrupt snapshot header: " + e.getMessage(), e);
+    }
+  }
+
+  private static void putName(ByteBuffer buffer, String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    buffer.putShort((short) bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getName(ByteBuffer buffer) {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets a table's columns with its primary key first.
+   */
+  private static List<Column> columnsOf(Table table) {
+    List<Column> columns = new ArrayList<>();
+    columns.add(new Column(table.getIdColumn(), ColumnType.INT));
+    columns.addAll(table.getColumns());
+    return columns;
+  }
+
+  private static Column findColumn(Table table, String name) {
+    for (Column column : columnsOf(table)) {
+      if (column.name().equals(name)) {
+        return column;
+      }
+    }
+    return null;
+  }
+
+  private static String selectSql(Table table, List<Column> columns) {
+    StringBuilder sql = new StringBuilder("SELECT ");
+    for (int i = 0; i < columns.size(); i++) {
+      sql.append(i > 0 ? ", " : "").append(columns.get(i).name());
+    }
+    return sql.append(" FROM ").append(table.getTableName()).append(" ORDER BY ")
+        .append(table.getIdColumn()).toString();
+  }
+
+  private static String insertSql(Table table, List<Column> columns) {
+    StringBuilder sql = new StringBuilder("INSERT INTO ").append(table.getTableName()).append(" (");
+    for (int i = 0; i < columns.size(); i++) {
+      sql.append(i > 0 ? ", " : "").append(columns.get(i).name());
+    }
+    sql.append(") VALUES (");
+    for (int i = 0; i < columns.size(); i++) {
+      sql.append(i > 0 ? ", ?" : "?");
+    }
+    return sql.append(')').toString();
+  }
+
+  /**
+   * One table of a snapshot file, as described by its header.
+   */
+  private record TableEntry(Table table, List<Column> columns, ColumnReader[] readers, long rows,
+      int groups, long firstGroup) {
+  }
+
+  /**
+   * The values of one column for the rows of the group being exported.
+   */
+  private static final class ColumnBuffer {
+    private final ColumnType type;
+    private final boolean[] nulls;
+    private final int[] ints;
+    private final double[] doubles;
+    private final byte[][] strings;
+
+    ColumnBuffer(ColumnType type, int capacity) {
+      this.type = type;
+      this.nulls = new boolean[capacity];
+      this.ints = type == ColumnType.INT || type == ColumnType.DATE || type == ColumnType.BOOLEAN
+          ? new int[capacity] : null;
+      this.doubles = type == ColumnType.DOUBLE ? new double[capacity] : null;
+      this.strings = type == ColumnType.STRING ? new byte[capacity][] : null;
+    }
+
+    void read(ResultSet resultSet, int index, int row) throws SQLException {
+      switch (type) {
+        case INT:
+          ints[row] = resultSet.getInt(index);
+          break;
+        case DOUBLE:
+          doubles[row] = resultSet.getDouble(index);
+          break;
+        case BOOLEAN:
+          ints[row] = resultSet.getBoolean(index) ? 1 : 0;
+          break;
+        case DATE:
+          Date date = resultSet.getDate(index);
+          ints[row] = date == null ? 0 : (int) date.toLocalDate().toEpochDay();
+          break;
+        default:
+          String text = resultSet.getString(index);
+          strings[row] = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+      }
+      nulls[row] = resultSet.wasNull();
+    }
+
+    long encodedSize(int rows) {
+      long size = bitmapSize(rows);
+      switch (type) {
+        case INT:
+        case DATE:
+          return size + 4L * rows;
+        case DOUBLE:
+          return size + 8L * rows;
+        case BOOLEAN:
+          return size + bitmapSize(rows);
+        default:
+          size += 4L * rows;
+          for (int i = 0; i < rows; i++) {
+            size += nulls[i] ? 0 : strings[i].length;
+          }
+          return size;
+      }
+    }
+
+    void write(ByteBuffer buffer, int rows) {
+      writeBitmap(buffer, nulls, null, rows);
+      switch (type) {
+        case INT:
+        case DATE:
+          for (int i = 0; i < rows; i++) {
+            buffer.putInt(nulls[i] ? 0 : ints[i]);
+          }
+          break;
+        case DOUBLE:
+          for (int i = 0; i < rows; i++) {
+            buffer.putDouble(nulls[i] ? 0 : doubles[i]);
+          }
+          break;
+        case BOOLEAN:
+          writeBitmap(buffer, null, ints, rows);
+          break;
+        default:
+          for (int i = 0; i < rows; i++) {
+            buffer.putInt(nulls[i] ? 0 : strings[i].length);
+          }
+          for (int i = 0; i < rows; i++) {
+            if (!nulls[i]) {
+              buffer.put(strings[i]);
+            }
+          }
+          Arrays.fill(strings, 0, rows, null);
+      }
+    }
+
+    /**
+     * Writes one bit per row, set where the flag is true or the value is non-zero.
+     */
+    private static void writeBitmap(ByteBuffer buffer, boolean[] flags, int[] values, int rows) {
+      for (int start = 0; start < rows; start += 8) {
+        int bits = 0;
+        for (int i = start; i < Math.min(start + 8, rows); i++) {
+          if (flags != null ? flags[i] : values[i] != 0) {
+            bits |= 1 << (i - start);
+          }
+        }
+        buffer.put((byte) bits);
+      }
+    }
+  }
+
+  /**
+   * Reads the values of one column from a mapped row group, one row at a time.
+   */
+  private static final class ColumnReader {
+    private final ColumnType type;
+    private ByteBuffer group;
+    private int nullsAt;
+    private int valuesAt;
+    private int bytesAt;
+    private int row;
+    private byte[] scratch = new byte[256];
+
+    ColumnReader(ColumnType type) {
+      this.type = type;
+    }
+
+    /**
+     * Positions the reader at the start of its column in a row group.
+     *
+     * @return The position just after the column's data.
+     */
+    int init(ByteBuffer group, int position, int rows) throws IOException {
+      this.group = group;
+      this.row = 0;
+      this.nullsAt = position;
+      this.valuesAt = position + bitmapSize(rows);
+      long end;
+      switch (type) {
+        case INT:
+        case DATE:
+          end = valuesAt + 4L * rows;
+          break;
+        case DOUBLE:
+          end = valuesAt + 8L * rows;
+          break;
+        case BOOLEAN:
+          end = valuesAt + (long) bitmapSize(rows);
+          break;
+        default:
+          bytesAt = valuesAt + 4 * rows;
+          end = bytesAt;
+          for (int i = 0; i < rows && end <= group.limit() - 4; i++) {
+            end += group.getInt(valuesAt + 4 * i);
+          }
+      }
+      if (end > group.limit()) {
+        throw new IOException("Corrupt row group: column data runs past the end of the group.");
+      }
+      return (int) end;
+    }
+
+    /**
+     * Binds the next row's value to a statement parameter.
+     *
+     * @param wantValue True to return the value bound.
+     * @return The value bound, or null if it was SQL NULL or not wanted.
+     */
+    Object bindNext(PreparedStatement preparedStatement, int index, boolean wantValue)
+        throws SQLException {
+      int i = row++;
+      boolean isNull = bit(nullsAt, i);
+      if (type == ColumnType.STRING) {
+        int length = group.getInt(valuesAt + 4 * i);
+        int start = bytesAt;
+        bytesAt += length;
+        if (isNull) {
+          preparedStatement.setNull(index, type.getSqlType());
+          return null;
+        }
+        if (scratch.length < length) {
+          scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        group.get(start, scratch, 0, length);
+        String value = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        preparedStatement.setString(index, value);
+        return value;
+      }
+      if (isNull) {
+        preparedStatement.setNull(index, type.getSqlType());
+        return null;
+      }
+      switch (type) {
+        case INT:
+          int intValue = group.getInt(valuesAt + 4 * i);
+          preparedStatement.setInt(index, intValue);
+          return wantValue ? intValue : null;
+        case DOUBLE:
+          double doubleValue = group.getDouble(valuesAt + 8 * i);
+          preparedStatement.setDouble(index, doubleValue);
+          return wantValue ? doubleValue : null;
+        case BOOLEAN:
+          boolean booleanValue = bit(valuesAt, i);
+          preparedStatement.setBoolean(index, booleanValue);
+          return wantValue ? booleanValue : null;
+        default:
+          LocalDate date = LocalDate.ofEpochDay(group.getInt(valuesAt + 4 * i));
+          preparedStatement.setDate(index, Date.valueOf(date));
+          return wantValue ? date : null;
+      }
+    }
+
+    private boolean bit(int bitmapAt, int i) {
+      return (group.get(bitmapAt + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+  }
+
+  private static int bitmapSize(int rows) {
+    return (rows + 7) >>> 3;
+  }
+}
@@ -0,0 +1,21 @@
+package taskL3T08;
+
+import java.time.LocalDate;
+
+/**
+ * The DueProject record describes an unfinalised project and its deadline, as tracked by
+ * {@link OverdueDetector}.
+ *
+ * @param projectId The ID of the project.
+ * @param projectNumber The project number.
+ * @param projectName The name of the project.
+ * @param deadline The project's deadline.
+ */
+public record DueProject(int projectId, String projectNumber, String projectName,
+    LocalDate deadline) {
+  @Override
+  public String toString() {
+    return "Project ID: " + projectId + ", Project Number: " + projectNumber + ", Project Name: "
+        + projectName + ", Deadline: " + deadline;
+  }
+}
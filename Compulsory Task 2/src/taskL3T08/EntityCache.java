@@ -0,0 +1,177 @@
+package taskL3T08;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The EntityCache class is a bounded in-memory cache with least-recently-used eviction and a
+ * time-to-live for each entry. It is safe for use by multiple threads.
+ *
+ * <p>
+ * Loads that race with an invalidation are handled with a version number: callers read
+ * {@link #version()} before querying the database and pass it to {@link #put(Object, Object, long)},
+ * which discards the value if the cache was invalidated in the meantime.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class EntityCache<K, V> {
+  private final int maxSize;
+  private final long ttlNanos;
+  private final LinkedHashMap<K, Entry<V>> entries;
+  private long version;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private long expirations;
+
+  /**
+   * Constructor for EntityCache.
+   *
+   * @param maxSize The maximum number of entries kept.
+   * @param ttlMillis How long an entry stays valid after it is loaded.
+   */
+  public EntityCache(int maxSize, long ttlMillis) {
+    this.maxSize = maxSize;
+    this.ttlNanos = ttlMillis * 1_000_000;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > EntityCache.this.maxSize) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets a cached value.
+   *
+   * @param key The key to look up.
+   * @return The value, or null if it is not cached or has expired.
+   */
+  public synchronized V get(K key) {
+    Entry<V> entry = entries.get(key);
+    if (entry != null && System.nanoTime() - entry.loadedNanos >= ttlNanos) {
+      entries.remove(key);
+      expirations++;
+      entry = null;
+    }
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value;
+  }
+
+  /**
+   * Gets the current version, to be passed to {@link #put(Object, Object, long)} after loading a
+   * value.
+   *
+   * @return The version, which changes on every invalidation.
+   */
+  public synchronized long version() {
+    return version;
+  }
+
+  /**
+   * Caches a loaded value, unless the cache has been invalidated since the load started.
+   *
+   * @param key The key.
+   * @param value The loaded value.
+   * @param loadVersion The value of {@link #version()} read before the load started.
+   */
+  public synchronized void put(K key, V value, long loadVersion) {
+    if (loadVersion == version) {
+      entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+  }
+
+  /**
+   * Removes a key from the cache.
+   *
+   * @param key The key to remove.
+   */
+  public synchronized void invalidate(K key) {
+    version++;
+    entries.remove(key);
+  }
+
+  /**
+   * Removes every entry from the cache.
+   */
+  public synchronized void invalidateAll() {
+    version++;
+    entries.clear();
+  }
+
+  /**
+   * Gets the number of lookups that found a cached value.
+   *
+   * @return The hit count.
+   */
+  public synchronized long getHitCount() {
+    return hits;
+  }
+
+  /**
+   * Gets the number of lookups that did not find a cached value.
+   *
+   * @return The miss count.
+   */
+  public synchronized long getMissCount() {
+    return misses;
+  }
+
+  /**
+   * Gets the fraction of lookups that found a cached value.
+   *
+   * @return The hit ratio between 0 and 1.
+   */
+  public synchronized double getHitRatio() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Gets the number of entries removed to keep the cache within its maximum size.
+   *
+   * @return The eviction count.
+   */
+  public synchronized long getEvictionCount() {
+    return evictions;
+  }
+
+  /**
+   * Gets the number of entries removed because their time-to-live passed.
+   *
+   * @return The expiration count.
+   */
+  public synchronized long getExpirationCount() {
+    return expirations;
+  }
+
+  /**
+   * Gets the number of entries currently cached.
+   *
+   * @return The cache size.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("size=%d, hits=%d, misses=%d, hitRatio=%.2f, evictions=%d, expirations=%d",
+        entries.size(), hits, misses, getHitRatio(), evictions, expirations);
+  }
+
+  /**
+   * The Entry record holds a cached value and when it was loaded.
+   */
+  private record Entry<V>(V value, long loadedNanos) {
+  }
+}
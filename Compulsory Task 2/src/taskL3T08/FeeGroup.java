@@ -0,0 +1,23 @@
+package taskL3T08;
+
+/**
+ * The FeeGroup record holds the fee totals of a group of projects, or of a single project in an
+ * outstanding balance listing.
+ *
+ * @param group The group's label, e.g. a building type, "Jane Smith (12)" or "2024-06".
+ * @param projects The number of projects in the group.
+ * @param totalFee The sum of the projects' fees.
+ * @param totalPaid The sum of the amounts paid.
+ * @param outstanding The sum of the unpaid balances. Overpaid projects count as zero, so they do
+ *        not hide what other projects still owe.
+ * @param projectsOwing The number of projects with an unpaid balance.
+ */
+public record FeeGroup(String group, long projects, double totalFee, double totalPaid,
+    double outstanding, long projectsOwing) {
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d projects, fees %.2f, paid %.2f, outstanding %.2f (%d owing)",
+        group, projects, totalFee, totalPaid, outstanding, projectsOwing);
+  }
+}
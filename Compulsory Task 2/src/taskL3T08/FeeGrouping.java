@@ -0,0 +1,50 @@
+package taskL3T08;
+
+/**
+ * The FeeGrouping enum lists the ways {@link FinancialReports} can group project fees, each with
+ * the SQL that computes its group key.
+ */
+public enum FeeGrouping {
+  BUILDING_TYPE("Building Type", "p.building_type", null),
+  CUSTOMER("Customer", "p.customer_id", Table.CUSTOMERS),
+  ARCHITECT("Architect", "p.architect_id", Table.ARCHITECTS),
+  DEADLINE_MONTH("Deadline Month", "YEAR(p.deadline) * 100 + MONTH(p.deadline)", null);
+
+  private final String title;
+  private final String keyExpression;
+  private final Table peopleTable;
+
+  FeeGrouping(String title, String keyExpression, Table peopleTable) {
+    this.title = title;
+    this.keyExpression = keyExpression;
+    this.peopleTable = peopleTable;
+  }
+
+  /**
+   * Gets the heading printed above the report.
+   *
+   * @return The grouping title.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Gets the SQL expression, over the Projects table aliased {@code p}, that computes the group
+   * key. Months are computed as yyyymm integers.
+   *
+   * @return The SQL expression.
+   */
+  String getKeyExpression() {
+    return keyExpression;
+  }
+
+  /**
+   * Gets the people table whose IDs the groups are keyed by.
+   *
+   * @return The people table, or null if the groups are not people.
+   */
+  Table getPeopleTable() {
+    return peopleTable;
+  }
+}
@@ -0,0 +1,17 @@
+package taskL3T08;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FinancialReport record holds the fee totals of a project listing grouped every way listed
+ * in {@link FeeGrouping}, as computed by {@link FinancialReports#fullReport(ProjectFilter)}.
+ *
+ * @param filter The listing reported on.
+ * @param total The totals over every project in the listing.
+ * @param groups The groups for each grouping, in key order.
+ * @param elapsedNanos The time the report took.
+ */
+public record FinancialReport(ProjectFilter filter, FeeGroup total,
+    Map<FeeGrouping, List<FeeGroup>> groups, long elapsedNanos) {
+}
@@ -0,0 +1,403 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The FinancialReports class totals project fees, payments and outstanding balances over a project
+ * listing, overall, per project, or grouped by building type, customer, architect or month of
+ * deadline.
+ *
+ * <p>
+ * A single grouping is computed by the database with {@code GROUP BY}, so only one row per group
+ * is sent back. {@link #fullReport(ProjectFilter)} computes every grouping at once from a single
+ * streamed pass over the listing, accumulating into arrays indexed through a small open-addressing
+ * table of int keys (people IDs and yyyymm months), so the memory used depends on the number of
+ * groups rather than the number of projects. Customer and architect names are looked up for the
+ * groups afterwards.
+ */
+public class FinancialReports {
+  /** Label of the group of projects with no value for the grouping column. */
+  private static final String NO_GROUP = "(none)";
+
+  /** Key used for projects with no value for the grouping column. */
+  private static final int NO_KEY = Integer.MIN_VALUE;
+
+  /** The aggregate columns selected for every group, after the group key. */
+  private static final String AGGREGATES = "COUNT(*), COALESCE(SUM(p.total_fee), 0), "
+      + "COALESCE(SUM(p.total_paid), 0), "
+      + "COALESCE(SUM(GREATEST(COALESCE(p.total_fee, 0) - COALESCE(p.total_paid, 0), 0)), 0), "
+      + "COALESCE(SUM(CASE WHEN p.total_fee > COALESCE(p.total_paid, 0) THEN 1 ELSE 0 END), 0)";
+
+  /** Columns written for each group by {@link #render}. */
+  private static final String[] GROUP_COLUMNS =
+      {"group", "projects", "total_fee", "total_paid", "outstanding", "projects_owing"};
+  private static final int[] GROUP_TYPES = {Types.VARCHAR, Types.BIGINT, Types.DECIMAL,
+      Types.DECIMAL, Types.DECIMAL, Types.BIGINT};
+
+  private final Connection connection;
+
+  /**
+   * Constructor for FinancialReports.
+   *
+   * @param connection The database connection.
+   */
+  public FinancialReports(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Totals the fees, payments and outstanding balances of every project in a listing.
+   *
+   * @param filter The listing to total.
+   * @return The totals, labelled with the listing's title.
+   * @throws SQLException If a database access error occurs.
+   */
+  public FeeGroup totals(ProjectFilter filter) throws SQLException {
+    String sql = "SELECT " + AGGREGATES + " FROM Projects p WHERE " + filter.getCondition();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return readGroup(resultSet, filter.getTitle(), 1);
+    }
+  }
+
+  /**
+   * Totals the fees, payments and outstanding balances of a listing's projects per group. The
+   * grouping is done by the database.
+   *
+   * @param grouping How to group the projects.
+   * @param filter The listing to total.
+   * @return The groups, in key order, starting with the projects that have no value for the
+   *         grouping, if any.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<FeeGroup> feesBy(FeeGrouping grouping, ProjectFilter filter) throws SQLException {
+    Table peopleTable = grouping.getPeopleTable();
+    StringBuilder sql = new StringBuilder("SELECT ").append(grouping.getKeyExpression())
+        .append(" AS group_key, ");
+    if (peopleTable != null) {
+      sql.append("MAX(x.name), ");
+    }
+    sql.append(AGGREGATES).append(" FROM Projects p");
+    if (peopleTable != null) {
+      sql.append(" LEFT JOIN ").append(peopleTable.getTableName()).append(" x ON x.")
+          .append(peopleTable.getIdColumn()).append(" = ").append(grouping.getKeyExpression());
+    }
+    sql.append(" WHERE ").append(filter.getCondition())
+        .append(" GROUP BY group_key ORDER BY group_key");
+
+    List<FeeGroup> groups = new ArrayList<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql.toString())) {
+      while (resultSet.next()) {
+        String label;
+        int first = 2;
+        if (grouping == FeeGrouping.BUILDING_TYPE) {
+          label = resultSet.getString(1);
+          label = label == null ? NO_GROUP : label;
+        } else {
+          int key = resultSet.getInt(1);
+          key = resultSet.wasNull() ? NO_KEY : key;
+          if (peopleTable != null) {
+            label = personLabel(key, resultSet.getString(2));
+            first = 3;
+          } else {
+            label = monthLabel(key);
+          }
+        }
+        groups.add(readGroup(resultSet, label, first));
+      }
+    }
+    return groups;
+  }
+
+  /**
+   * Lists the projects in a listing that have an unpaid balance, largest balance first.
+   *
+   * @param filter The listing to search.
+   * @param limit The maximum number of projects to return.
+   * @return One entry per project, labelled with its number, name and ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<FeeGroup> outstandingBalances(ProjectFilter filter, int limit) throws SQLException {
+    String sql = "SELECT p.project_id, p.project_number, p.project_name, p.total_fee, "
+        + "COALESCE(p.total_paid, 0) AS paid, p.total_fee - COALESCE(p.total_paid, 0) AS balance "
+        + "FROM Projects p WHERE " + filter.getCondition()
+        + " AND p.total_fee > COALESCE(p.total_paid, 0) ORDER BY balance DESC, p.project_id "
+        + "LIMIT ?";
+    List<FeeGroup> projects = new ArrayList<>();
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          String label = resultSet.getString(2) + " " + resultSet.getString(3) + " ("
+              + resultSet.getInt(1) + ")";
+          projects.add(new FeeGroup(label, 1, resultSet.getDouble(4), resultSet.getDouble(5),
+              resultSet.getDouble(6), 1));
+        }
+      }
+    }
+    return projects;
+  }
+
+  /**
+   * Totals a listing's projects every way listed in {@link FeeGrouping} from one streamed pass
+   * over the listing.
+   *
+   * @param filter The listing to report on.
+   * @return The report.
+   * @throws SQLException If a database access error occurs.
+   */
+  public FinancialReport fullReport(ProjectFilter filter) throws SQLException {
+    long start = System.nanoTime();
+    FeeAccumulator total = new FeeAccumulator();
+    FeeAccumulator byBuildingType = new FeeAccumulator();
+    FeeAccumulator byCustomer = new FeeAccumulator();
+    FeeAccumulator byArchitect = new FeeAccumulator();
+    FeeAccumulator byMonth = new FeeAccumulator();
+    // Building types are few, so they are numbered as they are seen and accumulated by number.
+    Map<String, Integer> buildingTypeKeys = new HashMap<>();
+    List<String> buildingTypes = new ArrayList<>();
+
+    String sql = "SELECT p.building_type, p.customer_id, p.architect_id, "
+        + FeeGrouping.DEADLINE_MONTH.getKeyExpression() + ", p.total_fee, p.total_paid "
+        + "FROM Projects p WHERE " + filter.getCondition();
+    try (Statement statement = DatabaseManager.streamingStatement(connection)) {
+      try (ResultSet resultSet = statement.executeQuery(sql)) {
+        while (resultSet.next()) {
+          String buildingType = resultSet.getString(1);
+          Integer typeKey = buildingTypeKeys.get(buildingType);
+          if (typeKey == null) {
+            typeKey = buildingTypes.size();
+            buildingTypeKeys.put(buildingType, typeKey);
+            buildingTypes.add(buildingType);
+          }
+          int customerId = resultSet.getInt(2);
+          customerId = resultSet.wasNull() ? NO_KEY : customerId;
+          int architectId = resultSet.getInt(3);
+          architectId = resultSet.wasNull() ? NO_KEY : architectId;
+          int month = resultSet.getInt(4);
+          month = resultSet.wasNull() ? NO_KEY : month;
+          double fee = resultSet.getDouble(5);
+          double paid = resultSet.getDouble(6);
+
+          total.add(0, fee, paid);
+          byBuildingType.add(typeKey, fee, paid);
+          byCustomer.add(customerId, fee, paid);
+          byArchitect.add(architectId, fee, paid);
+          byMonth.add(month, fee, paid);
+        }
+      }
+    }
+
+    Map<FeeGrouping, List<FeeGroup>> groups = new EnumMap<>(FeeGrouping.class);
+    List<FeeGroup> typeGroups = new ArrayList<>(byBuildingType.size);
+    for (int i = 0; i < byBuildingType.size; i++) {
+      String type = buildingTypes.get(byBuildingType.keys[i]);
+      typeGroups.add(byBuildingType.group(i, type == null ? NO_GROUP : type));
+    }
+    typeGroups.sort((a, b) -> a.group().equals(NO_GROUP) ? -1
+        : b.group().equals(NO_GROUP) ? 1 : a.group().compareTo(b.group()));
+    groups.put(FeeGrouping.BUILDING_TYPE, typeGroups);
+    groups.put(FeeGrouping.CUSTOMER, peopleGroups(byCustomer, Table.CUSTOMERS));
+    groups.put(FeeGrouping.ARCHITECT, peopleGroups(byArchitect, Table.ARCHITECTS));
+    List<FeeGroup> monthGroups = new ArrayList<>(byMonth.size);
+    for (int i : byMonth.sortedIndexes()) {
+      monthGroups.add(byMonth.group(i, monthLabel(byMonth.keys[i])));
+    }
+    groups.put(FeeGrouping.DEADLINE_MONTH, monthGroups);
+
+    FeeGroup totals = total.size == 0 ? new FeeGroup(filter.getTitle(), 0, 0, 0, 0, 0)
+        : total.group(0, filter.getTitle());
+    return new FinancialReport(filter, totals, groups, System.nanoTime() - start);
+  }
+
+  /**
+   * Builds the groups of a people grouping in ID order, looking up the people's names.
+   */
+  private List<FeeGroup> peopleGroups(FeeAccumulator accumulator, Table table)
+      throws SQLException {
+    int[] indexes = accumulator.sortedIndexes();
+    int[] ids = new int[indexes.length];
+    int count = 0;
+    for (int i : indexes) {
+      if (accumulator.keys[i] != NO_KEY) {
+        ids[count++] = accumulator.keys[i];
+      }
+    }
+    Map<Integer, String> names = findNames(table, Arrays.copyOf(ids, count));
+    List<FeeGroup> groups = new ArrayList<>(indexes.length);
+    for (int i : indexes) {
+      int key = accumulator.keys[i];
+      groups.add(accumulator.group(i, personLabel(key, names.get(key))));
+    }
+    return groups;
+  }
+
+  /**
+   * Looks up the names of people, a chunk of IDs at a time.
+   */
+  private Map<Integer, String> findNames(Table table, int[] ids) throws SQLException {
+    Map<Integer, String> names = new HashMap<>();
+    for (int start = 0; start < ids.length; start += InLists.MAX_SIZE) {
+      int end = Math.min(start + InLists.MAX_SIZE, ids.length);
+      int listSize = InLists.paddedSize(end - start, InLists.MAX_SIZE);
+      StringBuilder sql = new StringBuilder("SELECT ").append(table.getIdColumn())
+          .append(", name FROM ").append(table.getTableName()).append(" WHERE ");
+      InLists.append(sql, table.getIdColumn(), listSize);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, ids, start, end, listSize);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          while (resultSet.next()) {
+            names.put(resultSet.getInt(1), resultSet.getString(2));
+          }
+        }
+      }
+    }
+    return names;
+  }
+
+  /**
+   * Writes groups as one table, with amounts rounded to cents.
+   *
+   * @param renderer The renderer to write with.
+   * @param title The table's heading.
+   * @param groups The groups to write.
+   */
+  public static void render(ResultRenderer renderer, String title, List<FeeGroup> groups) {
+    renderer.begin(title, GROUP_COLUMNS, GROUP_TYPES);
+    String[] cells = new String[GROUP_COLUMNS.length];
+    for (FeeGroup group : groups) {
+      cells[0] = group.group();
+      cells[1] = Long.toString(group.projects());
+      cells[2] = String.format("%.2f", group.totalFee());
+      cells[3] = String.format("%.2f", group.totalPaid());
+      cells[4] = String.format("%.2f", group.outstanding());
+      cells[5] = Long.toString(group.projectsOwing());
+      renderer.row(cells);
+    }
+    renderer.end();
+  }
+
+  private static FeeGroup readGroup(ResultSet resultSet, String label, int first)
+      throws SQLException {
+    return new FeeGroup(label, resultSet.getLong(first), resultSet.getDouble(first + 1),
+        resultSet.getDouble(first + 2), resultSet.getDouble(first + 3),
+        resultSet.getLong(first + 4));
+  }
+
+  private static String personLabel(int id, String name) {
+    if (id == NO_KEY) {
+      return NO_GROUP;
+    }
+    return (name == null ? "(deleted)" : name) + " (" + id + ")";
+  }
+
+  private static String monthLabel(int yearMonth) {
+    return yearMonth == NO_KEY ? NO_GROUP
+        : String.format("%04d-%02d", yearMonth / 100, yearMonth % 100);
+  }
+
+  /**
+   * The FeeAccumulator class sums fees per int key. Keys are mapped to dense indexes by an
+   * open-addressing hash table, and the sums are kept in parallel primitive arrays, so adding a
+   * project allocates nothing.
+   */
+  private static final class FeeAccumulator {
+    private int[] slots = new int[32]; // index + 1 of the key in each slot, or 0 if empty
+    private int[] keys = new int[16];
+    private long[] projects = new long[16];
+    private double[] fees = new double[16];
+    private double[] paid = new double[16];
+    private double[] outstanding = new double[16];
+    private long[] owing = new long[16];
+    private int size;
+
+    void add(int key, double fee, double amountPaid) {
+      int i = indexOf(key);
+      projects[i]++;
+      fees[i] += fee;
+      paid[i] += amountPaid;
+      if (fee > amountPaid) {
+        outstanding[i] += fee - amountPaid;
+        owing[i]++;
+      }
+    }
+
+    FeeGroup group(int i, String label) {
+      return new FeeGroup(label, projects[i], fees[i], paid[i], outstanding[i], owing[i]);
+    }
+
+    /**
+     * Gets the indexes of the keys in ascending key order.
+     */
+    int[] sortedIndexes() {
+      long[] order = new long[size];
+      for (int i = 0; i < size; i++) {
+        order[i] = ((long) keys[i] << 32) | i;
+      }
+      Arrays.sort(order);
+      int[] indexes = new int[size];
+      for (int i = 0; i < size; i++) {
+        indexes[i] = (int) order[i];
+      }
+      return indexes;
+    }
+
+    private int indexOf(int key) {
+      int mask = slots.length - 1;
+      int slot = hash(key) & mask;
+      while (slots[slot] != 0) {
+        int index = slots[slot] - 1;
+        if (keys[index] == key) {
+          return index;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (size == keys.length) {
+        int capacity = size * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        projects = Arrays.copyOf(projects, capacity);
+        fees = Arrays.copyOf(fees, capacity);
+        paid = Arrays.copyOf(paid, capacity);
+        outstanding = Arrays.copyOf(outstanding, capacity);
+        owing = Arrays.copyOf(owing, capacity);
+      }
+      int index = size++;
+      keys[index] = key;
+      slots[slot] = index + 1;
+      if (size * 2 > slots.length) {
+        rehash();
+      }
+      return index;
+    }
+
+    private void rehash() {
+      slots = new int[slots.length * 2];
+      int mask = slots.length - 1;
+      for (int index = 0; index < size; index++) {
+        int slot = hash(keys[index]) & mask;
+        while (slots[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+      }
+    }
+
+    private static int hash(int key) {
+      int h = key * 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The FsyncPolicy enum lists when the {@link ChangeLog} forces appended changes to disk. Changes
+ * not yet forced survive the application crashing, but not the machine failing.
+ */
+public enum FsyncPolicy {
+  /** Force every change to disk before the write that caused it returns. Safest and slowest. */
+  ALWAYS,
+  /** Force changes to disk once per configured interval in the background, and on close. */
+  INTERVAL,
+  /** Leave it to the operating system to write changes to disk, and force them on close. */
+  NEVER
+}
@@ -0,0 +1,657 @@
+package taskL3T08;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The HttpApiServer class serves the project and people operations over HTTP, so that many
+ * clients share one process, one connection pool and one set of in-memory caches and indexes.
+ * Each request runs on its own virtual thread and borrows a connection from the shared pool for
+ * as long as it needs one.
+ *
+ * <p>
+ * Lists are streamed as JSON lines ({@code application/x-ndjson}), one object per row, while they
+ * are read; {@code ?format=tsv} or {@code ?format=table} selects the other {@link OutputFormat}s.
+ * Single rows and results are one JSON object, and errors are {@code {"error": "..."}} with a
+ * 400, 404, 409, 412 or 500 status. Table names in paths are matched like {@link CommandRunner}'s,
+ * e.g. {@code /structural-engineers}.
+ *
+ * <pre>
+ * GET    /{table}                  every row; /projects?listing=overdue for a project listing
+ * GET    /{table}/{id}             one row
+ * POST   /{table}                  insert the rows of a CSV body (first line names the columns)
+ * PUT    /{table}                  insert or update the rows of a CSV body
+ * PATCH  /projects/{id}            update the form-encoded columns; If-Match: version to check
+ * POST   /projects/{id}/finalize   finalize a project
+ * DELETE /{table}/{id}             delete a row
+ * GET    /search?q=TEXT            search projects; &amp;mode=prefix|substring|fuzzy&amp;limit=N
+ * GET    /overdue                  overdue projects, most overdue first
+ * GET    /due?days=N               projects due within N days
+ * GET    /reports/{listing}        fee totals; ?by=GROUPING or ?by=outstanding
+ * GET    /dashboard                project status totals
+ * GET    /cache                    people cache size, hit ratio and evictions per table
+ * </pre>
+ */
+public class HttpApiServer {
+  private static final String[] RESULT_COLUMNS = {"table", "type", "requested", "rows_affected"};
+  private static final int[] RESULT_TYPES =
+      {Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.BIGINT};
+  private static final String[] IMPORT_COLUMNS =
+      {"table", "rows_read", "rows_imported", "chunks", "errors"};
+  private static final int[] IMPORT_TYPES =
+      {Types.VARCHAR, Types.BIGINT, Types.BIGINT, Types.INTEGER, Types.INTEGER};
+  private static final String[] ROW_ERROR_COLUMNS = {"line", "chunk", "error"};
+  private static final int[] ROW_ERROR_TYPES = {Types.BIGINT, Types.INTEGER, Types.VARCHAR};
+  private static final String[] ERROR_COLUMNS = {"error"};
+  private static final int[] ERROR_TYPES = {Types.VARCHAR};
+  private static final Map<Table, String[]> PERSON_COLUMNS = personColumns();
+  private static final int[] PERSON_TYPES =
+      {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+
+  /** Seconds to wait for running handlers after the server stops accepting requests. */
+  private static final int STOP_TIMEOUT_SECONDS = 5;
+
+  private final HttpServer server;
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private final ProjectManager projectManager = new ProjectManager();
+  private final CountDownLatch stopped = new CountDownLatch(1);
+
+  /**
+   * Constructor for HttpApiServer. The server does not accept requests until it is started.
+   *
+   * @param address The address and port to listen on.
+   * @throws IOException If the address cannot be bound.
+   */
+  public HttpApiServer(InetSocketAddress address) throws IOException {
+    server = HttpServer.create(address, 0);
+    server.createContext("/", this::handle);
+    server.setExecutor(executor);
+    // Results go in the response body; the console status messages would only fill the log
+    projectManager.setMessages(new PrintStream(OutputStream.nullOutputStream()));
+  }
+
+  /**
+   * Gets the address the server is listening on.
+   *
+   * @return The address, with the port chosen by the system if 0 was requested.
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * Starts loading the shared search index, project dashboard and overdue detector in the
+   * background, and starts accepting requests. As in the menu, the dashboard and overdue detector
+   * are then reconciled with the database every
+   * {@code -Dpoisepms.dashboard.reconcileIntervalMillis}, so changes made by other processes are
+   * reflected in {@code /dashboard}, {@code /overdue} and {@code /due} within that interval.
+   */
+  public void start() {
+    ProjectSearchIndex.shared().loadAsync();
+    ProjectDashboard dashboard = ProjectDashboard.shared();
+    dashboard.reconcileAsync();
+    long reconcileIntervalMillis = ProjectDashboard.configuredReconcileIntervalMillis();
+    if (reconcileIntervalMillis > 0) {
+      dashboard.startReconciliation(reconcileIntervalMillis);
+    }
+    OverdueDetector.shared().start(reconcileIntervalMillis);
+    server.start();
+  }
+
+  /**
+   * Stops accepting requests, waits up to a second for exchanges in progress and a few more for
+   * their handlers to finish, interrupting any still running, and stops the dashboard
+   * reconciliation and the overdue detector's scheduler.
+   */
+  public void stop() {
+    server.stop(1);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    ProjectDashboard.shared().stopReconciliation();
+    OverdueDetector.shared().stop();
+    stopped.countDown();
+  }
+
+  /**
+   * Waits until the server is stopped.
+   *
+   * @throws InterruptedException If the thread is interrupted while waiting.
+   */
+  public void awaitStop() throws InterruptedException {
+    stopped.await();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    Response response = new Response(exchange);
+    try {
+      route(exchange, response);
+      response.finish();
+    } catch (IllegalArgumentException e) {
+      response.error(400, e.getMessage());
+    } catch (SQLIntegrityConstraintViolationException e) {
+      response.error(409, e.getMessage());
+    } catch (SQLException e) {
+      response.error(500, e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      response.error(500, e.toString());
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void route(HttpExchange exchange, Response response) throws SQLException, IOException {
+    String method = exchange.getRequestMethod();
+    List<String> path = new ArrayList<>();
+    for (String segment : exchange.getRequestURI().getRawPath().split("/")) {
+      if (!segment.isEmpty()) {
+        path.add(URLDecoder.decode(segment, StandardCharsets.UTF_8));
+      }
+    }
+    Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+    if (path.isEmpty()) {
+      response.error(404, "No resource given.");
+      return;
+    }
+
+    String resource = path.get(0);
+    if (method.equals("GET") && path.size() == 1) {
+      switch (resource) {
+        case "search":
+          search(response, query);
+          return;
+        case "overdue":
+          try (Connection connection = DatabaseConnection.getConnection()) {
+            projectManager.readOverdueProjects(connection, response.stream(query));
+          }
+          return;
+        case "due":
+          int days = intParameter(query, "days", 7);
+          try (Connection connection = DatabaseConnection.getConnection()) {
+            projectManager.readProjectsDueWithin(connection, days, response.stream(query));
+          }
+          return;
+        case "dashboard":
+          dashboard(response, query);
+          return;
+        case "cache":
+          PeopleCache.shared().renderStats(response.stream(query), null);
+          return;
+        default:
+          break;
+      }
+    }
+    if (method.equals("GET") && resource.equals("reports") && path.size() == 2) {
+      report(response, path.get(1), query);
+      return;
+    }
+
+    Table table;
+    try {
+      table = CommandRunner.parse(Table.class, resource, "resource");
+    } catch (IllegalArgumentException e) {
+      response.error(404, e.getMessage());
+      return;
+    }
+    if (path.size() == 1) {
+      switch (method) {
+        case "GET":
+          list(response, table, query);
+          return;
+        case "POST":
+        case "PUT":
+          importCsv(exchange, response, table, method.equals("PUT"));
+          return;
+        default:
+          response.error(405, "Use GET, POST or PUT on /" + resource + ".");
+          return;
+      }
+    }
+
+    int id = parseId(path.get(1));
+    if (path.size() == 2) {
+      switch (method) {
+        case "GET":
+          find(response, table, id);
+          return;
+        case "PATCH":
+          if (table != Table.PROJECTS) {
+            response.error(405, "Only projects can be patched; PUT a CSV row instead.");
+            return;
+          }
+          patchProject(exchange, response, id);
+          return;
+        case "DELETE":
+          delete(response, table, id);
+          return;
+        default:
+          response.error(405, "Use GET, PATCH or DELETE on /" + resource + "/" + id + ".");
+          return;
+      }
+    }
+    if (path.size() == 3 && table == Table.PROJECTS && path.get(2).equals("finalize")) {
+      if (!method.equals("POST")) {
+        response.error(405, "Use POST to finalize a project.");
+        return;
+      }
+      finalizeProject(response, id);
+      return;
+    }
+    response.error(404, "No such resource: " + exchange.getRequestURI().getPath());
+  }
+
+  /**
+   * Streams every row of a table, or a project listing.
+   */
+  private void list(Response response, Table table, Map<String, String> query)
+      throws SQLException {
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      if (query.containsKey("listing")) {
+        if (table != Table.PROJECTS) {
+          throw new IllegalArgumentException("Only projects have listings.");
+        }
+        ProjectFilter filter =
+            CommandRunner.parse(ProjectFilter.class, query.get("listing"), "listing");
+        projectManager.readProjects(connection, filter, response.stream(query));
+        return;
+      }
+
+      String sql = "SELECT * FROM " + table.getTableName() + " ORDER BY " + table.getIdColumn();
+      try (Statement statement = DatabaseManager.streamingStatement(connection)) {
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+          response.stream(query).render(null, resultSet);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sends one row as a JSON object. People are looked up through the people cache, so they are
+   * sent without their row version.
+   */
+  private void find(Response response, Table table, int id) throws SQLException {
+    if (table.isPeopleTable()) {
+      Person person;
+      try (Connection connection = DatabaseConnection.getConnection()) {
+        person = new DatabaseManager(connection).findPerson(table, id);
+      }
+      if (person == null) {
+        response.error(404, "No " + table.getDisplayName() + " with ID " + id + ".");
+        return;
+      }
+      ResultRenderer renderer = response.buffer();
+      renderer.begin(null, PERSON_COLUMNS.get(table), PERSON_TYPES);
+      renderer.row(new String[] {Integer.toString(person.id()), person.name(),
+          person.telephoneNumber(), person.emailAddress(), person.physicalAddress()});
+      renderer.end();
+      response.sendBuffer(200);
+      return;
+    }
+
+    String sql =
+        "SELECT * FROM " + table.getTableName() + " WHERE " + table.getIdColumn() + " = ?";
+    try (Connection connection = DatabaseConnection.getConnection();
+        PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, id);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        StringWriter body = new StringWriter();
+        long rows = new ResultRenderer(new PrintWriter(body), OutputFormat.JSON_LINES)
+            .render(null, resultSet);
+        if (rows == 0) {
+          response.error(404, "No " + table.getDisplayName() + " with ID " + id + ".");
+        } else {
+          response.send(200, body.toString());
+        }
+      }
+    }
+  }
+
+  /**
+   * Imports the CSV request body, and sends the import report followed by any rejected rows.
+   */
+  private void importCsv(HttpExchange exchange, Response response, Table table, boolean upsert)
+      throws SQLException, IOException {
+    Map<String, String> query = parseForm(exchange.getRequestURI().getRawQuery());
+    ImportReport report;
+    try (Connection connection = DatabaseConnection.getConnection();
+        Reader reader =
+            new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+      report = new BulkImporter(connection, intParameter(query, "batch", 1_000))
+          .importCsv(table, reader, upsert);
+    }
+    ResultRenderer renderer = response.buffer();
+    renderer.begin(null, IMPORT_COLUMNS, IMPORT_TYPES);
+    renderer.row(new String[] {table.getTableName(), Long.toString(report.rowsRead()),
+        Long.toString(report.rowsImported()), Integer.toString(report.chunks()),
+        Integer.toString(report.errors().size())});
+    renderer.end();
+    renderer.begin(null, ROW_ERROR_COLUMNS, ROW_ERROR_TYPES);
+    for (ImportReport.RowError error : report.errors()) {
+      renderer.row(new String[] {Long.toString(error.lineNumber()),
+          Integer.toString(error.chunk()), error.message()});
+    }
+    renderer.end();
+    response.sendBuffer(report.errors().isEmpty() ? 200 : 422);
+  }
+
+  /**
+   * Updates the columns given in a form-encoded body, checking the version in an If-Match header
+   * when there is one.
+   */
+  private void patchProject(HttpExchange exchange, Response response, int id)
+      throws SQLException, IOException {
+    Map<String, Object> changes = new LinkedHashMap<>(
+        parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+    String ifMatch = exchange.getRequestHeaders().getFirst("If-Match");
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      UpdateResult result;
+      if (ifMatch == null) {
+        result = projectManager.updateProject(connection, id, changes)
+            ? UpdateResult.UPDATED : UpdateResult.NOT_FOUND;
+      } else {
+        result = projectManager.updateProject(connection, id, changes,
+            parseId(ifMatch.replace("\"", "")));
+      }
+      switch (result) {
+        case UPDATED:
+          response.send(204, "");
+          break;
+        case CONFLICT:
+          response.error(412, "Project " + id + " has been changed since version " + ifMatch
+              + " was read.");
+          break;
+        default:
+          response.error(404, "No Project with ID " + id + ", or no columns given.");
+      }
+    }
+  }
+
+  private void delete(Response response, Table table, int id) throws SQLException {
+    BulkResult result;
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      BulkOperations bulkOperations = new BulkOperations(connection);
+      result = table == Table.PROJECTS ? bulkOperations.deleteProjects(List.of(id))
+          : bulkOperations.deletePeople(table, List.of(id));
+    }
+    sendResult(response, result, "No " + table.getDisplayName() + " with ID " + id + ".");
+  }
+
+  private void finalizeProject(Response response, int id) throws SQLException {
+    BulkResult result;
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      result = new BulkOperations(connection).finalizeProjects(List.of(id));
+    }
+    sendResult(response, result, "No unfinalised Project with ID " + id + ".");
+  }
+
+  private void sendResult(Response response, BulkResult result, String notFound) {
+    if (result.rowsAffected() == 0) {
+      response.error(404, notFound);
+      return;
+    }
+    ResultRenderer renderer = response.buffer();
+    renderer.begin(null, RESULT_COLUMNS, RESULT_TYPES);
+    renderer.row(new String[] {result.table().getTableName(), result.type().name(),
+        Integer.toString(result.ids().size()), Long.toString(result.rowsAffected())});
+    renderer.end();
+    response.sendBuffer(200);
+  }
+
+  private void search(Response response, Map<String, String> query) throws SQLException {
+    String text = query.get("q");
+    if (text == null) {
+      throw new IllegalArgumentException("Missing q.");
+    }
+    SearchMode mode = query.containsKey("mode")
+        ? CommandRunner.parse(SearchMode.class, query.get("mode"), "search mode")
+        : SearchMode.SUBSTRING;
+    List<ProjectSummary> projects;
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      projects = projectManager.searchProjects(connection, text, mode,
+          intParameter(query, "limit", 100));
+    }
+    ResultRenderer renderer = response.stream(query);
+    renderer.begin(null, ProjectManager.SUMMARY_COLUMNS, ProjectManager.SUMMARY_TYPES);
+    for (ProjectSummary project : projects) {
+      renderer.row(new String[] {Integer.toString(project.projectId()), project.projectNumber(),
+          project.projectName()});
+    }
+    renderer.end();
+  }
+
+  private void report(Response response, String listing, Map<String, String> query)
+      throws SQLException {
+    ProjectFilter filter = CommandRunner.parse(ProjectFilter.class, listing, "listing");
+    String by = query.get("by");
+    List<FeeGroup> groups;
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      FinancialReports reports = new FinancialReports(connection);
+      if (by == null) {
+        groups = List.of(reports.totals(filter));
+      } else if (by.equalsIgnoreCase("outstanding")) {
+        groups = reports.outstandingBalances(filter, intParameter(query, "limit", 100));
+      } else {
+        groups = reports.feesBy(
+            CommandRunner.parse(FeeGrouping.class, by, "grouping"), filter);
+      }
+    }
+    FinancialReports.render(response.stream(query), null, groups);
+  }
+
+  private void dashboard(Response response, Map<String, String> query) throws SQLException {
+    ProjectDashboard dashboard = ProjectDashboard.shared();
+    List<FeeGroup> totals = new ArrayList<>();
+    if (dashboard.isReady()) {
+      totals.addAll(dashboard.summary().values());
+    } else {
+      try (Connection connection = DatabaseConnection.getConnection()) {
+        FinancialReports reports = new FinancialReports(connection);
+        for (ProjectFilter filter : ProjectFilter.values()) {
+          totals.add(reports.totals(filter));
+        }
+      }
+    }
+    FinancialReports.render(response.stream(query), null, totals);
+  }
+
+  /**
+   * Lists the columns of each people table, as sent for one person.
+   */
+  private static Map<Table, String[]> personColumns() {
+    Map<Table, String[]> columns = new EnumMap<>(Table.class);
+    for (Table table : Table.values()) {
+      if (table.isPeopleTable()) {
+        columns.put(table, new String[] {table.getIdColumn(), "name", "telephone_number",
+            "email_address", "physical_address"});
+      }
+    }
+    return columns;
+  }
+
+  /**
+   * Parses a query string or form-encoded body.
+   */
+  private static Map<String, String> parseForm(String form) {
+    Map<String, String> values = new LinkedHashMap<>();
+    if (form == null || form.isEmpty()) {
+      return values;
+    }
+    for (String pair : form.split("&")) {
+      if (pair.isEmpty()) {
+        continue;
+      }
+      int equals = pair.indexOf('=');
+      String name = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      values.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return values;
+  }
+
+  private static int parseId(String text) {
+    try {
+      return Integer.parseInt(text.trim());
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not an ID: " + text);
+    }
+  }
+
+  private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+    String value = query.get(name);
+    try {
+      return value == null ? defaultValue : Integer.parseInt(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " must be a number: " + value);
+    }
+  }
+
+  /**
+   * The Response class writes an exchange's response. Streamed responses only send their headers
+   * when the first buffer of rows is written, so an error raised before then, e.g. by the query,
+   * can still be sent with an error status.
+   */
+  private static class Response {
+    private final HttpExchange exchange;
+    private boolean started;
+    private PrintWriter stream;
+    private StringWriter buffer;
+
+    Response(HttpExchange exchange) {
+      this.exchange = exchange;
+    }
+
+    /**
+     * Starts a streamed 200 response, sent once the request has been handled or the buffer fills,
+     * in the format named by the {@code format} parameter, JSON
+     * lines by default.
+     */
+    ResultRenderer stream(Map<String, String> query) {
+      OutputFormat format = query.containsKey("format")
+          ? OutputFormat.fromName(query.get("format")) : OutputFormat.JSON_LINES;
+      exchange.getResponseHeaders().set("Content-Type", contentType(format));
+      OutputStream body = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+          begin().write(b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+          begin().write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+          begin().flush();
+        }
+      };
+      stream = new PrintWriter(new BufferedWriter(
+          new OutputStreamWriter(body, StandardCharsets.UTF_8), ResultRenderer.OUTPUT_BUFFER_SIZE));
+      return new ResultRenderer(stream, format);
+    }
+
+    /** Sends the rest of a streamed response. */
+    void finish() {
+      if (stream != null) {
+        stream.flush();
+      }
+    }
+
+    /** Starts a JSON response that is sent whole by {@link #sendBuffer}. */
+    ResultRenderer buffer() {
+      buffer = new StringWriter();
+      return new ResultRenderer(new PrintWriter(buffer), OutputFormat.JSON_LINES);
+    }
+
+    void sendBuffer(int status) {
+      send(status, buffer.toString());
+    }
+
+    void send(int status, String body) {
+      if (started) {
+        return;
+      }
+      started = true;
+      byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+      try {
+        if (!exchange.getResponseHeaders().containsKey("Content-Type")) {
+          exchange.getResponseHeaders().set("Content-Type", contentType(OutputFormat.JSON_LINES));
+        }
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+          exchange.getResponseBody().write(bytes);
+        }
+      } catch (IOException e) {
+        // The client has gone away; there is no one left to tell.
+      }
+    }
+
+    /**
+     * Sends an error, unless part of a streamed response has already been sent, in which case
+     * the stream is cut short and the client sees an incomplete response.
+     */
+    void error(int status, String message) {
+      StringWriter body = new StringWriter();
+      ResultRenderer renderer = new ResultRenderer(new PrintWriter(body), OutputFormat.JSON_LINES);
+      renderer.begin(null, ERROR_COLUMNS, ERROR_TYPES);
+      renderer.row(new String[] {message});
+      renderer.end();
+      exchange.getResponseHeaders().set("Content-Type", contentType(OutputFormat.JSON_LINES));
+      send(status, body.toString());
+    }
+
+    private OutputStream begin() throws IOException {
+      if (!started) {
+        started = true;
+        exchange.sendResponseHeaders(200, 0);
+      }
+      return exchange.getResponseBody();
+    }
+
+    private static String contentType(OutputFormat format) {
+      switch (format) {
+        case JSON_LINES:
+          return "application/x-ndjson; charset=utf-8";
+        case TSV:
+          return "text/tab-separated-values; charset=utf-8";
+        default:
+          return "text/plain; charset=utf-8";
+      }
+    }
+  }
+}
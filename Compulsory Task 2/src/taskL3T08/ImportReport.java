@@ -0,0 +1,42 @@
+package taskL3T08;
+
+import java.util.List;
+
+/**
+ * The ImportReport record summarises the outcome of a bulk CSV import.
+ *
+ * @param table The table the rows were imported into.
+ * @param rowsRead The number of data rows read from the file.
+ * @param rowsImported The number of rows written to the database.
+ * @param chunks The number of chunks committed.
+ * @param elapsedNanos The time the import took.
+ * @param errors The rows that could not be imported.
+ */
+public record ImportReport(Table table, long rowsRead, long rowsImported, int chunks,
+    long elapsedNanos, List<RowError> errors) {
+
+  /**
+   * The RowError record describes one CSV row that could not be imported.
+   *
+   * @param lineNumber The line of the file the row started on.
+   * @param chunk The number of the chunk the row belonged to, starting at 1.
+   * @param message Why the row was rejected.
+   */
+  public record RowError(long lineNumber, int chunk, String message) {
+  }
+
+  /**
+   * Gets the import throughput.
+   *
+   * @return The number of rows imported per second.
+   */
+  public double rowsPerSecond() {
+    return elapsedNanos == 0 ? 0 : rowsImported * 1_000_000_000.0 / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s: %d of %d rows imported in %d chunks (%.0f rows/sec), %d errors",
+        table.getTableName(), rowsImported, rowsRead, chunks, rowsPerSecond(), errors.size());
+  }
+}
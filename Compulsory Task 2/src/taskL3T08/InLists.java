@@ -0,0 +1,62 @@
+package taskL3T08;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * The InLists class builds {@code IN} lists of ID parameters. Lists are padded to a power of two,
+ * so only a handful of statement shapes are prepared however many IDs are looked up or changed.
+ */
+class InLists {
+  /** Largest number of IDs placed in one IN list by default. */
+  static final int MAX_SIZE = 512;
+
+  private InLists() {
+  }
+
+  /**
+   * Rounds a number of IDs up to a power of two, at most the largest list size.
+   *
+   * @param length The number of IDs.
+   * @param maxSize The largest list size.
+   * @return The number of parameters in the list.
+   */
+  static int paddedSize(int length, int maxSize) {
+    int size = Integer.highestOneBit(Math.max(1, length) - 1) << 1;
+    return Math.max(1, Math.min(size, maxSize));
+  }
+
+  /**
+   * Appends {@code column IN (?, ?, ...)} with the given number of parameters.
+   *
+   * @param sql The statement being built.
+   * @param column The column the IDs are matched against.
+   * @param listSize The number of parameters, from {@link #paddedSize}.
+   */
+  static void append(StringBuilder sql, String column, int listSize) {
+    sql.append(column).append(" IN (");
+    for (int i = 0; i < listSize; i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    sql.append(')');
+  }
+
+  /**
+   * Binds a range of IDs to the parameters of a list appended by {@link #append}.
+   *
+   * @param preparedStatement The statement.
+   * @param firstIndex The index of the list's first parameter.
+   * @param ids The IDs.
+   * @param start The index of the first ID to bind.
+   * @param end The index after the last ID to bind.
+   * @param listSize The number of parameters in the list.
+   * @throws SQLException If a database access error occurs.
+   */
+  static void bind(PreparedStatement preparedStatement, int firstIndex, int[] ids, int start,
+      int end, int listSize) throws SQLException {
+    for (int i = 0; i < listSize; i++) {
+      // Padding positions repeat the last ID, which does not change the result.
+      preparedStatement.setInt(firstIndex + i, ids[Math.min(start + i, end - 1)]);
+    }
+  }
+}
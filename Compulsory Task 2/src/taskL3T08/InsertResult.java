@@ -0,0 +1,12 @@
+package taskL3T08;
+
+/**
+ * The InsertResult enum reports the outcome of an insert that is skipped when the row already
+ * exists.
+ */
+public enum InsertResult {
+  /** The row was inserted. */
+  INSERTED,
+  /** A row with the same unique key already exists, so nothing was inserted. */
+  DUPLICATE
+}
@@ -1,29 +1,55 @@
 package taskL3T08;
 
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 
 /**
  * The MenuManager class handles the display and navigation of menus in the application. It provides
  * methods to display different menus and handle user choices.
  */
 public class MenuManager {
+  /** Number of projects shown per page when browsing project listings. */
+  private static final int BROWSE_PAGE_SIZE = 20;
+
   private Connection connection;
   private DatabaseManager dbManager;
   private InputHandler inputHandler;
   private ProjectManager projectManager;
+  private AsyncDataAccess asyncDataAccess;
 
   /**
-   * Constructor for MenuManager.
+   * Constructor for MenuManager. Every operation runs on the calling thread.
    *
    * @param connection The database connection.
    */
   public MenuManager(Connection connection) {
+    this(connection, null);
+  }
+
+  /**
+   * Constructor for MenuManager.
+   *
+   * @param connection The database connection.
+   * @param asyncDataAccess Runs independent queries concurrently on other pooled connections, or
+   *        null to run everything on the given connection.
+   */
+  public MenuManager(Connection connection, AsyncDataAccess asyncDataAccess) {
     this.connection = connection;
     this.dbManager = new DatabaseManager(connection);
     this.inputHandler = new InputHandler(new Scanner(System.in));
     this.projectManager = new ProjectManager();
+    this.asyncDataAccess = asyncDataAccess;
   }
 
   /**
@@ -39,7 +65,12 @@ public class MenuManager {
       System.out.println("2. Add New Information");
       System.out.println("3. Update Existing Information");
       System.out.println("4. Delete Information");
-      System.out.println("5. Exit");
+      System.out.println("5. Import Information from CSV");
+      System.out.println("6. Export Information to File");
+      System.out.println("7. Back Up or Restore Database Snapshot");
+      System.out.println("8. Finalize or Delete in Bulk");
+      System.out.println("9. Financial Reports");
+      System.out.println("10. Exit");
       System.out.println(); // Empty line for separation
       System.out.print("Enter your choice: ");
       String choice = inputHandler.getUserInput("");
@@ -58,6 +89,21 @@ public class MenuManager {
           displayDeleteMenu();
           break;
         case "5":
+          importFromCsv();
+          break;
+        case "6":
+          exportToFile();
+          break;
+        case "7":
+          displaySnapshotMenu();
+          break;
+        case "8":
+          displayBulkMenu();
+          break;
+        case "9":
+          displayFinancialReportMenu();
+          break;
+        case "10":
           System.out.println("Exiting PoisePMS. Goodbye!");
           return;
         default:
@@ -66,6 +112,315 @@ public class MenuManager {
     }
   }
 
+  /**
+   * Imports records from a CSV file into a table chosen by the user.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void importFromCsv() throws SQLException {
+    System.out.println("\nImport into which table?");
+    System.out.println("1. Project");
+    System.out.println("2. Architect");
+    System.out.println("3. Structural Engineer");
+    System.out.println("4. Contractor");
+    System.out.println("5. Customer");
+    int tableChoice = inputHandler.getIntInput("Enter your choice: ");
+    if (tableChoice < 1 || tableChoice > Table.values().length) {
+      System.out.println("Invalid choice.");
+      return;
+    }
+    Table table = Table.values()[tableChoice - 1];
+    String file = inputHandler.getUserInput("CSV file path (first line must name the columns): ");
+    int chunkSize = inputHandler.getIntInput("Rows per batch (e.g. 1000): ");
+    boolean upsert = inputHandler.getUserInput("Update rows whose ID already exists? (y/n): ")
+        .equalsIgnoreCase("y");
+
+    try {
+      ImportReport report =
+          new BulkImporter(connection, chunkSize).importCsv(table, Path.of(file), upsert);
+      System.out.println(report);
+      for (ImportReport.RowError error : report.errors()) {
+        System.out.println("  Line " + error.lineNumber() + " (chunk " + error.chunk() + "): "
+            + error.message());
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Import failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Exports a table chosen by the user to a file as an aligned table, TSV or JSON lines.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void exportToFile() throws SQLException {
+    System.out.println("\nExport which table?");
+    System.out.println("1. Project");
+    System.out.println("2. Architect");
+    System.out.println("3. Structural Engineer");
+    System.out.println("4. Contractor");
+    System.out.println("5. Customer");
+    int tableChoice = inputHandler.getIntInput("Enter your choice: ");
+    if (tableChoice < 1 || tableChoice > Table.values().length) {
+      System.out.println("Invalid choice.");
+      return;
+    }
+    Table table = Table.values()[tableChoice - 1];
+    System.out.println("\nWhich format?");
+    System.out.println("1. Aligned table");
+    System.out.println("2. Tab-separated values (TSV)");
+    System.out.println("3. JSON lines");
+    int formatChoice = inputHandler.getIntInput("Enter your choice: ");
+    if (formatChoice < 1 || formatChoice > OutputFormat.values().length) {
+      System.out.println("Invalid choice.");
+      return;
+    }
+    OutputFormat format = OutputFormat.values()[formatChoice - 1];
+    String file = inputHandler.getUserInput("File path: ");
+
+    try {
+      long rows = dbManager.exportTable(table.getTableName(), Path.of(file), format);
+      System.out.println("Exported " + rows + " rows to " + file + ".");
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Export failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Exports the whole database to a snapshot file, loads one into an empty database, or checks
+   * one, as chosen by the user.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displaySnapshotMenu() throws SQLException {
+    System.out.println("\nWhat would you like to do?");
+    System.out.println("1. Export Database to Snapshot File");
+    System.out.println("2. Load Snapshot File into Empty Database");
+    System.out.println("3. Verify Snapshot File");
+    String choice = inputHandler.getUserInput("Enter your choice: ");
+    if (!choice.equals("1") && !choice.equals("2") && !choice.equals("3")) {
+      System.out.println("Invalid choice.");
+      return;
+    }
+    String file = inputHandler.getUserInput("Snapshot file path: ");
+
+    try {
+      long start = System.nanoTime();
+      Map<Table, Long> rowCounts;
+      switch (choice) {
+        case "1":
+          rowCounts = new DatabaseSnapshot(connection).exportTo(Path.of(file));
+          System.out.print("Exported");
+          break;
+        case "2":
+          rowCounts = new DatabaseSnapshot(connection).importFrom(Path.of(file));
+          System.out.print("Loaded");
+          break;
+        default:
+          rowCounts = DatabaseSnapshot.verify(Path.of(file));
+          System.out.print("Verified");
+      }
+      System.out.printf(" snapshot in %.1f s:%n", (System.nanoTime() - start) / 1e9);
+      for (Map.Entry<Table, Long> entry : rowCounts.entrySet()) {
+        System.out.println("  " + entry.getKey().getTableName() + ": " + entry.getValue()
+            + " rows");
+      }
+    } catch (IOException e) {
+      System.out.println("Snapshot failed: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Finalizes or deletes many projects, or deletes many people, in one transaction, selected by a
+   * list of IDs or, for projects, by listing, customer and deadline range.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayBulkMenu() throws SQLException {
+    System.out.println("\nWhat would you like to do?");
+    System.out.println("1. Finalize Projects");
+    System.out.println("2. Delete Projects");
+    System.out.println("3. Delete People");
+    String choice = inputHandler.getUserInput("Enter your choice: ");
+    BulkOperations bulkOperations = new BulkOperations(connection);
+
+    try {
+      BulkResult result;
+      switch (choice) {
+        case "1":
+        case "2":
+          boolean finalize = choice.equals("1");
+          System.out.println("\nSelect projects by:");
+          System.out.println("1. List of Project IDs");
+          System.out.println("2. Listing, Customer and Deadline");
+          String selection = inputHandler.getUserInput("Enter your choice: ");
+          if (selection.equals("1")) {
+            List<Integer> projectIds = readIds("Project IDs (separated by commas or spaces): ");
+            result = finalize ? bulkOperations.finalizeProjects(projectIds)
+                : bulkOperations.deleteProjects(projectIds);
+          } else if (selection.equals("2")) {
+            ProjectCriteria criteria = readProjectCriteria();
+            if (criteria == null) {
+              return;
+            }
+            String confirm = inputHandler.getUserInput((finalize ? "Finalize" : "Delete")
+                + " all " + criteria + "? (y/n): ");
+            if (!confirm.equalsIgnoreCase("y")) {
+              System.out.println("Nothing was changed.");
+              return;
+            }
+            result = finalize ? bulkOperations.finalizeProjects(criteria)
+                : bulkOperations.deleteProjects(criteria);
+          } else {
+            System.out.println("Invalid choice.");
+            return;
+          }
+          break;
+        case "3":
+          System.out.println("\nDelete from which table?");
+          System.out.println("1. Architect");
+          System.out.println("2. Structural Engineer");
+          System.out.println("3. Contractor");
+          System.out.println("4. Customer");
+          int tableChoice = inputHandler.getIntInput("Enter your choice: ");
+          if (tableChoice < 1 || tableChoice > Table.values().length - 1) {
+            System.out.println("Invalid choice.");
+            return;
+          }
+          Table table = Table.values()[tableChoice];
+          List<Integer> ids = readIds("IDs (separated by commas or spaces): ");
+          result = bulkOperations.deletePeople(table, ids);
+          break;
+        default:
+          System.out.println("Invalid choice.");
+          return;
+      }
+      System.out.println(result);
+    } catch (IllegalArgumentException e) {
+      System.out.println("Bulk operation cancelled: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reads a list of IDs separated by commas or spaces.
+   *
+   * @param prompt The prompt to display.
+   * @return The IDs.
+   * @throws IllegalArgumentException If an ID is not a number.
+   */
+  private List<Integer> readIds(String prompt) {
+    List<Integer> ids = new ArrayList<>();
+    for (String id : inputHandler.getUserInput(prompt).split("[,\\s]+")) {
+      if (!id.isEmpty()) {
+        try {
+          ids.add(Integer.parseInt(id));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Not an ID: " + id);
+        }
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Reads the listing, customer and deadline range selecting projects for a bulk operation.
+   *
+   * @return The criteria, or null if the listing chosen was invalid.
+   * @throws IllegalArgumentException If a customer ID or date is invalid.
+   */
+  private ProjectCriteria readProjectCriteria() {
+    System.out.println("\nWhich projects?");
+    System.out.println("1. All Projects");
+    System.out.println("2. Incomplete Projects");
+    System.out.println("3. Overdue Projects");
+    System.out.println("4. Finalised Projects");
+    int listingChoice = inputHandler.getIntInput("Enter your choice: ");
+    if (listingChoice < 1 || listingChoice > ProjectFilter.values().length) {
+      System.out.println("Invalid choice.");
+      return null;
+    }
+    ProjectCriteria criteria = ProjectCriteria.of(ProjectFilter.values()[listingChoice - 1]);
+    List<Integer> customer = readIds("Customer ID (leave blank for every customer): ");
+    if (!customer.isEmpty()) {
+      criteria = criteria.forCustomer(customer.get(0));
+    }
+    try {
+      String from = inputHandler.getUserInput("Earliest deadline (YYYY-MM-DD, or blank): ");
+      String to = inputHandler.getUserInput("Latest deadline (YYYY-MM-DD, or blank): ");
+      if (!from.isBlank() || !to.isBlank()) {
+        criteria = criteria.withDeadlineBetween(from.isBlank() ? null : LocalDate.parse(from),
+            to.isBlank() ? null : LocalDate.parse(to));
+      }
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Not a date: " + e.getParsedString());
+    }
+    return criteria;
+  }
+
+  /**
+   * Displays fee, payment and outstanding balance totals for a project listing, in the report
+   * chosen by the user.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayFinancialReportMenu() throws SQLException {
+    System.out.println("\nReport on which projects?");
+    System.out.println("1. All Projects");
+    System.out.println("2. Incomplete Projects");
+    System.out.println("3. Overdue Projects");
+    System.out.println("4. Finalised Projects");
+    int listingChoice = inputHandler.getIntInput("Enter your choice: ");
+    if (listingChoice < 1 || listingChoice > ProjectFilter.values().length) {
+      System.out.println("Invalid choice.");
+      return;
+    }
+    ProjectFilter filter = ProjectFilter.values()[listingChoice - 1];
+    System.out.println("\nWhich report?");
+    System.out.println("1. Totals");
+    System.out.println("2. Fees by Building Type");
+    System.out.println("3. Fees by Customer");
+    System.out.println("4. Fees by Architect");
+    System.out.println("5. Fees by Deadline Month");
+    System.out.println("6. Largest Outstanding Balances");
+    System.out.println("7. All of the Above Groupings");
+    int reportChoice = inputHandler.getIntInput("Enter your choice: ");
+
+    FinancialReports reports = new FinancialReports(connection);
+    PrintWriter out = ResultRenderer.consoleWriter();
+    ResultRenderer renderer = new ResultRenderer(out, OutputFormat.configured());
+    try {
+      switch (reportChoice) {
+        case 1:
+          FinancialReports.render(renderer, "Totals", List.of(reports.totals(filter)));
+          break;
+        case 2:
+        case 3:
+        case 4:
+        case 5:
+          FeeGrouping grouping = FeeGrouping.values()[reportChoice - 2];
+          FinancialReports.render(renderer, filter.getTitle() + " by " + grouping.getTitle(),
+              reports.feesBy(grouping, filter));
+          break;
+        case 6:
+          FinancialReports.render(renderer, "Largest Outstanding Balances",
+              reports.outstandingBalances(filter, BROWSE_PAGE_SIZE));
+          break;
+        case 7:
+          FinancialReport report = reports.fullReport(filter);
+          FinancialReports.render(renderer, "Totals", List.of(report.total()));
+          for (Map.Entry<FeeGrouping, List<FeeGroup>> entry : report.groups().entrySet()) {
+            FinancialReports.render(renderer,
+                filter.getTitle() + " by " + entry.getKey().getTitle(), entry.getValue());
+          }
+          break;
+        default:
+          System.out.println("Invalid choice.");
+      }
+    } finally {
+      out.flush();
+    }
+  }
+
   /**
    * Displays the table menu and handles user choices.
    *
@@ -80,7 +435,12 @@ public class MenuManager {
       System.out.println("4. Contractor");
       System.out.println("5. Customer");
       System.out.println("6. All Information");
-      System.out.println("7. Return to Main Menu");
+      System.out.println("7. Browse Project Listings");
+      System.out.println("8. Project Details");
+      System.out.println("9. Search Projects");
+      System.out.println("10. Project Status Dashboard");
+      System.out.println("11. Overdue and Upcoming Deadlines");
+      System.out.println("12. Return to Main Menu");
       System.out.println(); // Empty line for separation
       System.out.print("Enter your choice: ");
       String tableChoice = inputHandler.getUserInput("");
@@ -102,13 +462,24 @@ public class MenuManager {
           dbManager.displayAllColumns("Customers");
           break;
         case "6":
-          String[] tables =
-              {"Projects", "Architects", "StructuralEngineers", "Contractors", "Customers"};
-          for (String table : tables) {
-            dbManager.displayAllColumns(table);
-          }
+          displayAllTables();
           break;
         case "7":
+          displayProjectListingMenu();
+          break;
+        case "8":
+          displayProjectDetails();
+          break;
+        case "9":
+          searchProjects();
+          break;
+        case "10":
+          displayDashboard();
+          break;
+        case "11":
+          displayDeadlines();
+          break;
+        case "12":
           return; // Return to the main menu
         default:
           System.out.println("Invalid choice. Please try again.");
@@ -116,6 +487,251 @@ public class MenuManager {
     }
   }
 
+  /**
+   * Displays the number of projects, fees, payments and outstanding balances for each listing,
+   * followed by the people cache's hit ratio and evictions. The totals come from the project
+   * dashboard once it is ready, and from the database until then.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayDashboard() throws SQLException {
+    ProjectDashboard dashboard = ProjectDashboard.shared();
+    List<FeeGroup> totals = new ArrayList<>();
+    if (dashboard.isReady()) {
+      totals.addAll(dashboard.summary().values());
+    } else {
+      FinancialReports reports = new FinancialReports(connection);
+      for (ProjectFilter filter : ProjectFilter.values()) {
+        totals.add(reports.totals(filter));
+      }
+    }
+    PrintWriter out = ResultRenderer.consoleWriter();
+    try {
+      ResultRenderer renderer = new ResultRenderer(out, OutputFormat.configured());
+      FinancialReports.render(renderer, "Project Status", totals);
+      PeopleCache.shared().renderStats(renderer, "People Cache");
+    } finally {
+      out.flush();
+    }
+  }
+
+  /**
+   * Displays the overdue projects and the projects due within a number of days entered by the
+   * user.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayDeadlines() throws SQLException {
+    int days = inputHandler.getIntInput("\nShow projects due within how many days? ");
+    if (days < 0) {
+      System.out.println("The number of days cannot be negative.");
+      return;
+    }
+    projectManager.readOverdueProjects(connection);
+    projectManager.readProjectsDueWithin(connection, days);
+  }
+
+  /**
+   * Displays every table. With asynchronous data access the tables are read concurrently on
+   * separate connections from one consistent snapshot, and printed in order.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayAllTables() throws SQLException {
+    if (asyncDataAccess == null) {
+      for (Table table : Table.values()) {
+        dbManager.displayAllColumns(table.getTableName());
+      }
+      return;
+    }
+
+    PrintWriter out = ResultRenderer.consoleWriter();
+    try {
+      asyncDataAccess.dumpTables(List.of(Table.values()), out).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof SQLException sqlException) {
+        throw sqlException;
+      }
+      throw e;
+    } finally {
+      out.flush();
+    }
+  }
+
+  /**
+   * Searches projects by number, name, address or ERF number and prints the matches.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void searchProjects() throws SQLException {
+    System.out.println("\nHow should the search match?");
+    System.out.println("1. Start of a word (prefix)");
+    System.out.println("2. Anywhere (substring)");
+    System.out.println("3. Similar words (typo tolerant)");
+    String modeChoice = inputHandler.getUserInput("Enter your choice: ");
+    SearchMode mode;
+    switch (modeChoice) {
+      case "1":
+        mode = SearchMode.PREFIX;
+        break;
+      case "2":
+        mode = SearchMode.SUBSTRING;
+        break;
+      case "3":
+        mode = SearchMode.FUZZY;
+        break;
+      default:
+        System.out.println("Invalid choice.");
+        return;
+    }
+    String query = inputHandler.getUserInput("Search for: ");
+    List<ProjectSummary> results =
+        projectManager.searchProjects(connection, query, mode, BROWSE_PAGE_SIZE);
+    System.out.println("\nProjects matching \"" + query + "\":");
+    if (results.isEmpty()) {
+      System.out.println("No projects found.");
+    }
+    for (ProjectSummary project : results) {
+      System.out.println(project);
+    }
+  }
+
+  /**
+   * Displays a project together with the people assigned to it.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayProjectDetails() throws SQLException {
+    int projectId = inputHandler.getIntInput("\nProject ID: ");
+    ProjectDetails details = projectManager.findProjectDetails(connection, projectId);
+    if (details == null) {
+      System.out.println("No project found with ID " + projectId + ".");
+      return;
+    }
+
+    Project project = details.project();
+    System.out.println("\nProject " + project.projectNumber() + ": " + project.projectName());
+    System.out.println("Building Type: " + project.buildingType());
+    System.out.println("Physical Address: " + project.physicalAddress());
+    System.out.println("ERF Number: " + project.erfNumber());
+    System.out.println("Total Fee: " + project.totalFee() + ", Total Paid: " + project.totalPaid());
+    System.out.println("Deadline: " + project.deadline());
+    System.out.println("Finalised: " + (project.finalised()
+        ? "Yes, completed " + project.completionDate() : "No"));
+    System.out.println("Project Manager ID: " + project.projectManagerId());
+    printPerson("Architect", details.architect());
+    printPerson("Contractor", details.contractor());
+    printPerson("Customer", details.customer());
+    printPerson("Structural Engineer", details.structuralEngineer());
+  }
+
+  /**
+   * Prints one person assigned to a project.
+   *
+   * @param role The person's role on the project.
+   * @param person The person, or null if none is assigned.
+   */
+  private void printPerson(String role, Person person) {
+    if (person == null) {
+      System.out.println(role + ": none");
+      return;
+    }
+    System.out.println(role + ": " + person.name() + " (ID " + person.id() + "), Tel: "
+        + person.telephoneNumber() + ", Email: " + person.emailAddress() + ", Address: "
+        + person.physicalAddress());
+  }
+
+  /**
+   * Displays the project listing menu and handles user choices.
+   *
+   * @throws SQLException If a database access error occurs.
+   */
+  private void displayProjectListingMenu() throws SQLException {
+    while (true) {
+      System.out.println("\nWhich projects would you like to browse?");
+      System.out.println("1. All Projects");
+      System.out.println("2. Incomplete Projects");
+      System.out.println("3. Overdue Projects");
+      System.out.println("4. Finalised Projects");
+      System.out.println("5. Return to Previous Menu");
+      System.out.println(); // Empty line for separation
+      System.out.print("Enter your choice: ");
+      String listingChoice = inputHandler.getUserInput("");
+
+      switch (listingChoice) {
+        case "1":
+          browseProjects(ProjectFilter.ALL);
+          break;
+        case "2":
+          browseProjects(ProjectFilter.INCOMPLETE);
+          break;
+        case "3":
+          browseProjects(ProjectFilter.OVERDUE);
+          break;
+        case "4":
+          browseProjects(ProjectFilter.FINALISED);
+          break;
+        case "5":
+          return; // Return to the previous menu
+        default:
+          System.out.println("Invalid choice. Please try again.");
+      }
+    }
+  }
+
+  /**
+   * Shows a project listing one page at a time with next/previous navigation.
+   *
+   * @param filter The listing to browse.
+   * @throws SQLException If a database access error occurs.
+   */
+  private void browseProjects(ProjectFilter filter) throws SQLException {
+    List<ProjectSummary> page = projectManager.page(connection, filter, 0, BROWSE_PAGE_SIZE);
+    int pageNumber = 1;
+    while (true) {
+      System.out.println("\n" + filter.getTitle() + " (page " + pageNumber + "):");
+      if (page.isEmpty()) {
+        System.out.println("No projects found.");
+      }
+      for (ProjectSummary project : page) {
+        System.out.println(project);
+      }
+      System.out.println(); // Empty line for separation
+      String navigation = inputHandler.getUserInput("N = next page, P = previous page, Q = back: ");
+
+      List<ProjectSummary> nextPage;
+      switch (navigation.toUpperCase()) {
+        case "N":
+          if (page.size() < BROWSE_PAGE_SIZE) {
+            System.out.println("This is the last page.");
+            break;
+          }
+          nextPage = projectManager.page(connection, filter,
+              page.get(page.size() - 1).projectId(), BROWSE_PAGE_SIZE);
+          if (nextPage.isEmpty()) {
+            System.out.println("This is the last page.");
+          } else {
+            page = nextPage;
+            pageNumber++;
+          }
+          break;
+        case "P":
+          if (pageNumber == 1 || page.isEmpty()) {
+            System.out.println("This is the first page.");
+            break;
+          }
+          page = projectManager.pageBefore(connection, filter, page.get(0).projectId(),
+              BROWSE_PAGE_SIZE);
+          pageNumber--;
+          break;
+        case "Q":
+          return; // Return to the listing menu
+        default:
+          System.out.println("Invalid choice. Please try again.");
+      }
+    }
+  }
+
   /**
    * Displays the add menu and handles user choices.
    *
@@ -298,35 +914,58 @@ public class MenuManager {
   private void updateProject() throws SQLException {
     System.out.println("\nEnter Project ID to update:");
     int projectId = inputHandler.getIntInput("Project ID: ");
+    // Remember the version being edited, so a change saved by someone else meanwhile is not
+    // silently overwritten.
+    int version = RowVersions.find(connection, Table.PROJECTS, projectId);
+    if (version < 0) {
+      System.out.println("No project found with ID " + projectId + ".");
+      return;
+    }
 
     System.out.println("Enter new Project Details (leave blank to keep current value):");
-    String projectNumber = inputHandler.getUserInput("Project Number: ");
-    String projectName = inputHandler.getUserInput("Project Name: ");
-    String buildingType = inputHandler.getUserInput("Building Type: ");
-    String physicalAddress = inputHandler.getUserInput("Physical Address: ");
-    String erfNumber = inputHandler.getUserInput("ERF Number: ");
-    String totalFeeInput = inputHandler.getUserInput("Total Fee: ");
-    String totalPaidInput = inputHandler.getUserInput("Total Paid: ");
-    String deadline = inputHandler.getUserInput("Deadline (YYYY-MM-DD): ");
-    String architectIdInput = inputHandler.getUserInput("Architect ID: ");
-    String contractorIdInput = inputHandler.getUserInput("Contractor ID: ");
-    String customerIdInput = inputHandler.getUserInput("Customer ID: ");
-    String structuralEngineerIdInput = inputHandler.getUserInput("Structural Engineer ID: ");
-    String projectManagerIdInput = inputHandler.getUserInput("Project Manager ID: ");
-
-    double totalFee = totalFeeInput.isEmpty() ? 0 : Double.parseDouble(totalFeeInput);
-    double totalPaid = totalPaidInput.isEmpty() ? 0 : Double.parseDouble(totalPaidInput);
-    int architectId = architectIdInput.isEmpty() ? 0 : Integer.parseInt(architectIdInput);
-    int contractorId = contractorIdInput.isEmpty() ? 0 : Integer.parseInt(contractorIdInput);
-    int customerId = customerIdInput.isEmpty() ? 0 : Integer.parseInt(customerIdInput);
-    int structuralEngineerId =
-        structuralEngineerIdInput.isEmpty() ? 0 : Integer.parseInt(structuralEngineerIdInput);
-    int projectManagerId =
-        projectManagerIdInput.isEmpty() ? 0 : Integer.parseInt(projectManagerIdInput);
-
-    projectManager.updateProject(connection, projectId, projectNumber, projectName, buildingType,
-        physicalAddress, erfNumber, totalFee, totalPaid, deadline, architectId, contractorId,
-        customerId, structuralEngineerId, projectManagerId);
+    Map<String, String> prompts = new LinkedHashMap<>();
+    prompts.put("project_number", "Project Number: ");
+    prompts.put("project_name", "Project Name: ");
+    prompts.put("building_type", "Building Type: ");
+    prompts.put("physical_address", "Physical Address: ");
+    prompts.put("erf_number", "ERF Number: ");
+    prompts.put("total_fee", "Total Fee: ");
+    prompts.put("total_paid", "Total Paid: ");
+    prompts.put("deadline", "Deadline (YYYY-MM-DD): ");
+    prompts.put("architect_id", "Architect ID: ");
+    prompts.put("contractor_id", "Contractor ID: ");
+    prompts.put("customer_id", "Customer ID: ");
+    prompts.put("structural_engineer_id", "Structural Engineer ID: ");
+    prompts.put("project_manager_id", "Project Manager ID: ");
+
+    // Only the values entered are written; blank answers leave the column unchanged.
+    Map<String, Object> changes = new LinkedHashMap<>();
+    for (Map.Entry<String, String> prompt : prompts.entrySet()) {
+      String input = inputHandler.getUserInput(prompt.getValue());
+      if (!input.isEmpty()) {
+        changes.put(prompt.getKey(), input);
+      }
+    }
+    if (changes.isEmpty()) {
+      System.out.println("No changes entered.");
+      return;
+    }
+
+    try {
+      switch (projectManager.updateProject(connection, projectId, changes, version)) {
+        case UPDATED:
+          System.out.println("Project updated successfully.");
+          break;
+        case CONFLICT:
+          System.out.println("The project was changed by someone else while you were editing it."
+              + " Nothing was saved; please review it and try again.");
+          break;
+        default:
+          System.out.println("No project found with ID " + projectId + ".");
+      }
+    } catch (IllegalArgumentException e) {
+      System.out.println("Invalid value: " + e.getMessage());
+    }
   }
 
   /**
@@ -0,0 +1,32 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * The Migration record describes one versioned change to the database schema, applied by
+ * {@link SchemaMigrator}. Each step must be safe to run again, since MySQL commits DDL statements
+ * immediately and a migration that fails part way is retried from its first step.
+ *
+ * @param version The schema version the migration brings the database to. Versions are applied in
+ *        increasing order.
+ * @param description A short description recorded with the version.
+ * @param steps The steps to run, in order.
+ */
+public record Migration(int version, String description, List<Migration.Step> steps) {
+
+  /**
+   * The Step interface is one idempotent change made by a migration.
+   */
+  @FunctionalInterface
+  public interface Step {
+    /**
+     * Applies the change.
+     *
+     * @param connection The database connection.
+     * @throws SQLException If a database access error occurs.
+     */
+    void apply(Connection connection) throws SQLException;
+  }
+}
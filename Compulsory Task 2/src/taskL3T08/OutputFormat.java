@@ -0,0 +1,46 @@
+package taskL3T08;
+
+import java.util.Locale;
+
+/**
+ * The OutputFormat enum lists the formats {@link ResultRenderer} can write rows in.
+ */
+public enum OutputFormat {
+  /** A titled table with columns padded to line up, for reading on the console. */
+  TABLE,
+  /** Tab-separated values with a header line; tabs, newlines and backslashes are escaped. */
+  TSV,
+  /** One JSON object per row, keyed by column name. */
+  JSON_LINES;
+
+  /**
+   * Gets the format configured with {@code -Dpoisepms.output.format}, or {@link #TABLE}.
+   *
+   * @return The configured format.
+   * @throws IllegalArgumentException If the property names no format.
+   */
+  public static OutputFormat configured() {
+    return fromName(System.getProperty("poisepms.output.format", TABLE.name()));
+  }
+
+  /**
+   * Finds a format by name, ignoring case. {@code jsonl} and {@code json-lines} name
+   * {@link #JSON_LINES}.
+   *
+   * @param name The format name.
+   * @return The format.
+   * @throws IllegalArgumentException If the name matches no format.
+   */
+  public static OutputFormat fromName(String name) {
+    String normalized = name.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+    if (normalized.equals("JSONL")) {
+      return JSON_LINES;
+    }
+    for (OutputFormat format : values()) {
+      if (format.name().equals(normalized)) {
+        return format;
+      }
+    }
+    throw new IllegalArgumentException("Unknown output format: " + name);
+  }
+}
@@ -0,0 +1,550 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The OverdueDetector class keeps the unfinalised projects in memory, bucketed by deadline day, so
+ * that overdue and due-soon listings are answered without querying the database, and tells
+ * {@link OverdueListener}s when a project becomes overdue.
+ *
+ * <p>
+ * A background scheduler wakes up just after midnight (and at least hourly, in case the clock is
+ * changed) and announces every project in the buckets whose day has just passed. Projects added or
+ * changed so that their deadline has already passed are announced when the change is published.
+ * Each project is announced once each time it goes from not overdue to overdue; projects that are
+ * already overdue when the detector loads are not announced.
+ *
+ * <p>
+ * The detector is filled by {@link #load(Connection)} and then kept up to date by listening to
+ * {@link DataChangeEvents}, like {@link ProjectSearchIndex}. Until it has loaded,
+ * {@link #isReady()} is false. Changes made by other processes, such as a {@link CommandRunner}
+ * command run while the server is up, are not seen until the next
+ * {@link #reconcile(Connection)}, which {@link #start(long)} runs periodically.
+ */
+public class OverdueDetector implements DataChangeListener {
+  /** Number of projects read per query while loading. */
+  private static final int LOAD_PAGE_SIZE = 5_000;
+
+  /** Longest time between deadline checks. */
+  private static final long MAX_CHECK_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+  private static final String SELECT_COLUMNS =
+      "SELECT project_id, project_number, project_name, deadline, is_finalised FROM Projects";
+
+  private static final String SELECT_UNFINALISED_PAGE = SELECT_COLUMNS
+      + " WHERE is_finalised = FALSE AND project_id > ? ORDER BY project_id LIMIT ?";
+
+  private static OverdueDetector shared;
+
+  private final Map<Integer, DueProject> entries = new HashMap<>();
+  private final TreeMap<Long, Set<Integer>> byDeadline = new TreeMap<>();
+  private final List<OverdueListener> listeners = new CopyOnWriteArrayList<>();
+  private final Set<Integer> changedDuringLoad = new HashSet<>();
+  private final Set<Integer> staleDuringLoad = new HashSet<>();
+  private final Set<Integer> pendingRefresh = new HashSet<>();
+  private boolean loading;
+  private volatile boolean ready;
+  /** Deadlines before this day have been announced as overdue. */
+  private long checkedThrough = LocalDate.now().toEpochDay();
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * Gets the application's shared detector, creating it and registering it for change events on
+   * first use. The shared detector is empty until it is loaded.
+   *
+   * @return The shared detector.
+   */
+  public static synchronized OverdueDetector shared() {
+    if (shared == null) {
+      shared = new OverdueDetector();
+      DataChangeEvents.addListener(shared);
+    }
+    return shared;
+  }
+
+  /**
+   * Checks whether the detector has finished loading and can answer queries.
+   *
+   * @return True if the detector is ready.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Registers a listener to be told about projects that become overdue.
+   *
+   * @param listener The listener.
+   */
+  public void addListener(OverdueListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener The listener.
+   */
+  public void removeListener(OverdueListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Starts the background scheduler, which loads the detector with a connection borrowed from the
+   * shared pool, checks deadlines as days pass and reconciles the detector with the database every
+   * interval.
+   *
+   * @param reconcileIntervalMillis Milliseconds between reconciliations, or 0 for none.
+   */
+  public synchronized void start(long reconcileIntervalMillis) {
+    if (scheduler != null) {
+      return;
+    }
+    scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "overdue-detector");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.execute(() -> {
+      try (Connection connection = DatabaseConnection.getConnection()) {
+        load(connection);
+      } catch (SQLException e) {
+        System.err.println("Overdue detector could not be loaded; overdue listings will use SQL: "
+            + e.getMessage());
+      }
+    });
+    scheduleNextCheck();
+    if (reconcileIntervalMillis > 0) {
+      scheduler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis,
+          reconcileIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops the background scheduler.
+   */
+  public synchronized void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+      scheduler = null;
+    }
+  }
+
+  private synchronized void scheduleNextCheck() {
+    if (scheduler == null) {
+      return;
+    }
+    ZonedDateTime now = ZonedDateTime.now();
+    ZonedDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay(now.getZone());
+    long delay = Math.min(Duration.between(now, midnight).toMillis() + 1_000,
+        MAX_CHECK_INTERVAL_MILLIS);
+    scheduler.schedule(() -> {
+      try {
+        checkDeadlines();
+      } finally {
+        scheduleNextCheck();
+      }
+    }, delay, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Announces the projects whose deadline has passed since the last check. Called by the
+   * scheduler; it can also be called directly, and does nothing if the date has not changed.
+   */
+  public void checkDeadlines() {
+    List<DueProject> becameOverdue = new ArrayList<>();
+    synchronized (this) {
+      long today = LocalDate.now().toEpochDay();
+      if (today > checkedThrough) {
+        for (Set<Integer> ids : byDeadline.subMap(checkedThrough, today).values()) {
+          for (int id : ids) {
+            becameOverdue.add(entries.get(id));
+          }
+        }
+      }
+      checkedThrough = Math.max(checkedThrough, today);
+    }
+    announce(becameOverdue);
+  }
+
+  /**
+   * Lists the overdue projects, most overdue first.
+   *
+   * @param limit The maximum number of projects to return.
+   * @return The overdue projects, in deadline order and then project ID order.
+   */
+  public synchronized List<DueProject> overdue(int limit) {
+    long today = LocalDate.now().toEpochDay();
+    return collect(byDeadline.headMap(today, false), limit);
+  }
+
+  /**
+   * Lists the projects that are not overdue but are due within the given number of days.
+   *
+   * @param days The number of days ahead to look; 0 lists the projects due today.
+   * @param limit The maximum number of projects to return.
+   * @return The projects due, in deadline order and then project ID order.
+   */
+  public synchronized List<DueProject> dueWithin(int days, int limit) {
+    long today = LocalDate.now().toEpochDay();
+    return collect(byDeadline.subMap(today, true, today + days, true), limit);
+  }
+
+  /**
+   * Counts the overdue projects.
+   *
+   * @return The number of overdue projects.
+   */
+  public synchronized int overdueCount() {
+    int count = 0;
+    for (Set<Integer> ids : byDeadline.headMap(LocalDate.now().toEpochDay(), false).values()) {
+      count += ids.size();
+    }
+    return count;
+  }
+
+  private List<DueProject> collect(Map<Long, Set<Integer>> buckets, int limit) {
+    List<DueProject> projects = new ArrayList<>(Math.min(limit, 1_000));
+    for (Set<Integer> ids : buckets.values()) {
+      for (int id : ids) {
+        if (projects.size() == limit) {
+          return projects;
+        }
+        projects.add(entries.get(id));
+      }
+    }
+    return projects;
+  }
+
+  /**
+   * Replaces the contents of the detector with the unfinalised projects in the database. Changes
+   * published while the load is running are applied as they arrive and take precedence over the
+   * rows it reads. Projects that are already overdue are not announced.
+   *
+   * @param connection The database connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void load(Connection connection) throws SQLException {
+    synchronized (this) {
+      ready = false;
+      loading = true;
+      entries.clear();
+      byDeadline.clear();
+      checkedThrough = LocalDate.now().toEpochDay();
+    }
+
+    boolean loaded = false;
+    try {
+      try (PreparedStatement preparedStatement =
+          connection.prepareStatement(SELECT_UNFINALISED_PAGE)) {
+        int afterId = 0;
+        List<DueProject> page;
+        do {
+          page = readPage(preparedStatement, afterId);
+          synchronized (this) {
+            for (DueProject project : page) {
+              if (!changedDuringLoad.contains(project.projectId())) {
+                put(project);
+              }
+            }
+          }
+          if (!page.isEmpty()) {
+            afterId = page.get(page.size() - 1).projectId();
+          }
+        } while (page.size() == LOAD_PAGE_SIZE);
+      }
+      Set<Integer> staleIds;
+      synchronized (this) {
+        staleIds = new HashSet<>(staleDuringLoad);
+        staleIds.removeAll(changedDuringLoad);
+      }
+      refresh(connection, staleIds);
+      loaded = true;
+    } finally {
+      synchronized (this) {
+        loading = false;
+        changedDuringLoad.clear();
+        staleDuringLoad.clear();
+        ready = loaded;
+        if (!loaded) {
+          entries.clear();
+          byDeadline.clear();
+        }
+      }
+    }
+  }
+
+  /**
+   * Re-reads the unfinalised projects and corrects the detector where it differs from the table,
+   * announcing projects that are now overdue. Unlike {@link #load(Connection)}, the detector keeps
+   * answering from memory while the table is read, and changes published meanwhile take precedence
+   * over the rows read. If the detector has not loaded, it is loaded instead.
+   *
+   * @param connection The database connection.
+   * @return The number of projects that were wrong or missing and have been corrected.
+   * @throws SQLException If a database access error occurs.
+   */
+  public int reconcile(Connection connection) throws SQLException {
+    synchronized (this) {
+      if (loading) {
+        return 0; // a load or another reconciliation is already running
+      }
+      if (!ready) {
+        load(connection);
+        return 0;
+      }
+      loading = true;
+    }
+
+    try {
+      Map<Integer, DueProject> scanned = new HashMap<>();
+      try (PreparedStatement preparedStatement =
+          connection.prepareStatement(SELECT_UNFINALISED_PAGE)) {
+        int afterId = 0;
+        List<DueProject> page;
+        do {
+          page = readPage(preparedStatement, afterId);
+          for (DueProject project : page) {
+            scanned.put(project.projectId(), project);
+            afterId = project.projectId();
+          }
+        } while (page.size() == LOAD_PAGE_SIZE);
+      }
+
+      int corrected = 0;
+      List<DueProject> becameOverdue = new ArrayList<>();
+      Set<Integer> staleIds;
+      synchronized (this) {
+        for (DueProject project : scanned.values()) {
+          if (!changedDuringLoad.contains(project.projectId())
+              && !project.equals(entries.get(project.projectId()))) {
+            corrected++;
+            if (put(project)) {
+              becameOverdue.add(project);
+            }
+          }
+        }
+        for (Integer id : new ArrayList<>(entries.keySet())) {
+          if (!scanned.containsKey(id) && !changedDuringLoad.contains(id)) {
+            corrected++;
+            remove(id);
+          }
+        }
+        staleIds = new HashSet<>(staleDuringLoad);
+        staleIds.removeAll(changedDuringLoad);
+      }
+      announce(becameOverdue);
+      refresh(connection, staleIds);
+      return corrected;
+    } finally {
+      synchronized (this) {
+        loading = false;
+        changedDuringLoad.clear();
+        staleDuringLoad.clear();
+      }
+    }
+  }
+
+  private void reconcileQuietly() {
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      int corrected = reconcile(connection);
+      if (corrected > 0) {
+        System.err.println("Overdue detector corrected " + corrected + " projects.");
+      }
+    } catch (SQLException e) {
+      System.err.println("Overdue detector could not be reconciled: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Reads the next page of unfinalised projects, in project ID order.
+   */
+  private static List<DueProject> readPage(PreparedStatement preparedStatement, int afterId)
+      throws SQLException {
+    preparedStatement.setInt(1, afterId);
+    preparedStatement.setInt(2, LOAD_PAGE_SIZE);
+    List<DueProject> page = new ArrayList<>();
+    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+      while (resultSet.next()) {
+        page.add(readProject(resultSet));
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Re-reads projects whose change could not be applied because the detector did not know them,
+   * and announces any that are now overdue.
+   */
+  private void refresh(Connection connection, Set<Integer> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+    List<DueProject> becameOverdue = new ArrayList<>();
+    try (PreparedStatement preparedStatement =
+        connection.prepareStatement(SELECT_COLUMNS + " WHERE project_id = ?")) {
+      for (int id : ids) {
+        preparedStatement.setInt(1, id);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          boolean unfinalised = resultSet.next() && !resultSet.getBoolean(5);
+          DueProject project = unfinalised ? readProject(resultSet) : null;
+          synchronized (this) {
+            if (project == null) {
+              remove(id);
+            } else if (put(project)) {
+              becameOverdue.add(project);
+            }
+          }
+        }
+      }
+    }
+    announce(becameOverdue);
+  }
+
+  /**
+   * Re-reads the projects queued by {@link #onChange} on the scheduler thread.
+   */
+  private void refreshPending() {
+    Set<Integer> ids;
+    synchronized (this) {
+      ids = new HashSet<>(pendingRefresh);
+      pendingRefresh.clear();
+    }
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      refresh(connection, ids);
+    } catch (SQLException e) {
+      System.err.println("Overdue detector could not re-read projects " + ids + ": "
+          + e.getMessage());
+    }
+  }
+
+  private static DueProject readProject(ResultSet resultSet) throws SQLException {
+    Date deadline = resultSet.getDate(4);
+    return new DueProject(resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3),
+        deadline == null ? null : deadline.toLocalDate());
+  }
+
+  @Override
+  public void onChange(DataChangeEvent event) {
+    if (event.table() != Table.PROJECTS) {
+      return;
+    }
+    DueProject becameOverdue = null;
+    synchronized (this) {
+      int id = event.id();
+      Map<String, Object> values = event.values();
+      if (event.type() == ChangeType.DELETE
+          || Boolean.TRUE.equals(values.get("is_finalised"))) {
+        remove(id);
+        if (loading) {
+          changedDuringLoad.add(id);
+        }
+        return;
+      }
+
+      DueProject existing = entries.get(id);
+      boolean complete = values.containsKey("project_number")
+          && values.containsKey("project_name") && values.containsKey("deadline");
+      if (existing == null) {
+        boolean knownUnfinalised = event.type() == ChangeType.INSERT
+            || values.containsKey("is_finalised");
+        if (!knownUnfinalised && event.type() == ChangeType.UPDATE && ready) {
+          return; // a partial update of a finalised project
+        }
+        if (!knownUnfinalised || !complete) {
+          // The rest of the project is not in the event; re-read it.
+          if (loading) {
+            staleDuringLoad.add(id);
+          } else if (ready && pendingRefresh.add(id) && scheduler != null) {
+            scheduler.execute(this::refreshPending);
+          }
+          return;
+        }
+      }
+      DueProject project = new DueProject(id,
+          values.containsKey("project_number") ? (String) values.get("project_number")
+              : existing.projectNumber(),
+          values.containsKey("project_name") ? (String) values.get("project_name")
+              : existing.projectName(),
+          values.containsKey("deadline") ? (LocalDate) values.get("deadline")
+              : existing.deadline());
+      if (put(project)) {
+        becameOverdue = project;
+      }
+      if (loading) {
+        changedDuringLoad.add(id);
+      }
+    }
+    if (becameOverdue != null) {
+      announce(List.of(becameOverdue));
+    }
+  }
+
+  /**
+   * Adds or replaces an unfinalised project.
+   *
+   * @return True if the project was not overdue before and is now.
+   */
+  private boolean put(DueProject project) {
+    DueProject previous = remove(project.projectId());
+    entries.put(project.projectId(), project);
+    if (project.deadline() != null) {
+      byDeadline.computeIfAbsent(project.deadline().toEpochDay(), day -> new TreeSet<>())
+          .add(project.projectId());
+    }
+    return !isOverdue(previous) && isOverdue(project);
+  }
+
+  /**
+   * Removes a project, returning it, or null if it was not tracked.
+   */
+  private DueProject remove(int id) {
+    DueProject previous = entries.remove(id);
+    if (previous != null && previous.deadline() != null) {
+      long day = previous.deadline().toEpochDay();
+      Set<Integer> ids = byDeadline.get(day);
+      ids.remove(id);
+      if (ids.isEmpty()) {
+        byDeadline.remove(day);
+      }
+    }
+    return previous;
+  }
+
+  private boolean isOverdue(DueProject project) {
+    return project != null && project.deadline() != null
+        && project.deadline().toEpochDay() < checkedThrough;
+  }
+
+  private void announce(List<DueProject> projects) {
+    for (DueProject project : projects) {
+      for (OverdueListener listener : listeners) {
+        try {
+          listener.onOverdue(project);
+        } catch (RuntimeException e) {
+          System.err.println("Overdue listener failed for project " + project.projectId() + ": "
+              + e);
+        }
+      }
+    }
+  }
+}
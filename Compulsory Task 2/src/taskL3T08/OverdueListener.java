@@ -0,0 +1,17 @@
+package taskL3T08;
+
+/**
+ * The OverdueListener interface is implemented by components that act when a project becomes
+ * overdue, such as alerts or notifications.
+ */
+@FunctionalInterface
+public interface OverdueListener {
+  /**
+   * Called once when an unfinalised project's deadline passes, or when a project is added or
+   * changed so that it is already overdue. Called on the detector's scheduler thread or on the
+   * writing thread, so implementations should return quickly.
+   *
+   * @param project The project that became overdue.
+   */
+  void onOverdue(DueProject project);
+}
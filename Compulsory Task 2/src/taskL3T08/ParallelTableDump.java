@@ -0,0 +1,140 @@
+package taskL3T08;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * The ParallelTableDump class prints several tables at once, reading them concurrently on separate
+ * connections. Every connection reads inside a repeatable-read, read-only transaction, and the
+ * transactions are started under a brief global read lock so that they all see the same snapshot
+ * of the database. If the database user may not take the global lock (it needs the RELOAD
+ * privilege), the transactions are started back to back without it, and a write committed in
+ * between can be visible to some tables but not others.
+ *
+ * <p>
+ * The first table is streamed straight to the output. The others are collected in memory while it
+ * is printed and then printed in order, so the output matches printing the tables one at a time.
+ */
+public class ParallelTableDump {
+  private final List<Connection> connections;
+
+  /**
+   * Constructor for ParallelTableDump.
+   *
+   * @param connections The connections to read on, one per concurrent reader. Tables are shared
+   *        out between them in turn. They must not be used by anything else during the dump.
+   */
+  public ParallelTableDump(List<Connection> connections) {
+    if (connections.isEmpty()) {
+      throw new IllegalArgumentException("At least one connection is needed.");
+    }
+    this.connections = connections;
+  }
+
+  /**
+   * Prints every column of the given tables.
+   *
+   * @param tables The tables to print, in order.
+   * @param out The writer to print to. It is not flushed or closed.
+   * @param executor Runs the reader for each connection.
+   * @return True if every table was read from the same snapshot.
+   * @throws SQLException If a database access error occurs.
+   */
+  public boolean dump(List<Table> tables, PrintWriter out, Executor executor)
+      throws SQLException {
+    int readers = Math.min(connections.size(), tables.size());
+    List<Connection> used = connections.subList(0, readers);
+    List<Integer> isolationLevels = new ArrayList<>();
+    boolean aligned = false;
+    try {
+      for (Connection connection : used) {
+        isolationLevels.add(connection.getTransactionIsolation());
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      }
+      aligned = startSnapshots(used);
+
+      // The first table goes straight to the output; the rest wait in buffers.
+      List<StringWriter> buffers = new ArrayList<>();
+      List<PrintWriter> writers = new ArrayList<>();
+      for (int i = 0; i < tables.size(); i++) {
+        StringWriter buffer = i == 0 ? null : new StringWriter();
+        buffers.add(buffer);
+        writers.add(i == 0 ? out : new PrintWriter(buffer));
+      }
+      List<CompletableFuture<Void>> reads = new ArrayList<>();
+      for (int r = 0; r < readers; r++) {
+        int reader = r;
+        reads.add(CompletableFuture.runAsync(() -> {
+          DatabaseManager dbManager = new DatabaseManager(used.get(reader));
+          try {
+            for (int i = reader; i < tables.size(); i += readers) {
+              dbManager.displayAllColumns(tables.get(i).getTableName(), writers.get(i));
+            }
+          } catch (SQLException e) {
+            throw new CompletionException(e);
+          }
+        }, executor));
+      }
+      try {
+        CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof SQLException sqlException) {
+          throw sqlException;
+        }
+        throw e;
+      }
+      for (int i = 1; i < tables.size(); i++) {
+        out.print(buffers.get(i));
+      }
+      return aligned || readers == 1;
+    } finally {
+      for (int i = 0; i < isolationLevels.size(); i++) {
+        Connection connection = used.get(i);
+        connection.rollback(); // nothing was written
+        connection.setTransactionIsolation(isolationLevels.get(i));
+        connection.setAutoCommit(true);
+      }
+    }
+  }
+
+  /**
+   * Starts a consistent-snapshot transaction on every connection, holding a global read lock on the
+   * first so that no write can commit between them.
+   *
+   * @return True if the global read lock was held while the snapshots were started.
+   */
+  private static boolean startSnapshots(List<Connection> connections) throws SQLException {
+    boolean locked = false;
+    try (Statement lockStatement = connections.get(0).createStatement()) {
+      if (connections.size() > 1) {
+        try {
+          lockStatement.execute("FLUSH TABLES WITH READ LOCK");
+          locked = true;
+        } catch (SQLException e) {
+          // Without the RELOAD privilege the snapshots are started as close together as possible.
+        }
+      }
+      try {
+        for (Connection connection : connections) {
+          try (Statement statement = connection.createStatement()) {
+            statement.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT, READ ONLY");
+          }
+        }
+      } finally {
+        if (locked) {
+          lockStatement.execute("UNLOCK TABLES");
+        }
+      }
+    }
+    return locked;
+  }
+}
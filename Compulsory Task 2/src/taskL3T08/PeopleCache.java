@@ -0,0 +1,95 @@
+package taskL3T08;
+
+import java.sql.Types;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The PeopleCache class holds one {@link EntityCache} per people table, keyed by person ID. The
+ * people tables are small and read far more often than they are written, so lookups by ID are
+ * served from memory. {@link DatabaseManager} invalidates entries when it updates or deletes a
+ * person; changes made by other processes become visible once the entry's time-to-live passes.
+ *
+ * <p>
+ * The shared instance is sized by the system properties {@code poisepms.cache.maxSize} (default
+ * 10000 per table) and {@code poisepms.cache.ttlMillis} (default 300000). Its hit ratio and
+ * evictions are shown by the menu's status dashboard and {@code GET /cache} in the HTTP API.
+ */
+public class PeopleCache {
+  private static final String[] STATS_COLUMNS =
+      {"table", "size", "hits", "misses", "hit_ratio", "evictions", "expirations"};
+  private static final int[] STATS_TYPES = {Types.VARCHAR, Types.INTEGER, Types.BIGINT,
+      Types.BIGINT, Types.DECIMAL, Types.BIGINT, Types.BIGINT};
+
+  private static final PeopleCache SHARED = new PeopleCache(
+      Integer.getInteger("poisepms.cache.maxSize", 10_000),
+      Long.getLong("poisepms.cache.ttlMillis", 300_000L));
+
+  private final Map<Table, EntityCache<Integer, Person>> caches = new EnumMap<>(Table.class);
+
+  /**
+   * Constructor for PeopleCache.
+   *
+   * @param maxSize The maximum number of people cached per table.
+   * @param ttlMillis How long a cached person stays valid.
+   */
+  public PeopleCache(int maxSize, long ttlMillis) {
+    for (Table table : Table.values()) {
+      if (table.isPeopleTable()) {
+        caches.put(table, new EntityCache<>(maxSize, ttlMillis));
+      }
+    }
+  }
+
+  /**
+   * Gets the cache shared by every {@link DatabaseManager} in this process.
+   *
+   * @return The shared people cache.
+   */
+  public static PeopleCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Gets the cache for one people table.
+   *
+   * @param table The people table.
+   * @return The table's cache.
+   * @throws IllegalArgumentException If the table is not a people table.
+   */
+  public EntityCache<Integer, Person> forTable(Table table) {
+    EntityCache<Integer, Person> cache = caches.get(table);
+    if (cache == null) {
+      throw new IllegalArgumentException("Not a people table: " + table.getTableName());
+    }
+    return cache;
+  }
+
+  /**
+   * Writes the size, hits, misses, hit ratio, evictions and expirations of each table's cache.
+   *
+   * @param renderer The renderer to write to.
+   * @param title The title of the table, or null for none.
+   */
+  public void renderStats(ResultRenderer renderer, String title) {
+    renderer.begin(title, STATS_COLUMNS, STATS_TYPES);
+    for (Map.Entry<Table, EntityCache<Integer, Person>> entry : caches.entrySet()) {
+      EntityCache<Integer, Person> cache = entry.getValue();
+      renderer.row(new String[] {entry.getKey().getTableName(), Integer.toString(cache.size()),
+          Long.toString(cache.getHitCount()), Long.toString(cache.getMissCount()),
+          String.format("%.2f", cache.getHitRatio()), Long.toString(cache.getEvictionCount()),
+          Long.toString(cache.getExpirationCount())});
+    }
+    renderer.end();
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    for (Map.Entry<Table, EntityCache<Integer, Person>> entry : caches.entrySet()) {
+      builder.append(entry.getKey().getTableName()).append(": ").append(entry.getValue())
+          .append(System.lineSeparator());
+    }
+    return builder.toString();
+  }
+}
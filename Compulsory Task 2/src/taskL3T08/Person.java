@@ -0,0 +1,102 @@
+package taskL3T08;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Person interface is implemented by the records of the four people tables, which share the
+ * same columns.
+ */
+public interface Person {
+  /**
+   * Gets the person's ID in their table.
+   *
+   * @return The ID, or 0 if the person has not been saved yet.
+   */
+  int id();
+
+  /**
+   * Gets the person's name.
+   *
+   * @return The name.
+   */
+  String name();
+
+  /**
+   * Gets the person's telephone number.
+   *
+   * @return The telephone number.
+   */
+  String telephoneNumber();
+
+  /**
+   * Gets the person's email address.
+   *
+   * @return The email address.
+   */
+  String emailAddress();
+
+  /**
+   * Gets the person's physical address.
+   *
+   * @return The physical address.
+   */
+  String physicalAddress();
+
+  /**
+   * Gets the person's data columns as a map from column name to value.
+   *
+   * @return The column values, excluding the ID.
+   */
+  default Map<String, Object> toColumnValues() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("name", name());
+    values.put("telephone_number", telephoneNumber());
+    values.put("email_address", emailAddress());
+    values.put("physical_address", physicalAddress());
+    return values;
+  }
+
+  /**
+   * Creates a person record of the type stored in the given table.
+   *
+   * @param table The people table.
+   * @param id The person's ID.
+   * @param name The person's name.
+   * @param telephoneNumber The person's telephone number.
+   * @param emailAddress The person's email address.
+   * @param physicalAddress The person's physical address.
+   * @return The person record.
+   * @throws IllegalArgumentException If the table is not a people table.
+   */
+  static Person of(Table table, int id, String name, String telephoneNumber, String emailAddress,
+      String physicalAddress) {
+    switch (table) {
+      case ARCHITECTS:
+        return new Architect(id, name, telephoneNumber, emailAddress, physicalAddress);
+      case STRUCTURAL_ENGINEERS:
+        return new StructuralEngineer(id, name, telephoneNumber, emailAddress, physicalAddress);
+      case CONTRACTORS:
+        return new Contractor(id, name, telephoneNumber, emailAddress, physicalAddress);
+      case CUSTOMERS:
+        return new Customer(id, name, telephoneNumber, emailAddress, physicalAddress);
+      default:
+        throw new IllegalArgumentException("Not a people table: " + table.getTableName());
+    }
+  }
+
+  /**
+   * Creates a person from the positional values used by {@link DatabaseManager}: name,
+   * telephone number, email address and physical address, optionally followed by the ID.
+   *
+   * @param table The people table.
+   * @param values The person values.
+   * @return The person record.
+   * @throws IllegalArgumentException If the ID cannot be parsed or the table is not a people
+   *         table.
+   */
+  static Person fromValues(Table table, String[] values) {
+    int id = values.length > 4 ? Integer.parseInt(values[4]) : 0;
+    return of(table, id, values[0], values[1], values[2], values[3]);
+  }
+}
@@ -0,0 +1,50 @@
+package taskL3T08;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The PersonRowMapper class maps rows of one of the four people tables to {@link Person} records.
+ * Like {@link ProjectRowMapper}, it looks column positions up once per result set and then reads
+ * by index. Instances are not thread-safe; use one per query.
+ */
+public class PersonRowMapper implements RowMapper<Person> {
+  private final Table table;
+  private final String[] columns;
+  private final int[] indexes = new int[5];
+  private ResultSet resolvedFor;
+
+  /**
+   * Constructor for PersonRowMapper, for result sets using the plain column names.
+   *
+   * @param table The people table the rows come from.
+   */
+  public PersonRowMapper(Table table) {
+    this(table, "");
+  }
+
+  /**
+   * Constructor for PersonRowMapper.
+   *
+   * @param table The people table the rows come from.
+   * @param prefix The prefix of each column label in the result set, e.g. {@code "a_"}.
+   */
+  public PersonRowMapper(Table table, String prefix) {
+    this.table = table;
+    this.columns = new String[] {prefix + table.getIdColumn(), prefix + "name",
+        prefix + "telephone_number", prefix + "email_address", prefix + "physical_address"};
+  }
+
+  @Override
+  public Person map(ResultSet resultSet) throws SQLException {
+    if (resultSet != resolvedFor) {
+      for (int i = 0; i < columns.length; i++) {
+        indexes[i] = resultSet.findColumn(columns[i]);
+      }
+      resolvedFor = resultSet;
+    }
+    return Person.of(table, resultSet.getInt(indexes[0]), resultSet.getString(indexes[1]),
+        resultSet.getString(indexes[2]), resultSet.getString(indexes[3]),
+        resultSet.getString(indexes[4]));
+  }
+}
@@ -1,25 +1,103 @@
 package taskL3T08;
 
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
- * The PoisePMSManager class is the entry point of the application. It establishes a connection to
- * the database and initializes the menu manager.
+ * The PoisePMSManager class is the entry point of the application. It borrows a connection from
+ * the shared connection pool, applies any pending schema migrations, starts loading the project
+ * search index and project dashboard in the background and initializes the menu manager. Migrations
+ * can be skipped with {@code -Dpoisepms.migrate=false}. The dashboard and overdue detector are
+ * reconciled with the database every {@code -Dpoisepms.dashboard.reconcileIntervalMillis} (10
+ * minutes by default; 0 turns it off). When {@code -Dpoisepms.changelog.dir} is set, every change is
+ * also appended to a {@link ChangeLog} in that directory.
+ *
+ * <p>
+ * When arguments are given they are run as a {@link CommandRunner} command, for example
+ * {@code list overdue --format jsonl} or {@code script nightly.txt}, instead of showing the menu,
+ * and the exit status reports whether it succeeded.
  */
 public class PoisePMSManager {
   public static void main(String[] args) {
-    // Establish a connection to the database
-    try (Connection connection = DriverManager.getConnection("jdbc:mysql://localhost:3306/poisepms",
-        "otheruser", "swordfish")) {
+    // Borrow a connection from the shared pool
+    ChangeLog changeLog = null;
+    int exitStatus = CommandRunner.EXIT_OK;
+    try (Connection connection = DatabaseConnection.getConnection()) {
 
-      // Initialize the menu manager with the database connection
-      MenuManager menuManager = new MenuManager(connection);
-      menuManager.displayMainMenu();
+      // Create or upgrade the tables and indexes before anything queries them
+      if (Boolean.parseBoolean(System.getProperty("poisepms.migrate", "true"))) {
+        new SchemaMigrator(connection).migrate();
+      }
 
-    } catch (SQLException e) {
+      // Record changes for downstream consumers, if configured
+      changeLog = ChangeLog.configured();
+      if (changeLog != null) {
+        DataChangeEvents.addListener(changeLog);
+      }
+
+      if (args.length > 0) {
+        // Run the commands given instead of the menu; the in-memory indexes are not loaded
+        exitStatus = new CommandRunner(connection).run(List.of(args));
+      } else {
+        runMenu(connection);
+      }
+
+    } catch (SQLException | IOException e) {
       e.printStackTrace();
+      exitStatus = CommandRunner.EXIT_FAILED;
+    } finally {
+      ProjectDashboard.shared().stopReconciliation();
+      OverdueDetector.shared().stop();
+      if (changeLog != null) {
+        DataChangeEvents.removeListener(changeLog);
+        try {
+          changeLog.close();
+        } catch (IOException e) {
+          e.printStackTrace();
+        }
+      }
+      DatabaseConnection.shutdown();
+    }
+    if (exitStatus != CommandRunner.EXIT_OK) {
+      System.exit(exitStatus);
+    }
+  }
+
+  /**
+   * Starts the background loaders and runs the interactive menu.
+   *
+   * @param connection The database connection used by the menu.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static void runMenu(Connection connection) throws SQLException {
+    // Searches use SQL until the index has loaded
+    ProjectSearchIndex.shared().loadAsync();
+
+    // Status totals are read from memory once the dashboard has been reconciled
+    ProjectDashboard dashboard = ProjectDashboard.shared();
+    dashboard.reconcileAsync();
+    long reconcileIntervalMillis = ProjectDashboard.configuredReconcileIntervalMillis();
+    if (reconcileIntervalMillis > 0) {
+      dashboard.startReconciliation(reconcileIntervalMillis);
+    }
+
+    // Overdue listings are read from memory once loaded; deadlines passing are announced
+    OverdueDetector overdueDetector = OverdueDetector.shared();
+    overdueDetector.addListener(
+        project -> System.out.println("\nProject now overdue: " + project));
+    overdueDetector.start(reconcileIntervalMillis);
+
+    // Initialize the menu manager with the database connection. Independent queries run on the
+    // pool's other connections, when it has any.
+    ConnectionPool pool = DatabaseConnection.getPool();
+    if (pool.getMaxSize() > 1) {
+      try (AsyncDataAccess asyncDataAccess = new AsyncDataAccess(pool, pool.getMaxSize() - 1)) {
+        new MenuManager(connection, asyncDataAccess).displayMainMenu();
+      }
+    } else {
+      new MenuManager(connection).displayMainMenu();
     }
   }
 }
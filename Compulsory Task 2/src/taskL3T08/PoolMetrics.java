@@ -0,0 +1,184 @@
+package taskL3T08;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The PoolMetrics class records usage statistics for a {@link ConnectionPool}. It tracks borrow
+ * counts, timeouts, and a histogram of how long callers waited to obtain a connection.
+ */
+public class PoolMetrics {
+  /** Upper bounds (exclusive, in milliseconds) of the wait time histogram buckets. */
+  private static final long[] WAIT_BUCKET_BOUNDS_MILLIS = {1, 5, 10, 50, 100, 500, 1000};
+
+  private final ConnectionPool pool;
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong timeoutCount = new AtomicLong();
+  private final AtomicLong createdCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+  private final AtomicLong totalWaitNanos = new AtomicLong();
+  final AtomicLong statementHits = new AtomicLong();
+  final AtomicLong statementMisses = new AtomicLong();
+  private final AtomicLongArray waitHistogram =
+      new AtomicLongArray(WAIT_BUCKET_BOUNDS_MILLIS.length + 1);
+
+  /**
+   * Constructor for PoolMetrics.
+   *
+   * @param pool The pool whose active and idle counts are reported.
+   */
+  PoolMetrics(ConnectionPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Records a successful borrow and the time the caller spent waiting for it.
+   *
+   * @param waitNanos The wait time in nanoseconds.
+   */
+  void recordBorrow(long waitNanos) {
+    borrowCount.incrementAndGet();
+    totalWaitNanos.addAndGet(waitNanos);
+    long waitMillis = waitNanos / 1_000_000;
+    int bucket = 0;
+    while (bucket < WAIT_BUCKET_BOUNDS_MILLIS.length
+        && waitMillis >= WAIT_BUCKET_BOUNDS_MILLIS[bucket]) {
+      bucket++;
+    }
+    waitHistogram.incrementAndGet(bucket);
+  }
+
+  /** Records a borrow attempt that timed out. */
+  void recordTimeout() {
+    timeoutCount.incrementAndGet();
+  }
+
+  /** Records the creation of a new physical connection. */
+  void recordCreated() {
+    createdCount.incrementAndGet();
+  }
+
+  /** Records the eviction of an idle or invalid physical connection. */
+  void recordEvicted() {
+    evictedCount.incrementAndGet();
+  }
+
+  /**
+   * Gets the number of connections currently borrowed.
+   *
+   * @return The number of active connections.
+   */
+  public int getActiveCount() {
+    return pool.getActiveCount();
+  }
+
+  /**
+   * Gets the number of connections currently idle in the pool.
+   *
+   * @return The number of idle connections.
+   */
+  public int getIdleCount() {
+    return pool.getIdleCount();
+  }
+
+  /**
+   * Gets the number of successful borrows since the pool was created.
+   *
+   * @return The borrow count.
+   */
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  /**
+   * Gets the number of borrow attempts that timed out.
+   *
+   * @return The timeout count.
+   */
+  public long getTimeoutCount() {
+    return timeoutCount.get();
+  }
+
+  /**
+   * Gets the number of physical connections opened since the pool was created.
+   *
+   * @return The created connection count.
+   */
+  public long getCreatedCount() {
+    return createdCount.get();
+  }
+
+  /**
+   * Gets the number of physical connections closed because they were idle or invalid.
+   *
+   * @return The evicted connection count.
+   */
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * Gets the number of prepared statements served from a connection's statement cache.
+   *
+   * @return The statement cache hit count.
+   */
+  public long getStatementCacheHits() {
+    return statementHits.get();
+  }
+
+  /**
+   * Gets the number of prepared statements that had to be prepared because they were not cached.
+   *
+   * @return The statement cache miss count.
+   */
+  public long getStatementCacheMisses() {
+    return statementMisses.get();
+  }
+
+  /**
+   * Gets the mean time callers waited to borrow a connection.
+   *
+   * @return The mean wait time in milliseconds.
+   */
+  public double getMeanWaitMillis() {
+    long borrows = borrowCount.get();
+    return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+  }
+
+  /**
+   * Gets a copy of the wait time histogram. Bucket {@code i} counts waits below the i-th bound of
+   * 1, 5, 10, 50, 100, 500 and 1000 ms; the last bucket counts waits of one second or more.
+   *
+   * @return The histogram bucket counts.
+   */
+  public long[] getWaitHistogram() {
+    long[] counts = new long[waitHistogram.length()];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = waitHistogram.get(i);
+    }
+    return counts;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("active=").append(getActiveCount()).append(", idle=").append(getIdleCount())
+        .append(", borrows=").append(getBorrowCount()).append(", timeouts=")
+        .append(getTimeoutCount()).append(", created=").append(getCreatedCount())
+        .append(", evicted=").append(getEvictedCount()).append(", statementHits=")
+        .append(getStatementCacheHits()).append(", statementMisses=")
+        .append(getStatementCacheMisses())
+        .append(String.format(", meanWait=%.3fms, waitHistogram={", getMeanWaitMillis()));
+    long[] counts = getWaitHistogram();
+    for (int i = 0; i < counts.length; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(i < WAIT_BUCKET_BOUNDS_MILLIS.length
+          ? "<" + WAIT_BUCKET_BOUNDS_MILLIS[i] + "ms"
+          : ">=" + WAIT_BUCKET_BOUNDS_MILLIS[WAIT_BUCKET_BOUNDS_MILLIS.length - 1] + "ms")
+          .append('=').append(counts[i]);
+    }
+    return builder.append('}').toString();
+  }
+}
@@ -0,0 +1,127 @@
+package taskL3T08;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The Project record holds one row of the Projects table. Person IDs are 0 when the project has
+ * no person of that role; they are stored as NULL, so the foreign keys to the people tables only
+ * check the people that are set.
+ *
+ * @param projectId The ID of the project, or 0 if it has not been saved yet.
+ * @param projectNumber The project number.
+ * @param projectName The name of the project.
+ * @param buildingType The type of building.
+ * @param physicalAddress The physical address of the project.
+ * @param erfNumber The ERF number of the project.
+ * @param totalFee The total fee for the project.
+ * @param totalPaid The total amount paid for the project.
+ * @param deadline The deadline for the project.
+ * @param finalised Whether the project has been finalised.
+ * @param completionDate The date the project was finalised, or null.
+ * @param architectId The ID of the architect.
+ * @param contractorId The ID of the contractor.
+ * @param customerId The ID of the customer.
+ * @param structuralEngineerId The ID of the structural engineer.
+ * @param projectManagerId The ID of the project manager.
+ */
+public record Project(int projectId, String projectNumber, String projectName,
+    String buildingType, String physicalAddress, String erfNumber, double totalFee,
+    double totalPaid, LocalDate deadline, boolean finalised, LocalDate completionDate,
+    int architectId, int contractorId, int customerId, int structuralEngineerId,
+    int projectManagerId) {
+  /** The columns that refer to a person, stored as NULL when there is no person. */
+  private static final Set<String> PERSON_ID_COLUMNS = Set.of("architect_id", "contractor_id",
+      "customer_id", "structural_engineer_id", "project_manager_id");
+
+  /**
+   * Creates a project from the positional values used by {@link DatabaseManager}: the fourteen
+   * insertable columns in schema order, optionally followed by the project ID.
+   *
+   * @param values The project values.
+   * @return The parsed project.
+   * @throws IllegalArgumentException If a numeric or date value cannot be parsed.
+   */
+  public static Project fromValues(String[] values) {
+    return new Project(values.length > 14 ? Integer.parseInt(values[14]) : 0, values[0],
+        values[1], values[2], values[3], values[4], Double.parseDouble(values[5]),
+        Double.parseDouble(values[6]), LocalDate.parse(values[7]),
+        Boolean.parseBoolean(values[8]), null, Integer.parseInt(values[9]),
+        Integer.parseInt(values[10]), Integer.parseInt(values[11]),
+        Integer.parseInt(values[12]), Integer.parseInt(values[13]));
+  }
+
+  /**
+   * Gets the project's data columns as a map from column name to value, in schema order.
+   *
+   * @return The column values, excluding the project ID.
+   */
+  public Map<String, Object> toColumnValues() {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("project_number", projectNumber);
+    values.put("project_name", projectName);
+    values.put("building_type", buildingType);
+    values.put("physical_address", physicalAddress);
+    values.put("erf_number", erfNumber);
+    values.put("total_fee", totalFee);
+    values.put("total_paid", totalPaid);
+    values.put("deadline", deadline);
+    values.put("is_finalised", finalised);
+    values.put("completion_date", completionDate);
+    values.put("architect_id", storedPersonId(architectId));
+    values.put("contractor_id", storedPersonId(contractorId));
+    values.put("customer_id", storedPersonId(customerId));
+    values.put("structural_engineer_id", storedPersonId(structuralEngineerId));
+    values.put("project_manager_id", storedPersonId(projectManagerId));
+    return values;
+  }
+
+  /**
+   * Binds the five person IDs to consecutive parameters, in the order architect, contractor,
+   * customer, structural engineer and project manager. IDs of 0 or less are bound as NULL.
+   *
+   * @param preparedStatement The statement to bind to.
+   * @param firstIndex The parameter index of the architect ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  void bindPersonIds(PreparedStatement preparedStatement, int firstIndex) throws SQLException {
+    bindPersonId(preparedStatement, firstIndex, architectId);
+    bindPersonId(preparedStatement, firstIndex + 1, contractorId);
+    bindPersonId(preparedStatement, firstIndex + 2, customerId);
+    bindPersonId(preparedStatement, firstIndex + 3, structuralEngineerId);
+    bindPersonId(preparedStatement, firstIndex + 4, projectManagerId);
+  }
+
+  /**
+   * Converts a value written to a Projects column to the value stored: a person ID of 0 or less
+   * becomes null. Other values are returned unchanged.
+   *
+   * @param column The column name.
+   * @param value The value.
+   * @return The value to store.
+   */
+  static Object storedValue(String column, Object value) {
+    if (PERSON_ID_COLUMNS.contains(column) && value instanceof Integer id) {
+      return storedPersonId(id);
+    }
+    return value;
+  }
+
+  private static Integer storedPersonId(int personId) {
+    return personId > 0 ? personId : null;
+  }
+
+  private static void bindPersonId(PreparedStatement preparedStatement, int index, int personId)
+      throws SQLException {
+    if (personId > 0) {
+      preparedStatement.setInt(index, personId);
+    } else {
+      preparedStatement.setNull(index, Types.INTEGER);
+    }
+  }
+}
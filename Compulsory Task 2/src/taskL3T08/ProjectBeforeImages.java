@@ -0,0 +1,121 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The ProjectBeforeImages class reads what projects looked like before they are updated or
+ * deleted, so that the change can be published with the values it replaced. Only the columns that
+ * decide which {@link ProjectDashboard} totals a project counts towards are read: its finalised
+ * status, deadline, fee and amount paid.
+ *
+ * <p>
+ * Inside a transaction the rows are read with {@code FOR UPDATE}, so they cannot change between
+ * the read and the write. In auto-commit mode another connection may write the row in between;
+ * the dashboard then drifts until its next reconciliation.
+ */
+final class ProjectBeforeImages {
+  /** The columns read, in the order {@link #read(ResultSet, int)} expects them. */
+  static final String COLUMNS = "is_finalised, deadline, total_fee, total_paid";
+
+  private static final Set<String> COLUMN_NAMES =
+      Set.of("is_finalised", "deadline", "total_fee", "total_paid");
+
+  private ProjectBeforeImages() {
+  }
+
+  /**
+   * Checks whether writing the given columns can change which totals a project counts towards.
+   *
+   * @param columns The names of the columns written.
+   * @return True if any of them is one of the {@link #COLUMNS}.
+   */
+  static boolean touches(Collection<String> columns) {
+    for (String column : columns) {
+      if (COLUMN_NAMES.contains(column)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Reads a project's current values, unless nobody is listening for changes.
+   *
+   * @param connection The database connection.
+   * @param projectId The project's ID.
+   * @return The values keyed by column name, or null if no listener is registered or there is no
+   *         project with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Map<String, Object> find(Connection connection, int projectId) throws SQLException {
+    if (!DataChangeEvents.hasListeners()) {
+      return null;
+    }
+    String sql = "SELECT " + COLUMNS + " FROM Projects WHERE project_id = ?"
+        + (connection.getAutoCommit() ? "" : " FOR UPDATE");
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, projectId);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next() ? read(resultSet, 1) : null;
+      }
+    }
+  }
+
+  /**
+   * Reads the current values of many projects, an {@code IN} list at a time.
+   *
+   * @param connection The database connection.
+   * @param projectIds The projects' IDs.
+   * @return The values of each project that exists, keyed by project ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Map<Integer, Map<String, Object>> findAll(Connection connection, int[] projectIds)
+      throws SQLException {
+    Map<Integer, Map<String, Object>> images = new HashMap<>();
+    String lock = connection.getAutoCommit() ? "" : " FOR UPDATE";
+    for (int start = 0; start < projectIds.length; start += InLists.MAX_SIZE) {
+      int end = Math.min(start + InLists.MAX_SIZE, projectIds.length);
+      int listSize = InLists.paddedSize(end - start, InLists.MAX_SIZE);
+      StringBuilder sql = new StringBuilder("SELECT project_id, ").append(COLUMNS)
+          .append(" FROM Projects WHERE ");
+      InLists.append(sql, "project_id", listSize);
+      sql.append(lock);
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, projectIds, start, end, listSize);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          while (resultSet.next()) {
+            images.put(resultSet.getInt(1), read(resultSet, 2));
+          }
+        }
+      }
+    }
+    return images;
+  }
+
+  /**
+   * Reads the {@link #COLUMNS} of the current row.
+   *
+   * @param resultSet The result set, positioned on a row.
+   * @param firstColumn The index of the first of the columns.
+   * @return The values keyed by column name.
+   * @throws SQLException If a database access error occurs.
+   */
+  static Map<String, Object> read(ResultSet resultSet, int firstColumn) throws SQLException {
+    Map<String, Object> values = new LinkedHashMap<>();
+    values.put("is_finalised", resultSet.getBoolean(firstColumn));
+    Date deadline = resultSet.getDate(firstColumn + 1);
+    values.put("deadline", deadline == null ? null : deadline.toLocalDate());
+    values.put("total_fee", resultSet.getDouble(firstColumn + 2));
+    values.put("total_paid", resultSet.getDouble(firstColumn + 3));
+    return values;
+  }
+}
@@ -0,0 +1,87 @@
+package taskL3T08;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * The ProjectCriteria record selects a set of projects for a bulk operation: the projects in one
+ * of the {@link ProjectFilter} listings, optionally narrowed to one customer and to a range of
+ * deadlines, e.g. "all overdue projects for customer 12" or "all incomplete projects due this
+ * quarter".
+ *
+ * @param filter The listing the projects must be in.
+ * @param customerId The customer the projects must belong to, or null for any customer.
+ * @param deadlineFrom The earliest deadline, inclusive, or null for no lower bound.
+ * @param deadlineTo The latest deadline, inclusive, or null for no upper bound.
+ */
+public record ProjectCriteria(ProjectFilter filter, Integer customerId, LocalDate deadlineFrom,
+    LocalDate deadlineTo) {
+
+  /**
+   * Creates criteria selecting every project in a listing.
+   *
+   * @param filter The listing.
+   * @return The criteria.
+   */
+  public static ProjectCriteria of(ProjectFilter filter) {
+    return new ProjectCriteria(filter, null, null, null);
+  }
+
+  /**
+   * Narrows the criteria to one customer's projects.
+   *
+   * @param customerId The customer's ID.
+   * @return The narrowed criteria.
+   */
+  public ProjectCriteria forCustomer(int customerId) {
+    return new ProjectCriteria(filter, customerId, deadlineFrom, deadlineTo);
+  }
+
+  /**
+   * Narrows the criteria to projects with a deadline in a range.
+   *
+   * @param from The earliest deadline, inclusive, or null for no lower bound.
+   * @param to The latest deadline, inclusive, or null for no upper bound.
+   * @return The narrowed criteria.
+   */
+  public ProjectCriteria withDeadlineBetween(LocalDate from, LocalDate to) {
+    return new ProjectCriteria(filter, customerId, from, to);
+  }
+
+  /**
+   * Appends the SQL condition that selects the projects, adding the values of its placeholders to
+   * a list in order.
+   *
+   * @param sql The statement being built.
+   * @param parameters The list the placeholder values are added to.
+   */
+  void appendCondition(StringBuilder sql, List<Object> parameters) {
+    sql.append('(').append(filter.getCondition()).append(')');
+    if (customerId != null) {
+      sql.append(" AND customer_id = ?");
+      parameters.add(customerId);
+    }
+    if (deadlineFrom != null) {
+      sql.append(" AND deadline >= ?");
+      parameters.add(Date.valueOf(deadlineFrom));
+    }
+    if (deadlineTo != null) {
+      sql.append(" AND deadline <= ?");
+      parameters.add(Date.valueOf(deadlineTo));
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder(filter.getTitle());
+    if (customerId != null) {
+      text.append(" for customer ").append(customerId);
+    }
+    if (deadlineFrom != null || deadlineTo != null) {
+      text.append(" due ").append(deadlineFrom == null ? "any time" : deadlineFrom.toString())
+          .append(" to ").append(deadlineTo == null ? "any time" : deadlineTo.toString());
+    }
+    return text.toString();
+  }
+}
@@ -0,0 +1,399 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ProjectDashboard class keeps running totals of the number of projects, their fees, amounts
+ * paid and outstanding balances for each {@link ProjectFilter} listing, so status dashboards read
+ * a few counters instead of scanning the Projects table.
+ *
+ * <p>
+ * The totals are filled by {@link #reconcile(Connection)} and then kept up to date by listening to
+ * {@link DataChangeEvents}. Updates and deletes of projects carry the status, deadline, fee and
+ * amount paid the project had before (see {@link DataChangeEvent#previous()}), so a change is
+ * applied by moving the project from the totals it counted towards to the new ones, and nothing
+ * is remembered per project. Incomplete projects are also totalled per deadline, so the memory
+ * used grows with the number of distinct deadlines, and when the date changes the projects that
+ * have become overdue are moved across in one pass over the deadlines rather than the projects.
+ *
+ * <p>
+ * Changes made by other processes, or written without an event or without the values they
+ * replaced (e.g. upserts from a CSV file with no ID column), are not seen until the next
+ * reconciliation, which totals the table with one grouped query and corrects the dashboard.
+ * {@link #startReconciliation(long)} runs it periodically.
+ */
+public class ProjectDashboard implements DataChangeListener {
+  /** Stands for a missing deadline, which is never overdue. */
+  private static final long NO_DEADLINE = Long.MIN_VALUE;
+
+  /** The state of a project before it was inserted, for columns an insert leaves out. */
+  private static final State NEW_PROJECT = new State(false, NO_DEADLINE, 0, 0);
+
+  /** Reads a reconciliation's totals per status and, for incomplete projects, per deadline. */
+  private static final String TOTALS_SELECT = "SELECT is_finalised, "
+      + "CASE WHEN is_finalised THEN NULL ELSE deadline END, COUNT(*), SUM(total_fee), "
+      + "SUM(total_paid), SUM(CASE WHEN total_fee > total_paid THEN total_fee - total_paid "
+      + "ELSE 0 END), SUM(CASE WHEN total_fee > total_paid THEN 1 ELSE 0 END) FROM Projects "
+      + "GROUP BY is_finalised, CASE WHEN is_finalised THEN NULL ELSE deadline END";
+
+  /** Times a reconciliation re-runs its query because projects changed while it ran. */
+  private static final int MAX_RECONCILE_ATTEMPTS = 3;
+
+  private static ProjectDashboard shared;
+
+  private final Totals finalised = new Totals();
+  private final Totals incomplete = new Totals();
+  private final Totals overdue = new Totals();
+  private final TreeMap<Long, Totals> incompleteByDeadline = new TreeMap<>();
+  private long overdueAsOf;
+
+  // Whether a project changed while a reconciliation was reading the table.
+  private boolean changedDuringReconcile;
+  private boolean reconciling;
+  private volatile boolean ready;
+  private ScheduledExecutorService reconciler;
+
+  /** The fields of a project that decide which totals it counts towards. */
+  private record State(boolean finalised, long deadline, double fee, double paid) {
+  }
+
+  /**
+   * Gets the application's shared dashboard, creating it and registering it for change events on
+   * first use. The shared dashboard is empty until it is reconciled.
+   *
+   * @return The shared dashboard.
+   */
+  public static synchronized ProjectDashboard shared() {
+    if (shared == null) {
+      shared = new ProjectDashboard();
+      DataChangeEvents.addListener(shared);
+    }
+    return shared;
+  }
+
+  /**
+   * Checks whether the dashboard has been reconciled with the database and can answer reads.
+   *
+   * @return True if the dashboard is ready.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Gets the totals for every listing.
+   *
+   * @return The totals keyed by listing, each labelled with the listing's title.
+   */
+  public synchronized Map<ProjectFilter, FeeGroup> summary() {
+    rollOverdue();
+    Totals all = new Totals();
+    all.add(finalised, 1);
+    all.add(incomplete, 1);
+    Map<ProjectFilter, FeeGroup> summary = new EnumMap<>(ProjectFilter.class);
+    summary.put(ProjectFilter.ALL, all.toGroup(ProjectFilter.ALL.getTitle()));
+    summary.put(ProjectFilter.INCOMPLETE, incomplete.toGroup(ProjectFilter.INCOMPLETE.getTitle()));
+    summary.put(ProjectFilter.OVERDUE, overdue.toGroup(ProjectFilter.OVERDUE.getTitle()));
+    summary.put(ProjectFilter.FINALISED, finalised.toGroup(ProjectFilter.FINALISED.getTitle()));
+    return summary;
+  }
+
+  /**
+   * Reconciles the dashboard in a background thread with a connection borrowed from the shared
+   * pool. Until the first reconciliation has finished, {@link #isReady()} is false.
+   */
+  public void reconcileAsync() {
+    Thread thread = new Thread(this::reconcileQuietly, "project-dashboard-reconciler");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Gets the interval between periodic reconciliations set by
+   * {@code -Dpoisepms.dashboard.reconcileIntervalMillis}: 10 minutes by default, and 0 when they
+   * are turned off.
+   *
+   * @return The interval in milliseconds.
+   */
+  static long configuredReconcileIntervalMillis() {
+    return Long.getLong("poisepms.dashboard.reconcileIntervalMillis", 600_000);
+  }
+
+  /**
+   * Reconciles the dashboard every interval in a background thread, until
+   * {@link #stopReconciliation()} is called. The first run is after one interval.
+   *
+   * @param intervalMillis Milliseconds between reconciliations.
+   */
+  public synchronized void startReconciliation(long intervalMillis) {
+    stopReconciliation();
+    reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "project-dashboard-reconciler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reconciler.scheduleWithFixedDelay(this::reconcileQuietly, intervalMillis, intervalMillis,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stops the periodic reconciliation started by {@link #startReconciliation(long)}.
+   */
+  public synchronized void stopReconciliation() {
+    if (reconciler != null) {
+      reconciler.shutdownNow();
+      reconciler = null;
+    }
+  }
+
+  private void reconcileQuietly() {
+    try (Connection connection = DatabaseConnection.getConnection()) {
+      boolean wasReady = ready;
+      int corrected = reconcile(connection);
+      if (corrected > 0 && wasReady) {
+        System.err.println("Project dashboard corrected " + corrected + " totals.");
+      }
+    } catch (SQLException e) {
+      System.err.println("Project dashboard could not be reconciled: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Recomputes the totals from the table with one aggregate query, grouped by status and deadline,
+   * and replaces the current ones. The current totals stay readable while the table is read. If a
+   * project changes meanwhile, the query may or may not have seen it, so it is run again; if
+   * projects keep changing, the current totals are kept until the next reconciliation.
+   *
+   * @param connection The database connection.
+   * @return The number of status and deadline totals that were wrong and have been corrected.
+   * @throws SQLException If a database access error occurs.
+   */
+  public int reconcile(Connection connection) throws SQLException {
+    synchronized (this) {
+      if (reconciling) {
+        return 0; // another reconciliation is already running
+      }
+      reconciling = true;
+    }
+
+    try {
+      for (int attempt = 1; ; attempt++) {
+        synchronized (this) {
+          changedDuringReconcile = false;
+        }
+        Totals scannedFinalised = new Totals();
+        Totals scannedIncomplete = new Totals();
+        TreeMap<Long, Totals> scannedByDeadline = new TreeMap<>();
+        try (Statement statement = connection.createStatement();
+            ResultSet resultSet = statement.executeQuery(TOTALS_SELECT)) {
+          while (resultSet.next()) {
+            Totals totals = Totals.read(resultSet);
+            if (resultSet.getBoolean(1)) {
+              scannedFinalised.add(totals, 1);
+              continue;
+            }
+            scannedIncomplete.add(totals, 1);
+            Date deadline = resultSet.getDate(2);
+            if (deadline != null) {
+              scannedByDeadline.put(deadline.toLocalDate().toEpochDay(), totals);
+            }
+          }
+        }
+
+        synchronized (this) {
+          if (changedDuringReconcile && attempt < MAX_RECONCILE_ATTEMPTS) {
+            continue;
+          }
+          if (changedDuringReconcile && ready) {
+            return 0; // keep the totals kept up to date by the changes
+          }
+          int corrected = (finalised.matches(scannedFinalised) ? 0 : 1)
+              + (incomplete.matches(scannedIncomplete) ? 0 : 1);
+          Set<Long> deadlines = new HashSet<>(incompleteByDeadline.keySet());
+          deadlines.addAll(scannedByDeadline.keySet());
+          for (Long deadline : deadlines) {
+            Totals current = incompleteByDeadline.get(deadline);
+            Totals scanned = scannedByDeadline.get(deadline);
+            if (current == null || scanned == null || !current.matches(scanned)) {
+              corrected++;
+            }
+          }
+          finalised.clear();
+          finalised.add(scannedFinalised, 1);
+          incomplete.clear();
+          incomplete.add(scannedIncomplete, 1);
+          incompleteByDeadline.clear();
+          incompleteByDeadline.putAll(scannedByDeadline);
+          overdueAsOf = NO_DEADLINE; // recomputed from the deadlines on the next read
+          rollOverdue();
+          ready = true;
+          return corrected;
+        }
+      }
+    } finally {
+      synchronized (this) {
+        reconciling = false;
+      }
+    }
+  }
+
+  @Override
+  public synchronized void onChange(DataChangeEvent event) {
+    if (event.table() != Table.PROJECTS) {
+      return;
+    }
+    if (reconciling) {
+      changedDuringReconcile = true;
+    }
+    Map<String, Object> values = event.values();
+    Map<String, Object> previous = event.previous();
+    if (event.type() == ChangeType.INSERT
+        || (event.type() == ChangeType.UPSERT && previous != null && previous.isEmpty())) {
+      count(stateOf(values, NEW_PROJECT), 1);
+      return;
+    }
+    if (previous == null) {
+      // The writer did not say what the project looked like, so the change cannot be applied to
+      // the totals; unless it cannot have moved the project, reconciliation will pick it up.
+      return;
+    }
+    State before = stateOf(previous, NEW_PROJECT);
+    count(before, -1);
+    if (event.type() != ChangeType.DELETE) {
+      count(stateOf(values, before), 1);
+    }
+  }
+
+  /**
+   * Works out a project's state from the columns written, taking the others from a base state.
+   */
+  private static State stateOf(Map<String, Object> values, State base) {
+    return new State(
+        values.containsKey("is_finalised") ? Boolean.TRUE.equals(values.get("is_finalised"))
+            : base.finalised(),
+        values.containsKey("deadline") ? epochDay(values.get("deadline")) : base.deadline(),
+        values.containsKey("total_fee") ? number(values.get("total_fee")) : base.fee(),
+        values.containsKey("total_paid") ? number(values.get("total_paid")) : base.paid());
+  }
+
+  private static long epochDay(Object value) {
+    return value instanceof LocalDate date ? date.toEpochDay() : NO_DEADLINE;
+  }
+
+  private static double number(Object value) {
+    return value instanceof Number number ? number.doubleValue() : 0;
+  }
+
+  /**
+   * Adds a project to, or with a sign of -1 removes it from, the totals it counts towards.
+   */
+  private void count(State state, int sign) {
+    if (state.finalised()) {
+      finalised.add(state, sign);
+      return;
+    }
+    incomplete.add(state, sign);
+    if (state.deadline() == NO_DEADLINE) {
+      return;
+    }
+    Totals day = incompleteByDeadline.computeIfAbsent(state.deadline(), key -> new Totals());
+    day.add(state, sign);
+    if (day.projects == 0) {
+      incompleteByDeadline.remove(state.deadline());
+    }
+    if (state.deadline() < overdueAsOf) {
+      overdue.add(state, sign);
+    }
+  }
+
+  /**
+   * Recomputes the overdue totals if the date has changed since they were computed.
+   */
+  private void rollOverdue() {
+    long today = LocalDate.now().toEpochDay();
+    if (today == overdueAsOf) {
+      return;
+    }
+    overdue.clear();
+    for (Totals day : incompleteByDeadline.headMap(today).values()) {
+      overdue.add(day, 1);
+    }
+    overdueAsOf = today;
+  }
+
+  /**
+   * The Totals class holds the running totals of a set of projects.
+   */
+  private static final class Totals {
+    private long projects;
+    private double fee;
+    private double paid;
+    private double outstanding;
+    private long owing;
+
+    void add(State state, int sign) {
+      projects += sign;
+      fee += sign * state.fee();
+      paid += sign * state.paid();
+      if (state.fee() > state.paid()) {
+        outstanding += sign * (state.fee() - state.paid());
+        owing += sign;
+      }
+    }
+
+    void add(Totals other, int sign) {
+      projects += sign * other.projects;
+      fee += sign * other.fee;
+      paid += sign * other.paid;
+      outstanding += sign * other.outstanding;
+      owing += sign * other.owing;
+    }
+
+    void clear() {
+      projects = 0;
+      fee = 0;
+      paid = 0;
+      outstanding = 0;
+      owing = 0;
+    }
+
+    /**
+     * Reads the totals of one group from a row of {@link #TOTALS_SELECT}.
+     */
+    static Totals read(ResultSet resultSet) throws SQLException {
+      Totals totals = new Totals();
+      totals.projects = resultSet.getLong(3);
+      totals.fee = resultSet.getDouble(4);
+      totals.paid = resultSet.getDouble(5);
+      totals.outstanding = resultSet.getDouble(6);
+      totals.owing = resultSet.getLong(7);
+      return totals;
+    }
+
+    /**
+     * Checks whether two totals agree, allowing for rounding in the sums of amounts.
+     */
+    boolean matches(Totals other) {
+      return projects == other.projects && owing == other.owing
+          && Math.abs(fee - other.fee) < 0.005 && Math.abs(paid - other.paid) < 0.005
+          && Math.abs(outstanding - other.outstanding) < 0.005;
+    }
+
+    FeeGroup toGroup(String label) {
+      return new FeeGroup(label, projects, fee, paid, outstanding, owing);
+    }
+  }
+}
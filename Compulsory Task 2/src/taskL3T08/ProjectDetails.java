@@ -0,0 +1,15 @@
+package taskL3T08;
+
+/**
+ * The ProjectDetails record holds a project together with the people assigned to it. A person is
+ * null when the project has no person in that role or the referenced row does not exist.
+ *
+ * @param project The project.
+ * @param architect The project's architect.
+ * @param contractor The project's contractor.
+ * @param customer The project's customer.
+ * @param structuralEngineer The project's structural engineer.
+ */
+public record ProjectDetails(Project project, Architect architect, Contractor contractor,
+    Customer customer, StructuralEngineer structuralEngineer) {
+}
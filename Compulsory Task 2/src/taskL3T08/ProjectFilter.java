@@ -0,0 +1,38 @@
+package taskL3T08;
+
+/**
+ * The ProjectFilter enum describes the project listings offered by {@link ProjectManager}, each
+ * with the SQL condition that selects its projects.
+ */
+public enum ProjectFilter {
+  ALL("All Projects", "TRUE"),
+  INCOMPLETE("Incomplete Projects", "is_finalised = FALSE"),
+  OVERDUE("Overdue Projects", "deadline < CURRENT_DATE AND is_finalised = FALSE"),
+  FINALISED("Finalised Projects", "is_finalised = TRUE");
+
+  private final String title;
+  private final String condition;
+
+  ProjectFilter(String title, String condition) {
+    this.title = title;
+    this.condition = condition;
+  }
+
+  /**
+   * Gets the heading printed above the listing.
+   *
+   * @return The listing title.
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * Gets the SQL condition that selects the projects in this listing.
+   *
+   * @return The SQL condition.
+   */
+  public String getCondition() {
+    return condition;
+  }
+}
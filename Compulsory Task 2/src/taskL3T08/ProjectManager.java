@@ -1,17 +1,92 @@
 package taskL3T08;
 
+import java.io.PrintStream;
+import java.io.PrintWriter;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.sql.Types;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The ProjectManager class handles all operations related to projects in the database. This
  * includes inserting, updating, deleting, finalizing, and reading projects.
  */
 public class ProjectManager {
+  /** Number of projects fetched per query when a whole listing is printed. */
+  private static final int READ_PAGE_SIZE = 500;
+
+  /** Columns printed for each project in a listing. */
+  static final String[] SUMMARY_COLUMNS = {"project_id", "project_number", "project_name"};
+  static final int[] SUMMARY_TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR};
+
+  /** Columns printed for each project in a deadline listing. */
+  private static final String[] DUE_COLUMNS =
+      {"project_id", "project_number", "project_name", "deadline"};
+  private static final int[] DUE_TYPES = {Types.INTEGER, Types.VARCHAR, Types.VARCHAR, Types.DATE};
+
+  /** The searchable columns, matched by {@link #searchProjects} when the index is not ready. */
+  private static final String[] SEARCH_COLUMNS =
+      {"project_number", "project_name", "physical_address", "erf_number"};
+
+  /** Most partial UPDATE statements kept, keyed by the set of columns they write. */
+  private static final int MAX_UPDATE_SHAPES = 64;
+
+  /**
+   * Partial UPDATE statements, keyed by a bitmask of the indexes of the columns they write, plus
+   * {@link #VERSION_CHECK_BIT} for statements that check the row version.
+   */
+  private static final Map<Long, String> UPDATE_SQL_BY_COLUMNS = new ConcurrentHashMap<>();
+  private static final long VERSION_CHECK_BIT = 1L << 63;
+
+  /** Whether a unique index on project_number has been seen by hasUniqueProjectNumbers. */
+  private static volatile boolean uniqueProjectNumbers;
+
+  /** A listing written to a renderer, which may query the database. */
+  @FunctionalInterface
+  private interface Listing {
+    void writeTo(ResultRenderer renderer) throws SQLException;
+  }
+
+  private final ProjectSearchIndex searchIndex;
+  private PrintStream messages = System.out;
+
+  /**
+   * Constructor for ProjectManager. Searches use the application's shared search index.
+   */
+  public ProjectManager() {
+    this(ProjectSearchIndex.shared());
+  }
+
+  /**
+   * Constructor for ProjectManager.
+   *
+   * @param searchIndex The index used by {@link #searchProjects} once it has loaded.
+   */
+  public ProjectManager(ProjectSearchIndex searchIndex) {
+    this.searchIndex = searchIndex;
+  }
+
+  /**
+   * Sets the stream that status messages, such as "Project inserted successfully.", are printed
+   * to. They go to standard output unless set.
+   *
+   * @param messages The stream for status messages.
+   */
+  public void setMessages(PrintStream messages) {
+    this.messages = messages;
+  }
 
   /**
    * Inserts a new project into the database.
@@ -36,31 +111,46 @@ public class ProjectManager {
       String buildingType, String physicalAddress, String erfNumber, double totalFee,
       double totalPaid, String deadline, int architectId, int contractorId, int customerId,
       int structuralEngineerId, int projectManagerId) throws SQLException {
+    insertProject(connection, new Project(0, projectNumber, projectName, buildingType,
+        physicalAddress, erfNumber, totalFee, totalPaid, LocalDate.parse(deadline), false, null,
+        architectId, contractorId, customerId, structuralEngineerId, projectManagerId));
+  }
+
+  /**
+   * Inserts a new project into the database. The project is stored as not finalised.
+   *
+   * @param connection The database connection.
+   * @param project The project to insert. Its project ID is ignored.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void insertProject(Connection connection, Project project) throws SQLException {
     String sql =
         "INSERT INTO Projects (project_number, project_name, building_type, physical_address, erf_number, total_fee, total_paid, deadline, is_finalised, architect_id, contractor_id, customer_id, structural_engineer_id, project_manager_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, projectNumber);
-      preparedStatement.setString(2, projectName);
-      preparedStatement.setString(3, buildingType);
-      preparedStatement.setString(4, physicalAddress);
-      preparedStatement.setString(5, erfNumber);
-      preparedStatement.setDouble(6, totalFee);
-      preparedStatement.setDouble(7, totalPaid);
-      preparedStatement.setDate(8, Date.valueOf(deadline));
+    try (PreparedStatement preparedStatement =
+        connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+      preparedStatement.setString(1, project.projectNumber());
+      preparedStatement.setString(2, project.projectName());
+      preparedStatement.setString(3, project.buildingType());
+      preparedStatement.setString(4, project.physicalAddress());
+      preparedStatement.setString(5, project.erfNumber());
+      preparedStatement.setDouble(6, project.totalFee());
+      preparedStatement.setDouble(7, project.totalPaid());
+      preparedStatement.setDate(8, Date.valueOf(project.deadline()));
       preparedStatement.setBoolean(9, false);
-      preparedStatement.setInt(10, architectId);
-      preparedStatement.setInt(11, contractorId);
-      preparedStatement.setInt(12, customerId);
-      preparedStatement.setInt(13, structuralEngineerId);
-      preparedStatement.setInt(14, projectManagerId);
+      project.bindPersonIds(preparedStatement, 10);
 
       preparedStatement.executeUpdate();
-      System.out.println("Project inserted successfully.");
+      messages.println("Project inserted successfully.");
+      publishInsert(preparedStatement, project);
     }
   }
 
   /**
-   * Inserts a new project into the database if it does not already exist.
+   * Inserts a new project into the database if it does not already exist. When the unique index
+   * on {@code project_number} exists, the insert is attempted directly and a duplicate key error
+   * is reported as {@link InsertResult#DUPLICATE}, so the check and insert take one round trip and
+   * cannot race with another client inserting the same project number. Without the index, e.g.
+   * before the schema migration that adds it has run, the project number is looked up first.
    *
    * @param connection The database connection.
    * @param projectNumber The project number.
@@ -76,25 +166,106 @@ public class ProjectManager {
    * @param customerId The ID of the customer.
    * @param structuralEngineerId The ID of the structural engineer.
    * @param projectManagerId The ID of the project manager.
+   * @return Whether the project was inserted or already existed.
    * @throws SQLException If a database access error occurs.
    */
-  public void insertProjectIfNotExists(Connection connection, String projectNumber,
+  public InsertResult insertProjectIfNotExists(Connection connection, String projectNumber,
       String projectName, String buildingType, String physicalAddress, String erfNumber,
       double totalFee, double totalPaid, String deadline, int architectId, int contractorId,
       int customerId, int structuralEngineerId, int projectManagerId) throws SQLException {
-    String checkSql = "SELECT COUNT(*) FROM Projects WHERE project_number = ?";
-    try (PreparedStatement checkStatement = connection.prepareStatement(checkSql)) {
-      checkStatement.setString(1, projectNumber);
-      try (ResultSet resultSet = checkStatement.executeQuery()) {
-        if (resultSet.next() && resultSet.getInt(1) == 0) {
-          insertProject(connection, projectNumber, projectName, buildingType, physicalAddress,
-              erfNumber, totalFee, totalPaid, deadline, architectId, contractorId, customerId,
-              structuralEngineerId, projectManagerId);
-        } else {
-          System.out.println("Project with number " + projectNumber + " already exists.");
+    if (!hasUniqueProjectNumbers(connection) && projectNumberExists(connection, projectNumber)) {
+      messages.println("Project with number " + projectNumber + " already exists.");
+      return InsertResult.DUPLICATE;
+    }
+    try {
+      insertProject(connection, projectNumber, projectName, buildingType, physicalAddress,
+          erfNumber, totalFee, totalPaid, deadline, architectId, contractorId, customerId,
+          structuralEngineerId, projectManagerId);
+      return InsertResult.INSERTED;
+    } catch (SQLIntegrityConstraintViolationException e) {
+      if (!isDuplicateKey(e)) {
+        throw e;
+      }
+      messages.println("Project with number " + projectNumber + " already exists.");
+      return InsertResult.DUPLICATE;
+    }
+  }
+
+  /**
+   * Checks whether the Projects table has a unique index on {@code project_number} alone. Once
+   * found, the index is assumed to stay, so later calls do not query the metadata again.
+   *
+   * @param connection The database connection.
+   * @return True if project numbers are enforced to be unique.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static boolean hasUniqueProjectNumbers(Connection connection) throws SQLException {
+    if (uniqueProjectNumbers) {
+      return true;
+    }
+    Map<String, List<String>> columnsByIndex = new LinkedHashMap<>();
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet resultSet =
+        metaData.getIndexInfo(connection.getCatalog(), null, "Projects", true, false)) {
+      while (resultSet.next()) {
+        String indexName = resultSet.getString("INDEX_NAME");
+        String column = resultSet.getString("COLUMN_NAME");
+        if (indexName != null && column != null) {
+          columnsByIndex.computeIfAbsent(indexName, name -> new ArrayList<>()).add(column);
         }
       }
     }
+    for (List<String> columns : columnsByIndex.values()) {
+      if (columns.size() == 1 && columns.get(0).equalsIgnoreCase("project_number")) {
+        uniqueProjectNumbers = true;
+      }
+    }
+    return uniqueProjectNumbers;
+  }
+
+  private static boolean projectNumberExists(Connection connection, String projectNumber)
+      throws SQLException {
+    String sql = "SELECT 1 FROM Projects WHERE project_number = ? LIMIT 1";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setString(1, projectNumber);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next();
+      }
+    }
+  }
+
+  /**
+   * Checks whether a constraint violation was caused by a duplicate unique key rather than, for
+   * example, a foreign key.
+   *
+   * @param e The constraint violation.
+   * @return True if the violation is a duplicate key.
+   */
+  private static boolean isDuplicateKey(SQLIntegrityConstraintViolationException e) {
+    // MySQL reports ER_DUP_ENTRY (1062); other databases use the standard SQLSTATE 23505.
+    return e.getErrorCode() == 1062 || "23505".equals(e.getSQLState());
+  }
+
+  /**
+   * Publishes an insert event for a newly inserted project, using the key generated by the insert.
+   *
+   * @param preparedStatement The executed insert, prepared to return generated keys.
+   * @param project The inserted project.
+   * @throws SQLException If a database access error occurs.
+   */
+  private static void publishInsert(PreparedStatement preparedStatement, Project project)
+      throws SQLException {
+    if (!DataChangeEvents.hasListeners()) {
+      return;
+    }
+    try (ResultSet keys = preparedStatement.getGeneratedKeys()) {
+      if (keys.next()) {
+        Map<String, Object> values = project.toColumnValues();
+        values.put("is_finalised", false);
+        values.put("completion_date", null);
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.INSERT, keys.getInt(1), values);
+      }
+    }
   }
 
   /**
@@ -121,27 +292,336 @@ public class ProjectManager {
       String projectName, String buildingType, String physicalAddress, String erfNumber,
       double totalFee, double totalPaid, String deadline, int architectId, int contractorId,
       int customerId, int structuralEngineerId, int projectManagerId) throws SQLException {
+    updateProject(connection, new Project(projectId, projectNumber, projectName, buildingType,
+        physicalAddress, erfNumber, totalFee, totalPaid, LocalDate.parse(deadline), false, null,
+        architectId, contractorId, customerId, structuralEngineerId, projectManagerId));
+  }
+
+  /**
+   * Updates an existing project in the database. The project's finalised status and completion
+   * date are left unchanged.
+   *
+   * @param connection The database connection.
+   * @param project The new values of the project, identified by its project ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void updateProject(Connection connection, Project project) throws SQLException {
+    if (writeProject(connection, project, -1) > 0) {
+      messages.println("Project updated successfully.");
+    } else {
+      messages.println("No project found with ID " + project.projectId() + ".");
+    }
+  }
+
+  /**
+   * Updates an existing project in the database if it has not been changed since its version was
+   * read with {@link RowVersions#find}. The project's finalised status and completion date are
+   * left unchanged.
+   *
+   * @param connection The database connection.
+   * @param project The new values of the project, identified by its project ID.
+   * @param expectedVersion The version of the project the new values are based on.
+   * @return Whether the project was updated, changed by someone else, or not found.
+   * @throws SQLException If a database access error occurs.
+   */
+  public UpdateResult updateProject(Connection connection, Project project, int expectedVersion)
+      throws SQLException {
+    int rows = writeProject(connection, project, expectedVersion);
+    return RowVersions.resultOf(connection, Table.PROJECTS, project.projectId(), rows);
+  }
+
+  /**
+   * Writes a project's columns, except its finalised status and completion date, and increments
+   * its version, optionally only if the version is still the expected one.
+   *
+   * @param expectedVersion The version the row must have, or -1 to update it unconditionally.
+   * @return The number of rows updated.
+   */
+  private int writeProject(Connection connection, Project project, int expectedVersion)
+      throws SQLException {
     String sql =
-        "UPDATE Projects SET project_number = ?, project_name = ?, building_type = ?, physical_address = ?, erf_number = ?, total_fee = ?, total_paid = ?, deadline = ?, architect_id = ?, contractor_id = ?, customer_id = ?, structural_engineer_id = ?, project_manager_id = ? WHERE project_id = ?";
+        "UPDATE Projects SET project_number = ?, project_name = ?, building_type = ?, physical_address = ?, erf_number = ?, total_fee = ?, total_paid = ?, deadline = ?, architect_id = ?, contractor_id = ?, customer_id = ?, structural_engineer_id = ?, project_manager_id = ?, version = version + 1 WHERE project_id = ?"
+            + (expectedVersion < 0 ? "" : " AND version = ?");
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-      preparedStatement.setString(1, projectNumber);
-      preparedStatement.setString(2, projectName);
-      preparedStatement.setString(3, buildingType);
-      preparedStatement.setString(4, physicalAddress);
-      preparedStatement.setString(5, erfNumber);
-      preparedStatement.setDouble(6, totalFee);
-      preparedStatement.setDouble(7, totalPaid);
-      preparedStatement.setDate(8, Date.valueOf(deadline));
-      preparedStatement.setInt(9, architectId);
-      preparedStatement.setInt(10, contractorId);
-      preparedStatement.setInt(11, customerId);
-      preparedStatement.setInt(12, structuralEngineerId);
-      preparedStatement.setInt(13, projectManagerId);
-      preparedStatement.setInt(14, projectId);
+      preparedStatement.setString(1, project.projectNumber());
+      preparedStatement.setString(2, project.projectName());
+      preparedStatement.setString(3, project.buildingType());
+      preparedStatement.setString(4, project.physicalAddress());
+      preparedStatement.setString(5, project.erfNumber());
+      preparedStatement.setDouble(6, project.totalFee());
+      preparedStatement.setDouble(7, project.totalPaid());
+      preparedStatement.setDate(8, Date.valueOf(project.deadline()));
+      project.bindPersonIds(preparedStatement, 9);
+      preparedStatement.setInt(14, project.projectId());
+      if (expectedVersion >= 0) {
+        preparedStatement.setInt(15, expectedVersion);
+      }
 
-      preparedStatement.executeUpdate();
-      System.out.println("Project updated successfully.");
+      Map<String, Object> previous = ProjectBeforeImages.find(connection, project.projectId());
+      int rows = preparedStatement.executeUpdate();
+      if (rows > 0) {
+        Map<String, Object> values = project.toColumnValues();
+        values.remove("is_finalised");
+        values.remove("completion_date");
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.UPDATE, project.projectId(), values,
+            previous);
+      }
+      return rows;
+    }
+  }
+
+  /**
+   * Updates only the given columns of a project, leaving the others as they are. The columns are
+   * always written in schema order, so the same set of columns produces the same SQL and reuses
+   * the connection's cached prepared statement.
+   *
+   * @param connection The database connection.
+   * @param projectId The ID of the project to update.
+   * @param changes The new values keyed by column name, e.g. {@code "total_paid"}. Values are
+   *        {@link String}, {@link Integer}, {@link Double}, {@link Boolean} or {@link LocalDate},
+   *        or null to set the column to NULL; text given for a non-text column is parsed.
+   * @return True if the project exists and was updated, false if it does not exist or no columns
+   *         were given.
+   * @throws SQLException If a database access error occurs.
+   * @throws IllegalArgumentException If a column does not exist or a value is not valid for it.
+   */
+  public boolean updateProject(Connection connection, int projectId, Map<String, Object> changes)
+      throws SQLException {
+    return writeColumns(connection, projectId, changes, -1) > 0;
+  }
+
+  /**
+   * Updates only the given columns of a project if it has not been changed since its version was
+   * read with {@link RowVersions#find}.
+   *
+   * @param connection The database connection.
+   * @param projectId The ID of the project to update.
+   * @param changes The new values keyed by column name, as for
+   *        {@link #updateProject(Connection, int, Map)}.
+   * @param expectedVersion The version of the project the new values are based on.
+   * @return Whether the project was updated, changed by someone else, or not found. With no
+   *         columns given, nothing is written and the project is reported as updated if it still
+   *         has the expected version.
+   * @throws SQLException If a database access error occurs.
+   * @throws IllegalArgumentException If a column does not exist or a value is not valid for it.
+   */
+  public UpdateResult updateProject(Connection connection, int projectId,
+      Map<String, Object> changes, int expectedVersion) throws SQLException {
+    int rows = writeColumns(connection, projectId, changes, expectedVersion);
+    if (rows < 0) {
+      int version = RowVersions.find(connection, Table.PROJECTS, projectId);
+      return version < 0 ? UpdateResult.NOT_FOUND
+          : version == expectedVersion ? UpdateResult.UPDATED : UpdateResult.CONFLICT;
+    }
+    return RowVersions.resultOf(connection, Table.PROJECTS, projectId, rows);
+  }
+
+  /**
+   * Writes the given columns of a project and increments its version, optionally only if the
+   * version is still the expected one.
+   *
+   * @param expectedVersion The version the row must have, or -1 to update it unconditionally.
+   * @return The number of rows updated, or -1 if no columns were given.
+   */
+  private int writeColumns(Connection connection, int projectId, Map<String, Object> changes,
+      int expectedVersion) throws SQLException {
+    List<Column> columns = Table.PROJECTS.getColumns();
+    Object[] values = new Object[columns.size()];
+    long columnMask = 0;
+    for (Map.Entry<String, Object> change : changes.entrySet()) {
+      int index = columnIndex(columns, change.getKey());
+      values[index] = Project.storedValue(change.getKey(),
+          parseValue(columns.get(index), change.getValue()));
+      columnMask |= 1L << index;
+    }
+    if (columnMask == 0) {
+      return -1;
+    }
+
+    try (PreparedStatement preparedStatement = connection.prepareStatement(
+        partialUpdateSql(columns, columnMask, expectedVersion >= 0))) {
+      Map<String, Object> written = new LinkedHashMap<>();
+      int parameter = 1;
+      for (int i = 0; i < columns.size(); i++) {
+        if ((columnMask & (1L << i)) != 0) {
+          Column column = columns.get(i);
+          column.type().bindValue(preparedStatement, parameter++, values[i]);
+          written.put(column.name(), values[i]);
+        }
+      }
+      preparedStatement.setInt(parameter++, projectId);
+      if (expectedVersion >= 0) {
+        preparedStatement.setInt(parameter, expectedVersion);
+      }
+
+      Map<String, Object> previous = ProjectBeforeImages.touches(written.keySet())
+          ? ProjectBeforeImages.find(connection, projectId) : null;
+      int rows = preparedStatement.executeUpdate();
+      if (rows > 0) {
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.UPDATE, projectId, written, previous);
+      }
+      return rows;
+    }
+  }
+
+  private static int columnIndex(List<Column> columns, String name) {
+    for (int i = 0; i < columns.size(); i++) {
+      if (columns.get(i).name().equals(name)) {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("Unknown project column: " + name);
+  }
+
+  /**
+   * Checks that a value suits a column, parsing text given for a non-text column.
+   */
+  private static Object parseValue(Column column, Object value) {
+    if (value instanceof String text && column.type() != ColumnType.STRING) {
+      return column.type().parse(text);
+    }
+    Class<?> expected;
+    switch (column.type()) {
+      case INT:
+        expected = Integer.class;
+        break;
+      case DOUBLE:
+        expected = Double.class;
+        break;
+      case BOOLEAN:
+        expected = Boolean.class;
+        break;
+      case DATE:
+        expected = LocalDate.class;
+        break;
+      default:
+        expected = String.class;
     }
+    if (value != null && !expected.isInstance(value)) {
+      throw new IllegalArgumentException("Invalid value for " + column.name() + ": " + value);
+    }
+    return value;
+  }
+
+  /**
+   * Gets the UPDATE statement that writes the columns in the mask, building and caching it the
+   * first time. Only a bounded number of shapes is cached; the menu and the typical callers use a
+   * handful.
+   */
+  private static String partialUpdateSql(List<Column> columns, long columnMask,
+      boolean checkVersion) {
+    long key = checkVersion ? columnMask | VERSION_CHECK_BIT : columnMask;
+    String sql = UPDATE_SQL_BY_COLUMNS.get(key);
+    if (sql != null) {
+      return sql;
+    }
+    StringBuilder builder = new StringBuilder("UPDATE Projects SET ");
+    for (int i = 0; i < columns.size(); i++) {
+      if ((columnMask & (1L << i)) != 0) {
+        if (builder.charAt(builder.length() - 1) == '?') {
+          builder.append(", ");
+        }
+        builder.append(columns.get(i).name()).append(" = ?");
+      }
+    }
+    builder.append(", version = version + 1 WHERE project_id = ?");
+    if (checkVersion) {
+      builder.append(" AND version = ?");
+    }
+    sql = builder.toString();
+    if (UPDATE_SQL_BY_COLUMNS.size() < MAX_UPDATE_SHAPES) {
+      UPDATE_SQL_BY_COLUMNS.putIfAbsent(key, sql);
+    }
+    return sql;
+  }
+
+  /**
+   * Finds a project by its ID.
+   *
+   * @param connection The database connection.
+   * @param projectId The ID of the project.
+   * @return The project, or null if there is no project with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public Project findProject(Connection connection, int projectId) throws SQLException {
+    String sql = "SELECT * FROM Projects WHERE project_id = ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, projectId);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next() ? new ProjectRowMapper().map(resultSet) : null;
+      }
+    }
+  }
+
+  /**
+   * Finds a project together with all of its people.
+   *
+   * @param connection The database connection.
+   * @param projectId The ID of the project.
+   * @return The project details, or null if there is no project with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public ProjectDetails findProjectDetails(Connection connection, int projectId)
+      throws SQLException {
+    List<ProjectDetails> details = findProjectDetails(connection, List.of(projectId));
+    return details.isEmpty() ? null : details.get(0);
+  }
+
+  /**
+   * Finds several projects together with all of their people. Projects are read with queries over
+   * {@code IN} lists of up to 512 IDs, rather than one query per project, padded to a power of two
+   * so that a small number of statement shapes is reused. Their people are looked up with
+   * {@link DatabaseManager#findPeople}, so people already in the {@link PeopleCache} are not read
+   * again and the rest are read with one query per people table.
+   *
+   * @param connection The database connection.
+   * @param projectIds The IDs of the projects.
+   * @return The details of the projects that exist, in project ID order.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<ProjectDetails> findProjectDetails(Connection connection, List<Integer> projectIds)
+      throws SQLException {
+    List<Project> projects = new ArrayList<>(projectIds.size());
+    int[] ids = projectIds.stream().mapToInt(Integer::intValue).toArray();
+    for (int start = 0; start < ids.length; start += InLists.MAX_SIZE) {
+      int end = Math.min(start + InLists.MAX_SIZE, ids.length);
+      int listSize = InLists.paddedSize(end - start, InLists.MAX_SIZE);
+
+      StringBuilder sql = new StringBuilder("SELECT * FROM Projects WHERE ");
+      InLists.append(sql, "project_id", listSize);
+      sql.append(" ORDER BY project_id");
+
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+        InLists.bind(preparedStatement, 1, ids, start, end, listSize);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          ProjectRowMapper mapper = new ProjectRowMapper();
+          while (resultSet.next()) {
+            projects.add(mapper.map(resultSet));
+          }
+        }
+      }
+    }
+    if (ids.length > InLists.MAX_SIZE) {
+      projects.sort((a, b) -> Integer.compare(a.projectId(), b.projectId()));
+    }
+
+    DatabaseManager databaseManager = new DatabaseManager(connection);
+    Map<Integer, Person> architects = databaseManager.findPeople(Table.ARCHITECTS,
+        projects.stream().map(Project::architectId).toList());
+    Map<Integer, Person> contractors = databaseManager.findPeople(Table.CONTRACTORS,
+        projects.stream().map(Project::contractorId).toList());
+    Map<Integer, Person> customers = databaseManager.findPeople(Table.CUSTOMERS,
+        projects.stream().map(Project::customerId).toList());
+    Map<Integer, Person> engineers = databaseManager.findPeople(Table.STRUCTURAL_ENGINEERS,
+        projects.stream().map(Project::structuralEngineerId).toList());
+    List<ProjectDetails> details = new ArrayList<>(projects.size());
+    for (Project project : projects) {
+      details.add(new ProjectDetails(project, (Architect) architects.get(project.architectId()),
+          (Contractor) contractors.get(project.contractorId()),
+          (Customer) customers.get(project.customerId()),
+          (StructuralEngineer) engineers.get(project.structuralEngineerId())));
+    }
+    return details;
   }
 
   /**
@@ -155,8 +635,12 @@ public class ProjectManager {
     String sql = "DELETE FROM Projects WHERE project_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setInt(1, projectId);
-      preparedStatement.executeUpdate();
-      System.out.println("Project deleted successfully.");
+      Map<String, Object> previous = ProjectBeforeImages.find(connection, projectId);
+      if (preparedStatement.executeUpdate() > 0) {
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.DELETE, projectId, Map.of(),
+            previous);
+      }
+      messages.println("Project deleted successfully.");
     }
   }
 
@@ -168,35 +652,141 @@ public class ProjectManager {
    * @throws SQLException If a database access error occurs.
    */
   public void finalizeProject(Connection connection, int projectId) throws SQLException {
-    String sql = "UPDATE Projects SET is_finalised = ?, completion_date = ? WHERE project_id = ?";
+    String sql =
+        "UPDATE Projects SET is_finalised = ?, completion_date = ?, version = version + 1 WHERE project_id = ?";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      LocalDate completionDate = LocalDate.now();
       preparedStatement.setBoolean(1, true);
-      preparedStatement.setDate(2, Date.valueOf(LocalDate.now()));
+      preparedStatement.setDate(2, Date.valueOf(completionDate));
       preparedStatement.setInt(3, projectId);
 
-      preparedStatement.executeUpdate();
-      System.out.println("Project finalized successfully.");
+      Map<String, Object> previous = ProjectBeforeImages.find(connection, projectId);
+      if (preparedStatement.executeUpdate() > 0) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("is_finalised", true);
+        values.put("completion_date", completionDate);
+        DataChangeEvents.publish(Table.PROJECTS, ChangeType.UPDATE, projectId, values, previous);
+      }
+      messages.println("Project finalized successfully.");
     }
   }
 
   /**
-   * Reads all projects from the database.
+   * Reads a page of projects in project ID order, starting after the given project ID. Only the
+   * columns shown in listings are selected, and the primary key index is used to seek to the start
+   * of the page, so the cost depends on the page size rather than the size of the table.
    *
    * @param connection The database connection.
+   * @param filter The listing to read from.
+   * @param afterProjectId The ID of the last project on the previous page, or 0 for the first page.
+   * @param limit The maximum number of projects to return.
+   * @return The projects on the page.
    * @throws SQLException If a database access error occurs.
    */
-  public void readProjects(Connection connection) throws SQLException {
-    String sql = "SELECT * FROM Projects";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery()) {
+  public List<ProjectSummary> page(Connection connection, ProjectFilter filter, int afterProjectId,
+      int limit) throws SQLException {
+    String sql = "SELECT project_id, project_number, project_name FROM Projects WHERE "
+        + filter.getCondition() + " AND project_id > ? ORDER BY project_id LIMIT ?";
+    return readSummaries(connection, sql, afterProjectId, limit);
+  }
 
-      System.out.println("\nAll Projects:");
-      while (resultSet.next()) {
-        System.out.println("Project ID: " + resultSet.getInt("project_id") + ", Project Number: "
-            + resultSet.getString("project_number") + ", Project Name: "
-            + resultSet.getString("project_name"));
+  /**
+   * Reads a page of all projects in project ID order, starting after the given project ID.
+   *
+   * @param connection The database connection.
+   * @param afterProjectId The ID of the last project on the previous page, or 0 for the first page.
+   * @param limit The maximum number of projects to return.
+   * @return The projects on the page.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<ProjectSummary> page(Connection connection, int afterProjectId, int limit)
+      throws SQLException {
+    return page(connection, ProjectFilter.ALL, afterProjectId, limit);
+  }
+
+  /**
+   * Reads the page of projects that comes immediately before the given project ID, in project ID
+   * order.
+   *
+   * @param connection The database connection.
+   * @param filter The listing to read from.
+   * @param beforeProjectId The ID of the first project on the current page.
+   * @param limit The maximum number of projects to return.
+   * @return The projects on the previous page.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<ProjectSummary> pageBefore(Connection connection, ProjectFilter filter,
+      int beforeProjectId, int limit) throws SQLException {
+    String sql = "SELECT project_id, project_number, project_name FROM Projects WHERE "
+        + filter.getCondition() + " AND project_id < ? ORDER BY project_id DESC LIMIT ?";
+    List<ProjectSummary> projects = readSummaries(connection, sql, beforeProjectId, limit);
+    Collections.reverse(projects);
+    return projects;
+  }
+
+  /**
+   * Runs a keyset page query and maps its rows to project summaries.
+   *
+   * @param connection The database connection.
+   * @param sql The page query, taking the boundary project ID and the limit as parameters.
+   * @param boundaryProjectId The project ID the page starts from.
+   * @param limit The maximum number of projects to return.
+   * @return The projects on the page.
+   * @throws SQLException If a database access error occurs.
+   */
+  private List<ProjectSummary> readSummaries(Connection connection, String sql,
+      int boundaryProjectId, int limit) throws SQLException {
+    List<ProjectSummary> projects = new ArrayList<>(limit);
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, boundaryProjectId);
+      preparedStatement.setInt(2, limit);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        while (resultSet.next()) {
+          projects.add(new ProjectSummary(resultSet.getInt(1), resultSet.getString(2),
+              resultSet.getString(3)));
+        }
       }
     }
+    return projects;
+  }
+
+  /**
+   * Writes every project in a listing, reading it one page at a time.
+   *
+   * @param connection The database connection.
+   * @param filter The listing to write.
+   * @param renderer The renderer the rows are written to.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void readProjects(Connection connection, ProjectFilter filter, ResultRenderer renderer)
+      throws SQLException {
+    renderer.begin(filter.getTitle(), SUMMARY_COLUMNS, SUMMARY_TYPES);
+    String[] cells = new String[SUMMARY_COLUMNS.length];
+    int afterProjectId = 0;
+    List<ProjectSummary> projects;
+    do {
+      projects = page(connection, filter, afterProjectId, READ_PAGE_SIZE);
+      for (ProjectSummary project : projects) {
+        cells[0] = Integer.toString(project.projectId());
+        cells[1] = project.projectNumber();
+        cells[2] = project.projectName();
+        renderer.row(cells);
+      }
+      if (!projects.isEmpty()) {
+        afterProjectId = projects.get(projects.size() - 1).projectId();
+      }
+    } while (projects.size() == READ_PAGE_SIZE);
+    renderer.end();
+  }
+
+  /**
+   * Reads all projects from the database.
+   *
+   * @param connection The database connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void readProjects(Connection connection) throws SQLException {
+    printToConsole(renderer -> readProjects(connection, ProjectFilter.ALL, renderer));
   }
 
   /**
@@ -206,41 +796,114 @@ public class ProjectManager {
    * @throws SQLException If a database access error occurs.
    */
   public void readIncompleteProjects(Connection connection) throws SQLException {
-    String sql = "SELECT * FROM Projects WHERE is_finalised = FALSE";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery()) {
+    printToConsole(renderer -> readProjects(connection, ProjectFilter.INCOMPLETE, renderer));
+  }
 
-      System.out.println("\nIncomplete Projects:");
-      while (resultSet.next()) {
-        System.out.println("Project ID: " + resultSet.getInt("project_id") + ", Project Number: "
-            + resultSet.getString("project_number") + ", Project Name: "
-            + resultSet.getString("project_name"));
-      }
+  /**
+   * Reads all overdue projects, most overdue first.
+   *
+   * @param connection The database connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void readOverdueProjects(Connection connection) throws SQLException {
+    printToConsole(renderer -> readOverdueProjects(connection, renderer));
+  }
+
+  /**
+   * Writes all overdue projects, most overdue first. The listing comes from the in-memory
+   * {@link OverdueDetector} once it has loaded, and from the database before then.
+   *
+   * @param connection The database connection.
+   * @param renderer The renderer the rows are written to.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void readOverdueProjects(Connection connection, ResultRenderer renderer)
+      throws SQLException {
+    OverdueDetector detector = OverdueDetector.shared();
+    if (detector.isReady()) {
+      writeDue(renderer, ProjectFilter.OVERDUE.getTitle(), detector.overdue(Integer.MAX_VALUE));
+      return;
     }
+    String sql = "SELECT project_id, project_number, project_name, deadline FROM Projects"
+        + " WHERE is_finalised = FALSE AND deadline < CURRENT_DATE ORDER BY deadline, project_id";
+    writeDue(connection, renderer, ProjectFilter.OVERDUE.getTitle(), sql, -1);
   }
 
   /**
-   * Reads all overdue projects from the database.
+   * Reads the incomplete projects that are not overdue but are due within the given number of
+   * days, soonest first.
    *
    * @param connection The database connection.
+   * @param days The number of days ahead to look; 0 lists the projects due today.
    * @throws SQLException If a database access error occurs.
    */
-  public void readOverdueProjects(Connection connection) throws SQLException {
-    String sql = "SELECT * FROM Projects WHERE deadline < CURRENT_DATE AND is_finalised = FALSE";
-    try (PreparedStatement preparedStatement = connection.prepareStatement(sql);
-        ResultSet resultSet = preparedStatement.executeQuery()) {
+  public void readProjectsDueWithin(Connection connection, int days) throws SQLException {
+    printToConsole(renderer -> readProjectsDueWithin(connection, days, renderer));
+  }
 
-      System.out.println("\nOverdue Projects:");
-      while (resultSet.next()) {
-        System.out.println("Project ID: " + resultSet.getInt("project_id") + ", Project Number: "
-            + resultSet.getString("project_number") + ", Project Name: "
-            + resultSet.getString("project_name"));
+  /**
+   * Writes the incomplete projects that are not overdue but are due within the given number of
+   * days, soonest first. Answered from the {@link OverdueDetector} once it has loaded.
+   *
+   * @param connection The database connection.
+   * @param days The number of days ahead to look; 0 lists the projects due today.
+   * @param renderer The renderer the rows are written to.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void readProjectsDueWithin(Connection connection, int days, ResultRenderer renderer)
+      throws SQLException {
+    String title = "Projects Due Within " + days + " Days";
+    OverdueDetector detector = OverdueDetector.shared();
+    if (detector.isReady()) {
+      writeDue(renderer, title, detector.dueWithin(days, Integer.MAX_VALUE));
+      return;
+    }
+    String sql = "SELECT project_id, project_number, project_name, deadline FROM Projects"
+        + " WHERE is_finalised = FALSE AND deadline >= CURRENT_DATE"
+        + " AND deadline <= CURRENT_DATE + INTERVAL ? DAY ORDER BY deadline, project_id";
+    writeDue(connection, renderer, title, sql, days);
+  }
+
+  private void writeDue(Connection connection, ResultRenderer renderer, String title, String sql,
+      int days) throws SQLException {
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      if (days >= 0) {
+        preparedStatement.setInt(1, days);
       }
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        renderer.render(title, resultSet);
+      }
+    }
+  }
+
+  private void writeDue(ResultRenderer renderer, String title, List<DueProject> projects) {
+    renderer.begin(title, DUE_COLUMNS, DUE_TYPES);
+    String[] cells = new String[DUE_COLUMNS.length];
+    for (DueProject project : projects) {
+      cells[0] = Integer.toString(project.projectId());
+      cells[1] = project.projectNumber();
+      cells[2] = project.projectName();
+      cells[3] = project.deadline().toString();
+      renderer.row(cells);
+    }
+    renderer.end();
+  }
+
+  /**
+   * Writes a listing to the console in the configured format.
+   */
+  private void printToConsole(Listing listing) throws SQLException {
+    PrintWriter out = ResultRenderer.consoleWriter();
+    try {
+      listing.writeTo(new ResultRenderer(out, OutputFormat.configured()));
+    } finally {
+      out.flush();
     }
   }
 
   /**
-   * Finds projects by project number or name.
+   * Finds projects by project number or name. The two equality lookups are combined with UNION
+   * rather than OR, so each can use its own index.
    *
    * @param connection The database connection.
    * @param projectNumber The project number to search for.
@@ -249,18 +912,104 @@ public class ProjectManager {
    */
   public void findProjectByNumberOrName(Connection connection, String projectNumber,
       String projectName) throws SQLException {
-    String sql = "SELECT * FROM Projects WHERE project_number = ? OR project_name = ?";
+    printToConsole(
+        renderer -> findProjectByNumberOrName(connection, projectNumber, projectName, renderer));
+  }
+
+  /**
+   * Writes the projects found by project number or name.
+   *
+   * @param connection The database connection.
+   * @param projectNumber The project number to search for.
+   * @param projectName The project name to search for.
+   * @param renderer The renderer the rows are written to.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void findProjectByNumberOrName(Connection connection, String projectNumber,
+      String projectName, ResultRenderer renderer) throws SQLException {
+    String sql =
+        "SELECT project_id, project_number, project_name FROM Projects WHERE project_number = ? UNION SELECT project_id, project_number, project_name FROM Projects WHERE project_name = ? ORDER BY project_id";
     try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
       preparedStatement.setString(1, projectNumber);
       preparedStatement.setString(2, projectName);
       try (ResultSet resultSet = preparedStatement.executeQuery()) {
-        System.out.println("\nProjects Found by Number or Name:");
+        renderer.render("Projects Found by Number or Name", resultSet);
+      }
+    }
+  }
+
+  /**
+   * Searches projects by project number, name, physical address and ERF number. The search is
+   * answered from the in-memory {@link ProjectSearchIndex} once it has loaded, and with SQL
+   * {@code LIKE} before then. Without the index, fuzzy searches only match query words that appear
+   * exactly, and prefix searches only match after spaces within a field.
+   *
+   * @param connection The database connection.
+   * @param query The text to search for.
+   * @param mode How the text is matched.
+   * @param limit The maximum number of projects to return.
+   * @return The matching projects.
+   * @throws SQLException If a database access error occurs.
+   */
+  public List<ProjectSummary> searchProjects(Connection connection, String query,
+      SearchMode mode, int limit) throws SQLException {
+    if (searchIndex.isReady()) {
+      return searchIndex.search(query, mode, limit);
+    }
+
+    List<String> terms = new ArrayList<>();
+    if (mode == SearchMode.FUZZY) {
+      for (String word : query.trim().split("[^\\p{L}\\p{N}]+")) {
+        if (!word.isEmpty()) {
+          terms.add(word);
+        }
+      }
+    } else if (!query.trim().isEmpty()) {
+      terms.add(query.trim());
+    }
+    if (terms.isEmpty() || limit <= 0) {
+      return Collections.emptyList();
+    }
+
+    // Every term must match at least one of the searchable columns.
+    StringBuilder sql =
+        new StringBuilder("SELECT project_id, project_number, project_name FROM Projects WHERE ");
+    List<String> patterns = new ArrayList<>();
+    for (int t = 0; t < terms.size(); t++) {
+      String escaped =
+          terms.get(t).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+      sql.append(t > 0 ? " AND (" : "(");
+      for (int c = 0; c < SEARCH_COLUMNS.length; c++) {
+        if (c > 0) {
+          sql.append(" OR ");
+        }
+        if (mode == SearchMode.PREFIX) {
+          sql.append(SEARCH_COLUMNS[c]).append(" LIKE ? OR ");
+          patterns.add(escaped + "%");
+          patterns.add("% " + escaped + "%");
+        } else {
+          patterns.add("%" + escaped + "%");
+        }
+        sql.append(SEARCH_COLUMNS[c]).append(" LIKE ?");
+      }
+      sql.append(')');
+    }
+    sql.append(" ORDER BY project_id LIMIT ?");
+
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql.toString())) {
+      int index = 1;
+      for (String pattern : patterns) {
+        preparedStatement.setString(index++, pattern);
+      }
+      preparedStatement.setInt(index, limit);
+      List<ProjectSummary> projects = new ArrayList<>();
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
         while (resultSet.next()) {
-          System.out.println("Project ID: " + resultSet.getInt("project_id") + ", Project Number: "
-              + resultSet.getString("project_number") + ", Project Name: "
-              + resultSet.getString("project_name"));
+          projects.add(new ProjectSummary(resultSet.getInt(1), resultSet.getString(2),
+              resultSet.getString(3)));
         }
       }
+      return projects;
     }
   }
 }
@@ -0,0 +1,59 @@
+package taskL3T08;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The ProjectRowMapper class maps rows of the Projects table to {@link Project} records. Column
+ * positions are looked up by name once per result set and then read by index, so mapping many
+ * rows does not repeat the name lookups. An optional column prefix supports joined queries that
+ * alias the project columns. Instances are not thread-safe; use one per query.
+ */
+public class ProjectRowMapper implements RowMapper<Project> {
+  private static final String[] COLUMNS = {"project_id", "project_number", "project_name",
+      "building_type", "physical_address", "erf_number", "total_fee", "total_paid", "deadline",
+      "is_finalised", "completion_date", "architect_id", "contractor_id", "customer_id",
+      "structural_engineer_id", "project_manager_id"};
+
+  private final String prefix;
+  private final int[] indexes = new int[COLUMNS.length];
+  private ResultSet resolvedFor;
+
+  /**
+   * Constructor for ProjectRowMapper, for result sets using the plain column names.
+   */
+  public ProjectRowMapper() {
+    this("");
+  }
+
+  /**
+   * Constructor for ProjectRowMapper.
+   *
+   * @param prefix The prefix of each column label in the result set, e.g. {@code "p_"}.
+   */
+  public ProjectRowMapper(String prefix) {
+    this.prefix = prefix;
+  }
+
+  @Override
+  public Project map(ResultSet resultSet) throws SQLException {
+    if (resultSet != resolvedFor) {
+      for (int i = 0; i < COLUMNS.length; i++) {
+        indexes[i] = resultSet.findColumn(prefix + COLUMNS[i]);
+      }
+      resolvedFor = resultSet;
+    }
+    Date deadline = resultSet.getDate(indexes[8]);
+    Date completionDate = resultSet.getDate(indexes[10]);
+    return new Project(resultSet.getInt(indexes[0]), resultSet.getString(indexes[1]),
+        resultSet.getString(indexes[2]), resultSet.getString(indexes[3]),
+        resultSet.getString(indexes[4]), resultSet.getString(indexes[5]),
+        resultSet.getDouble(indexes[6]), resultSet.getDouble(indexes[7]),
+        deadline == null ? null : deadline.toLocalDate(), resultSet.getBoolean(indexes[9]),
+        completionDate == null ? null : completionDate.toLocalDate(),
+        resultSet.getInt(indexes[11]), resultSet.getInt(indexes[12]),
+        resultSet.getInt(indexes[13]), resultSet.getInt(indexes[14]),
+        resultSet.getInt(indexes[15]));
+  }
+}
@@ -0,0 +1,753 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The ProjectSearchIndex class keeps an in-memory index of the searchable project columns (project
+ * number, name, physical address and ERF number) so that prefix, substring and typo-tolerant
+ * searches do not scan the Projects table.
+ *
+ * <p>
+ * Every field is broken into overlapping three-character sequences (trigrams), each mapped to the
+ * sorted IDs of the projects containing it. A search intersects the lists for the trigrams of the
+ * query and then checks the few remaining candidates against the stored fields, so the cost
+ * depends on the rarest trigram rather than on the number of projects. Fields and the words in
+ * them are padded at the start, so one and two character prefixes also have trigrams. Fuzzy
+ * searches use a second index from each word to its projects and compare query words with the
+ * dictionary words of similar length. Only words made of letters are matched fuzzily; numbers and
+ * codes such as ERF numbers must match exactly.
+ *
+ * <p>
+ * The index is filled by {@link #load(Connection)} and then kept up to date by listening to
+ * {@link DataChangeEvents}. Until it has loaded, {@link #isReady()} is false and
+ * {@link ProjectManager#searchProjects} falls back to SQL. The index needs roughly 1 KB of heap per
+ * project.
+ */
+public class ProjectSearchIndex implements DataChangeListener {
+  /** Marks the start of a field or word, so prefixes have trigrams of their own. */
+  private static final String PAD = "\u0002\u0002";
+
+  /** Number of projects read per query while loading. */
+  private static final int LOAD_PAGE_SIZE = 5_000;
+
+  /** The searchable columns, in the order they are stored in each entry. */
+  private static final String[] FIELDS =
+      {"project_number", "project_name", "physical_address", "erf_number"};
+
+  private static ProjectSearchIndex shared;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Map<Integer, Entry> entries = new HashMap<>();
+  private final Postings allIds = new Postings();
+  private final Map<Long, Postings> trigrams = new HashMap<>();
+  private final Map<String, Postings> words = new HashMap<>();
+  private final Map<Integer, Set<String>> wordsByLength = new HashMap<>();
+  private final Set<Integer> changedDuringLoad = new HashSet<>();
+  private final Set<Integer> staleDuringLoad = new HashSet<>();
+  private boolean loading;
+  private volatile boolean ready;
+
+  /**
+   * Gets the application's shared index, creating it and registering it for change events on
+   * first use. The shared index is empty until it is loaded.
+   *
+   * @return The shared index.
+   */
+  public static synchronized ProjectSearchIndex shared() {
+    if (shared == null) {
+      shared = new ProjectSearchIndex();
+      DataChangeEvents.addListener(shared);
+    }
+    return shared;
+  }
+
+  /**
+   * Checks whether the index has finished loading and can answer searches.
+   *
+   * @return True if the index is ready.
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * Gets the number of projects in the index.
+   *
+   * @return The number of indexed projects.
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return entries.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Loads the index in a background thread with a connection borrowed from the shared pool.
+   * Searches use SQL until the load has finished.
+   */
+  public void loadAsync() {
+    Thread thread = new Thread(() -> {
+      try (Connection connection = DatabaseConnection.getConnection()) {
+        load(connection);
+      } catch (SQLException e) {
+        System.err.println("Project search index could not be loaded; searches will use SQL: "
+            + e.getMessage());
+      }
+    }, "project-search-loader");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Replaces the contents of the index with the projects in the database. Changes published while
+   * the load is running are applied as they arrive and take precedence over the rows it reads.
+   *
+   * @param connection The database connection.
+   * @throws SQLException If a database access error occurs.
+   */
+  public void load(Connection connection) throws SQLException {
+    lock.writeLock().lock();
+    try {
+      ready = false;
+      loading = true;
+      clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    boolean loaded = false;
+    try {
+      String sql =
+          "SELECT project_id, project_number, project_name, physical_address, erf_number FROM Projects WHERE project_id > ? ORDER BY project_id LIMIT ?";
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        int afterId = 0;
+        List<Entry> page;
+        do {
+          preparedStatement.setInt(1, afterId);
+          preparedStatement.setInt(2, LOAD_PAGE_SIZE);
+          page = readEntries(preparedStatement);
+          addLoaded(page);
+          if (!page.isEmpty()) {
+            afterId = page.get(page.size() - 1).id();
+          }
+        } while (page.size() == LOAD_PAGE_SIZE);
+      }
+      refreshStale(connection);
+      loaded = true;
+    } finally {
+      lock.writeLock().lock();
+      try {
+        loading = false;
+        changedDuringLoad.clear();
+        staleDuringLoad.clear();
+        if (loaded) {
+          ready = true;
+        } else {
+          clear();
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Re-reads projects that were partially updated while the load was running and had not been
+   * loaded yet, since their update could not be applied to an entry.
+   */
+  private void refreshStale(Connection connection) throws SQLException {
+    List<Integer> staleIds;
+    lock.readLock().lock();
+    try {
+      staleIds = new ArrayList<>(staleDuringLoad);
+    } finally {
+      lock.readLock().unlock();
+    }
+    if (staleIds.isEmpty()) {
+      return;
+    }
+    String sql =
+        "SELECT project_id, project_number, project_name, physical_address, erf_number FROM Projects WHERE project_id = ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      for (int id : staleIds) {
+        preparedStatement.setInt(1, id);
+        addLoaded(readEntries(preparedStatement));
+      }
+    }
+  }
+
+  /**
+   * Reads index entries from a query over the searchable columns.
+   */
+  private static List<Entry> readEntries(PreparedStatement preparedStatement)
+      throws SQLException {
+    List<Entry> page = new ArrayList<>();
+    try (ResultSet resultSet = preparedStatement.executeQuery()) {
+      while (resultSet.next()) {
+        String[] values = new String[FIELDS.length];
+        for (int i = 0; i < FIELDS.length; i++) {
+          values[i] = resultSet.getString(i + 2);
+        }
+        page.add(new Entry(resultSet.getInt(1), values));
+      }
+    }
+    return page;
+  }
+
+  /**
+   * Adds entries read by a load, skipping projects changed by events since the load started.
+   */
+  private void addLoaded(List<Entry> page) {
+    lock.writeLock().lock();
+    try {
+      for (Entry entry : page) {
+        if (!changedDuringLoad.contains(entry.id())) {
+          remove(entry.id());
+          add(entry);
+        }
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void onChange(DataChangeEvent event) {
+    if (event.table() != Table.PROJECTS) {
+      return;
+    }
+    Map<String, Object> values = event.values();
+    int id = event.id();
+    lock.writeLock().lock();
+    try {
+      if (event.type() == ChangeType.DELETE) {
+        remove(id);
+        if (loading) {
+          changedDuringLoad.add(id);
+        }
+        return;
+      }
+
+      Entry existing = entries.get(id);
+      String[] fields = existing == null ? new String[FIELDS.length] : existing.values().clone();
+      int given = 0;
+      for (int i = 0; i < FIELDS.length; i++) {
+        if (values.containsKey(FIELDS[i])) {
+          Object value = values.get(FIELDS[i]);
+          fields[i] = value == null ? null : value.toString();
+          given++;
+        }
+      }
+      if (given == 0) {
+        return; // e.g. finalizing a project changes nothing searchable
+      }
+      if (existing == null && given < FIELDS.length) {
+        // A partial update of a project this index has not seen; the load will re-read it.
+        if (loading) {
+          staleDuringLoad.add(id);
+        }
+        return;
+      }
+      remove(id);
+      add(new Entry(id, fields));
+      if (loading) {
+        changedDuringLoad.add(id);
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Searches the index.
+   *
+   * @param query The text to search for.
+   * @param mode How the text is matched.
+   * @param limit The maximum number of projects to return.
+   * @return The matching projects. Prefix and substring matches are in project ID order; fuzzy
+   *         matches are ordered by how many edits they needed, then by project ID.
+   */
+  public List<ProjectSummary> search(String query, SearchMode mode, int limit) {
+    String text = query.trim().toLowerCase(Locale.ROOT);
+    if (text.isEmpty() || limit <= 0) {
+      return Collections.emptyList();
+    }
+    lock.readLock().lock();
+    try {
+      List<Integer> ids;
+      switch (mode) {
+        case PREFIX:
+          ids = searchText(text, true, limit);
+          break;
+        case SUBSTRING:
+          ids = searchText(text, false, limit);
+          break;
+        default:
+          ids = searchFuzzy(text, limit);
+      }
+      List<ProjectSummary> results = new ArrayList<>(ids.size());
+      for (int id : ids) {
+        Entry entry = entries.get(id);
+        results.add(new ProjectSummary(id, entry.values()[0], entry.values()[1]));
+      }
+      return results;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Finds projects whose fields contain the text, or start with it in prefix mode.
+   */
+  private List<Integer> searchText(String text, boolean prefix, int limit) {
+    Set<Long> keys = new HashSet<>();
+    addTrigrams(prefix ? PAD + text : text, keys);
+    List<Integer> ids = new ArrayList<>();
+    List<Postings> lists = new ArrayList<>(keys.size());
+    if (keys.isEmpty()) {
+      // Substrings shorter than a trigram cannot use the index, so check projects in turn.
+      lists.add(allIds);
+    }
+    for (long key : keys) {
+      Postings postings = trigrams.get(key);
+      if (postings == null) {
+        return ids;
+      }
+      lists.add(postings);
+    }
+    lists.sort((a, b) -> Integer.compare(a.size, b.size));
+    Postings smallest = lists.get(0);
+    for (int i = 0; i < smallest.size && ids.size() < limit; i++) {
+      int id = smallest.ids[i];
+      if (containsAll(lists, id) && matches(entries.get(id), text, prefix)) {
+        ids.add(id);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Finds projects containing a word close to every word of the text.
+   */
+  private List<Integer> searchFuzzy(String text, int limit) {
+    List<String> queryWords = new ArrayList<>(splitWords(text, new LinkedHashSet<>()));
+    if (queryWords.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    // For each query word, the projects containing a dictionary word at each edit distance.
+    List<List<Postings>> byDistance = new ArrayList<>();
+    int smallest = -1;
+    int smallestSize = Integer.MAX_VALUE;
+    int maxScore = 0;
+    for (String queryWord : queryWords) {
+      int maxEdits = maxEdits(queryWord);
+      List<Postings> levels = new ArrayList<>();
+      for (int d = 0; d <= maxEdits; d++) {
+        levels.add(new Postings());
+      }
+      Postings exact = words.get(queryWord);
+      if (exact != null) {
+        levels.get(0).addAll(exact);
+      }
+      for (int length = queryWord.length() - maxEdits;
+          maxEdits > 0 && length <= queryWord.length() + maxEdits; length++) {
+        for (String word : wordsByLength.getOrDefault(length, Collections.emptySet())) {
+          int distance = editDistance(queryWord, word, maxEdits);
+          if (distance > 0 && distance <= maxEdits) {
+            levels.get(distance).addAll(words.get(word));
+          }
+        }
+      }
+      int size = 0;
+      for (Postings level : levels) {
+        size += level.size;
+      }
+      if (size == 0) {
+        return Collections.emptyList();
+      }
+      if (size < smallestSize) {
+        smallest = byDistance.size();
+        smallestSize = size;
+      }
+      byDistance.add(levels);
+      maxScore += maxEdits;
+    }
+
+    // Walk the candidates of the rarest word in ID order, bucketing each project by the total
+    // edits its words needed. Each bucket only needs its first (lowest) IDs, and once the exact
+    // matches alone fill the limit there is nothing left to find.
+    Postings candidates = new Postings();
+    for (Postings level : byDistance.get(smallest)) {
+      candidates.addAll(level);
+    }
+    List<List<Cursor>> cursors = new ArrayList<>();
+    for (List<Postings> levels : byDistance) {
+      List<Cursor> levelCursors = new ArrayList<>(levels.size());
+      for (Postings level : levels) {
+        levelCursors.add(new Cursor(level));
+      }
+      cursors.add(levelCursors);
+    }
+    List<List<Integer>> buckets = new ArrayList<>();
+    for (int score = 0; score <= maxScore; score++) {
+      buckets.add(new ArrayList<>());
+    }
+    for (int i = 0; i < candidates.size && buckets.get(0).size() < limit; i++) {
+      int id = candidates.ids[i];
+      int score = 0;
+      for (int w = 0; w < cursors.size() && score >= 0; w++) {
+        int distance = -1;
+        List<Cursor> levelCursors = cursors.get(w);
+        for (int d = 0; d < levelCursors.size(); d++) {
+          // Every cursor is advanced, so the next candidate continues from here.
+          if (levelCursors.get(d).advanceTo(id) && distance < 0) {
+            distance = d;
+          }
+        }
+        score = distance < 0 ? -1 : score + distance;
+      }
+      if (score >= 0 && buckets.get(score).size() < limit) {
+        buckets.get(score).add(id);
+      }
+    }
+    List<Integer> ids = new ArrayList<>(limit);
+    for (List<Integer> bucket : buckets) {
+      for (int i = 0; i < bucket.size() && ids.size() < limit; i++) {
+        ids.add(bucket.get(i));
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Gets the number of typos tolerated in a query word: none for very short words and words
+   * containing digits, one for short words and two for longer ones.
+   */
+  private static int maxEdits(String word) {
+    if (word.length() <= 2 || !isLetters(word)) {
+      return 0;
+    }
+    return word.length() <= 5 ? 1 : 2;
+  }
+
+  /**
+   * Computes the Damerau-Levenshtein (optimal string alignment) distance between two words,
+   * giving up once it is certain to exceed the limit.
+   *
+   * @return The distance, or {@code limit + 1} if it is greater than the limit.
+   */
+  private static int editDistance(String a, String b, int limit) {
+    if (Math.abs(a.length() - b.length()) > limit) {
+      return limit + 1;
+    }
+    int[] previous2 = new int[b.length() + 1];
+    int[] previous = new int[b.length() + 1];
+    int[] current = new int[b.length() + 1];
+    for (int j = 0; j <= b.length(); j++) {
+      previous[j] = j;
+    }
+    for (int i = 1; i <= a.length(); i++) {
+      current[0] = i;
+      int rowMin = current[0];
+      for (int j = 1; j <= b.length(); j++) {
+        int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+        int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+        if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2)
+            && a.charAt(i - 2) == b.charAt(j - 1)) {
+          value = Math.min(value, previous2[j - 2] + 1);
+        }
+        current[j] = value;
+        rowMin = Math.min(rowMin, value);
+      }
+      if (rowMin > limit) {
+        return limit + 1;
+      }
+      int[] recycled = previous2;
+      previous2 = previous;
+      previous = current;
+      current = recycled;
+    }
+    return Math.min(previous[b.length()], limit + 1);
+  }
+
+  /**
+   * Checks a candidate against the text, since sharing trigrams does not guarantee a match.
+   */
+  private static boolean matches(Entry entry, String text, boolean prefix) {
+    for (String field : entry.lowerCaseValues()) {
+      if (!prefix) {
+        if (field.contains(text)) {
+          return true;
+        }
+        continue;
+      }
+      for (int i = field.indexOf(text); i >= 0; i = field.indexOf(text, i + 1)) {
+        if (i == 0 || !Character.isLetterOrDigit(field.charAt(i - 1))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean containsAll(List<Postings> lists, int id) {
+    for (int i = 1; i < lists.size(); i++) {
+      if (!lists.get(i).contains(id)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Adds an entry's trigrams and words to the index. Must hold the write lock. */
+  private void add(Entry entry) {
+    entries.put(entry.id(), entry);
+    allIds.add(entry.id());
+    for (long key : trigramsOf(entry)) {
+      trigrams.computeIfAbsent(key, k -> new Postings()).add(entry.id());
+    }
+    for (String word : wordsOf(entry)) {
+      Postings postings = words.get(word);
+      if (postings == null) {
+        postings = new Postings();
+        words.put(word, postings);
+        if (isLetters(word)) {
+          wordsByLength.computeIfAbsent(word.length(), k -> new HashSet<>()).add(word);
+        }
+      }
+      postings.add(entry.id());
+    }
+  }
+
+  /** Removes a project's trigrams and words from the index. Must hold the write lock. */
+  private void remove(int id) {
+    Entry entry = entries.remove(id);
+    if (entry == null) {
+      return;
+    }
+    allIds.remove(id);
+    for (long key : trigramsOf(entry)) {
+      Postings postings = trigrams.get(key);
+      if (postings != null && postings.remove(id) && postings.size == 0) {
+        trigrams.remove(key);
+      }
+    }
+    for (String word : wordsOf(entry)) {
+      Postings postings = words.get(word);
+      if (postings != null && postings.remove(id) && postings.size == 0) {
+        words.remove(word);
+        Set<String> sameLength = wordsByLength.get(word.length());
+        if (sameLength != null) {
+          sameLength.remove(word);
+        }
+      }
+    }
+  }
+
+  private void clear() {
+    entries.clear();
+    allIds.clear();
+    trigrams.clear();
+    words.clear();
+    wordsByLength.clear();
+  }
+
+  private static Set<Long> trigramsOf(Entry entry) {
+    Set<Long> keys = new HashSet<>();
+    for (String field : entry.lowerCaseValues()) {
+      addTrigrams(PAD + field, keys);
+      for (String word : splitWords(field, new LinkedHashSet<>())) {
+        addTrigrams(PAD + word, keys);
+      }
+    }
+    return keys;
+  }
+
+  private static Set<String> wordsOf(Entry entry) {
+    Set<String> entryWords = new HashSet<>();
+    for (String field : entry.lowerCaseValues()) {
+      splitWords(field, entryWords);
+    }
+    return entryWords;
+  }
+
+  /** Adds every trigram of the text to the set, packed into a long. */
+  private static void addTrigrams(String text, Set<Long> keys) {
+    for (int i = 0; i + 3 <= text.length(); i++) {
+      keys.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16)
+          | text.charAt(i + 2));
+    }
+  }
+
+  /** Adds the runs of letters and digits in the text to the set. */
+  private static <T extends Set<String>> T splitWords(String text, T wordSet) {
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        wordSet.add(text.substring(start, i));
+        start = -1;
+      }
+    }
+    return wordSet;
+  }
+
+  private static boolean isLetters(String word) {
+    for (int i = 0; i < word.length(); i++) {
+      if (!Character.isLetter(word.charAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * The Entry record holds the searchable fields of one project, in {@link #FIELDS} order.
+   */
+  private record Entry(int id, String[] values) {
+    /**
+     * Gets the fields in lower case, as they are indexed. They are not stored, to halve the memory
+     * each entry needs.
+     */
+    private String[] lowerCaseValues() {
+      String[] lower = new String[values.length];
+      for (int i = 0; i < values.length; i++) {
+        lower[i] = values[i] == null ? "" : values[i].toLowerCase(Locale.ROOT);
+      }
+      return lower;
+    }
+  }
+
+  /**
+   * The Postings class is a sorted, growable list of project IDs.
+   */
+  private static final class Postings {
+    private int[] ids = new int[1];
+    private int size;
+
+    private void add(int id) {
+      if (size > 0 && ids[size - 1] < id) {
+        append(id); // IDs mostly arrive in increasing order
+        return;
+      }
+      int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index >= 0) {
+        return;
+      }
+      index = -index - 1;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      System.arraycopy(ids, index, ids, index + 1, size - index);
+      ids[index] = id;
+      size++;
+    }
+
+    private void append(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+
+    private void addAll(Postings other) {
+      if (size == 0) {
+        ids = Arrays.copyOf(other.ids, Math.max(1, other.size));
+        size = other.size;
+        return;
+      }
+      int[] merged = new int[size + other.size];
+      int i = 0;
+      int j = 0;
+      int n = 0;
+      while (i < size || j < other.size) {
+        int next;
+        if (j >= other.size || (i < size && ids[i] <= other.ids[j])) {
+          next = ids[i++];
+          if (j < other.size && other.ids[j] == next) {
+            j++;
+          }
+        } else {
+          next = other.ids[j++];
+        }
+        merged[n++] = next;
+      }
+      ids = merged;
+      size = n;
+    }
+
+    private boolean remove(int id) {
+      int index = Arrays.binarySearch(ids, 0, size, id);
+      if (index < 0) {
+        return false;
+      }
+      System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+      size--;
+      return true;
+    }
+
+    private void clear() {
+      ids = new int[1];
+      size = 0;
+    }
+
+    private boolean contains(int id) {
+      return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+  }
+
+  /**
+   * The Cursor class walks a postings list in increasing ID order, skipping ahead by galloping so
+   * that stepping through a short list against a long one stays cheap.
+   */
+  private static final class Cursor {
+    private final Postings postings;
+    private int position;
+
+    private Cursor(Postings postings) {
+      this.postings = postings;
+    }
+
+    /**
+     * Moves to the first ID not less than the given one.
+     *
+     * @param id The ID to look for. Must not be less than the ID of the previous call.
+     * @return True if the list contains the ID.
+     */
+    private boolean advanceTo(int id) {
+      int[] ids = postings.ids;
+      int size = postings.size;
+      int low = position;
+      int high = position;
+      int step = 1;
+      while (high < size && ids[high] < id) {
+        low = high + 1;
+        high += step;
+        step <<= 1;
+      }
+      int index = Arrays.binarySearch(ids, low, Math.min(high + 1, size), id);
+      position = index >= 0 ? index : -index - 1;
+      return index >= 0;
+    }
+  }
+}
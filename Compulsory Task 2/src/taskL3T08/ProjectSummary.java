@@ -0,0 +1,17 @@
+package taskL3T08;
+
+/**
+ * The ProjectSummary record holds the columns shown when projects are listed: the project's ID,
+ * number and name.
+ *
+ * @param projectId The ID of the project.
+ * @param projectNumber The project number.
+ * @param projectName The name of the project.
+ */
+public record ProjectSummary(int projectId, String projectNumber, String projectName) {
+  @Override
+  public String toString() {
+    return "Project ID: " + projectId + ", Project Number: " + projectNumber + ", Project Name: "
+        + projectName;
+  }
+}
@@ -0,0 +1,395 @@
+package taskL3T08;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ResultRenderer class writes rows of query results as an aligned table, tab-separated values
+ * or JSON lines. Each row is assembled in a reused {@link StringBuilder} and written to a buffered
+ * writer in one call, so printing a large table costs a few large writes rather than one console
+ * write per cell.
+ *
+ * <p>
+ * Rows are streamed: only the first {@value #SAMPLE_ROWS} rows of a table are held in memory, to
+ * work out the column widths of the aligned table. Values in later rows that are wider than their
+ * column are written in full and push the rest of the row to the right.
+ *
+ * <p>
+ * Rows can be rendered straight from a {@link ResultSet} with {@link #render(String, ResultSet)},
+ * or supplied one at a time with {@link #begin}, {@link #row} and {@link #end}.
+ */
+public class ResultRenderer {
+  /** Size of the buffer between the renderer and the console or file. */
+  public static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  /** Number of rows used to work out the column widths of an aligned table. */
+  private static final int SAMPLE_ROWS = 1_000;
+
+  /** Widest an aligned column is padded to, so one long value does not widen every row. */
+  private static final int MAX_COLUMN_WIDTH = 40;
+
+  private final PrintWriter out;
+  private final OutputFormat format;
+  private final StringBuilder line = new StringBuilder(256);
+
+  private String title;
+  private String[] columns;
+  private Kind[] kinds;
+  private int[] widths;
+  private List<String[]> sample;
+  private long rowCount;
+
+  /** How a column's values are written in JSON. */
+  private enum Kind {
+    TEXT, NUMBER, BOOLEAN
+  }
+
+  /**
+   * Constructor for ResultRenderer.
+   *
+   * @param out The writer to write to. It is not flushed or closed.
+   * @param format The format to write rows in.
+   */
+  public ResultRenderer(PrintWriter out, OutputFormat format) {
+    this.out = out;
+    this.format = format;
+  }
+
+  /**
+   * Creates a buffered writer to the console. It must be flushed once the output is complete.
+   *
+   * @return The writer.
+   */
+  public static PrintWriter consoleWriter() {
+    return new PrintWriter(
+        new BufferedWriter(new OutputStreamWriter(System.out), OUTPUT_BUFFER_SIZE));
+  }
+
+  /**
+   * Creates a buffered UTF-8 writer to a file, replacing the file if it exists. It must be closed
+   * once the output is complete.
+   *
+   * @param file The file to write.
+   * @return The writer.
+   * @throws IOException If the file cannot be created.
+   */
+  public static PrintWriter fileWriter(Path file) throws IOException {
+    return new PrintWriter(new BufferedWriter(
+        Files.newBufferedWriter(file, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE));
+  }
+
+  /**
+   * Writes every remaining row of a result set.
+   *
+   * @param title The heading written above an aligned table (e.g. the table name), or null.
+   * @param resultSet The rows to write.
+   * @return The number of rows written.
+   * @throws SQLException If a database access error occurs.
+   */
+  public long render(String title, ResultSet resultSet) throws SQLException {
+    ResultSetMetaData metaData = resultSet.getMetaData();
+    int columnCount = metaData.getColumnCount();
+    String[] names = new String[columnCount];
+    int[] sqlTypes = new int[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      names[i] = metaData.getColumnLabel(i + 1);
+      sqlTypes[i] = metaData.getColumnType(i + 1);
+    }
+    begin(title, names, sqlTypes);
+    String[] cells = new String[columnCount];
+    while (resultSet.next()) {
+      for (int i = 0; i < columnCount; i++) {
+        cells[i] = resultSet.getString(i + 1);
+      }
+      row(cells);
+    }
+    return end();
+  }
+
+  /**
+   * Starts a table of rows.
+   *
+   * @param title The heading written above an aligned table, or null.
+   * @param columnNames The column names.
+   * @param sqlTypes The {@link Types} of the columns, used to write JSON numbers and booleans.
+   */
+  public void begin(String title, String[] columnNames, int[] sqlTypes) {
+    this.title = title;
+    this.columns = columnNames.clone();
+    this.kinds = new Kind[columnNames.length];
+    for (int i = 0; i < kinds.length; i++) {
+      kinds[i] = kindOf(sqlTypes[i]);
+    }
+    this.rowCount = 0;
+    this.widths = null;
+    this.sample = null;
+    switch (format) {
+      case TABLE:
+        sample = new ArrayList<>();
+        break;
+      case TSV:
+        line.setLength(0);
+        for (int i = 0; i < columns.length; i++) {
+          if (i > 0) {
+            line.append('\t');
+          }
+          appendTsv(columns[i]);
+        }
+        writeLine();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Writes one row. The array may be reused for the next row.
+   *
+   * @param cells The row's values as text, null for SQL NULL.
+   */
+  public void row(String[] cells) {
+    rowCount++;
+    switch (format) {
+      case TABLE:
+        if (sample != null) {
+          sample.add(cells.clone());
+          if (sample.size() == SAMPLE_ROWS) {
+            flushSample();
+          }
+        } else {
+          writeTableRow(cells);
+        }
+        break;
+      case TSV:
+        line.setLength(0);
+        for (int i = 0; i < cells.length; i++) {
+          if (i > 0) {
+            line.append('\t');
+          }
+          if (cells[i] == null) {
+            line.append("\\N");
+          } else {
+            appendTsv(cells[i]);
+          }
+        }
+        writeLine();
+        break;
+      default:
+        writeJsonRow(cells);
+    }
+  }
+
+  /**
+   * Finishes the table started by {@link #begin}.
+   *
+   * @return The number of rows written.
+   */
+  public long end() {
+    if (format == OutputFormat.TABLE) {
+      if (sample != null) {
+        flushSample();
+      }
+      out.println("(" + rowCount + (rowCount == 1 ? " row)" : " rows)"));
+    }
+    return rowCount;
+  }
+
+  /**
+   * Works out the column widths from the sampled rows, then writes the heading and the sample.
+   */
+  private void flushSample() {
+    widths = new int[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      widths[i] = Math.min(columns[i].length(), MAX_COLUMN_WIDTH);
+    }
+    for (String[] cells : sample) {
+      for (int i = 0; i < cells.length; i++) {
+        int width = cells[i] == null ? 4 : cells[i].length();
+        widths[i] = Math.max(widths[i], Math.min(width, MAX_COLUMN_WIDTH));
+      }
+    }
+
+    out.println();
+    if (title != null) {
+      out.println(title + ":");
+    }
+    writeTableRow(columns);
+    line.setLength(0);
+    for (int i = 0; i < widths.length; i++) {
+      if (i > 0) {
+        line.append("-+-");
+      }
+      line.repeat('-', widths[i]);
+    }
+    writeLine();
+    for (String[] cells : sample) {
+      writeTableRow(cells);
+    }
+    sample = null;
+  }
+
+  private void writeTableRow(String[] cells) {
+    line.setLength(0);
+    for (int i = 0; i < cells.length; i++) {
+      if (i > 0) {
+        line.append(" | ");
+      }
+      String cell = cells[i] == null ? "NULL" : cells[i];
+      line.append(cell);
+      if (i < cells.length - 1 && cell.length() < widths[i]) {
+        line.repeat(' ', widths[i] - cell.length());
+      }
+    }
+    writeLine();
+  }
+
+  private void writeJsonRow(String[] cells) {
+    line.setLength(0);
+    line.append('{');
+    if (title != null) {
+      line.append("\"table\":");
+      appendJsonString(title);
+      line.append(',');
+    }
+    for (int i = 0; i < cells.length; i++) {
+      if (i > 0) {
+        line.append(',');
+      }
+      appendJsonString(columns[i]);
+      line.append(':');
+      String cell = cells[i];
+      if (cell == null) {
+        line.append("null");
+      } else if (kinds[i] == Kind.BOOLEAN) {
+        line.append(cell.equals("1") || cell.equalsIgnoreCase("true"));
+      } else if (kinds[i] == Kind.NUMBER && isJsonNumber(cell)) {
+        line.append(cell);
+      } else {
+        appendJsonString(cell);
+      }
+    }
+    line.append('}');
+    writeLine();
+  }
+
+  private void writeLine() {
+    line.append(System.lineSeparator());
+    out.append(line);
+  }
+
+  private void appendTsv(String value) {
+    int start = firstEscaped(value, false);
+    line.append(value, 0, start);
+    for (int i = start; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '\t':
+          line.append("\\t");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        default:
+          line.append(c);
+      }
+    }
+  }
+
+  private void appendJsonString(String value) {
+    line.append('"');
+    int start = firstEscaped(value, true);
+    line.append(value, 0, start);
+    for (int i = start; i < value.length(); i++) {
+      char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          line.append("\\\"");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            line.append(String.format("\\u%04x", (int) c));
+          } else {
+            line.append(c);
+          }
+      }
+    }
+    line.append('"');
+  }
+
+  /**
+   * Finds the first character that needs escaping, so the common case of a plain value is
+   * appended in one call.
+   */
+  private static int firstEscaped(String value, boolean json) {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x20 || c == '\\' || (json && c == '"')) {
+        return i;
+      }
+    }
+    return value.length();
+  }
+
+  /** Checks that a numeric column's text is a finite JSON number, not e.g. "NaN". */
+  private static boolean isJsonNumber(String value) {
+    if (value.isEmpty()) {
+      return false;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (!(c >= '0' && c <= '9') && c != '-' && c != '.' && c != 'E' && c != 'e' && c != '+') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Kind kindOf(int sqlType) {
+    switch (sqlType) {
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return Kind.BOOLEAN;
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+      case Types.NUMERIC:
+      case Types.DECIMAL:
+        return Kind.NUMBER;
+      default:
+        return Kind.TEXT;
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package taskL3T08;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The RowMapper interface converts the current row of a result set into a typed object.
+ *
+ * @param <T> The type each row is mapped to.
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+  /**
+   * Maps the current row of a result set. The result set's cursor is not moved.
+   *
+   * @param resultSet The result set positioned on the row to map.
+   * @return The mapped object.
+   * @throws SQLException If a database access error occurs.
+   */
+  T map(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,60 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The RowVersions class reads the version column that every PoisePMS table has for optimistic
+ * locking. Every update increments a row's version, so a caller that read version {@code n} can
+ * update the row with {@code WHERE version = n} and learn whether anyone else changed it in
+ * between, without holding a lock while the user edits.
+ */
+public final class RowVersions {
+  /** Name of the version column. */
+  public static final String COLUMN = "version";
+
+  private RowVersions() {
+  }
+
+  /**
+   * Reads the current version of a row.
+   *
+   * @param connection The database connection.
+   * @param table The table the row is in.
+   * @param id The row's primary key.
+   * @return The version, or -1 if there is no row with that ID.
+   * @throws SQLException If a database access error occurs.
+   */
+  public static int find(Connection connection, Table table, int id) throws SQLException {
+    String sql = "SELECT " + COLUMN + " FROM " + table.getTableName() + " WHERE "
+        + table.getIdColumn() + " = ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, id);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        return resultSet.next() ? resultSet.getInt(1) : -1;
+      }
+    }
+  }
+
+  /**
+   * Works out the outcome of an optimistic update from the number of rows it changed.
+   *
+   * @param connection The database connection.
+   * @param table The table the row is in.
+   * @param id The row's primary key.
+   * @param rowsUpdated The number of rows the update changed.
+   * @return {@link UpdateResult#UPDATED} if a row was changed; otherwise
+   *         {@link UpdateResult#CONFLICT} if the row exists with another version, or
+   *         {@link UpdateResult#NOT_FOUND}.
+   * @throws SQLException If a database access error occurs.
+   */
+  static UpdateResult resultOf(Connection connection, Table table, int id, int rowsUpdated)
+      throws SQLException {
+    if (rowsUpdated > 0) {
+      return UpdateResult.UPDATED;
+    }
+    return find(connection, table, id) < 0 ? UpdateResult.NOT_FOUND : UpdateResult.CONFLICT;
+  }
+}
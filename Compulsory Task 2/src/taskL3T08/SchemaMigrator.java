@@ -0,0 +1,355 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The SchemaMigrator class brings the database schema up to date by applying the application's
+ * {@link Migration}s that have not been applied yet. Applied versions are recorded in the
+ * {@code schema_version} table, so each migration runs once per database.
+ *
+ * <p>
+ * The migrations create the tables, the indexes used by the project lookups and listings, the
+ * foreign keys from projects to the people assigned to them, and the {@link RowVersions} column
+ * used for optimistic locking. A MySQL named lock is held while
+ * migrating, so several instances starting at once apply each migration only once.
+ */
+public class SchemaMigrator {
+  /** Name of the MySQL lock held while migrating. */
+  private static final String LOCK_NAME = "poisepms.schema_migration";
+
+  /** Seconds to wait for another instance to finish migrating. */
+  private static final int LOCK_TIMEOUT_SECONDS = 60;
+
+  /** Duplicate values listed when a unique index cannot be added. */
+  private static final int MAX_REPORTED_DUPLICATES = 20;
+
+  /** The application's migrations, in version order. */
+  private static final List<Migration> MIGRATIONS = List.of(
+      new Migration(1, "Create tables", List.of(
+          sql("CREATE TABLE IF NOT EXISTS Projects ("
+              + "project_id INT AUTO_INCREMENT PRIMARY KEY, "
+              + "project_number VARCHAR(255) NOT NULL, "
+              + "project_name VARCHAR(255) NOT NULL, "
+              + "building_type VARCHAR(255), "
+              + "physical_address VARCHAR(255), "
+              + "erf_number VARCHAR(255), "
+              + "total_fee DOUBLE, "
+              + "total_paid DOUBLE, "
+              + "deadline DATE, "
+              + "is_finalised BOOLEAN DEFAULT FALSE, "
+              + "completion_date DATE, "
+              + "architect_id INT, "
+              + "contractor_id INT, "
+              + "customer_id INT, "
+              + "structural_engineer_id INT, "
+              + "project_manager_id INT)"),
+          peopleTable(Table.ARCHITECTS),
+          peopleTable(Table.CONTRACTORS),
+          peopleTable(Table.CUSTOMERS),
+          peopleTable(Table.STRUCTURAL_ENGINEERS))),
+      new Migration(2, "Add indexes for project lookups and listings", List.of(
+          // Duplicate project numbers are rejected, and lookups by number use the index.
+          uniqueIndex("Projects", "ux_projects_project_number", "project_number"),
+          index("Projects", "ix_projects_project_name", false, "project_name"),
+          // The incomplete and overdue listings page through unfinalised projects in ID order;
+          // InnoDB appends the primary key to secondary indexes, so this index serves that order.
+          index("Projects", "ix_projects_finalised", false, "is_finalised"),
+          // Counting and finding overdue projects seeks straight to the past deadlines.
+          index("Projects", "ix_projects_finalised_deadline", false, "is_finalised",
+              "deadline"))),
+      new Migration(3, "Add foreign keys from projects to people", List.of(
+          foreignKey("fk_projects_architect", "architect_id", Table.ARCHITECTS),
+          foreignKey("fk_projects_contractor", "contractor_id", Table.CONTRACTORS),
+          foreignKey("fk_projects_customer", "customer_id", Table.CUSTOMERS),
+          foreignKey("fk_projects_structural_engineer", "structural_engineer_id",
+              Table.STRUCTURAL_ENGINEERS))),
+      new Migration(4, "Add row versions for optimistic locking", List.of(
+          versionColumn(Table.PROJECTS),
+          versionColumn(Table.ARCHITECTS),
+          versionColumn(Table.STRUCTURAL_ENGINEERS),
+          versionColumn(Table.CONTRACTORS),
+          versionColumn(Table.CUSTOMERS))));
+
+  private final Connection connection;
+
+  /**
+   * Constructor for SchemaMigrator.
+   *
+   * @param connection The database connection.
+   */
+  public SchemaMigrator(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Gets the application's migrations.
+   *
+   * @return The migrations, in version order.
+   */
+  public static List<Migration> getMigrations() {
+    return MIGRATIONS;
+  }
+
+  /**
+   * Applies every migration that has not been applied to the database yet.
+   *
+   * @return The number of migrations applied.
+   * @throws SQLException If a migration fails or a database access error occurs.
+   */
+  public int migrate() throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(true);
+    try {
+      acquireLock();
+      try {
+        createVersionTable();
+        Set<Integer> applied = readAppliedVersions();
+        int count = 0;
+        for (Migration migration : MIGRATIONS) {
+          if (!applied.contains(migration.version())) {
+            apply(migration);
+            count++;
+          }
+        }
+        return count;
+      } finally {
+        releaseLock();
+      }
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+
+  /**
+   * Gets the highest schema version applied to the database.
+   *
+   * @return The current version, or 0 if no migration has been applied.
+   * @throws SQLException If a database access error occurs.
+   */
+  public int getCurrentVersion() throws SQLException {
+    createVersionTable();
+    int version = 0;
+    for (int applied : readAppliedVersions()) {
+      version = Math.max(version, applied);
+    }
+    return version;
+  }
+
+  /**
+   * Runs the steps of one migration and records its version.
+   */
+  private void apply(Migration migration) throws SQLException {
+    long start = System.nanoTime();
+    try {
+      for (Migration.Step step : migration.steps()) {
+        step.apply(connection);
+      }
+    } catch (SQLException e) {
+      throw new SQLException("Migration " + migration.version() + " (" + migration.description()
+          + ") failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+    }
+    String sql =
+        "INSERT INTO schema_version (version, description, execution_millis) VALUES (?, ?, ?)";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setInt(1, migration.version());
+      preparedStatement.setString(2, migration.description());
+      preparedStatement.setLong(3, (System.nanoTime() - start) / 1_000_000);
+      preparedStatement.executeUpdate();
+    }
+    System.out.println("Applied schema migration " + migration.version() + ": "
+        + migration.description());
+  }
+
+  private void createVersionTable() throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version ("
+          + "version INT PRIMARY KEY, "
+          + "description VARCHAR(255) NOT NULL, "
+          + "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP, "
+          + "execution_millis BIGINT NOT NULL)");
+    }
+  }
+
+  private Set<Integer> readAppliedVersions() throws SQLException {
+    Set<Integer> versions = new HashSet<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT version FROM schema_version")) {
+      while (resultSet.next()) {
+        versions.add(resultSet.getInt(1));
+      }
+    }
+    return versions;
+  }
+
+  private void acquireLock() throws SQLException {
+    String sql = "SELECT GET_LOCK(?, ?)";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setString(1, LOCK_NAME);
+      preparedStatement.setInt(2, LOCK_TIMEOUT_SECONDS);
+      try (ResultSet resultSet = preparedStatement.executeQuery()) {
+        if (!resultSet.next() || resultSet.getInt(1) != 1) {
+          throw new SQLException("Timed out waiting for another instance to migrate the schema.");
+        }
+      }
+    }
+  }
+
+  private void releaseLock() throws SQLException {
+    String sql = "SELECT RELEASE_LOCK(?)";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      preparedStatement.setString(1, LOCK_NAME);
+      preparedStatement.executeQuery().close();
+    }
+  }
+
+  /**
+   * Creates a step that runs one SQL statement. The statement must be safe to run again, e.g.
+   * {@code CREATE TABLE IF NOT EXISTS}.
+   */
+  private static Migration.Step sql(String sql) {
+    return connection -> {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate(sql);
+      }
+    };
+  }
+
+  /**
+   * Creates a step that creates one of the people tables.
+   */
+  private static Migration.Step peopleTable(Table table) {
+    return sql("CREATE TABLE IF NOT EXISTS " + table.getTableName() + " ("
+        + table.getIdColumn() + " INT AUTO_INCREMENT PRIMARY KEY, "
+        + "name VARCHAR(255) NOT NULL, "
+        + "telephone_number VARCHAR(255), "
+        + "email_address VARCHAR(255), "
+        + "physical_address VARCHAR(255))");
+  }
+
+  /**
+   * Creates a step that adds an index unless the table already has one with that name.
+   */
+  private static Migration.Step index(String tableName, String indexName, boolean unique,
+      String... columns) {
+    return connection -> {
+      if (hasIndex(connection, tableName, indexName)) {
+        return;
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + indexName
+            + " ON " + tableName + " (" + String.join(", ", columns) + ")");
+      }
+    };
+  }
+
+  /**
+   * Creates a step that adds a unique index on one column unless the table already has an index
+   * with that name. Earlier versions did not enforce uniqueness, so the step first looks for
+   * duplicate values and fails with a list of them, since creating the index would fail anyway
+   * and choosing which row to keep is up to the user.
+   */
+  private static Migration.Step uniqueIndex(String tableName, String indexName, String column) {
+    Migration.Step index = index(tableName, indexName, true, column);
+    return connection -> {
+      if (hasIndex(connection, tableName, indexName)) {
+        return;
+      }
+      List<String> duplicates = new ArrayList<>();
+      try (Statement statement = connection.createStatement();
+          ResultSet resultSet = statement.executeQuery("SELECT " + column + ", COUNT(*) FROM "
+              + tableName + " GROUP BY " + column + " HAVING COUNT(*) > 1 ORDER BY " + column
+              + " LIMIT " + (MAX_REPORTED_DUPLICATES + 1))) {
+        while (resultSet.next()) {
+          duplicates.add("'" + resultSet.getString(1) + "' (" + resultSet.getInt(2) + " rows)");
+        }
+      }
+      if (!duplicates.isEmpty()) {
+        String listed = duplicates.size() > MAX_REPORTED_DUPLICATES
+            ? String.join(", ", duplicates.subList(0, MAX_REPORTED_DUPLICATES)) + ", ..."
+            : String.join(", ", duplicates);
+        throw new SQLException("Cannot add unique index " + indexName + " because " + tableName
+            + "." + column + " has duplicate values: " + listed
+            + ". Rename or merge these rows, then restart.");
+      }
+      index.apply(connection);
+    };
+  }
+
+  /**
+   * Creates a step that adds a foreign key from a Projects column to a people table, unless it
+   * already exists. References to people that no longer exist are cleared first, since the
+   * application previously allowed people to be deleted while projects referred to them. Deleting
+   * a person still clears the reference rather than failing.
+   */
+  private static Migration.Step foreignKey(String constraintName, String column, Table people) {
+    return connection -> {
+      if (hasForeignKey(connection, "Projects", constraintName)) {
+        return;
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("UPDATE Projects SET " + column + " = NULL WHERE " + column
+            + " IS NOT NULL AND " + column + " NOT IN (SELECT " + people.getIdColumn() + " FROM "
+            + people.getTableName() + ")");
+        statement.executeUpdate("ALTER TABLE Projects ADD CONSTRAINT " + constraintName
+            + " FOREIGN KEY (" + column + ") REFERENCES " + people.getTableName() + " ("
+            + people.getIdColumn() + ") ON DELETE SET NULL");
+      }
+    };
+  }
+
+  /**
+   * Creates a step that adds the row version column to a table unless it already has one.
+   */
+  private static Migration.Step versionColumn(Table table) {
+    return connection -> {
+      DatabaseMetaData metaData = connection.getMetaData();
+      try (ResultSet resultSet = metaData.getColumns(connection.getCatalog(), null,
+          table.getTableName(), RowVersions.COLUMN)) {
+        if (containsName(resultSet, "COLUMN_NAME", RowVersions.COLUMN)) {
+          return;
+        }
+      }
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("ALTER TABLE " + table.getTableName() + " ADD COLUMN "
+            + RowVersions.COLUMN + " INT NOT NULL DEFAULT 0");
+      }
+    };
+  }
+
+  private static boolean hasIndex(Connection connection, String tableName, String indexName)
+      throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet resultSet =
+        metaData.getIndexInfo(connection.getCatalog(), null, tableName, false, true)) {
+      return containsName(resultSet, "INDEX_NAME", indexName);
+    }
+  }
+
+  private static boolean hasForeignKey(Connection connection, String tableName,
+      String constraintName) throws SQLException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    try (ResultSet resultSet =
+        metaData.getImportedKeys(connection.getCatalog(), null, tableName)) {
+      return containsName(resultSet, "FK_NAME", constraintName);
+    }
+  }
+
+  private static boolean containsName(ResultSet resultSet, String column, String name)
+      throws SQLException {
+    while (resultSet.next()) {
+      if (name.equalsIgnoreCase(resultSet.getString(column))) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
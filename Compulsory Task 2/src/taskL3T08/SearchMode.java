@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The SearchMode enum lists the ways a project search query can be matched against the project
+ * number, name, physical address and ERF number. Matching ignores case.
+ */
+public enum SearchMode {
+  /** The query matches the start of a field or of any word in it. */
+  PREFIX,
+  /** The query matches anywhere in a field. */
+  SUBSTRING,
+  /** Every word of the query matches a word in the project, allowing for small typos. */
+  FUZZY
+}
@@ -0,0 +1,193 @@
+package taskL3T08;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The StatementCache class keeps the prepared statements of one physical connection open between
+ * uses, keyed by their SQL text. Statements handed out by the cache are returned to it when
+ * closed, so the fixed SQL in the CRUD methods is only prepared once per connection. The least
+ * recently used statement is closed when the cache grows beyond its maximum size. Statements
+ * prepared to return generated keys are cached separately from plain ones.
+ */
+public class StatementCache {
+  private final Connection connection;
+  private final int maxSize;
+  private final AtomicLong hits;
+  private final AtomicLong misses;
+  private final LinkedHashMap<String, CachedStatement> statements;
+
+  /**
+   * Constructor for StatementCache.
+   *
+   * @param connection The physical connection statements are prepared on.
+   * @param maxSize The maximum number of statements kept open.
+   * @param hits The counter incremented when a cached statement is reused.
+   * @param misses The counter incremented when a statement has to be prepared.
+   */
+  StatementCache(Connection connection, int maxSize, AtomicLong hits, AtomicLong misses) {
+    this.connection = connection;
+    this.maxSize = maxSize;
+    this.hits = hits;
+    this.misses = misses;
+    this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+        if (size() <= StatementCache.this.maxSize) {
+          return false;
+        }
+        eldest.getValue().evict();
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Gets a prepared statement for the given SQL, reusing a cached one if it is not already in use.
+   *
+   * @param handle The connection handle reported by {@link PreparedStatement#getConnection()}.
+   * @param sql The SQL text to prepare.
+   * @param autoGeneratedKeys {@link Statement#RETURN_GENERATED_KEYS} or
+   *        {@link Statement#NO_GENERATED_KEYS}.
+   * @return A prepared statement whose {@code close()} returns it to the cache.
+   * @throws SQLException If a database access error occurs.
+   */
+  PreparedStatement prepare(Connection handle, String sql, int autoGeneratedKeys)
+      throws SQLException {
+    String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? sql + "\0keys" : sql;
+    CachedStatement cached = statements.get(key);
+    if (cached != null && !cached.inUse) {
+      hits.incrementAndGet();
+    } else {
+      misses.incrementAndGet();
+      if (cached != null) {
+        // The cached statement is still open elsewhere, e.g. a nested query using the same SQL.
+        return connection.prepareStatement(sql, autoGeneratedKeys);
+      }
+      cached = new CachedStatement(connection.prepareStatement(sql, autoGeneratedKeys));
+      statements.put(key, cached);
+    }
+    cached.inUse = true;
+    return cached.newHandle(handle);
+  }
+
+  /**
+   * Closes every cached statement. Called when the physical connection is closed.
+   */
+  void close() {
+    for (CachedStatement cached : statements.values()) {
+      cached.evict();
+    }
+    statements.clear();
+  }
+
+  /**
+   * The CachedStatement class holds one open statement and whether a caller is using it.
+   */
+  private static final class CachedStatement {
+    private final PreparedStatement physical;
+    private boolean inUse;
+    private boolean evicted;
+
+    private CachedStatement(PreparedStatement physical) {
+      this.physical = physical;
+    }
+
+    /**
+     * Creates a handle whose {@code close()} returns this statement to the cache.
+     *
+     * @param connectionHandle The connection the borrower sees.
+     * @return The statement handle.
+     */
+    private PreparedStatement newHandle(Connection connectionHandle) {
+      return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] {PreparedStatement.class}, new Handle(this, connectionHandle));
+    }
+
+    /** Marks the statement as evicted, closing it now unless a caller still holds it. */
+    private void evict() {
+      evicted = true;
+      if (!inUse) {
+        closeQuietly();
+      }
+    }
+
+    /** Returns the statement to the cache once the caller has closed its handle. */
+    private void release() {
+      inUse = false;
+      if (evicted) {
+        closeQuietly();
+        return;
+      }
+      try {
+        physical.clearParameters();
+        physical.clearBatch();
+      } catch (SQLException e) {
+        evicted = true;
+        closeQuietly();
+      }
+    }
+
+    private void closeQuietly() {
+      try {
+        physical.close();
+      } catch (SQLException e) {
+        // The statement is being discarded, so there is nothing more to do with it.
+      }
+    }
+  }
+
+  /**
+   * The Handle class forwards calls to a cached statement until the borrower closes it.
+   */
+  private static final class Handle implements InvocationHandler {
+    private final CachedStatement cached;
+    private final Connection connectionHandle;
+    private boolean released;
+
+    private Handle(CachedStatement cached, Connection connectionHandle) {
+      this.cached = cached;
+      this.connectionHandle = connectionHandle;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          if (!released) {
+            released = true;
+            cached.release();
+          }
+          return null;
+        case "isClosed":
+          return released || cached.physical.isClosed();
+        case "getConnection":
+          return connectionHandle;
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CachedStatement[" + cached.physical + "]";
+        default:
+          if (released) {
+            throw new SQLException("Statement has already been closed.");
+          }
+          try {
+            return method.invoke(cached.physical, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+      }
+    }
+  }
+}
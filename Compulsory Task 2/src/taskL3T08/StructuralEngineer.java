@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The StructuralEngineer record holds one row of the StructuralEngineers table.
+ *
+ * @param id The ID of the structural engineer.
+ * @param name The name of the structural engineer.
+ * @param telephoneNumber The telephone number of the structural engineer.
+ * @param emailAddress The email address of the structural engineer.
+ * @param physicalAddress The physical address of the structural engineer.
+ */
+public record StructuralEngineer(int id, String name, String telephoneNumber, String emailAddress,
+    String physicalAddress) implements Person {
+}
@@ -0,0 +1,118 @@
+package taskL3T08;
+
+import java.util.List;
+
+/**
+ * The Table enum lists the tables of the PoisePMS database together with their primary key and
+ * data columns. Table names taken from user input are checked against it before they are placed
+ * into SQL.
+ */
+public enum Table {
+  PROJECTS("Projects", "Project", "project_id", List.of(
+      new Column("project_number", ColumnType.STRING),
+      new Column("project_name", ColumnType.STRING),
+      new Column("building_type", ColumnType.STRING),
+      new Column("physical_address", ColumnType.STRING),
+      new Column("erf_number", ColumnType.STRING),
+      new Column("total_fee", ColumnType.DOUBLE),
+      new Column("total_paid", ColumnType.DOUBLE),
+      new Column("deadline", ColumnType.DATE),
+      new Column("is_finalised", ColumnType.BOOLEAN),
+      new Column("completion_date", ColumnType.DATE),
+      new Column("architect_id", ColumnType.INT),
+      new Column("contractor_id", ColumnType.INT),
+      new Column("customer_id", ColumnType.INT),
+      new Column("structural_engineer_id", ColumnType.INT),
+      new Column("project_manager_id", ColumnType.INT))),
+  ARCHITECTS("Architects", "Architect", "architect_id", personColumns()),
+  STRUCTURAL_ENGINEERS("StructuralEngineers", "Structural Engineer", "structural_engineer_id",
+      personColumns()),
+  CONTRACTORS("Contractors", "Contractor", "contractor_id", personColumns()),
+  CUSTOMERS("Customers", "Customer", "customer_id", personColumns());
+
+  private final String tableName;
+  private final String displayName;
+  private final String idColumn;
+  private final List<Column> columns;
+
+  Table(String tableName, String displayName, String idColumn, List<Column> columns) {
+    this.tableName = tableName;
+    this.displayName = displayName;
+    this.idColumn = idColumn;
+    this.columns = columns;
+  }
+
+  /**
+   * Gets the data columns shared by the four people tables.
+   *
+   * @return The people columns.
+   */
+  private static List<Column> personColumns() {
+    return List.of(
+        new Column("name", ColumnType.STRING),
+        new Column("telephone_number", ColumnType.STRING),
+        new Column("email_address", ColumnType.STRING),
+        new Column("physical_address", ColumnType.STRING));
+  }
+
+  /**
+   * Gets the table's name in the database.
+   *
+   * @return The table name.
+   */
+  public String getTableName() {
+    return tableName;
+  }
+
+  /**
+   * Gets the name of one row of the table as shown to users, e.g. {@code "Structural Engineer"}.
+   *
+   * @return The display name.
+   */
+  public String getDisplayName() {
+    return displayName;
+  }
+
+  /**
+   * Checks whether this is one of the four people tables.
+   *
+   * @return True for the people tables, false for Projects.
+   */
+  public boolean isPeopleTable() {
+    return this != PROJECTS;
+  }
+
+  /**
+   * Gets the name of the table's primary key column.
+   *
+   * @return The primary key column name.
+   */
+  public String getIdColumn() {
+    return idColumn;
+  }
+
+  /**
+   * Gets the table's data columns, in schema order, excluding the primary key.
+   *
+   * @return The data columns.
+   */
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Finds the table with the given database name.
+   *
+   * @param tableName The table name, e.g. {@code "Projects"}.
+   * @return The matching table.
+   * @throws IllegalArgumentException If no table has that name.
+   */
+  public static Table fromName(String tableName) {
+    for (Table table : values()) {
+      if (table.tableName.equals(tableName)) {
+        return table;
+      }
+    }
+    throw new IllegalArgumentException("Unsupported table: " + tableName);
+  }
+}
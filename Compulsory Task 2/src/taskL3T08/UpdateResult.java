@@ -0,0 +1,14 @@
+package taskL3T08;
+
+/**
+ * The UpdateResult enum reports the outcome of an optimistic update, which only writes a row if it
+ * still has the version the caller read.
+ */
+public enum UpdateResult {
+  /** The row was updated and its version incremented. */
+  UPDATED,
+  /** The row was changed by someone else since its version was read, so nothing was written. */
+  CONFLICT,
+  /** There is no row with that ID. */
+  NOT_FOUND
+}
@@ -0,0 +1,162 @@
+package taskL3T08;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * The ConnectionPoolTest class checks the {@link ConnectionPool} against a {@link FakeDatabase}:
+ * borrow timeouts, closing a borrowed connection twice, replacing a connection that fails
+ * validation, evicting idle connections and closing the pool. Run it with {@code main}; it exits
+ * with an error at the first failed check.
+ */
+public class ConnectionPoolTest {
+  /** How long an idle connection is trusted without validation; see ConnectionPool. */
+  private static final long VALIDATION_INTERVAL_MILLIS = 5_000;
+
+  /** The shortest period of the pool's evictor. */
+  private static final long EVICTION_PERIOD_MILLIS = 1_000;
+
+  public static void main(String[] args) throws Exception {
+    FakeDatabase database = FakeDatabase.register();
+    try {
+      borrowTimesOutWhenPoolIsExhausted(database);
+      closingTwiceReturnsConnectionOnce(database);
+      invalidIdleConnectionIsReplaced(database);
+      idleConnectionsAreEvictedDownToMinimum(database);
+      closingPoolClosesConnections(database);
+    } finally {
+      database.deregister();
+    }
+    System.out.println("ConnectionPoolTest: all checks passed.");
+  }
+
+  private static void borrowTimesOutWhenPoolIsExhausted(FakeDatabase database)
+      throws SQLException {
+    try (ConnectionPool pool = newPool(database, 0, 1, 60_000)) {
+      Connection borrowed = pool.getConnection();
+      long start = System.nanoTime();
+      try {
+        pool.getConnection();
+        throw new AssertionError("Borrowing from an exhausted pool did not time out.");
+      } catch (SQLException e) {
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        check(waitedMillis >= 90, "Borrow gave up after " + waitedMillis + " ms, not 100 ms.");
+      }
+      check(pool.getMetrics().getTimeoutCount() == 1, "The timeout was not counted.");
+
+      borrowed.close();
+      try (Connection again = pool.getConnection()) {
+        check(!again.isClosed(), "The returned connection could not be borrowed again.");
+      }
+      check(pool.getMetrics().getCreatedCount() == 1, "The returned connection was not reused.");
+    }
+    pass("borrow timeout");
+  }
+
+  private static void closingTwiceReturnsConnectionOnce(FakeDatabase database)
+      throws SQLException {
+    try (ConnectionPool pool = newPool(database, 0, 2, 60_000)) {
+      Connection connection = pool.getConnection();
+      connection.close();
+      connection.close();
+      check(connection.isClosed(), "A returned handle does not report itself closed.");
+      check(pool.getActiveCount() == 0, "Active count is " + pool.getActiveCount() + ".");
+      check(pool.getIdleCount() == 1, "Idle count is " + pool.getIdleCount() + ", not 1.");
+      try {
+        connection.createStatement();
+        throw new AssertionError("A returned handle could still be used.");
+      } catch (SQLException e) {
+        // Expected: the handle no longer owns the connection
+      }
+
+      // Both permits are still available, so two connections can be borrowed at once
+      try (Connection first = pool.getConnection(); Connection second = pool.getConnection()) {
+        check(first != second, "The same handle was lent twice.");
+      }
+      check(pool.getMetrics().getTimeoutCount() == 0, "Closing twice leaked a permit.");
+    }
+    pass("double close");
+  }
+
+  private static void invalidIdleConnectionIsReplaced(FakeDatabase database)
+      throws SQLException, InterruptedException {
+    try (ConnectionPool pool = newPool(database, 1, 1, 60_000)) {
+      FakeDatabase.FakeConnection first = database.opened(database.openedCount() - 1);
+      first.invalidate();
+      // Connections idle for less than the validation interval are lent without a check
+      Thread.sleep(VALIDATION_INTERVAL_MILLIS + 200);
+
+      try (Connection connection = pool.getConnection()) {
+        check(!connection.isClosed(), "The replacement connection is closed.");
+      }
+      check(first.isClosed(), "The invalid connection was not closed.");
+      check(pool.getMetrics().getEvictedCount() == 1, "The invalid connection was not counted.");
+      check(pool.getMetrics().getCreatedCount() == 2, "No replacement connection was opened.");
+    }
+    pass("invalid connection replaced");
+  }
+
+  private static void idleConnectionsAreEvictedDownToMinimum(FakeDatabase database)
+      throws SQLException, InterruptedException {
+    try (ConnectionPool pool = newPool(database, 1, 3, 100)) {
+      int firstOpened = database.openedCount() - 1;
+      Connection a = pool.getConnection();
+      Connection b = pool.getConnection();
+      Connection c = pool.getConnection();
+      a.close();
+      b.close();
+      c.close();
+      check(pool.getIdleCount() == 3, "Idle count is " + pool.getIdleCount() + ", not 3.");
+
+      Thread.sleep(2 * EVICTION_PERIOD_MILLIS + 500);
+      check(pool.getIdleCount() == 1,
+          "Idle count after eviction is " + pool.getIdleCount() + ", not the minimum of 1.");
+      check(pool.getMetrics().getEvictedCount() == 2,
+          "Evicted " + pool.getMetrics().getEvictedCount() + " connections, not 2.");
+      int closed = 0;
+      for (int i = firstOpened; i < database.openedCount(); i++) {
+        closed += database.opened(i).isClosed() ? 1 : 0;
+      }
+      check(closed == 2, closed + " evicted connections were closed, not 2.");
+    }
+    pass("idle eviction");
+  }
+
+  private static void closingPoolClosesConnections(FakeDatabase database) throws SQLException {
+    ConnectionPool pool = newPool(database, 1, 2, 60_000);
+    FakeDatabase.FakeConnection idle = database.opened(database.openedCount() - 1);
+    Connection borrowed = pool.getConnection();
+    Connection second = pool.getConnection();
+    FakeDatabase.FakeConnection secondPhysical = database.opened(database.openedCount() - 1);
+    borrowed.close();
+    pool.close();
+    pool.close();
+    check(idle.isClosed(), "An idle connection was left open when the pool closed.");
+
+    second.close();
+    check(secondPhysical.isClosed(), "A connection returned after the pool closed was kept.");
+    try {
+      pool.getConnection();
+      throw new AssertionError("A closed pool lent a connection.");
+    } catch (SQLException e) {
+      // Expected
+    }
+    pass("pool close");
+  }
+
+  private static ConnectionPool newPool(FakeDatabase database, int minSize, int maxSize,
+      long idleTimeoutMillis) throws SQLException {
+    return new ConnectionPool(database.url(), "user", "password", minSize, maxSize, 100,
+        idleTimeoutMillis, "SELECT 1", 0);
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+  private static void pass(String name) {
+    System.out.println("ok - " + name);
+  }
+}
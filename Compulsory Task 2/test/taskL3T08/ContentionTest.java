@@ -0,0 +1,210 @@
+package taskL3T08;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ContentionTest class checks that concurrent read-modify-write updates of the same projects
+ * lose no updates, both with optimistic versioned updates through
+ * {@link ProjectManager#updateProject(Connection, int, Map, int)}, retried on conflict, and with
+ * the rows locked by {@code SELECT ... FOR UPDATE}. Each thread adds 1 to the amount paid of a few
+ * shared projects many times; afterwards every increment must be in the amount paid and in the
+ * row version. It runs against an embedded H2 database in MySQL mode, which must be on the class
+ * path. Run it with {@code main}; it exits with an error at the first failed check.
+ */
+public class ContentionTest {
+  private static final int THREADS = 8;
+  private static final int INCREMENTS_PER_THREAD = 200;
+  private static final int HOT_PROJECTS = 2;
+  private static final String URL = "jdbc:h2:mem:contention;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+      + "CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000";
+
+  /** One read-modify-write increment, returning the number of conflicts retried. */
+  @FunctionalInterface
+  private interface Increment {
+    int run(Connection connection, ProjectManager projectManager, int projectId)
+        throws SQLException;
+  }
+
+  public static void main(String[] args) throws Exception {
+    try (Connection connection = DriverManager.getConnection(URL, "sa", "")) {
+      try (Statement statement = connection.createStatement()) {
+        // The migrator serialises itself with MySQL's named locks, which H2 does not have
+        statement.execute("CREATE ALIAS GET_LOCK FOR \"taskL3T08.ContentionTest.getLock\"");
+        statement.execute(
+            "CREATE ALIAS RELEASE_LOCK FOR \"taskL3T08.ContentionTest.releaseLock\"");
+      }
+      new SchemaMigrator(connection).migrate();
+
+      noLostUpdates(connection, "optimistic", ContentionTest::incrementOptimistic);
+      noLostUpdates(connection, "SELECT ... FOR UPDATE", ContentionTest::incrementPessimistic);
+    }
+    System.out.println("ContentionTest: all checks passed.");
+  }
+
+  public static int getLock(String name, int timeout) {
+    return 1;
+  }
+
+  public static int releaseLock(String name) {
+    return 1;
+  }
+
+  private static void noLostUpdates(Connection connection, String strategy, Increment increment)
+      throws Exception {
+    List<Integer> projectIds = new ArrayList<>();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("DELETE FROM Projects");
+      for (int i = 0; i < HOT_PROJECTS; i++) {
+        statement.executeUpdate("INSERT INTO Projects (project_number, project_name, total_fee, "
+            + "total_paid) VALUES ('C-" + i + "', 'Contended', 1000000, 0)",
+            Statement.RETURN_GENERATED_KEYS);
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+          keys.next();
+          projectIds.add(keys.getInt(1));
+        }
+      }
+    }
+    Map<Integer, Integer> versionsBefore = readVersions(connection, projectIds);
+
+    AtomicInteger conflicts = new AtomicInteger();
+    CountDownLatch ready = new CountDownLatch(THREADS);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int thread = t;
+      tasks.add(() -> {
+        ProjectManager projectManager = new ProjectManager(null);
+        projectManager.setMessages(new PrintStream(OutputStream.nullOutputStream()));
+        try (Connection own = DriverManager.getConnection(URL, "sa", "")) {
+          ready.countDown();
+          ready.await();
+          for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+            int projectId = projectIds.get((thread + i) % HOT_PROJECTS);
+            conflicts.addAndGet(increment.run(own, projectManager, projectId));
+          }
+        }
+        return null;
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    int expected = THREADS * INCREMENTS_PER_THREAD;
+    int paid = 0;
+    int versions = 0;
+    Map<Integer, Integer> versionsAfter = readVersions(connection, projectIds);
+    String sql = "SELECT total_paid FROM Projects WHERE project_id = ?";
+    try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+      for (int projectId : projectIds) {
+        preparedStatement.setInt(1, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          resultSet.next();
+          paid += (int) Math.round(resultSet.getDouble(1));
+        }
+        versions += versionsAfter.get(projectId) - versionsBefore.get(projectId);
+      }
+    }
+    check(paid == expected, strategy + ": " + (expected - paid) + " of " + expected
+        + " increments were lost.");
+    check(versions == expected, strategy + ": the versions moved " + versions + " times for "
+        + expected + " increments.");
+    pass(THREADS + " threads, " + strategy + ", no lost updates (" + conflicts.get()
+        + " conflicts retried)");
+  }
+
+  /**
+   * Adds 1 to a project's amount paid with a versioned update, retrying if another thread changed
+   * the project in between.
+   */
+  private static int incrementOptimistic(Connection connection, ProjectManager projectManager,
+      int projectId) throws SQLException {
+    String sql = "SELECT total_paid, version FROM Projects WHERE project_id = ?";
+    for (int conflicts = 0;; conflicts++) {
+      double totalPaid;
+      int version;
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        preparedStatement.setInt(1, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          resultSet.next();
+          totalPaid = resultSet.getDouble(1);
+          version = resultSet.getInt(2);
+        }
+      }
+      UpdateResult result = projectManager.updateProject(connection, projectId,
+          Map.of("total_paid", totalPaid + 1), version);
+      check(result != UpdateResult.NOT_FOUND, "Project " + projectId + " was not found.");
+      if (result == UpdateResult.UPDATED) {
+        return conflicts;
+      }
+    }
+  }
+
+  /**
+   * Adds 1 to a project's amount paid while holding its row lock.
+   */
+  private static int incrementPessimistic(Connection connection, ProjectManager projectManager,
+      int projectId) throws SQLException {
+    connection.setAutoCommit(false);
+    try {
+      double totalPaid;
+      String sql = "SELECT total_paid FROM Projects WHERE project_id = ? FOR UPDATE";
+      try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
+        preparedStatement.setInt(1, projectId);
+        try (ResultSet resultSet = preparedStatement.executeQuery()) {
+          resultSet.next();
+          totalPaid = resultSet.getDouble(1);
+        }
+      }
+      check(projectManager.updateProject(connection, projectId,
+          Map.of("total_paid", totalPaid + 1)), "Project " + projectId + " was not updated.");
+      connection.commit();
+      return 0;
+    } catch (SQLException | RuntimeException e) {
+      connection.rollback();
+      throw e;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  private static Map<Integer, Integer> readVersions(Connection connection,
+      List<Integer> projectIds) throws SQLException {
+    Map<Integer, Integer> versions = new HashMap<>();
+    for (int projectId : projectIds) {
+      versions.put(projectId, RowVersions.find(connection, Table.PROJECTS, projectId));
+    }
+    return versions;
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+  private static void pass(String name) {
+    System.out.println("ok - " + name);
+  }
+}
@@ -0,0 +1,387 @@
+package taskL3T08;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * The FakeDatabase class is an in-memory JDBC driver for the checks in this directory. It keeps
+ * the connections it opens so that checks can make them fail validation, and just enough of the
+ * Projects table to insert projects and look up project numbers. With the unique index on
+ * {@code project_number} in place, duplicate project numbers are rejected the way MySQL or a
+ * standard database reports them.
+ */
+class FakeDatabase implements Driver {
+  /** How a duplicate project number is reported. */
+  enum DuplicateErrors {
+    /** MySQL's ER_DUP_ENTRY: vendor code 1062 with SQLSTATE 23000. */
+    MYSQL,
+    /** The standard SQLSTATE 23505, with no vendor code. */
+    STANDARD
+  }
+
+  /** The only architect ID the foreign key on {@code architect_id} accepts. */
+  static final int ARCHITECT_ID = 1;
+
+  private static final AtomicInteger NEXT_DATABASE = new AtomicInteger();
+
+  private final String url = "jdbc:fake-test:" + NEXT_DATABASE.incrementAndGet();
+  private final List<FakeConnection> connections = new CopyOnWriteArrayList<>();
+
+  /** The project number of every inserted project, in project ID order. */
+  private final List<String> projectNumbers = new ArrayList<>();
+  private volatile boolean uniqueIndex = true;
+  private volatile DuplicateErrors duplicateErrors = DuplicateErrors.MYSQL;
+
+  /**
+   * Creates an empty database and registers its driver with {@link DriverManager}.
+   *
+   * @return The database.
+   * @throws SQLException If the driver cannot be registered.
+   */
+  static FakeDatabase register() throws SQLException {
+    FakeDatabase database = new FakeDatabase();
+    DriverManager.registerDriver(database);
+    return database;
+  }
+
+  /**
+   * Unregisters the database's driver.
+   *
+   * @throws SQLException If the driver cannot be unregistered.
+   */
+  void deregister() throws SQLException {
+    DriverManager.deregisterDriver(this);
+  }
+
+  String url() {
+    return url;
+  }
+
+  /**
+   * Gets a connection opened by this database, in the order they were opened.
+   *
+   * @param index The index of the connection.
+   * @return The connection's state.
+   */
+  FakeConnection opened(int index) {
+    return connections.get(index);
+  }
+
+  int openedCount() {
+    return connections.size();
+  }
+
+  void setUniqueIndex(boolean uniqueIndex) {
+    this.uniqueIndex = uniqueIndex;
+  }
+
+  void setDuplicateErrors(DuplicateErrors duplicateErrors) {
+    this.duplicateErrors = duplicateErrors;
+  }
+
+  /**
+   * Counts the projects with a project number.
+   *
+   * @param projectNumber The project number.
+   * @return The number of rows with that project number.
+   */
+  synchronized int countProjects(String projectNumber) {
+    int count = 0;
+    for (String stored : projectNumbers) {
+      if (stored.equals(projectNumber)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  synchronized int projectCount() {
+    return projectNumbers.size();
+  }
+
+  @Override
+  public Connection connect(String url, Properties info) {
+    if (!acceptsURL(url)) {
+      return null;
+    }
+    FakeConnection connection = new FakeConnection();
+    connections.add(connection);
+    return connection.proxy;
+  }
+
+  @Override
+  public boolean acceptsURL(String url) {
+    return this.url.equals(url);
+  }
+
+  @Override
+  public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+    return new DriverPropertyInfo[0];
+  }
+
+  @Override
+  public int getMajorVersion() {
+    return 1;
+  }
+
+  @Override
+  public int getMinorVersion() {
+    return 0;
+  }
+
+  @Override
+  public boolean jdbcCompliant() {
+    return false;
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  /**
+   * Inserts a project, enforcing the unique index and the foreign key on {@code architect_id}.
+   *
+   * @return The generated project ID.
+   */
+  private int insertProject(String projectNumber, Object architectId) throws SQLException {
+    // Give other threads a chance to run between their checks and inserts
+    Thread.yield();
+    synchronized (this) {
+      if (uniqueIndex && projectNumbers.contains(projectNumber)) {
+        String message = "Duplicate entry '" + projectNumber
+            + "' for key 'Projects.ux_projects_project_number'";
+        throw duplicateErrors == DuplicateErrors.MYSQL
+            ? new SQLIntegrityConstraintViolationException(message, "23000", 1062)
+            : new SQLIntegrityConstraintViolationException(message, "23505", 0);
+      }
+      if (architectId != null && !architectId.equals(ARCHITECT_ID)) {
+        throw new SQLIntegrityConstraintViolationException(
+            "Cannot add or update a child row: a foreign key constraint fails", "23000", 1452);
+      }
+      projectNumbers.add(projectNumber);
+      return projectNumbers.size();
+    }
+  }
+
+  private synchronized boolean hasProject(String projectNumber) {
+    return projectNumbers.contains(projectNumber);
+  }
+
+  private ResultSet indexInfo() {
+    List<Object[]> indexes = new ArrayList<>();
+    indexes.add(new Object[] {"PRIMARY", "project_id"});
+    if (uniqueIndex) {
+      indexes.add(new Object[] {"ux_projects_project_number", "project_number"});
+    }
+    return resultSet(new String[] {"INDEX_NAME", "COLUMN_NAME"}, indexes);
+  }
+
+  /**
+   * Creates a result set over rows of values, read by column index or label.
+   */
+  static ResultSet resultSet(String[] labels, List<Object[]> rows) {
+    int[] position = {-1};
+    Object[] lastValue = {null};
+    return proxy(ResultSet.class, (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "next":
+          return ++position[0] < rows.size();
+        case "getInt":
+        case "getString":
+        case "getObject":
+          int column = args[0] instanceof Integer index ? index - 1 : indexOf(labels, args[0]);
+          lastValue[0] = rows.get(position[0])[column];
+          if (method.getName().equals("getInt")) {
+            return lastValue[0] == null ? 0 : ((Number) lastValue[0]).intValue();
+          }
+          return method.getName().equals("getString") && lastValue[0] != null
+              ? lastValue[0].toString() : lastValue[0];
+        case "wasNull":
+          return lastValue[0] == null;
+        case "close":
+          return null;
+        default:
+          return unsupported(proxy, method, args);
+      }
+    });
+  }
+
+  private static int indexOf(String[] labels, Object label) throws SQLException {
+    for (int i = 0; i < labels.length; i++) {
+      if (labels[i].equalsIgnoreCase((String) label)) {
+        return i;
+      }
+    }
+    throw new SQLException("Unknown column: " + label);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(FakeDatabase.class.getClassLoader(), new Class<?>[] {type},
+        handler);
+  }
+
+  /**
+   * Answers the methods every proxy must support and rejects the rest, so a check fails loudly
+   * when the code under test uses something this fake does not model.
+   */
+  private static Object unsupported(Object proxy, Method method, Object[] args)
+      throws SQLException {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return "Fake" + method.getDeclaringClass().getSimpleName();
+      default:
+        throw new SQLFeatureNotSupportedException("Not faked: " + method);
+    }
+  }
+
+  /**
+   * The FakeConnection class is the state of one connection opened by the database.
+   */
+  final class FakeConnection implements InvocationHandler {
+    private final Connection proxy = proxy(Connection.class, this);
+    private volatile boolean valid = true;
+    private volatile boolean closed;
+    private boolean autoCommit = true;
+
+    /**
+     * Makes the connection fail validation, as if the server had dropped it.
+     */
+    void invalidate() {
+      valid = false;
+    }
+
+    boolean isClosed() {
+      return closed;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "close":
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "isValid":
+          return valid && !closed;
+        case "getAutoCommit":
+          return autoCommit;
+        case "setAutoCommit":
+          autoCommit = (Boolean) args[0];
+          return null;
+        case "commit":
+        case "rollback":
+          return null;
+        case "getCatalog":
+          return "poisepms";
+        case "getMetaData":
+          return proxy(DatabaseMetaData.class, (metaData, metaMethod, metaArgs) ->
+              metaMethod.getName().equals("getIndexInfo")
+                  ? indexInfo() : unsupported(metaData, metaMethod, metaArgs));
+        case "createStatement":
+          return proxy(Statement.class, this::validationStatement);
+        case "prepareStatement":
+          return proxy(PreparedStatement.class, new FakePreparedStatement((String) args[0]));
+        default:
+          return unsupported(proxy, method, args);
+      }
+    }
+
+    /**
+     * Runs a validation query, which fails once the connection is invalid.
+     */
+    private Object validationStatement(Object statement, Method method, Object[] args)
+        throws SQLException {
+      switch (method.getName()) {
+        case "execute":
+          if (!valid) {
+            throw new SQLException("Communications link failure", "08S01");
+          }
+          return true;
+        case "setQueryTimeout":
+        case "close":
+          return null;
+        default:
+          return unsupported(statement, method, args);
+      }
+    }
+  }
+
+  /**
+   * The FakePreparedStatement class runs the statements {@link ProjectManager} uses to insert a
+   * project only if its project number is new.
+   */
+  private final class FakePreparedStatement implements InvocationHandler {
+    private final String sql;
+    private final Map<Integer, Object> parameters = new HashMap<>();
+    private int generatedId;
+
+    private FakePreparedStatement(String sql) {
+      this.sql = sql;
+    }
+
+    @Override
+    public Object invoke(Object statement, Method method, Object[] args) throws Throwable {
+      switch (method.getName()) {
+        case "setString":
+        case "setInt":
+        case "setDouble":
+        case "setDate":
+        case "setBoolean":
+          parameters.put((Integer) args[0], args[1]);
+          return null;
+        case "setNull":
+          parameters.put((Integer) args[0], null);
+          return null;
+        case "executeUpdate":
+          if (!sql.startsWith("INSERT INTO Projects")) {
+            return unsupported(statement, method, args);
+          }
+          generatedId = insertProject((String) parameters.get(1), parameters.get(10));
+          return 1;
+        case "executeQuery":
+          if (!sql.startsWith("SELECT 1 FROM Projects WHERE project_number = ?")) {
+            return unsupported(statement, method, args);
+          }
+          List<Object[]> found = new ArrayList<>();
+          if (hasProject((String) parameters.get(1))) {
+            found.add(new Object[] {1});
+          }
+          return resultSet(new String[] {"1"}, found);
+        case "getGeneratedKeys":
+          return resultSet(new String[] {"GENERATED_KEY"}, List.<Object[]>of(
+              new Object[] {generatedId}));
+        case "close":
+          return null;
+        default:
+          return unsupported(statement, method, args);
+      }
+    }
+  }
+}
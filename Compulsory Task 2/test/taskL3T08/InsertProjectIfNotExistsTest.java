@@ -0,0 +1,154 @@
+package taskL3T08;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The InsertProjectIfNotExistsTest class checks {@link ProjectManager#insertProjectIfNotExists}
+ * against a {@link FakeDatabase}. Many threads insert the same project numbers in different
+ * orders, and each number must be inserted exactly once, with every other attempt reported as a
+ * duplicate, whether the database reports duplicates with MySQL's error code 1062 or the standard
+ * SQLSTATE 23505. Other constraint violations must still fail. Run it with {@code main}; it exits
+ * with an error at the first failed check.
+ */
+public class InsertProjectIfNotExistsTest {
+  private static final int THREADS = 16;
+  private static final int PROJECT_NUMBERS = 200;
+
+  public static void main(String[] args) throws Exception {
+    FakeDatabase database = FakeDatabase.register();
+    try {
+      // ProjectManager remembers once it has seen the unique index, so this check runs first
+      duplicateIsFoundWithoutUniqueIndex(database);
+      database.setUniqueIndex(true);
+      concurrentInsertsOfOverlappingNumbers(database, FakeDatabase.DuplicateErrors.MYSQL, "A");
+      concurrentInsertsOfOverlappingNumbers(database, FakeDatabase.DuplicateErrors.STANDARD, "B");
+      otherConstraintViolationsFail(database);
+    } finally {
+      database.deregister();
+    }
+    System.out.println("InsertProjectIfNotExistsTest: all checks passed.");
+  }
+
+  private static void duplicateIsFoundWithoutUniqueIndex(FakeDatabase database)
+      throws SQLException {
+    database.setUniqueIndex(false);
+    ProjectManager projectManager = quietProjectManager();
+    try (Connection connection = DriverManager.getConnection(database.url())) {
+      check(insert(projectManager, connection, "X-1", 0) == InsertResult.INSERTED,
+          "The first insert of X-1 was not inserted.");
+      check(insert(projectManager, connection, "X-1", 0) == InsertResult.DUPLICATE,
+          "The second insert of X-1 was not reported as a duplicate.");
+    }
+    check(database.countProjects("X-1") == 1, "X-1 was stored more than once.");
+    pass("lookup without unique index");
+  }
+
+  private static void concurrentInsertsOfOverlappingNumbers(FakeDatabase database,
+      FakeDatabase.DuplicateErrors errors, String prefix) throws Exception {
+    database.setDuplicateErrors(errors);
+    int before = database.projectCount();
+    List<String> numbers = new ArrayList<>();
+    for (int i = 0; i < PROJECT_NUMBERS; i++) {
+      numbers.add(prefix + "-" + i);
+    }
+
+    ConcurrentHashMap<String, AtomicInteger> inserted = new ConcurrentHashMap<>();
+    AtomicInteger duplicates = new AtomicInteger();
+    CountDownLatch ready = new CountDownLatch(THREADS);
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      List<String> order = new ArrayList<>(numbers);
+      Collections.shuffle(order, new Random(t));
+      tasks.add(() -> {
+        ProjectManager projectManager = quietProjectManager();
+        try (Connection connection = DriverManager.getConnection(database.url())) {
+          ready.countDown();
+          ready.await();
+          for (String number : order) {
+            if (insert(projectManager, connection, number, 0) == InsertResult.INSERTED) {
+              inserted.computeIfAbsent(number, key -> new AtomicInteger()).incrementAndGet();
+            } else {
+              duplicates.incrementAndGet();
+            }
+          }
+        }
+        return null;
+      });
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      for (Future<Void> future : executor.invokeAll(tasks)) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    for (String number : numbers) {
+      AtomicInteger count = inserted.get(number);
+      check(count != null && count.get() == 1, number + " was reported inserted "
+          + (count == null ? 0 : count.get()) + " times.");
+      check(database.countProjects(number) == 1, number + " is stored "
+          + database.countProjects(number) + " times.");
+    }
+    check(duplicates.get() == (THREADS - 1) * PROJECT_NUMBERS,
+        duplicates.get() + " duplicates were reported, not " + (THREADS - 1) * PROJECT_NUMBERS);
+    check(database.projectCount() - before == PROJECT_NUMBERS, "Unexpected rows were stored.");
+    pass(THREADS + " threads inserting " + PROJECT_NUMBERS + " project numbers, " + errors
+        + " duplicate errors");
+  }
+
+  private static void otherConstraintViolationsFail(FakeDatabase database) throws SQLException {
+    ProjectManager projectManager = quietProjectManager();
+    try (Connection connection = DriverManager.getConnection(database.url())) {
+      try {
+        insert(projectManager, connection, "C-1", FakeDatabase.ARCHITECT_ID + 1);
+        throw new AssertionError("A foreign key violation was not reported.");
+      } catch (SQLIntegrityConstraintViolationException e) {
+        check(e.getErrorCode() == 1452, "Unexpected error: " + e.getMessage());
+      }
+      check(insert(projectManager, connection, "C-1", FakeDatabase.ARCHITECT_ID)
+          == InsertResult.INSERTED, "C-1 was not inserted after the failed attempt.");
+    }
+    pass("foreign key violations are not duplicates");
+  }
+
+  private static InsertResult insert(ProjectManager projectManager, Connection connection,
+      String projectNumber, int architectId) throws SQLException {
+    return projectManager.insertProjectIfNotExists(connection, projectNumber, "Project",
+        "House", "1 Main Road", "ERF-" + projectNumber, 1000, 0, "2030-01-01", architectId, 0,
+        0, 0, 0);
+  }
+
+  private static ProjectManager quietProjectManager() {
+    ProjectManager projectManager = new ProjectManager(null);
+    projectManager.setMessages(new PrintStream(OutputStream.nullOutputStream()));
+    return projectManager;
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new AssertionError(message);
+    }
+  }
+
+  private static void pass(String name) {
+    System.out.println("ok - " + name);
+  }
+}